@@ -7,13 +7,13 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity 
-@Table(name="agents")
+@Table(name="agents", uniqueConstraints=@UniqueConstraint(columnNames={"agent_id","version"}))
 @Getter 
 @Setter
 public class AgentRecord {
   @Id @GeneratedValue private UUID id;
 
-  @Column(nullable=false, unique=true) private String agentId;
+  @Column(nullable=false) private String agentId;
   @Column(nullable=false) private String displayName;
   @Column(nullable=false) private String version;
   @Column(nullable=false) private String dockerImage;
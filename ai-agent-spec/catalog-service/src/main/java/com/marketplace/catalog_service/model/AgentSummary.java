@@ -0,0 +1,8 @@
+package com.marketplace.catalog_service.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Listing projection of AgentRecord: scalar columns only, no schema/limits/secrets/metadata JSON
+public record AgentSummary(UUID id, String agentId, String displayName, String version,
+                           String dockerImage, Instant createdAt) {}
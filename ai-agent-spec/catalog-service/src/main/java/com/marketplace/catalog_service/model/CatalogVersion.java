@@ -0,0 +1,18 @@
+package com.marketplace.catalog_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Single row (id 1) counting changes to the catalog; see V2__catalog_version.sql
+@Entity
+@Table(name="catalog_version")
+@Getter
+@Setter
+public class CatalogVersion {
+  public static final int ID = 1;
+
+  @Id private Integer id;
+
+  @Column(nullable=false) private Long version;
+}
@@ -1,10 +1,28 @@
 package com.marketplace.catalog_service.repo;
 
 import com.marketplace.catalog_service.model.AgentRecord;
+import com.marketplace.catalog_service.model.AgentSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface AgentRepository extends JpaRepository<AgentRecord, UUID> {
   Optional<AgentRecord> findByAgentIdAndVersion(String agentId, String version);
+  Optional<AgentRecord> findFirstByAgentIdOrderByCreatedAtDesc(String agentId);
+
+  // Listing pages in (agentId, version) order, which the unique constraint indexes
+  @Query("select new com.marketplace.catalog_service.model.AgentSummary(a.id, a.agentId, a.displayName, "
+      + "a.version, a.dockerImage, a.createdAt) from AgentRecord a order by a.agentId, a.version")
+  List<AgentSummary> findSummaries(Pageable page);
+
+  @Query("select new com.marketplace.catalog_service.model.AgentSummary(a.id, a.agentId, a.displayName, "
+      + "a.version, a.dockerImage, a.createdAt) from AgentRecord a "
+      + "where a.agentId > :agentId or (a.agentId = :agentId and a.version > :version) "
+      + "order by a.agentId, a.version")
+  List<AgentSummary> findSummariesAfter(@Param("agentId") String agentId, @Param("version") String version,
+                                        Pageable page);
 }
@@ -0,0 +1,12 @@
+package com.marketplace.catalog_service.repo;
+
+import com.marketplace.catalog_service.model.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+  @Modifying
+  @Query("update CatalogVersion c set c.version = c.version + 1 where c.id = " + CatalogVersion.ID)
+  int bump();
+}
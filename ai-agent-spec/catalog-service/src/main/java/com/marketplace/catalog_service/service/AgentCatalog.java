@@ -0,0 +1,91 @@
+package com.marketplace.catalog_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.catalog_service.model.AgentSummary;
+import com.marketplace.catalog_service.model.CatalogVersion;
+import com.marketplace.catalog_service.repo.AgentRepository;
+import com.marketplace.catalog_service.repo.CatalogVersionRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Agent listing for the UI sidebar, the runner and the pipeline validator. Pages hold summaries
+ * only and seek on (agentId, version), so a page costs the same wherever it is and whatever the
+ * size of the schemas; full records are fetched per agent. Every registration bumps a
+ * catalog-wide version, which is the listing's ETag: until it changes, clients revalidate to a
+ * 304 without a page being read.
+ */
+@Service
+public class AgentCatalog {
+  public static final int DEFAULT_PAGE = 50;
+  private static final int MAX_PAGE = 200;
+
+  private final AgentRepository repo;
+  private final CatalogVersionRepository versions;
+  private final ObjectMapper mapper;
+
+  public AgentCatalog(AgentRepository repo, CatalogVersionRepository versions, ObjectMapper mapper) {
+    this.repo = repo; this.versions = versions; this.mapper = mapper;
+  }
+
+  // Strong ETag of the listing: identical pages for as long as no agent is registered
+  @Transactional(readOnly = true)
+  public String etag() {
+    long version = versions.findById(CatalogVersion.ID).map(CatalogVersion::getVersion).orElse(0L);
+    return "\"catalog-" + version + "\"";
+  }
+
+  // Call in the transaction that stores the change
+  @Transactional
+  public void changed() {
+    if (versions.bump() == 0) {
+      // Table created without the V2 seed row
+      CatalogVersion row = new CatalogVersion();
+      row.setId(CatalogVersion.ID);
+      row.setVersion(1L);
+      versions.save(row);
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public AgentPage list(String cursor, int size) {
+    int limit = Math.max(1, Math.min(size, MAX_PAGE));
+    // One extra row tells whether there is a next page
+    PageRequest page = PageRequest.of(0, limit + 1);
+    List<AgentSummary> rows;
+    if (cursor == null || cursor.isBlank()) {
+      rows = repo.findSummaries(page);
+    } else {
+      String[] after = decode(cursor);
+      rows = repo.findSummariesAfter(after[0], after[1], page);
+    }
+    if (rows.size() <= limit) return new AgentPage(rows, null);
+    List<AgentSummary> items = new ArrayList<>(rows.subList(0, limit));
+    AgentSummary last = items.get(limit - 1);
+    return new AgentPage(items, encode(last.agentId(), last.version()));
+  }
+
+  private String encode(String agentId, String version) {
+    String json = mapper.createArrayNode().add(agentId).add(version).toString();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String[] decode(String cursor) {
+    try {
+      JsonNode node = mapper.readTree(Base64.getUrlDecoder().decode(cursor));
+      if (node.size() == 2 && node.get(0).isTextual() && node.get(1).isTextual()) {
+        return new String[]{node.get(0).asText(), node.get(1).asText()};
+      }
+    } catch (Exception e) {
+      // fall through
+    }
+    throw new IllegalArgumentException("Invalid cursor");
+  }
+}
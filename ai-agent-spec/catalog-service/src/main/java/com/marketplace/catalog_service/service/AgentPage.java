@@ -0,0 +1,8 @@
+package com.marketplace.catalog_service.service;
+
+import com.marketplace.catalog_service.model.AgentSummary;
+
+import java.util.List;
+
+// One page of the agent listing; pass nextCursor as ?cursor= for the next page, null on the last
+public record AgentPage(List<AgentSummary> items, String nextCursor) {}
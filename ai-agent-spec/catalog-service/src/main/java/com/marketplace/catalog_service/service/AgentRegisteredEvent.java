@@ -0,0 +1,4 @@
+package com.marketplace.catalog_service.service;
+
+// Published once a new agent or agent version has been persisted
+public record AgentRegisteredEvent(String agentId, String version, String dockerImage) {}
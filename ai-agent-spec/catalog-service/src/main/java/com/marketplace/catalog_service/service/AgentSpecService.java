@@ -6,6 +6,7 @@ import com.marketplace.catalog_service.model.AgentRecord;
 import com.marketplace.catalog_service.repo.AgentRepository;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.ValidationMessage;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,9 +17,12 @@ public class AgentSpecService {
   private final JsonSchema schema;
   private final ObjectMapper mapper;
   private final AgentRepository repo;
+  private final ApplicationEventPublisher events;
+  private final AgentCatalog catalog;
 
-  public AgentSpecService(JsonSchema schema, ObjectMapper mapper, AgentRepository repo) {
-    this.schema = schema; this.mapper = mapper; this.repo = repo;
+  public AgentSpecService(JsonSchema schema, ObjectMapper mapper, AgentRepository repo,
+                          ApplicationEventPublisher events, AgentCatalog catalog) {
+    this.schema = schema; this.mapper = mapper; this.repo = repo; this.events = events; this.catalog = catalog;
   }
 
   @Transactional
@@ -45,7 +49,10 @@ public class AgentSpecService {
       if (node.has("resourceLimits")) r.setResourceLimitsJson(node.get("resourceLimits").toString());
       if (node.has("secrets"))        r.setSecretsJson(node.get("secrets").toString());
       if (node.has("metadata"))       r.setMetadataJson(node.get("metadata").toString());
-      return repo.save(r);
+      AgentRecord saved = repo.save(r);
+      catalog.changed();
+      events.publishEvent(new AgentRegisteredEvent(saved.getAgentId(), saved.getVersion(), saved.getDockerImage()));
+      return saved;
     } catch (RuntimeException ex) { throw ex; }
       catch (Exception e) { throw new IllegalArgumentException("Invalid JSON", e); }
   }
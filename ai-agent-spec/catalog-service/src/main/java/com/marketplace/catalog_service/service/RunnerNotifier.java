@@ -0,0 +1,41 @@
+package com.marketplace.catalog_service.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+/**
+ * Tells runner-service about new registrations so it can drop stale specs and
+ * start pulling the image before the first run asks for it.
+ */
+@Component
+public class RunnerNotifier {
+  private static final Logger log = LoggerFactory.getLogger(RunnerNotifier.class);
+
+  private final RestClient client;
+
+  public RunnerNotifier(RestClient.Builder builder, @Value("${services.runner-service.url}") String runnerUrl) {
+    this.client = builder.baseUrl(runnerUrl).build();
+  }
+
+  @Async
+  @TransactionalEventListener
+  public void onRegistered(AgentRegisteredEvent event) {
+    try {
+      client.post()
+            .uri("/runner/agents/{agentId}/registered", event.agentId())
+            .body(Map.of("version", event.version(), "dockerImage", event.dockerImage()))
+            .retrieve()
+            .toBodilessEntity();
+    } catch (Exception e) {
+      // best effort: the runner pulls on demand if it never hears about the registration
+      log.warn("Could not notify runner about {}:{}: {}", event.agentId(), event.version(), e.getMessage());
+    }
+  }
+}
@@ -2,10 +2,14 @@ package com.marketplace.catalog_service.web;
 
 import com.marketplace.catalog_service.model.AgentRecord;
 import com.marketplace.catalog_service.repo.AgentRepository;
+import com.marketplace.catalog_service.service.AgentCatalog;
 import com.marketplace.catalog_service.service.AgentSpecService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -13,7 +17,8 @@ import java.util.UUID;
 public class AgentController {
   private final AgentSpecService service;
   private final AgentRepository repo;
-  public AgentController(AgentSpecService s, AgentRepository r){ this.service=s; this.repo=r; }
+  private final AgentCatalog catalog;
+  public AgentController(AgentSpecService s, AgentRepository r, AgentCatalog c){ this.service=s; this.repo=r; this.catalog=c; }
 
   @PostMapping
   public ResponseEntity<?> create(@RequestBody String body){
@@ -21,12 +26,31 @@ public class AgentController {
     return ResponseEntity.ok(saved);
   }
 
+  // Summaries only, in (agentId, version) order; follow nextCursor for more. Revalidate with
+  // If-None-Match: 304 until an agent is registered. Full records via /agents/{id}
   @GetMapping
-  public ResponseEntity<?> list(){ return ResponseEntity.ok(repo.findAll()); }
+  public ResponseEntity<?> list(@RequestParam(required = false) String cursor,
+                                @RequestParam(defaultValue = "" + AgentCatalog.DEFAULT_PAGE) int limit,
+                                WebRequest request){
+    String etag = catalog.etag();
+    if (request.checkNotModified(etag)) return null;
+    return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(catalog.list(cursor, limit));
+  }
 
   @GetMapping("/{id}")
   public ResponseEntity<?> get(@PathVariable UUID id){
     return repo.findById(id).<ResponseEntity<?>>map(ResponseEntity::ok)
               .orElse(ResponseEntity.notFound().build());
   }
+
+  // Point lookup used by the runner; latest registration wins when no version is given
+  @GetMapping("/by-agent-id/{agentId}")
+  public ResponseEntity<?> getByAgentId(@PathVariable String agentId,
+                                        @RequestParam(required = false) String version){
+    Optional<AgentRecord> found = version == null
+        ? repo.findFirstByAgentIdOrderByCreatedAtDesc(agentId)
+        : repo.findByAgentIdAndVersion(agentId, version);
+    return found.<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+  }
 }
@@ -0,0 +1,6 @@
+-- Single-row catalog-wide version, bumped by every registration; the agent listing's ETag
+CREATE TABLE IF NOT EXISTS catalog_version (
+  id int PRIMARY KEY,
+  version bigint NOT NULL
+);
+INSERT INTO catalog_version (id, version) VALUES (1, 0);
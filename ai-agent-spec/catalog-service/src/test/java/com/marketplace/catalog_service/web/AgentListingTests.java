@@ -0,0 +1,118 @@
+package com.marketplace.catalog_service.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.catalog_service.model.AgentRecord;
+import com.marketplace.catalog_service.repo.AgentRepository;
+import com.marketplace.catalog_service.service.AgentSpecService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AgentListingTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private AgentRepository repo;
+
+	@Autowired
+	private AgentSpecService service;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void pagesWalkTheCatalogInOrderWithSummariesOnly() throws Exception {
+		String prefix = "listing-" + UUID.randomUUID();
+		save(prefix + "-b", "1.0.0");
+		save(prefix + "-a", "2.0.0");
+		save(prefix + "-a", "1.0.0");
+
+		List<String> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			MockHttpServletRequestBuilder request = get("/agents").param("limit", "2");
+			if (cursor != null) {
+				request.param("cursor", cursor);
+			}
+			JsonNode page = mapper.readTree(mvc.perform(request)
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString());
+			assertThat(page.get("items").size()).isLessThanOrEqualTo(2);
+			for (JsonNode item : page.get("items")) {
+				assertThat(item.has("inputSchemaJson")).isFalse();
+				if (item.get("agentId").asText().startsWith(prefix)) {
+					seen.add(item.get("agentId").asText() + "@" + item.get("version").asText());
+				}
+			}
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+		} while (cursor != null);
+
+		assertThat(seen).containsExactly(prefix + "-a@1.0.0", prefix + "-a@2.0.0", prefix + "-b@1.0.0");
+	}
+
+	@Test
+	void unchangedCatalogRevalidatesToNotModified() throws Exception {
+		String etag = mvc.perform(get("/agents"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mvc.perform(get("/agents").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void registrationChangesTheEtag() throws Exception {
+		String etag = mvc.perform(get("/agents"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		String agentId = "listing-" + UUID.randomUUID();
+		service.register("""
+				{"agentId":"%s","displayName":"Listing test","version":"1.0.0",
+				 "dockerImage":"local/%s:1.0.0","healthEndpoint":"/health",
+				 "inputSchema":{"type":"object"}}
+				""".formatted(agentId, agentId));
+
+		mvc.perform(get("/agents").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+	}
+
+	@Test
+	void malformedCursorIsBadRequest() throws Exception {
+		mvc.perform(get("/agents").param("cursor", "not-a-cursor"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private void save(String agentId, String version) {
+		AgentRecord record = new AgentRecord();
+		record.setAgentId(agentId);
+		record.setDisplayName("Listing test");
+		record.setVersion(version);
+		record.setDockerImage("local/" + agentId + ":" + version);
+		record.setHealthEndpoint("/health");
+		record.setInputSchemaJson("{\"type\":\"object\"}");
+		record.setCreatedAt(Instant.now());
+		repo.save(record);
+	}
+}
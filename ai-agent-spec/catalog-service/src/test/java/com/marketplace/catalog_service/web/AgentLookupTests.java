@@ -0,0 +1,74 @@
+package com.marketplace.catalog_service.web;
+
+import com.marketplace.catalog_service.model.AgentRecord;
+import com.marketplace.catalog_service.repo.AgentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AgentLookupTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private AgentRepository repo;
+
+	@Test
+	void latestRegistrationWinsWithoutVersion() throws Exception {
+		String agentId = "lookup-" + UUID.randomUUID();
+		save(agentId, "1.0.0", Instant.now().minusSeconds(60));
+		save(agentId, "2.0.0", Instant.now());
+
+		mvc.perform(get("/agents/by-agent-id/{agentId}", agentId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.agentId").value(agentId))
+				.andExpect(jsonPath("$.version").value("2.0.0"))
+				.andExpect(jsonPath("$.dockerImage").value("local/" + agentId + ":2.0.0"));
+	}
+
+	@Test
+	void versionSelectsThatRegistration() throws Exception {
+		String agentId = "lookup-" + UUID.randomUUID();
+		save(agentId, "1.0.0", Instant.now().minusSeconds(60));
+		save(agentId, "2.0.0", Instant.now());
+
+		mvc.perform(get("/agents/by-agent-id/{agentId}", agentId).param("version", "1.0.0"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.version").value("1.0.0"));
+	}
+
+	@Test
+	void unknownAgentOrVersionIsNotFound() throws Exception {
+		String agentId = "lookup-" + UUID.randomUUID();
+		save(agentId, "1.0.0", Instant.now());
+
+		mvc.perform(get("/agents/by-agent-id/{agentId}", "lookup-" + UUID.randomUUID()))
+				.andExpect(status().isNotFound());
+		mvc.perform(get("/agents/by-agent-id/{agentId}", agentId).param("version", "9.9.9"))
+				.andExpect(status().isNotFound());
+	}
+
+	private void save(String agentId, String version, Instant createdAt) {
+		AgentRecord record = new AgentRecord();
+		record.setAgentId(agentId);
+		record.setDisplayName("Lookup test");
+		record.setVersion(version);
+		record.setDockerImage("local/" + agentId + ":" + version);
+		record.setHealthEndpoint("/health");
+		record.setInputSchemaJson("{\"type\":\"object\"}");
+		record.setCreatedAt(createdAt);
+		repo.save(record);
+	}
+}
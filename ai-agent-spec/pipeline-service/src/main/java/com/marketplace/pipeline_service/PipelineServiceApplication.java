@@ -0,0 +1,15 @@
+package com.marketplace.pipeline_service;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class PipelineServiceApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(PipelineServiceApplication.class, args);
+	}
+
+}
@@ -1,15 +1,32 @@
 package com.marketplace.pipeline_service.controller;
 
+import com.marketplace.pipeline_service.model.ApprovalRequest;
 import com.marketplace.pipeline_service.model.Pipeline;
 import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.service.BlobStore;
+import com.marketplace.pipeline_service.service.ExecutionApprovals;
+import com.marketplace.pipeline_service.service.ExecutionProgress;
+import com.marketplace.pipeline_service.service.PipelineImporter;
 import com.marketplace.pipeline_service.service.PipelineService;
 import com.marketplace.pipeline_service.service.WorkflowExecutor;
+import com.marketplace.pipeline_service.dto.ApprovalDecision;
+import com.marketplace.pipeline_service.dto.ExecutionEvent;
+import com.marketplace.pipeline_service.dto.ExecutionPage;
 import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
 import com.marketplace.pipeline_service.dto.PipelineExecuteRequest;
+import com.marketplace.pipeline_service.dto.PipelineImportReport;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +38,10 @@ public class PipelineController {
     
     private final PipelineService pipelineService;
     private final WorkflowExecutor workflowExecutor;
+    private final ExecutionProgress executionProgress;
+    private final BlobStore blobStore;
+    private final ExecutionApprovals executionApprovals;
+    private final PipelineImporter pipelineImporter;
     
     // Pipeline CRUD operations
     @GetMapping
@@ -43,6 +64,12 @@ public class PipelineController {
         return ResponseEntity.ok(pipeline);
     }
     
+    // Bulk import: one pipeline definition per line (NDJSON); the report has an outcome per line
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<PipelineImportReport> importPipelines(InputStream body) throws IOException {
+        return ResponseEntity.ok(pipelineImporter.importNdjson(body));
+    }
+    
     @PutMapping("/{pipelineId}")
     public ResponseEntity<Pipeline> updatePipeline(
             @PathVariable String pipelineId,
@@ -63,18 +90,24 @@ public class PipelineController {
             @PathVariable String pipelineId,
             @RequestBody PipelineExecuteRequest request) {
         PipelineExecution execution = workflowExecutor.executePipeline(pipelineId, request);
+        if (execution.getStatus() == PipelineExecution.ExecutionStatus.QUEUED
+                || execution.getStatus() == PipelineExecution.ExecutionStatus.WAITING
+                || execution.getStatus() == PipelineExecution.ExecutionStatus.WAITING_APPROVAL) {
+            return ResponseEntity.accepted().body(execution);
+        }
         return ResponseEntity.ok(execution);
     }
     
+    // Execution history: summaries only, newest first; follow nextCursor for older pages
     @GetMapping("/{pipelineId}/executions")
-    public ResponseEntity<List<PipelineExecution>> getPipelineExecutions(
+    public ResponseEntity<ExecutionPage> getPipelineExecutions(
             @PathVariable String pipelineId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size) {
-        List<PipelineExecution> executions = pipelineService.getPipelineExecutions(pipelineId, page, size);
-        return ResponseEntity.ok(executions);
+        return ResponseEntity.ok(pipelineService.getPipelineExecutions(pipelineId, cursor, size));
     }
     
+    // Full execution including input, output, log and step results
     @GetMapping("/executions/{executionId}")
     public ResponseEntity<PipelineExecution> getExecution(@PathVariable String executionId) {
         return pipelineService.getExecutionById(executionId)
@@ -82,6 +115,51 @@ public class PipelineController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Live progress (SSE): a snapshot of the steps so far, then step transitions until the run ends
+    @GetMapping(value = "/executions/{executionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ExecutionEvent>> streamExecution(@PathVariable String executionId) {
+        return executionProgress.subscribe(executionId)
+                .map(event -> ServerSentEvent.builder(event).event(event.getType().name()).build());
+    }
+    
+    // Content of a {"$blob": hash} reference in an execution, copied straight from the file.
+    // The media type comes from agent output, so only known-safe types are served inline.
+    @GetMapping("/executions/{executionId}/blobs/{hash}")
+    public ResponseEntity<StreamingResponseBody> getBlob(@PathVariable String executionId, @PathVariable String hash) {
+        return blobStore.find(executionId, hash)
+                .map(blob -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(blob.mediaType()))
+                        .contentLength(blob.size())
+                        .header("X-Content-Type-Options", "nosniff")
+                        .header(HttpHeaders.CONTENT_DISPOSITION, blob.inline()
+                                ? ContentDisposition.inline().build().toString()
+                                : ContentDisposition.attachment().filename(hash).build().toString())
+                        // Content-addressed, so it never changes
+                        .header("Cache-Control", "private, max-age=31536000, immutable")
+                        .body((StreamingResponseBody) out -> blobStore.transferTo(hash, out)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Approval requests of HUMAN_APPROVAL steps the execution has reached
+    @GetMapping("/executions/{executionId}/approvals")
+    public ResponseEntity<List<ApprovalRequest>> getApprovals(@PathVariable String executionId) {
+        return ResponseEntity.ok(executionApprovals.list(executionId));
+    }
+    
+    // Approval webhook: records the decision; the execution continues on whichever instance claims it
+    @PostMapping("/executions/{executionId}/approvals/{stepId}")
+    public ResponseEntity<ApprovalRequest> decideApproval(
+            @PathVariable String executionId,
+            @PathVariable String stepId,
+            @RequestBody ApprovalDecision decision) {
+        return ResponseEntity.ok(executionApprovals.decide(executionId, stepId, decision));
+    }
+    
+    @PostMapping("/executions/{executionId}/resume")
+    public ResponseEntity<PipelineExecution> resumeExecution(@PathVariable String executionId) {
+        return ResponseEntity.ok(workflowExecutor.resume(executionId));
+    }
+    
     // Pipeline validation
     @PostMapping("/{pipelineId}/validate")
     public ResponseEntity<Map<String, Object>> validatePipeline(@PathVariable String pipelineId) {
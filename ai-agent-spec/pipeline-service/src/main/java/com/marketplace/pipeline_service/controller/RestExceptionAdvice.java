@@ -0,0 +1,23 @@
+package com.marketplace.pipeline_service.controller;
+
+import com.marketplace.pipeline_service.service.ExecutionConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+class RestExceptionAdvice {
+
+    // Unknown pipeline/execution or an invalid definition
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<String> badRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    // Operation not allowed in the current state (e.g. resuming a running execution)
+    @ExceptionHandler(ExecutionConflictException.class)
+    ResponseEntity<String> conflict(ExecutionConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+}
@@ -0,0 +1,15 @@
+package com.marketplace.pipeline_service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApprovalDecision {
+
+    private Boolean approved;
+    private String decidedBy;
+    private String comment;
+}
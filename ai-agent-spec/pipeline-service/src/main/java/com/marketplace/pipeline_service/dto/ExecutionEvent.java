@@ -0,0 +1,43 @@
+package com.marketplace.pipeline_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Progress event pushed on /api/pipelines/executions/{executionId}/events. A subscriber first
+ * gets a SNAPSHOT (execution status plus the latest state of every step seen so far), then
+ * STEP and FINISHED deltas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExecutionEvent {
+    
+    private Type type;
+    private String executionId;
+    private String stepId;
+    private String status; // Step: RUNNING, COMPLETED, FAILED, SKIPPED; execution status otherwise
+    private Instant startedAt;
+    private Long durationMs;
+    private String error;
+    
+    // SNAPSHOT only: latest STEP event per stepId
+    private Map<String, ExecutionEvent> steps;
+    
+    public enum Type {
+        SNAPSHOT,
+        STEP,
+        FINISHED
+    }
+    
+    public static ExecutionEvent step(String executionId, String stepId, String status,
+                                      Instant startedAt, Long durationMs, String error) {
+        return new ExecutionEvent(Type.STEP, executionId, stepId, status, startedAt, durationMs, error, null);
+    }
+}
@@ -0,0 +1,18 @@
+package com.marketplace.pipeline_service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionPage {
+    
+    private List<ExecutionSummary> executions;
+    
+    // Pass as ?cursor= to get the next (older) page; null on the last page
+    private String nextCursor;
+}
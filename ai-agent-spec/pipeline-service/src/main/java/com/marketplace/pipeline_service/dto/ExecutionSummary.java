@@ -0,0 +1,33 @@
+package com.marketplace.pipeline_service.dto;
+
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Row of the execution history list: a {@link PipelineExecution} without its jsonb blobs
+ * (input, output, log, step results), which are fetched per execution.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionSummary {
+    
+    @JsonIgnore
+    private UUID id; // Keyset tiebreaker, not exposed
+    
+    private String executionId;
+    private String pipelineId;
+    private PipelineExecution.ExecutionStatus status;
+    private Instant startedAt;
+    private Instant completedAt;
+    private Long executionTimeMs;
+    private String triggeredBy;
+    private String errorStep;
+    private String errorMessage;
+}
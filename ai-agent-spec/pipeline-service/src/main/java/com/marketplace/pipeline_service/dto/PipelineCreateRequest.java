@@ -25,6 +25,10 @@ public class PipelineCreateRequest {
     // Global pipeline configuration
     private Map<String, Object> globalConfig;
     
+    // Retention overrides in days; null = service defaults (see ExecutionRetention)
+    private Integer retentionDays;
+    private Integer archiveRetentionDays;
+    
     // Pipeline steps (nodes in the visual editor)
     private List<StepDefinition> steps;
     
@@ -55,6 +59,12 @@ public class PipelineCreateRequest {
         private Boolean enabled;
         private String condition;
         private PipelineStep.StepType stepType;
+        
+        // LOOP / PARALLEL settings
+        private String iterateOver;
+        private Integer maxParallelism;
+        private Boolean orderedResults;
+        private List<Map<String, Object>> branches;
     }
     
     @Data
@@ -68,5 +78,7 @@ public class PipelineCreateRequest {
         private Map<String, Object> dataMapping;
         private String condition;
         private Connection.ConnectionType connectionType;
+        private Boolean streaming;
+        private String streamPath;
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@ public class PipelineExecuteRequest {
     // Execution context
     private String triggeredBy;
     private String executionMode = "sync"; // sync, async
+    private Integer priority; // runner scheduling priority of the steps, higher first (default 0)
     
     // Override settings for this execution
     private Map<String, Object> overrides;
@@ -0,0 +1,32 @@
+package com.marketplace.pipeline_service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineImportReport {
+    
+    private int created;
+    private int failed;
+    private long stepsCreated;
+    private long elapsedMs;
+    
+    // One per non-blank input line, in input order
+    private List<Item> items = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int line;
+        private String pipelineId; // null when the line could not be parsed
+        private boolean created;
+        private String error;
+    }
+}
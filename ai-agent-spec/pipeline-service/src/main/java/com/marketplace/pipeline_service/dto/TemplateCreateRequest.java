@@ -0,0 +1,33 @@
+package com.marketplace.pipeline_service.dto;
+
+import com.marketplace.pipeline_service.model.PipelineTemplate;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateCreateRequest {
+    
+    private String templateId;
+    private String displayName;
+    private String description;
+    private String category;
+    private String version;
+    private String author;
+    private List<String> tags;
+    
+    // JSON Schema of the values asked from the user on instantiation
+    private Map<String, Object> configurationSchema;
+    
+    // Pipeline to create; string values may contain {{name}} placeholders for configuration values
+    private PipelineCreateRequest pipelineDefinition;
+    
+    private List<String> requiredCredentials;
+    private Map<String, Object> estimatedCost;
+    private PipelineTemplate.TemplateStatus status;
+}
@@ -0,0 +1,20 @@
+package com.marketplace.pipeline_service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateInstantiateRequest {
+    
+    private String pipelineId;
+    private String displayName;
+    private String createdBy;
+    
+    // Values for the template's {{name}} placeholders
+    private Map<String, Object> configuration;
+}
@@ -0,0 +1,14 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A compiled condition expression, evaluated against a JSON context.
+ */
+@FunctionalInterface
+public interface Condition {
+
+    Condition ALWAYS = context -> true;
+
+    boolean test(JsonNode context);
+}
@@ -0,0 +1,231 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Recursive-descent parser for the JavaScript-like subset used in step and connection
+ * conditions: paths ({@code insights.score}, {@code items[0]}), string/number/boolean/null
+ * literals, comparisons ({@code == != === !== < <= > >=}), {@code ! && ||} and parentheses.
+ * Values are truthy as in JavaScript; missing paths behave like {@code undefined}.
+ */
+final class ConditionParser {
+
+    private interface Operand {
+        JsonNode eval(JsonNode context);
+    }
+
+    private final String source;
+    private int pos;
+
+    private ConditionParser(String source) {
+        this.source = source;
+    }
+
+    static Condition parse(String expression) {
+        ConditionParser parser = new ConditionParser(expression);
+        Operand root = parser.or();
+        parser.skipWhitespace();
+        if (parser.pos < expression.length()) {
+            throw parser.error("Unexpected '" + expression.charAt(parser.pos) + "'");
+        }
+        return context -> truthy(root.eval(context));
+    }
+
+    private Operand or() {
+        Operand left = and();
+        while (accept("||")) {
+            Operand l = left;
+            Operand r = and();
+            left = context -> BooleanNode.valueOf(truthy(l.eval(context)) || truthy(r.eval(context)));
+        }
+        return left;
+    }
+
+    private Operand and() {
+        Operand left = unary();
+        while (accept("&&")) {
+            Operand l = left;
+            Operand r = unary();
+            left = context -> BooleanNode.valueOf(truthy(l.eval(context)) && truthy(r.eval(context)));
+        }
+        return left;
+    }
+
+    private Operand unary() {
+        skipWhitespace();
+        if (peek('!') && !source.startsWith("!=", pos)) {
+            pos++;
+            Operand operand = unary();
+            return context -> BooleanNode.valueOf(!truthy(operand.eval(context)));
+        }
+        return comparison();
+    }
+
+    private Operand comparison() {
+        Operand left = primary();
+        for (String op : new String[]{"===", "!==", "==", "!=", "<=", ">=", "<", ">"}) {
+            if (accept(op)) {
+                Operand right = primary();
+                return switch (op) {
+                    case "===", "==" -> context -> BooleanNode.valueOf(equal(left.eval(context), right.eval(context)));
+                    case "!==", "!=" -> context -> BooleanNode.valueOf(!equal(left.eval(context), right.eval(context)));
+                    default -> context -> BooleanNode.valueOf(compare(op, left.eval(context), right.eval(context)));
+                };
+            }
+        }
+        return left;
+    }
+
+    private Operand primary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("Unexpected end of expression");
+        }
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Operand inner = or();
+            if (!accept(")")) {
+                throw error("Expected ')'");
+            }
+            return inner;
+        }
+        if (c == '\'' || c == '"') {
+            JsonNode literal = TextNode.valueOf(string(c));
+            return context -> literal;
+        }
+        if (Character.isDigit(c) || (c == '-' && pos + 1 < source.length() && Character.isDigit(source.charAt(pos + 1)))) {
+            JsonNode literal = DecimalNode.valueOf(number());
+            return context -> literal;
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            String path = path();
+            switch (path) {
+                case "true":
+                    return context -> BooleanNode.TRUE;
+                case "false":
+                    return context -> BooleanNode.FALSE;
+                case "null":
+                    return context -> NullNode.instance;
+                default:
+                    JsonPath compiled = JsonPath.compile(path);
+                    return compiled::read;
+            }
+        }
+        throw error("Unexpected '" + c + "'");
+    }
+
+    private String string(char quote) {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < source.length() && source.charAt(pos) != quote) {
+            char c = source.charAt(pos++);
+            if (c == '\\' && pos < source.length()) {
+                c = source.charAt(pos++);
+            }
+            sb.append(c);
+        }
+        if (pos >= source.length()) {
+            throw error("Unterminated string");
+        }
+        pos++;
+        return sb.toString();
+    }
+
+    private BigDecimal number() {
+        int start = pos;
+        pos++;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        return new BigDecimal(source.substring(start, pos));
+    }
+
+    private String path() {
+        int start = pos;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (Character.isJavaIdentifierPart(c) || c == '.' || c == '[' || c == ']') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return source.substring(start, pos);
+    }
+
+    private boolean accept(String token) {
+        skipWhitespace();
+        if (source.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean peek(char c) {
+        return pos < source.length() && source.charAt(pos) == c;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos + " in condition: " + source);
+    }
+
+    static boolean truthy(JsonNode value) {
+        if (value == null || value.isMissingNode() || value.isNull()) {
+            return false;
+        }
+        if (value.isBoolean()) {
+            return value.booleanValue();
+        }
+        if (value.isNumber()) {
+            return value.decimalValue().signum() != 0;
+        }
+        if (value.isTextual()) {
+            return !value.textValue().isEmpty();
+        }
+        return true;
+    }
+
+    private static boolean equal(JsonNode a, JsonNode b) {
+        boolean aAbsent = a.isMissingNode() || a.isNull();
+        boolean bAbsent = b.isMissingNode() || b.isNull();
+        if (aAbsent || bAbsent) {
+            return aAbsent && bAbsent;
+        }
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue()) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static boolean compare(String op, JsonNode a, JsonNode b) {
+        int cmp;
+        if (a.isNumber() && b.isNumber()) {
+            cmp = a.decimalValue().compareTo(b.decimalValue());
+        } else if (a.isTextual() && b.isTextual()) {
+            cmp = a.textValue().compareTo(b.textValue());
+        } else {
+            return false;
+        }
+        return switch (op) {
+            case "<" -> cmp < 0;
+            case "<=" -> cmp <= 0;
+            case ">" -> cmp > 0;
+            default -> cmp >= 0;
+        };
+    }
+}
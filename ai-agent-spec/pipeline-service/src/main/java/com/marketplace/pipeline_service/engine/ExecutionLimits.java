@@ -0,0 +1,21 @@
+package com.marketplace.pipeline_service.engine;
+
+import java.time.Duration;
+
+/**
+ * Per-execution bounds for a {@link PlanRun}.
+ *
+ * @param maxParallelSteps steps of one execution running at once
+ * @param streamBuffer     items buffered between a streaming source and its consumer
+ * @param itemConcurrency  items of a LOOP/PARALLEL step processed at once
+ * @param parkAfter        a DELAY longer than this parks the execution instead of waiting in the run
+ */
+public record ExecutionLimits(int maxParallelSteps, int streamBuffer, int itemConcurrency, Duration parkAfter) {
+
+    public ExecutionLimits {
+        maxParallelSteps = Math.max(1, maxParallelSteps);
+        streamBuffer = Math.max(1, streamBuffer);
+        itemConcurrency = Math.max(1, itemConcurrency);
+        parkAfter = parkAfter == null || parkAfter.isNegative() ? Duration.ZERO : parkAfter;
+    }
+}
@@ -0,0 +1,132 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marketplace.pipeline_service.model.Connection;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, detached form of a pipeline ready to be executed. Steps are held in a
+ * topological order and each step knows its incoming and outgoing edges, so an
+ * execution never has to touch the JPA entities. Mappings, conditions and static
+ * config are compiled once here and reused by every execution of the plan.
+ */
+@Getter
+public final class ExecutionPlan {
+
+    private final String pipelineId;
+    private final long version;                  // Pipeline.planVersion this plan was compiled from
+    private final List<StepNode> steps;          // topological order
+    private final Map<String, StepNode> stepsById;
+    private final List<StepNode> roots;
+    private final List<StepNode> sinks;
+
+    ExecutionPlan(String pipelineId, long version, List<StepNode> steps, Map<String, StepNode> stepsById,
+                  List<StepNode> roots, List<StepNode> sinks) {
+        this.pipelineId = pipelineId;
+        this.version = version;
+        this.steps = steps;
+        this.stepsById = stepsById;
+        this.roots = roots;
+        this.sinks = sinks;
+    }
+
+    public StepNode step(String stepId) {
+        return stepsById.get(stepId);
+    }
+
+    /**
+     * A step of the plan. {@code index} is the step's position in the topological order.
+     */
+    @Getter
+    public static final class StepNode {
+        private final int index;
+        private final String stepId;
+        private final String agentId;
+        private final String displayName;
+        private final PipelineStep.StepType stepType;
+        private final boolean enabled;
+        private final int timeoutSeconds;
+        private final int maxRetries;
+        private final Condition condition;
+        private final Mapping inputMapping;
+        private final Mapping outputMapping;
+        private final JsonNode staticConfig; // object or null; shared, never mutated
+        private final JsonPath iterateOver;
+        private final int maxParallelism; // 0 = use the execution default
+        private final boolean orderedResults;
+        private final List<Branch> branches;
+        private final TriggerSchedule schedule; // TRIGGER steps with staticConfig.schedule, else null
+        private List<Edge> incoming = List.of();
+        private List<Edge> outgoing = List.of();
+        private Edge streamIn;  // at most one streaming edge in
+        private Edge streamOut; // and out
+
+        StepNode(int index, PipelineStep step, ExpressionCompiler expressions) {
+            this.index = index;
+            this.stepId = step.getStepId();
+            this.agentId = step.getAgentId();
+            this.displayName = step.getDisplayName();
+            this.stepType = step.getStepType() == null ? PipelineStep.StepType.AGENT : step.getStepType();
+            this.enabled = !Boolean.FALSE.equals(step.getEnabled());
+            this.timeoutSeconds = step.getTimeoutSeconds() == null ? 300 : step.getTimeoutSeconds();
+            this.maxRetries = step.getMaxRetries() == null ? 0 : step.getMaxRetries();
+            this.condition = expressions.condition(step.getCondition());
+            this.inputMapping = expressions.mapping(step.getInputMapping());
+            this.outputMapping = expressions.mapping(step.getOutputMapping());
+            this.staticConfig = expressions.object(step.getStaticConfig());
+            this.iterateOver = JsonPath.compile(step.getIterateOver() == null ? "items" : step.getIterateOver());
+            this.maxParallelism = step.getMaxParallelism() == null ? 0 : Math.max(1, step.getMaxParallelism());
+            this.orderedResults = !Boolean.FALSE.equals(step.getOrderedResults());
+            List<Branch> branches = new ArrayList<>();
+            for (JsonNode branch : expressions.array(step.getBranches())) {
+                String agentId = branch.path("agentId").asText(null);
+                if (agentId == null) {
+                    throw new IllegalArgumentException("Branch of step " + step.getStepId() + " has no agentId");
+                }
+                JsonNode mapping = branch.path("inputMapping");
+                branches.add(new Branch(branch.path("name").asText(agentId), agentId,
+                        mapping.isMissingNode() || mapping.isNull() ? Mapping.IDENTITY : Mapping.compile(mapping)));
+            }
+            this.branches = List.copyOf(branches);
+            this.schedule = stepType == PipelineStep.StepType.TRIGGER && staticConfig != null
+                    ? TriggerSchedule.parse(staticConfig.path("schedule")) : null;
+        }
+
+        void link(List<Edge> incoming, List<Edge> outgoing) {
+            this.incoming = List.copyOf(incoming);
+            this.outgoing = List.copyOf(outgoing);
+            this.streamIn = incoming.stream().filter(Edge::streaming).findFirst().orElse(null);
+            this.streamOut = outgoing.stream().filter(Edge::streaming).findFirst().orElse(null);
+        }
+
+        /** Whether the step runs once per element of its input rather than once overall. */
+        public boolean isIterating() {
+            return stepType == PipelineStep.StepType.LOOP || stepType == PipelineStep.StepType.PARALLEL;
+        }
+    }
+
+    /**
+     * One branch of a PARALLEL step: an agent called with its own view of the step's input.
+     */
+    public record Branch(String name, String agentId, Mapping inputMapping) {
+    }
+
+    /**
+     * A connection between two steps, with its dataMapping and condition already compiled.
+     * A streaming edge hands the source's items to the target as they are produced;
+     * {@code streamPath} selects the array inside each emitted chunk.
+     */
+    public record Edge(String sourceStepId, String targetStepId, String sourcePort, String targetPort,
+                       Mapping dataMapping, Condition condition, Connection.ConnectionType connectionType,
+                       boolean streaming, JsonPath streamPath) {
+
+        public boolean isErrorPath() {
+            return connectionType == Connection.ConnectionType.ERROR;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiles the mapping and condition strings stored on steps and connections into reusable
+ * evaluators. Compiled forms are immutable, so identical expressions across pipelines share
+ * one instance through a small LRU cache.
+ */
+@Component
+public class ExpressionCompiler {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Mapping> mappings;
+    private final Map<String, Condition> conditions;
+
+    public ExpressionCompiler(ObjectMapper objectMapper,
+                              @Value("${pipeline.expressions.cache-size:1024}") int cacheSize) {
+        this.objectMapper = objectMapper;
+        this.mappings = lru(cacheSize);
+        this.conditions = lru(cacheSize);
+    }
+
+    /**
+     * Compiles a JSON mapping template; blank means identity.
+     */
+    public Mapping mapping(String json) {
+        if (json == null || json.isBlank()) {
+            return Mapping.IDENTITY;
+        }
+        return cached(mappings, json, text -> {
+            try {
+                return Mapping.compile(objectMapper.readTree(text));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid mapping: " + text, e);
+            }
+        });
+    }
+
+    /**
+     * Compiles a condition expression; blank means always true.
+     */
+    public Condition condition(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return Condition.ALWAYS;
+        }
+        return cached(conditions, expression.strip(), ConditionParser::parse);
+    }
+
+    /**
+     * Parses a JSON object such as a step's staticConfig once; blank or non-object yields null.
+     */
+    public JsonNode object(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            return node.isObject() ? node : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + json, e);
+        }
+    }
+
+    /**
+     * Parses a JSON array such as a PARALLEL step's branches; blank yields an empty array.
+     */
+    public JsonNode array(String json) {
+        if (json == null || json.isBlank()) {
+            return objectMapper.createArrayNode();
+        }
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (!node.isArray()) {
+                throw new IllegalArgumentException("Expected a JSON array: " + json);
+            }
+            return node;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + json, e);
+        }
+    }
+
+    private static <T> T cached(Map<String, T> cache, String key, Function<String, T> compile) {
+        T compiled = cache.get(key);
+        if (compiled == null) {
+            // Compile outside the lock; a duplicate compile under a race is harmless
+            compiled = compile.apply(key);
+            cache.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    private static <T> Map<String, T> lru(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+}
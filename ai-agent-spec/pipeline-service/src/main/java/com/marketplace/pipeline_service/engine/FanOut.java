@@ -0,0 +1,140 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Execution semantics for LOOP and PARALLEL steps. A LOOP calls its agent once per item; a
+ * PARALLEL step calls each of its branches (per item when it has items). At most
+ * {@code maxParallelism} items or branches are in flight. Work is non-blocking and spread over
+ * the parallel scheduler, so a 500-item loop costs no more threads than a single call; each
+ * call retries on its own up to the step's maxRetries through the invoker.
+ */
+final class FanOut {
+
+    /**
+     * Receives the timing of every item and branch, for the execution log.
+     */
+    @FunctionalInterface
+    interface ItemLog {
+        void record(String stepId, String item, long durationMs, String error);
+    }
+
+    private final StepInvoker invoker;
+    private final ObjectMapper mapper;
+    private final ExecutionLimits limits;
+    private final ItemLog itemLog;
+
+    FanOut(StepInvoker invoker, ObjectMapper mapper, ExecutionLimits limits, ItemLog itemLog) {
+        this.invoker = invoker;
+        this.mapper = mapper;
+        this.limits = limits;
+        this.itemLog = itemLog;
+    }
+
+    /**
+     * Runs a LOOP or PARALLEL step over its own input: a PARALLEL step with branches fans its
+     * input out to them once; otherwise the array at {@code iterateOver} is looped over.
+     */
+    Mono<JsonNode> run(ExecutionPlan.StepNode node, JsonNode input) {
+        if (node.getStepType() == PipelineStep.StepType.PARALLEL && !node.getBranches().isEmpty()) {
+            return item(node, "0", input);
+        }
+        JsonNode collection = node.getIterateOver().read(input);
+        Flux<JsonNode> items = collection.isArray() ? Flux.fromIterable(collection)
+                : collection.isMissingNode() || collection.isNull() ? Flux.empty() : Flux.just(collection);
+        return map(node, items, withoutCollection(node, input));
+    }
+
+    /**
+     * Runs the step once per item, merging each item into {@code base}; results are aggregated
+     * into an array in item order, or in completion order when the step is unordered.
+     */
+    Mono<JsonNode> map(ExecutionPlan.StepNode node, Flux<JsonNode> items, JsonNode base) {
+        Function<Tuple2<Long, JsonNode>, Mono<JsonNode>> work = indexed ->
+                item(node, String.valueOf(indexed.getT1()), itemInput(base, indexed.getT2()))
+                        .subscribeOn(Schedulers.parallel());
+        Flux<Tuple2<Long, JsonNode>> indexed = items.index();
+        Flux<JsonNode> results = node.isOrderedResults()
+                ? indexed.flatMapSequential(work, parallelism(node), 1)
+                : indexed.flatMap(work, parallelism(node), 1);
+        return results.collect(mapper::createArrayNode, ArrayNode::add).map(JsonNode.class::cast);
+    }
+
+    private Mono<JsonNode> item(ExecutionPlan.StepNode node, String label, JsonNode input) {
+        Mono<JsonNode> call = node.getBranches().isEmpty()
+                ? timed(node, "item " + label, invoker.invoke(node, node.getAgentId(), input))
+                : branches(node, label, input);
+        return call.map(output -> node.getOutputMapping().apply(output));
+    }
+
+    private Mono<JsonNode> branches(ExecutionPlan.StepNode node, String label, JsonNode input) {
+        Function<ExecutionPlan.Branch, Mono<Map.Entry<String, JsonNode>>> work = branch ->
+                timed(node, "item " + label + " branch " + branch.name(),
+                        invoker.invoke(node, branch.agentId(), branch.inputMapping().apply(input)))
+                        .map(output -> Map.entry(branch.name(), output))
+                        .subscribeOn(Schedulers.parallel());
+        Flux<ExecutionPlan.Branch> branches = Flux.fromIterable(node.getBranches());
+        Flux<Map.Entry<String, JsonNode>> results = node.isOrderedResults()
+                ? branches.flatMapSequential(work, parallelism(node), 1)
+                : branches.flatMap(work, parallelism(node), 1);
+        return results.collect(mapper::createObjectNode, (out, entry) -> out.set(entry.getKey(), entry.getValue()))
+                .map(JsonNode.class::cast);
+    }
+
+    private Mono<JsonNode> timed(ExecutionPlan.StepNode node, String item, Mono<JsonNode> call) {
+        return Mono.defer(() -> {
+            Instant started = Instant.now();
+            return call.defaultIfEmpty(mapper.nullNode())
+                    .doOnSuccess(output -> itemLog.record(node.getStepId(), item, elapsed(started), null))
+                    .doOnError(e -> itemLog.record(node.getStepId(), item, elapsed(started), String.valueOf(e.getMessage())));
+        });
+    }
+
+    JsonNode itemInput(JsonNode base, JsonNode item) {
+        ObjectNode itemInput = mapper.createObjectNode();
+        if (base.isObject()) {
+            itemInput.setAll((ObjectNode) base);
+        }
+        if (item.isObject()) {
+            itemInput.setAll((ObjectNode) item);
+        } else {
+            itemInput.set("item", item);
+        }
+        return itemInput;
+    }
+
+    /**
+     * The shared part of every item's input: the mapped input without the looped-over array
+     * when it sits at the top level, so it is not copied into each item.
+     */
+    private JsonNode withoutCollection(ExecutionPlan.StepNode node, JsonNode input) {
+        String path = node.getIterateOver().toString();
+        if (!input.isObject() || path.contains(".")) {
+            return input;
+        }
+        ObjectNode base = mapper.createObjectNode().setAll((ObjectNode) input);
+        base.remove(path);
+        return base;
+    }
+
+    private int parallelism(ExecutionPlan.StepNode node) {
+        return node.getMaxParallelism() > 0 ? node.getMaxParallelism() : limits.itemConcurrency();
+    }
+
+    private static long elapsed(Instant started) {
+        return Duration.between(started, Instant.now()).toMillis();
+    }
+}
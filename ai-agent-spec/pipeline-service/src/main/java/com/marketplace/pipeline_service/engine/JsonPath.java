@@ -0,0 +1,50 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pre-split dot path such as {@code insights.statistics} or {@code items.0.title}
+ * ({@code items[0].title} is accepted too). A leading {@code $} refers to the root.
+ */
+public final class JsonPath {
+
+    private final String[] fields;
+    private final int[] indexes; // -1 where the segment is a field name
+
+    private JsonPath(String[] fields, int[] indexes) {
+        this.fields = fields;
+        this.indexes = indexes;
+    }
+
+    public static JsonPath compile(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String part : path.replace("[", ".").replace("]", "").split("\\.")) {
+            if (!part.isEmpty() && !part.equals("$")) {
+                segments.add(part);
+            }
+        }
+        String[] fields = segments.toArray(String[]::new);
+        int[] indexes = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            indexes[i] = fields[i].chars().allMatch(Character::isDigit) ? Integer.parseInt(fields[i]) : -1;
+        }
+        return new JsonPath(fields, indexes);
+    }
+
+    public JsonNode read(JsonNode root) {
+        JsonNode node = root == null ? MissingNode.getInstance() : root;
+        for (int i = 0; i < fields.length && !node.isMissingNode(); i++) {
+            node = indexes[i] >= 0 && node.isArray() ? node.path(indexes[i]) : node.path(fields[i]);
+        }
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(".", fields);
+    }
+}
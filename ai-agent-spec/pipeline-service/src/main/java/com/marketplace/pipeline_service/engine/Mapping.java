@@ -0,0 +1,66 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A compiled data mapping. Applying it walks the source tree directly; nothing is
+ * re-parsed or re-serialized. Returned trees may share nodes with the source and with
+ * the mapping's literals, so callers must not mutate them.
+ */
+@FunctionalInterface
+public interface Mapping {
+
+    /** Passes the source through unchanged. */
+    Mapping IDENTITY = source -> source;
+
+    JsonNode apply(JsonNode source);
+
+    /**
+     * Compiles a mapping template: text values are paths into the source (kept as literals if
+     * they do not resolve), objects and arrays are mapped element by element, anything else is
+     * a literal.
+     */
+    static Mapping compile(JsonNode template) {
+        if (template.isTextual()) {
+            JsonPath path = JsonPath.compile(template.asText());
+            return source -> {
+                JsonNode value = path.read(source);
+                return value.isMissingNode() ? template : value;
+            };
+        }
+        if (template.isObject()) {
+            String[] keys = new String[template.size()];
+            Mapping[] values = new Mapping[template.size()];
+            int i = 0;
+            for (var it = template.fields(); it.hasNext(); i++) {
+                var field = it.next();
+                keys[i] = field.getKey();
+                values[i] = compile(field.getValue());
+            }
+            return source -> {
+                ObjectNode out = JsonNodeFactory.instance.objectNode();
+                for (int k = 0; k < keys.length; k++) {
+                    out.set(keys[k], values[k].apply(source));
+                }
+                return out;
+            };
+        }
+        if (template.isArray()) {
+            Mapping[] elements = new Mapping[template.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = compile(template.get(i));
+            }
+            return source -> {
+                ArrayNode out = JsonNodeFactory.instance.arrayNode(elements.length);
+                for (Mapping element : elements) {
+                    out.add(element.apply(source));
+                }
+                return out;
+            };
+        }
+        return source -> template;
+    }
+}
@@ -0,0 +1,130 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.marketplace.pipeline_service.model.Connection;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a pipeline's steps and connections into an {@link ExecutionPlan}.
+ * Must be called while the pipeline's lazy collections can still be loaded. Malformed
+ * mappings or conditions are rejected here rather than at run time, as are step types the
+ * engine does not run (CONDITION, WEBHOOK) and TRIGGER steps that are not a starting point.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlanCompiler {
+
+    private final ExpressionCompiler expressions;
+
+    public ExecutionPlan compile(Pipeline pipeline) {
+        List<PipelineStep> steps = pipeline.getSteps() == null ? List.of() : pipeline.getSteps();
+        List<Connection> connections = pipeline.getConnections() == null ? List.of() : pipeline.getConnections();
+
+        Map<String, PipelineStep> byId = new LinkedHashMap<>();
+        for (PipelineStep step : steps) {
+            if (byId.put(step.getStepId(), step) != null) {
+                throw new IllegalArgumentException("Duplicate step id: " + step.getStepId());
+            }
+            if (step.getStepType() == PipelineStep.StepType.CONDITION) {
+                throw new IllegalArgumentException("CONDITION step " + step.getStepId()
+                        + " is not supported: put the condition on the step that depends on it or on its connections");
+            }
+            if (step.getStepType() == PipelineStep.StepType.WEBHOOK) {
+                throw new IllegalArgumentException("WEBHOOK step " + step.getStepId()
+                        + " is not supported: call the webhook from an agent step");
+            }
+        }
+
+        Map<String, List<ExecutionPlan.Edge>> incoming = new HashMap<>();
+        Map<String, List<ExecutionPlan.Edge>> outgoing = new HashMap<>();
+        for (Connection c : connections) {
+            if (!byId.containsKey(c.getSourceStepId()) || !byId.containsKey(c.getTargetStepId())) {
+                throw new IllegalArgumentException("Connection " + c.getSourceStepId() + " -> "
+                        + c.getTargetStepId() + " references an unknown step");
+            }
+            if (byId.get(c.getTargetStepId()).getStepType() == PipelineStep.StepType.TRIGGER) {
+                throw new IllegalArgumentException("TRIGGER step " + c.getTargetStepId()
+                        + " starts the pipeline and cannot have incoming connections");
+            }
+            ExecutionPlan.Edge edge = new ExecutionPlan.Edge(c.getSourceStepId(), c.getTargetStepId(),
+                    c.getSourcePort(), c.getTargetPort(),
+                    expressions.mapping(c.getDataMapping()), expressions.condition(c.getCondition()),
+                    c.getConnectionType() == null ? Connection.ConnectionType.DATA : c.getConnectionType(),
+                    Boolean.TRUE.equals(c.getStreaming()),
+                    JsonPath.compile(c.getStreamPath() == null ? "" : c.getStreamPath()));
+            if (edge.streaming()) {
+                validateStreaming(edge, byId.get(edge.targetStepId()), outgoing, incoming);
+            }
+            outgoing.computeIfAbsent(edge.sourceStepId(), k -> new ArrayList<>()).add(edge);
+            incoming.computeIfAbsent(edge.targetStepId(), k -> new ArrayList<>()).add(edge);
+        }
+
+        // Kahn's algorithm; anything left over sits on a cycle
+        Map<String, Integer> inDegree = new HashMap<>();
+        byId.keySet().forEach(id -> inDegree.put(id, incoming.getOrDefault(id, List.of()).size()));
+        Deque<String> ready = new ArrayDeque<>();
+        byId.keySet().stream().filter(id -> inDegree.get(id) == 0).forEach(ready::add);
+
+        List<String> order = new ArrayList<>(byId.size());
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            order.add(id);
+            for (ExecutionPlan.Edge edge : outgoing.getOrDefault(id, List.of())) {
+                if (inDegree.merge(edge.targetStepId(), -1, Integer::sum) == 0) {
+                    ready.add(edge.targetStepId());
+                }
+            }
+        }
+        if (order.size() != byId.size()) {
+            List<String> cyclic = byId.keySet().stream().filter(id -> inDegree.get(id) > 0).toList();
+            throw new IllegalArgumentException("Pipeline " + pipeline.getPipelineId() + " has a cycle through " + cyclic);
+        }
+
+        List<ExecutionPlan.StepNode> nodes = new ArrayList<>(order.size());
+        Map<String, ExecutionPlan.StepNode> nodesById = new HashMap<>();
+        List<ExecutionPlan.StepNode> roots = new ArrayList<>();
+        List<ExecutionPlan.StepNode> sinks = new ArrayList<>();
+        for (String id : order) {
+            ExecutionPlan.StepNode node = new ExecutionPlan.StepNode(nodes.size(), byId.get(id), expressions);
+            node.link(incoming.getOrDefault(id, List.of()), outgoing.getOrDefault(id, List.of()));
+            nodes.add(node);
+            nodesById.put(id, node);
+            if (node.getIncoming().isEmpty()) {
+                roots.add(node);
+            }
+            if (node.getOutgoing().isEmpty()) {
+                sinks.add(node);
+            }
+        }
+        long version = pipeline.getPlanVersion() == null ? 0 : pipeline.getPlanVersion();
+        return new ExecutionPlan(pipeline.getPipelineId(), version, List.copyOf(nodes), Map.copyOf(nodesById),
+                List.copyOf(roots), List.copyOf(sinks));
+    }
+
+    private static void validateStreaming(ExecutionPlan.Edge edge, PipelineStep target,
+                                          Map<String, List<ExecutionPlan.Edge>> outgoing,
+                                          Map<String, List<ExecutionPlan.Edge>> incoming) {
+        String name = edge.sourceStepId() + " -> " + edge.targetStepId();
+        if (target.getStepType() != PipelineStep.StepType.LOOP && target.getStepType() != PipelineStep.StepType.PARALLEL) {
+            throw new IllegalArgumentException("Streaming connection " + name + " must target a LOOP or PARALLEL step");
+        }
+        if (edge.isErrorPath()) {
+            throw new IllegalArgumentException("Streaming connection " + name + " cannot be an ERROR path");
+        }
+        if (outgoing.getOrDefault(edge.sourceStepId(), List.of()).stream().anyMatch(ExecutionPlan.Edge::streaming)
+                || incoming.getOrDefault(edge.targetStepId(), List.of()).stream().anyMatch(ExecutionPlan.Edge::streaming)) {
+            throw new IllegalArgumentException("Streaming connection " + name
+                    + ": a step may have at most one streaming input and one streaming output");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of running an {@link ExecutionPlan}. Step results are keyed by stepId in plan order.
+ * {@code parked} holds the steps the run stopped at with the time each can resume, and
+ * {@code awaitingApproval} the HUMAN_APPROVAL steps it stopped at; when either is not empty the
+ * run is incomplete and must be resumed from its checkpoints.
+ */
+public record PlanResult(boolean succeeded, Map<String, StepResult> stepResults, JsonNode finalOutput,
+                         List<Map<String, Object>> log, String errorStep, String errorMessage,
+                         Map<String, Instant> parked, Set<String> awaitingApproval) {
+
+    public Instant resumeAt() {
+        return parked.values().stream().min(Instant::compareTo).orElse(null);
+    }
+
+    public boolean suspended() {
+        return !parked.isEmpty() || !awaitingApproval.isEmpty();
+    }
+}
@@ -0,0 +1,609 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One execution of an {@link ExecutionPlan}. A step is dispatched as soon as all of its incoming
+ * edges are resolved, so independent branches run side by side and the wall time tracks the
+ * critical path. At most {@code maxParallelSteps} steps of this execution run at once.
+ *
+ * <p>On success a step activates its normal outgoing edges; on failure only its ERROR edges;
+ * in both cases an edge's condition must also hold for the step's output. A step whose own
+ * condition is false is skipped like a branch not taken.
+ * A step whose incoming edges are all inactive is skipped and deactivates its own outgoing edges.
+ * A failure with no ERROR edge to handle it stops the execution after in-flight steps finish.
+ *
+ * <p>A streaming edge is resolved when its source starts rather than when it finishes: the
+ * LOOP/PARALLEL consumer is dispatched alongside the source and processes items as they arrive,
+ * through a buffer of {@code streamBuffer} items, with the step's fan-out limits (see FanOut). The source's own recorded output is
+ * only the item count, unless another connection needs the full array. Conditions on
+ * streaming edges are not evaluated, as there is no complete output to test.
+ *
+ * <p>A TRIGGER step is where the run starts: it passes the execution's input on to its
+ * dependents, through its own input and output mappings.
+ *
+ * <p>A DELAY step waits {@code delaySeconds} (or until {@code delayUntil}) from its input. A wait
+ * up to {@code parkAfter} happens in the run on the {@link TimerWheel}; a longer one parks the
+ * step: its result is PARKED with the resume time, its dependents stay pending, and the run ends
+ * once nothing else is running. A later attempt given that resume time completes the step.
+ *
+ * <p>A HUMAN_APPROVAL step parks the same way until a decision for it is given to a later
+ * attempt: approved, it passes its input on with the decision under {@code approval}; rejected,
+ * it fails, so an ERROR edge can handle the rejection. The checkpoints of the completed steps are
+ * all a later attempt needs to reach the same point of the plan again.
+ */
+public final class PlanRun {
+
+    private final ExecutionPlan plan;
+    private final StepInvoker invoker;
+    private final ObjectMapper mapper;
+    private final ExecutionLimits limits;
+    private final Map<String, JsonNode> restored;
+    private final StepListener listener;
+    private final Map<String, Instant> resumeTimes;
+    private final Map<String, JsonNode> decisions;
+    private final TimerWheel timers;
+    private final FanOut fanOut;
+
+    private final Sinks.Many<ExecutionPlan.StepNode> ready = Sinks.many().unicast().onBackpressureBuffer();
+    private final Map<String, JsonNode> outputs = new ConcurrentHashMap<>();
+    private final Map<String, StreamChannel> channels = new ConcurrentHashMap<>();
+    private final List<Map<String, Object>> log = new ArrayList<>();
+
+    // guarded by this
+    private final int[] pending;
+    private final boolean[][] activeIncoming;
+    private final Map<String, StepResult> results = new ConcurrentHashMap<>();
+    private final Map<String, Instant> parked = new LinkedHashMap<>();
+    private final Set<String> awaiting = new LinkedHashSet<>();
+    private int resolved;
+    private int running;
+    private boolean finished;
+    private String errorStep;
+    private String errorMessage;
+    private boolean aborted;
+
+    public PlanRun(ExecutionPlan plan, StepInvoker invoker, ObjectMapper mapper, ExecutionLimits limits) {
+        this(plan, invoker, mapper, limits, Map.of(), StepListener.NONE);
+    }
+
+    /**
+     * @param restored outputs of steps that already completed in an earlier attempt; these are
+     *                 not invoked again (a streaming source is re-run unless its consumer completed too)
+     * @param listener sees every step result before dependents are dispatched
+     */
+    public PlanRun(ExecutionPlan plan, StepInvoker invoker, ObjectMapper mapper, ExecutionLimits limits,
+                   Map<String, JsonNode> restored, StepListener listener) {
+        this(plan, invoker, mapper, limits, restored, listener, Map.of(), null);
+    }
+
+    /**
+     * @param resumeTimes when each step PARKED by an earlier attempt may continue
+     * @param timers      serves in-run DELAY waits; null uses Reactor's timer
+     */
+    public PlanRun(ExecutionPlan plan, StepInvoker invoker, ObjectMapper mapper, ExecutionLimits limits,
+                   Map<String, JsonNode> restored, StepListener listener,
+                   Map<String, Instant> resumeTimes, TimerWheel timers) {
+        this(plan, invoker, mapper, limits, restored, listener, resumeTimes, Map.of(), timers);
+    }
+
+    /**
+     * @param decisions approval decisions for HUMAN_APPROVAL steps parked by an earlier attempt,
+     *                  each with at least {@code approved}
+     */
+    public PlanRun(ExecutionPlan plan, StepInvoker invoker, ObjectMapper mapper, ExecutionLimits limits,
+                   Map<String, JsonNode> restored, StepListener listener,
+                   Map<String, Instant> resumeTimes, Map<String, JsonNode> decisions, TimerWheel timers) {
+        this.plan = plan;
+        this.invoker = invoker;
+        this.mapper = mapper;
+        this.limits = limits;
+        this.restored = reusable(plan, restored);
+        this.listener = listener;
+        this.resumeTimes = resumeTimes;
+        this.decisions = decisions;
+        this.timers = timers;
+        this.fanOut = new FanOut(invoker, mapper, limits, this::appendItem);
+        this.pending = new int[plan.getSteps().size()];
+        this.activeIncoming = new boolean[plan.getSteps().size()][];
+        for (ExecutionPlan.StepNode node : plan.getSteps()) {
+            pending[node.getIndex()] = node.getIncoming().size();
+            activeIncoming[node.getIndex()] = new boolean[node.getIncoming().size()];
+        }
+    }
+
+    public Mono<PlanResult> run(JsonNode initialInput) {
+        return Mono.defer(() -> {
+            synchronized (this) {
+                if (plan.getSteps().isEmpty()) {
+                    finish();
+                }
+                plan.getRoots().forEach(this::dispatch);
+            }
+            return ready.asFlux()
+                    .flatMap(node -> execute(node, initialInput).subscribeOn(Schedulers.parallel()),
+                            limits.maxParallelSteps())
+                    .then(Mono.fromSupplier(this::result));
+        });
+    }
+
+    private Mono<Void> execute(ExecutionPlan.StepNode node, JsonNode initialInput) {
+        return Mono.defer(() -> {
+            Instant startedAt = Instant.now();
+            JsonNode checkpoint = restored.get(node.getStepId());
+            if (checkpoint != null) {
+                append(node.getStepId(), "RESTORED", "reused checkpoint");
+                drainInput(node);
+                complete(node, new StepResult(node.getStepId(), StepResult.Status.COMPLETED, checkpoint,
+                        null, startedAt, 0), Activation.SUCCESS);
+                return Mono.empty();
+            }
+            JsonNode input = assembleInput(node, initialInput);
+            StreamChannel out = channels.get(node.getStepId());
+            if (!node.isEnabled()) {
+                if (out != null) {
+                    out.offer(items(node.getStreamOut(), Flux.just(input)));
+                }
+                return settle(node, new StepResult(node.getStepId(), StepResult.Status.SKIPPED, input,
+                        "disabled", startedAt, 0), Activation.SUCCESS);
+            }
+            if (!node.getCondition().test(input)) {
+                if (out != null) {
+                    out.offer(Flux.empty());
+                }
+                return settle(node, new StepResult(node.getStepId(), StepResult.Status.SKIPPED, null,
+                        "condition not met", startedAt, 0), Activation.NONE);
+            }
+            append(node.getStepId(), "STARTED", null);
+            listener.onStepStarted(node.getStepId(), startedAt);
+            if (out != null) {
+                return produce(node, out, input, startedAt);
+            }
+            StreamChannel in = node.getStreamIn() == null ? null : channels.get(node.getStreamIn().sourceStepId());
+            if (in != null) {
+                return consume(node, in, input, startedAt);
+            }
+            Mono<JsonNode> call;
+            if (node.getStepType() == PipelineStep.StepType.TRIGGER) {
+                call = Mono.just(node.getOutputMapping().apply(node.getInputMapping().apply(input)));
+            } else if (node.getStepType() == PipelineStep.StepType.DELAY) {
+                Instant resumeAt;
+                try {
+                    resumeAt = resumeTimes.containsKey(node.getStepId())
+                            ? resumeTimes.get(node.getStepId()) : delayDeadline(input, startedAt);
+                } catch (IllegalArgumentException e) {
+                    return settle(node, failure(node, e, startedAt), Activation.FAILURE);
+                }
+                Duration wait = Duration.between(Instant.now(), resumeAt);
+                if (wait.compareTo(limits.parkAfter()) > 0) {
+                    return park(node, mapper.createObjectNode().put("resumeAt", resumeAt.toString()), resumeAt,
+                            startedAt);
+                }
+                JsonNode passed = node.getOutputMapping().apply(node.getInputMapping().apply(input));
+                call = sleep(wait).thenReturn(passed);
+            } else if (node.getStepType() == PipelineStep.StepType.HUMAN_APPROVAL) {
+                JsonNode decision = decisions.get(node.getStepId());
+                if (decision == null) {
+                    return park(node, mapper.createObjectNode().put("awaiting", "approval"), null, startedAt);
+                }
+                if (!decision.path("approved").asBoolean(false)) {
+                    StepResult rejected = failure(node, rejection(decision), startedAt);
+                    ((ObjectNode) rejected.output()).set("approval", decision);
+                    return settle(node, rejected, Activation.FAILURE);
+                }
+                call = Mono.just(node.getOutputMapping().apply(approved(node.getInputMapping().apply(input), decision)));
+            } else {
+                call = node.isIterating()
+                        ? fanOut.run(node, node.getInputMapping().apply(input))
+                        : invoker.invoke(node, node.getAgentId(), node.getInputMapping().apply(input))
+                                .defaultIfEmpty(mapper.nullNode())
+                                .map(output -> node.getOutputMapping().apply(output));
+            }
+            return call
+                    .map(output -> new StepResult(node.getStepId(), StepResult.Status.COMPLETED,
+                            output, null, startedAt, elapsed(startedAt)))
+                    .onErrorResume(e -> Mono.just(failure(node, e, startedAt)))
+                    .flatMap(result -> settle(node, result, result.status() == StepResult.Status.FAILED
+                            ? Activation.FAILURE : Activation.SUCCESS));
+        });
+    }
+
+    /**
+     * Starts a streaming source: its items are offered to the consumer, and the step resolves
+     * when the stream ends (or when the consumer stops reading).
+     */
+    private Mono<Void> produce(ExecutionPlan.StepNode node, StreamChannel channel, JsonNode input, Instant startedAt) {
+        boolean keep = node.getOutgoing().size() > 1;
+        ArrayNode kept = mapper.createArrayNode();
+        AtomicLong count = new AtomicLong();
+        AtomicBoolean ended = new AtomicBoolean();
+        Consumer<StepResult> end = result -> {
+            if (ended.compareAndSet(false, true)) {
+                settle(node, result, result.status() == StepResult.Status.FAILED ? Activation.FAILURE : Activation.SUCCESS)
+                        .subscribe(null, this::abort);
+            }
+        };
+        Runnable completed = () -> end.accept(new StepResult(node.getStepId(), StepResult.Status.COMPLETED,
+                keep ? kept : mapper.createObjectNode().put("streamed", count.get()), null, startedAt, elapsed(startedAt)));
+        channel.offer(items(node.getStreamOut(), invoker.stream(node, node.getInputMapping().apply(input)))
+                .map(item -> node.getOutputMapping().apply(item))
+                .doOnNext(item -> {
+                    count.incrementAndGet();
+                    if (keep) {
+                        kept.add(item);
+                    }
+                })
+                .doOnComplete(completed)
+                .doOnCancel(completed)
+                .doOnError(e -> end.accept(failure(node, e, startedAt))));
+        return Mono.empty();
+    }
+
+    /**
+     * Runs a LOOP/PARALLEL step once per streamed item, aggregating results as they complete.
+     * The mapped step input is shared by every item.
+     */
+    private Mono<Void> consume(ExecutionPlan.StepNode node, StreamChannel channel, JsonNode input, Instant startedAt) {
+        return fanOut.map(node, channel.take().limitRate(limits.streamBuffer()), node.getInputMapping().apply(input))
+                .map(results -> new StepResult(node.getStepId(), StepResult.Status.COMPLETED,
+                        results, null, startedAt, elapsed(startedAt)))
+                .onErrorResume(e -> Mono.just(failure(node, e, startedAt)))
+                .flatMap(result -> settle(node, result, result.status() == StepResult.Status.FAILED
+                        ? Activation.FAILURE : Activation.SUCCESS));
+    }
+
+    private static Flux<JsonNode> items(ExecutionPlan.Edge edge, Flux<JsonNode> chunks) {
+        return chunks.concatMapIterable(chunk -> {
+            JsonNode selected = edge.streamPath().read(chunk);
+            if (selected.isMissingNode()) {
+                return List.of();
+            }
+            if (selected.isArray()) {
+                List<JsonNode> elements = new ArrayList<>(selected.size());
+                selected.forEach(elements::add);
+                return elements;
+            }
+            return List.of(selected);
+        });
+    }
+
+    /**
+     * Hands the result to the listener (e.g. to checkpoint it) before any dependent step can
+     * observe it, then resolves the step.
+     */
+    private Mono<Void> settle(ExecutionPlan.StepNode node, StepResult result, Activation activation) {
+        drainInput(node);
+        return listener.onStepResult(result)
+                .then(Mono.fromRunnable(() -> {
+                    if (activation == Activation.FAILURE) {
+                        fail(node, result);
+                    } else {
+                        complete(node, result, activation);
+                    }
+                }));
+    }
+
+    /**
+     * Stops the step without resolving it: until {@code resumeAt}, or until a decision when null.
+     */
+    private Mono<Void> park(ExecutionPlan.StepNode node, JsonNode output, Instant resumeAt, Instant startedAt) {
+        StepResult result = new StepResult(node.getStepId(), StepResult.Status.PARKED, output, null, startedAt, 0);
+        return listener.onStepResult(result)
+                .then(Mono.fromRunnable(() -> parked(node, result, resumeAt)));
+    }
+
+    private synchronized void parked(ExecutionPlan.StepNode node, StepResult result, Instant resumeAt) {
+        running--;
+        results.put(node.getStepId(), result);
+        if (resumeAt == null) {
+            awaiting.add(node.getStepId());
+            append(node.getStepId(), "PARKED", "awaiting approval");
+        } else {
+            parked.put(node.getStepId(), resumeAt);
+            append(node.getStepId(), "PARKED", "until " + resumeAt);
+        }
+        if (running == 0) {
+            finish();
+        }
+    }
+
+    private JsonNode approved(JsonNode input, JsonNode decision) {
+        ObjectNode output = mapper.createObjectNode();
+        if (input.isObject()) {
+            output.setAll((ObjectNode) input);
+        } else if (!input.isMissingNode() && !input.isNull()) {
+            output.set("input", input);
+        }
+        return output.set("approval", decision);
+    }
+
+    private static String rejection(JsonNode decision) {
+        StringBuilder message = new StringBuilder("Rejected");
+        if (decision.hasNonNull("decidedBy")) {
+            message.append(" by ").append(decision.get("decidedBy").asText());
+        }
+        if (decision.hasNonNull("comment")) {
+            message.append(": ").append(decision.get("comment").asText());
+        }
+        return message.toString();
+    }
+
+    private Mono<Void> sleep(Duration wait) {
+        if (wait.isNegative() || wait.isZero()) {
+            return Mono.empty();
+        }
+        return timers != null ? timers.delay(wait) : Mono.delay(wait).then();
+    }
+
+    private static Instant delayDeadline(JsonNode input, Instant startedAt) {
+        JsonNode until = input.path("delayUntil");
+        if (until.isTextual()) {
+            try {
+                return Instant.parse(until.asText());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("delayUntil is not an ISO-8601 instant: " + until.asText());
+            }
+        }
+        return startedAt.plusMillis(Math.round(input.path("delaySeconds").asDouble(0) * 1000));
+    }
+
+    private void drainInput(ExecutionPlan.StepNode node) {
+        StreamChannel in = node.getStreamIn() == null ? null : channels.get(node.getStreamIn().sourceStepId());
+        if (in != null) {
+            in.drain();
+        }
+    }
+
+    private JsonNode assembleInput(ExecutionPlan.StepNode node, JsonNode initialInput) {
+        ObjectNode input = mapper.createObjectNode();
+        if (node.getStaticConfig() != null) {
+            input.setAll((ObjectNode) node.getStaticConfig());
+        }
+        if (node.getIncoming().isEmpty()) {
+            if (initialInput != null && initialInput.isObject()) {
+                input.setAll((ObjectNode) initialInput);
+            }
+            return input;
+        }
+        boolean[] active = activeIncoming(node);
+        List<ExecutionPlan.Edge> incoming = node.getIncoming();
+        for (int i = 0; i < incoming.size(); i++) {
+            if (!active[i]) {
+                continue;
+            }
+            ExecutionPlan.Edge edge = incoming.get(i);
+            if (edge.streaming() && channels.containsKey(edge.sourceStepId())) {
+                continue;
+            }
+            JsonNode mapped = edge.dataMapping().apply(outputs.get(edge.sourceStepId()));
+            if (mapped.isObject()) {
+                input.setAll((ObjectNode) mapped);
+            } else {
+                input.set(edge.sourceStepId(), mapped);
+            }
+        }
+        return input;
+    }
+
+    private StepResult failure(ExecutionPlan.StepNode node, Throwable e, Instant startedAt) {
+        return failure(node, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage(), startedAt);
+    }
+
+    private StepResult failure(ExecutionPlan.StepNode node, String message, Instant startedAt) {
+        ObjectNode error = mapper.createObjectNode().put("stepId", node.getStepId()).put("error", message);
+        return new StepResult(node.getStepId(), StepResult.Status.FAILED, error, message,
+                startedAt, elapsed(startedAt));
+    }
+
+    private synchronized void fail(ExecutionPlan.StepNode node, StepResult result) {
+        boolean handled = node.getOutgoing().stream().anyMatch(ExecutionPlan.Edge::isErrorPath);
+        if (!handled && errorStep == null) {
+            errorStep = node.getStepId();
+            errorMessage = result.error();
+        }
+        complete(node, result, Activation.FAILURE);
+        if (!handled) {
+            finish();
+        }
+    }
+
+    /**
+     * Records a step's outcome and resolves its outgoing edges; {@code activation} selects which
+     * edges may become active. Steps left with no active input are skipped transitively.
+     */
+    private synchronized void complete(ExecutionPlan.StepNode node, StepResult result, Activation activation) {
+        running--;
+        if (result.output() != null) {
+            outputs.put(node.getStepId(), result.output());
+        }
+        results.put(node.getStepId(), result);
+        append(node.getStepId(), result.status().name(), result.error());
+        resolved++;
+
+        Deque<ExecutionPlan.StepNode> skipped = new ArrayDeque<>();
+        resolveOutgoing(node, activation, skipped);
+        while (!skipped.isEmpty()) {
+            ExecutionPlan.StepNode skip = skipped.poll();
+            results.put(skip.getStepId(), new StepResult(skip.getStepId(), StepResult.Status.SKIPPED,
+                    null, null, Instant.now(), 0));
+            append(skip.getStepId(), "SKIPPED", "no active input");
+            resolved++;
+            resolveOutgoing(skip, Activation.NONE, skipped);
+        }
+        if (resolved == plan.getSteps().size() || (running == 0 && (!parked.isEmpty() || !awaiting.isEmpty()))) {
+            finish();
+        }
+    }
+
+    private void resolveOutgoing(ExecutionPlan.StepNode node, Activation activation,
+                                 Deque<ExecutionPlan.StepNode> skipped) {
+        JsonNode output = outputs.get(node.getStepId());
+        for (ExecutionPlan.Edge edge : node.getOutgoing()) {
+            if (edge.streaming() && channels.containsKey(node.getStepId())) {
+                continue; // resolved when the source was dispatched
+            }
+            boolean active = switch (activation) {
+                case SUCCESS -> !edge.isErrorPath() && edge.condition().test(output);
+                case FAILURE -> edge.isErrorPath() && edge.condition().test(output);
+                case NONE -> false;
+            };
+            resolveEdge(edge, active, skipped);
+        }
+    }
+
+    private void resolveEdge(ExecutionPlan.Edge edge, boolean active, Deque<ExecutionPlan.StepNode> skipped) {
+        ExecutionPlan.StepNode target = plan.step(edge.targetStepId());
+        if (active) {
+            List<ExecutionPlan.Edge> incoming = target.getIncoming();
+            for (int i = 0; i < incoming.size(); i++) {
+                if (incoming.get(i) == edge) {
+                    activeIncoming[target.getIndex()][i] = true;
+                }
+            }
+        }
+        if (--pending[target.getIndex()] == 0) {
+            if (anyActive(activeIncoming[target.getIndex()])) {
+                dispatch(target);
+            } else {
+                skipped.add(target);
+            }
+        }
+    }
+
+    private synchronized boolean[] activeIncoming(ExecutionPlan.StepNode node) {
+        return activeIncoming[node.getIndex()].clone();
+    }
+
+    private void dispatch(ExecutionPlan.StepNode node) {
+        if (finished) {
+            return;
+        }
+        running++;
+        ready.tryEmitNext(node);
+        if (node.getStreamOut() != null && !restored.containsKey(node.getStepId())) {
+            // the consumer can start as soon as its source does
+            channels.put(node.getStepId(), new StreamChannel());
+            resolveEdge(node.getStreamOut(), true, new ArrayDeque<>());
+        }
+    }
+
+    private synchronized void abort(Throwable e) {
+        aborted = true;
+        if (errorMessage == null) {
+            errorMessage = e.getMessage();
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (!finished) {
+            finished = true;
+            ready.tryEmitComplete();
+        }
+    }
+
+    private synchronized void append(String stepId, String event, String message) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("timestamp", Instant.now().toString());
+        entry.put("stepId", stepId);
+        entry.put("event", event);
+        if (message != null) {
+            entry.put("message", message);
+        }
+        log.add(entry);
+    }
+
+    private synchronized void appendItem(String stepId, String item, long durationMs, String error) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("timestamp", Instant.now().toString());
+        entry.put("stepId", stepId);
+        entry.put("event", error == null ? "ITEM_COMPLETED" : "ITEM_FAILED");
+        entry.put("item", item);
+        entry.put("durationMs", durationMs);
+        if (error != null) {
+            entry.put("message", error);
+        }
+        log.add(entry);
+    }
+
+    private synchronized PlanResult result() {
+        Map<String, StepResult> ordered = new LinkedHashMap<>();
+        for (ExecutionPlan.StepNode node : plan.getSteps()) {
+            StepResult result = results.get(node.getStepId());
+            if (result != null) {
+                ordered.put(node.getStepId(), result);
+            }
+        }
+        return new PlanResult(!aborted && errorStep == null, ordered, finalOutput(), List.copyOf(log), errorStep, errorMessage,
+                Map.copyOf(parked), Set.copyOf(awaiting));
+    }
+
+    private JsonNode finalOutput() {
+        List<ExecutionPlan.StepNode> completed = plan.getSinks().stream()
+                .filter(sink -> {
+                    StepResult result = results.get(sink.getStepId());
+                    return result != null && result.status() != StepResult.Status.FAILED && result.output() != null;
+                })
+                .toList();
+        if (completed.size() == 1) {
+            return outputs.get(completed.get(0).getStepId());
+        }
+        ObjectNode merged = mapper.createObjectNode();
+        completed.forEach(sink -> merged.set(sink.getStepId(), outputs.get(sink.getStepId())));
+        return merged;
+    }
+
+    private static Map<String, JsonNode> reusable(ExecutionPlan plan, Map<String, JsonNode> restored) {
+        Map<String, JsonNode> reusable = new HashMap<>(restored);
+        for (ExecutionPlan.StepNode node : plan.getSteps()) {
+            if (node.getStreamOut() != null && !restored.containsKey(node.getStreamOut().targetStepId())) {
+                reusable.remove(node.getStepId());
+            }
+        }
+        return reusable;
+    }
+
+    private static boolean anyActive(boolean[] edges) {
+        for (boolean edge : edges) {
+            if (edge) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long elapsed(Instant startedAt) {
+        return Duration.between(startedAt, Instant.now()).toMillis();
+    }
+
+    private enum Activation {
+        SUCCESS,
+        FAILURE,
+        NONE
+    }
+}
@@ -0,0 +1,23 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Executes a single step of a plan with its assembled input. {@code agentId} is the step's own
+ * agent, or a branch's agent for PARALLEL steps.
+ */
+@FunctionalInterface
+public interface StepInvoker {
+
+    Mono<JsonNode> invoke(ExecutionPlan.StepNode step, String agentId, JsonNode input);
+
+    /**
+     * Executes a step that feeds a streaming connection, emitting output chunks as they are
+     * produced. By default the whole output is emitted once it is complete.
+     */
+    default Flux<JsonNode> stream(ExecutionPlan.StepNode step, JsonNode input) {
+        return invoke(step, step.getAgentId(), input).flux();
+    }
+}
@@ -0,0 +1,40 @@
+package com.marketplace.pipeline_service.engine;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Observes step results as a {@link PlanRun} produces them. Dependent steps are not
+ * dispatched until the returned Mono completes; an error aborts the run.
+ */
+@FunctionalInterface
+public interface StepListener {
+
+    StepListener NONE = result -> Mono.empty();
+
+    Mono<Void> onStepResult(StepResult result);
+
+    /**
+     * Called when a step begins running (not for skipped or restored steps). Must not block.
+     */
+    default void onStepStarted(String stepId, Instant startedAt) {
+    }
+
+    /** Notifies this listener, then {@code next}. */
+    default StepListener and(StepListener next) {
+        StepListener first = this;
+        return new StepListener() {
+            @Override
+            public Mono<Void> onStepResult(StepResult result) {
+                return first.onStepResult(result).then(next.onStepResult(result));
+            }
+
+            @Override
+            public void onStepStarted(String stepId, Instant startedAt) {
+                first.onStepStarted(stepId, startedAt);
+                next.onStepStarted(stepId, startedAt);
+            }
+        };
+    }
+}
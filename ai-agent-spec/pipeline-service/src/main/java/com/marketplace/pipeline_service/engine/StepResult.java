@@ -0,0 +1,19 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+
+/**
+ * Outcome of one step in an execution.
+ */
+public record StepResult(String stepId, Status status, JsonNode output, String error,
+                         Instant startedAt, long durationMs) {
+
+    public enum Status {
+        COMPLETED,
+        FAILED,
+        SKIPPED,
+        PARKED // waiting for a resume: a long DELAY (output holds "resumeAt") or an approval
+    }
+}
@@ -0,0 +1,120 @@
+package com.marketplace.pipeline_service.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds the number of steps running at once across all executions on this instance.
+ * Waiters are served in arrival order and hold no thread while queued.
+ */
+@Component
+public class StepSlots {
+
+    private final int maxConcurrentSteps;
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int inUse;
+
+    public StepSlots(MeterRegistry meterRegistry,
+                     @Value("${pipeline.executor.max-concurrent-steps:64}") int maxConcurrentSteps) {
+        this.maxConcurrentSteps = maxConcurrentSteps;
+        Gauge.builder("pipeline.steps.running", this, s -> s.inUse()).register(meterRegistry);
+        Gauge.builder("pipeline.steps.waiting", this, s -> s.waiting()).register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to {@code work} once a slot is free and gives the slot back when it terminates.
+     */
+    public <T> Mono<T> withSlot(Mono<T> work) {
+        return Mono.usingWhen(acquire(), slot -> work, Slot::release, (slot, e) -> slot.release(), Slot::release);
+    }
+
+    /**
+     * As {@link #withSlot(Mono)}, holding the slot until the stream terminates or is cancelled.
+     */
+    public <T> Flux<T> withSlot(Flux<T> work) {
+        return Flux.usingWhen(acquire(), slot -> work, Slot::release, (slot, e) -> slot.release(), Slot::release);
+    }
+
+    private Mono<Slot> acquire() {
+        return Mono.defer(() -> {
+            Waiter waiter;
+            synchronized (this) {
+                if (inUse < maxConcurrentSteps) {
+                    inUse++;
+                    return Mono.just(new Slot());
+                }
+                waiter = new Waiter();
+                waiting.add(waiter);
+            }
+            return waiter.sink.asMono()
+                    .publishOn(Schedulers.parallel())
+                    .doOnCancel(() -> abandon(waiter))
+                    // the slot is usingWhen's to release only once it has it; one cancelled while
+                    // queued in publishOn is released here
+                    .doOnNext(slot -> waiter.delivered = true)
+                    .doOnDiscard(Slot.class, Slot::release);
+        });
+    }
+
+    private void abandon(Waiter waiter) {
+        Slot granted;
+        synchronized (this) {
+            if (waiting.remove(waiter)) {
+                return;
+            }
+            granted = waiter.delivered ? null : waiter.granted;
+        }
+        if (granted != null) {
+            granted.release();
+        }
+    }
+
+    private void releaseSlot() {
+        Waiter next;
+        Slot handoff = new Slot();
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                inUse--;
+                return;
+            }
+            next.granted = handoff;
+        }
+        next.sink.tryEmitValue(handoff);
+    }
+
+    synchronized int inUse() {
+        return inUse;
+    }
+
+    synchronized int waiting() {
+        return waiting.size();
+    }
+
+    private static final class Waiter {
+        final Sinks.One<Slot> sink = Sinks.one();
+        Slot granted;
+        volatile boolean delivered;
+    }
+
+    final class Slot {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Mono<Void> release() {
+            if (released.compareAndSet(false, true)) {
+                releaseSlot();
+            }
+            return Mono.empty();
+        }
+    }
+}
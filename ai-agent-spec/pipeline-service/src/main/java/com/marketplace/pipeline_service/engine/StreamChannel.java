@@ -0,0 +1,37 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands the item stream of a streaming source step to its single consumer. The source offers
+ * a cold Flux; nothing is produced until the consumer subscribes, so the consumer's demand
+ * paces the source.
+ */
+final class StreamChannel {
+
+    private final Sinks.One<Flux<JsonNode>> items = Sinks.one();
+    private final AtomicBoolean taken = new AtomicBoolean();
+
+    void offer(Flux<JsonNode> flux) {
+        items.tryEmitValue(flux);
+    }
+
+    Flux<JsonNode> take() {
+        taken.set(true);
+        return items.asMono().flatMapMany(flux -> flux);
+    }
+
+    /**
+     * Runs the source to completion when the consumer finished without reading the stream
+     * (skipped, disabled or failed early), so the source step still resolves.
+     */
+    void drain() {
+        if (taken.compareAndSet(false, true)) {
+            items.asMono().flatMapMany(flux -> flux).subscribe(item -> { }, error -> { });
+        }
+    }
+}
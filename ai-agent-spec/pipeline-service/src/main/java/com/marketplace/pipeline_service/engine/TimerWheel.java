@@ -0,0 +1,191 @@
+package com.marketplace.pipeline_service.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hierarchical timing wheel: any number of pending timeouts served by one ticker thread, with
+ * O(1) scheduling and cancellation. Four wheels of 64 slots cover 64, 64^2, 64^3 and 64^4 ticks
+ * ({@code pipeline.scheduler.tick}, 100ms by default: up to ~19 days); a timeout further out is
+ * parked in the top wheel and re-placed when that slot comes round. When a wheel wraps, the next
+ * slot of the wheel above is cascaded down, so every timeout fires within one tick of its deadline.
+ *
+ * <p>Tasks run on the ticker thread and must be short; {@link #delay} hands its continuation to
+ * the parallel scheduler.
+ */
+@Slf4j
+@Component
+public class TimerWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final ArrayDeque<Timeout>[][] wheels;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ScheduledExecutorService ticker;
+
+    // guarded by this
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(MeterRegistry meterRegistry,
+                      @Value("${pipeline.scheduler.tick:100ms}") Duration tick) {
+        this.tickNanos = Math.max(1, tick.toNanos());
+        this.wheels = new ArrayDeque[LEVELS][SLOTS];
+        for (ArrayDeque<Timeout>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = new ArrayDeque<>();
+            }
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("timer-wheel-"));
+        this.ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        Gauge.builder("pipeline.timers.pending", pending, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} on the ticker thread at (or within one tick after) {@code deadline}.
+     * A deadline in the past fires on the next tick.
+     */
+    public Timeout schedule(Instant deadline, Runnable task) {
+        long delayNanos = Duration.between(Instant.now(), deadline).toNanos();
+        long elapsed = System.nanoTime() - origin;
+        // Round up so a timeout never fires early
+        long tick = Math.max(0, elapsed + Math.max(0, delayNanos) + tickNanos - 1) / tickNanos;
+        Timeout timeout = new Timeout(tick, task);
+        synchronized (this) {
+            timeout.expiresAt = Math.max(timeout.expiresAt, currentTick + 1);
+            place(timeout);
+        }
+        pending.incrementAndGet();
+        return timeout;
+    }
+
+    /** Completes after {@code delay} without holding a thread meanwhile. */
+    public Mono<Void> delay(Duration delay) {
+        return Mono.<Void>create(sink -> {
+                    Timeout timeout = schedule(Instant.now().plus(delay), sink::success);
+                    sink.onCancel(timeout::cancel);
+                })
+                .publishOn(Schedulers.parallel());
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    private void advance() {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            long target = (System.nanoTime() - origin) / tickNanos;
+            while (currentTick < target) {
+                currentTick++;
+                cascade();
+                ArrayDeque<Timeout> slot = wheels[0][(int) (currentTick & MASK)];
+                expired.addAll(slot);
+                slot.clear();
+            }
+        }
+        for (Timeout timeout : expired) {
+            if (timeout.fire()) {
+                pending.decrementAndGet();
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    log.error("Timer task failed", e);
+                }
+            }
+        }
+    }
+
+    // When a lower wheel wraps, move the current slot of the wheel above into the lower wheels
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                return;
+            }
+            ArrayDeque<Timeout> slot = wheels[level][(int) ((currentTick >>> (BITS * level)) & MASK)];
+            List<Timeout> moved = new ArrayList<>(slot);
+            slot.clear();
+            for (Timeout timeout : moved) {
+                if (!timeout.cancelled) {
+                    place(timeout);
+                }
+            }
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.expiresAt - currentTick;
+        if (delta >= SPAN) {
+            // Beyond the top wheel: wait in its furthest slot, re-placed when cascaded
+            wheels[LEVELS - 1][(int) (((currentTick + SPAN - 1) >>> (BITS * (LEVELS - 1))) & MASK)].add(timeout);
+            return;
+        }
+        int level = 0;
+        while (delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        wheels[level][(int) ((timeout.expiresAt >>> (BITS * level)) & MASK)].add(timeout);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    public final class Timeout {
+
+        private long expiresAt; // tick
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private boolean fired; // guarded by the Timeout
+
+        private Timeout(long expiresAt, Runnable task) {
+            this.expiresAt = expiresAt;
+            this.task = task;
+        }
+
+        /** Returns false if the task already ran or was cancelled before. */
+        public boolean cancel() {
+            synchronized (this) {
+                if (fired || cancelled) {
+                    return false;
+                }
+                cancelled = true;
+            }
+            // The entry itself is dropped when its slot is next visited
+            pending.decrementAndGet();
+            return true;
+        }
+
+        private synchronized boolean fire() {
+            if (cancelled || fired) {
+                return false;
+            }
+            fired = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * When a TRIGGER step starts its pipeline, from the step's {@code staticConfig.schedule}:
+ * <pre>
+ * {"cron": "0 0 * * *", "timezone": "Europe/Berlin", "jitterSeconds": 120, "misfire": "SKIP"}
+ * {"intervalSeconds": 900}
+ * </pre>
+ * Cron takes Spring's six fields (with seconds) or the classic five. {@code jitterSeconds} spreads
+ * fire times (null = the scheduler default); {@code misfire} says what to do with a fire time
+ * missed while no instance was running: FIRE_ONCE (default) or SKIP.
+ */
+@Getter
+@EqualsAndHashCode(exclude = "expression")
+public final class TriggerSchedule {
+
+    public enum Misfire {
+        FIRE_ONCE,
+        SKIP
+    }
+
+    private final String cron;
+    private final Long intervalSeconds;
+    private final String timezone;
+    private final Long jitterSeconds;
+    private final Misfire misfire;
+    private final CronExpression expression; // null for interval schedules
+
+    private TriggerSchedule(String cron, Long intervalSeconds, String timezone, Long jitterSeconds, Misfire misfire) {
+        if ((cron == null) == (intervalSeconds == null)) {
+            throw new IllegalArgumentException("A schedule needs exactly one of cron or intervalSeconds");
+        }
+        if (intervalSeconds != null && intervalSeconds < 1) {
+            throw new IllegalArgumentException("intervalSeconds must be positive");
+        }
+        if (jitterSeconds != null && jitterSeconds < 0) {
+            throw new IllegalArgumentException("jitterSeconds must not be negative");
+        }
+        this.cron = cron;
+        this.intervalSeconds = intervalSeconds;
+        this.timezone = timezone == null ? "UTC" : timezone;
+        this.jitterSeconds = jitterSeconds;
+        this.misfire = misfire == null ? Misfire.FIRE_ONCE : misfire;
+        try {
+            ZoneId.of(this.timezone);
+            this.expression = cron == null ? null
+                    : CronExpression.parse(cron.trim().split("\\s+").length == 5 ? "0 " + cron.trim() : cron);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid schedule: " + e.getMessage(), e);
+        }
+    }
+
+    public static TriggerSchedule of(String cron, Long intervalSeconds, String timezone, Long jitterSeconds,
+                                     String misfire) {
+        Misfire policy;
+        try {
+            policy = misfire == null ? null : Misfire.valueOf(misfire);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown misfire policy: " + misfire);
+        }
+        return new TriggerSchedule(cron, intervalSeconds, timezone, jitterSeconds, policy);
+    }
+
+    /** Parses {@code staticConfig.schedule}; null when the node is missing. */
+    static TriggerSchedule parse(JsonNode node) {
+        if (node == null || node.isMissingNode() || node.isNull()) {
+            return null;
+        }
+        return of(text(node, "cron"), number(node, "intervalSeconds"), text(node, "timezone"),
+                number(node, "jitterSeconds"), text(node, "misfire"));
+    }
+
+    /** The first nominal fire time strictly after {@code after}, before jitter. */
+    public Instant next(Instant after) {
+        if (expression == null) {
+            return after.plusSeconds(intervalSeconds);
+        }
+        ZonedDateTime next = expression.next(after.atZone(ZoneId.of(timezone)));
+        if (next == null) {
+            throw new IllegalStateException("Cron " + cron + " has no fire time after " + after);
+        }
+        return next.toInstant();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return value.isMissingNode() || value.isNull() ? null : value.asText();
+    }
+
+    private static Long number(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return value.isMissingNode() || value.isNull() ? null : value.asLong();
+    }
+}
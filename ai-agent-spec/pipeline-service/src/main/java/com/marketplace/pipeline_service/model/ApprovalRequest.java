@@ -0,0 +1,57 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A HUMAN_APPROVAL step an execution is parked at. Created PENDING when the execution parks and
+ * decided once by the approval webhook; the decision is handed to the next attempt of the run.
+ */
+@Entity
+@Table(name = "approval_requests", indexes = {
+        @Index(name = "idx_approval_requests_pending", columnList = "status, requestedAt")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_approval_requests_step", columnNames = {"executionId", "stepId"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApprovalRequest {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private String executionId;
+
+    @Column(nullable = false)
+    private String pipelineId;
+
+    @Column(nullable = false)
+    private String stepId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private Instant requestedAt = Instant.now();
+
+    private Instant decidedAt;
+    private String decidedBy;
+
+    @Column(columnDefinition = "text")
+    private String comment;
+
+    public enum Status {
+        PENDING,
+        APPROVED,
+        REJECTED
+    }
+}
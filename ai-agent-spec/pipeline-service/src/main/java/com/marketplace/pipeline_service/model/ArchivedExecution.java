@@ -0,0 +1,57 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Index entry of an execution moved out of pipeline_executions: where its compressed record sits
+ * in the archive's segment files, plus the summary fields needed to find it.
+ */
+@Entity
+@Table(name = "archived_executions", indexes = {
+        @Index(name = "idx_archived_executions_pipeline", columnList = "pipelineId, startedAt"),
+        @Index(name = "idx_archived_executions_expiry", columnList = "expiresAt"),
+        @Index(name = "idx_archived_executions_segment", columnList = "segment")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedExecution {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false, unique = true)
+    private String executionId;
+
+    @Column(nullable = false)
+    private String pipelineId;
+
+    @Enumerated(EnumType.STRING)
+    private PipelineExecution.ExecutionStatus status;
+
+    private Instant startedAt;
+    private Instant completedAt;
+
+    // Record location: segment file name, offset of the record header, compressed length
+    @Column(nullable = false)
+    private String segment;
+
+    @Column(nullable = false)
+    private Long position;
+
+    @Column(nullable = false)
+    private Integer length;
+
+    @Column(nullable = false)
+    private Instant archivedAt = Instant.now();
+
+    @Column(nullable = false)
+    private Instant expiresAt; // the record is dropped from the archive after this
+}
@@ -0,0 +1,45 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One execution's hold on a stored blob. A blob stays on disk while any row names its hash;
+ * rows of executions that no longer exist are dropped by the blob collector, so blob lifetime
+ * follows execution retention.
+ */
+@Entity
+@Table(name = "blob_references", indexes = {
+        @Index(name = "idx_blob_references_hash", columnList = "hash")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_blob_references_execution", columnNames = {"executionId", "hash"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlobReference {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private String executionId;
+
+    @Column(nullable = false, length = 64)
+    private String hash; // SHA-256, hex
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(nullable = false)
+    private String mediaType;
+
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+}
@@ -42,6 +42,10 @@ public class Connection {
     @Enumerated(EnumType.STRING)
     private ConnectionType connectionType = ConnectionType.DATA;
     
+    // Streaming mode: items flow to a LOOP/PARALLEL target while the source is still producing
+    private Boolean streaming = false;
+    private String streamPath; // Array in the source output to stream (e.g. "articles"); empty = each emitted item
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pipeline_id")
     @JsonBackReference
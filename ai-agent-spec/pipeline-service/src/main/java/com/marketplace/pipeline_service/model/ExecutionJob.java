@@ -0,0 +1,68 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Durable work item for an async execution. Workers lease rows with SELECT ... FOR UPDATE
+ * SKIP LOCKED; a lease that is not renewed expires and the row is claimed again.
+ */
+@Entity
+@Table(name = "execution_jobs", indexes = {
+        @Index(name = "idx_execution_jobs_claim", columnList = "status, availableAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionJob {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false, unique = true)
+    private String executionId;
+
+    @Column(nullable = false)
+    private String pipelineId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(nullable = false)
+    private Instant availableAt = Instant.now(); // Not claimable before this (callback backoff)
+
+    // Lease held by the worker currently processing the job
+    private String leaseOwner;
+    private Instant leaseExpiresAt;
+
+    private Integer runAttempts = 0;
+
+    // Completion callback
+    private String callbackUrl;
+
+    @Column(columnDefinition = "text")
+    private String callbackHeaders; // JSON object
+
+    private Integer callbackAttempts = 0;
+    private String lastError;
+
+    public enum JobStatus {
+        QUEUED,           // Waiting for a worker
+        RUNNING,          // Leased, pipeline executing
+        AWAITING_APPROVAL, // Parked at a HUMAN_APPROVAL step; queued again by the decision
+        CALLBACK_PENDING, // Finished, callback not yet delivered
+        DELIVERING,       // Leased, callback being sent
+        DONE,
+        CALLBACK_FAILED   // Gave up on the callback
+    }
+}
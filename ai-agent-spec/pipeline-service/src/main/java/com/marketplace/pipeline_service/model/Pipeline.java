@@ -48,17 +48,28 @@ public class Pipeline {
     @Column(columnDefinition = "jsonb")
     private String globalConfig; // Global variables, settings
     
-    @OneToMany(mappedBy = "pipeline", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OneToMany(mappedBy = "pipeline", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<PipelineStep> steps;
     
-    @OneToMany(mappedBy = "pipeline", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OneToMany(mappedBy = "pipeline", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<Connection> connections;
     
-    // Execution statistics
+    // Retention: days a finished execution stays in pipeline_executions before it is moved to the
+    // archive, and days it is kept there; null = the pipeline.retention defaults
+    private Integer retentionDays;
+    private Integer archiveRetentionDays;
+    
+    // Bumped whenever steps or connections change; stamps cached execution plans
+    private Long planVersion = 0L;
+    
+    // Execution statistics, from pipeline_stats plus counts not yet flushed (see UsageStats)
+    @Transient
     private Long totalExecutions = 0L;
+    @Transient
     private Long successfulExecutions = 0L;
+    @Transient
     private Long failedExecutions = 0L;
     
     public enum PipelineStatus {
@@ -9,7 +9,14 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "pipeline_executions")
+@Table(name = "pipeline_executions", indexes = {
+        // History pages: keyset over (startedAt, id) within a pipeline, newest first
+        @Index(name = "idx_pipeline_executions_history", columnList = "pipelineId, startedAt, id"),
+        @Index(name = "idx_pipeline_executions_execution", columnList = "executionId"),
+        // Retention: oldest finished executions first, overall and within a pipeline
+        @Index(name = "idx_pipeline_executions_completed", columnList = "completedAt"),
+        @Index(name = "idx_pipeline_executions_pipeline_completed", columnList = "pipelineId, completedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,8 +50,8 @@ public class PipelineExecution {
     @Column(columnDefinition = "jsonb")
     private String executionLog; // Detailed execution log
     
-    @Column(columnDefinition = "jsonb")
-    private String stepResults; // Results from each step
+    @Column(columnDefinition = "text")
+    private String stepResults; // Results from each step (JSON array)
     
     // Error information
     private String errorMessage;
@@ -52,13 +59,18 @@ public class PipelineExecution {
     
     // Execution metadata
     private String triggeredBy; // User, webhook, schedule, etc.
+    private Integer priority; // Sent to the runner with every step; null = default
     private Long executionTimeMs;
+    private Instant resumeAt; // WAITING: when the execution continues (WAITING_APPROVAL: a parked DELAY too)
+    private Boolean countedSucceeded; // Outcome already in the usage stats; null = not counted yet
     
     public enum ExecutionStatus {
+        QUEUED,
         RUNNING,
         COMPLETED,
         FAILED,
         CANCELLED,
-        WAITING_APPROVAL
+        WAITING, // Parked at a DELAY step until resumeAt
+        WAITING_APPROVAL // Parked at a HUMAN_APPROVAL step until it is decided
     }
 }
\ No newline at end of file
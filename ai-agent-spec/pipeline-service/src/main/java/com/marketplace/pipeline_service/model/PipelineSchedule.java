@@ -0,0 +1,47 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Durable fire time of a TRIGGER step of a published pipeline. Rows are derived from the step's
+ * staticConfig.schedule when the pipeline changes; nextFireAt already includes the jitter.
+ */
+@Entity
+@Table(name = "pipeline_schedules", indexes = {
+        @Index(name = "idx_pipeline_schedules_due", columnList = "nextFireAt")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_pipeline_schedules_step", columnNames = {"pipelineId", "stepId"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineSchedule {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private String pipelineId;
+
+    @Column(nullable = false)
+    private String stepId;
+
+    // Copied from TriggerSchedule
+    private String cron;
+    private Long intervalSeconds;
+    private String timezone;
+    private Long jitterSeconds; // effective jitter window
+    private String misfire;
+
+    @Column(nullable = false)
+    private Instant nextFireAt;
+
+    private Instant lastFiredAt;
+}
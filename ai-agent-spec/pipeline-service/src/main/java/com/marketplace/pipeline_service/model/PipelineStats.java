@@ -0,0 +1,22 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Entity
+@Table(name = "pipeline_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineStats {
+    
+    // Kept off the pipelines row so counting executions never locks the definition
+    @Id
+    private String pipelineId;
+    
+    private Long totalExecutions = 0L;
+    private Long successfulExecutions = 0L;
+    private Long failedExecutions = 0L;
+}
@@ -22,8 +22,7 @@ public class PipelineStep {
     @Column(nullable = false)
     private String stepId; // Unique within pipeline (e.g., "content-generator-1")
 
-    @Column(nullable = false)
-    private String agentId; // Reference to agent in catalog service
+    private String agentId; // Reference to agent in catalog service; null for steps that call no agent
 
     @Column(nullable = false)
     private String displayName;
@@ -56,6 +55,14 @@ public class PipelineStep {
     @Enumerated(EnumType.STRING)
     private StepType stepType = StepType.AGENT;
 
+    // LOOP / PARALLEL settings
+    private String iterateOver; // Path of the array to loop over in the mapped input (default "items")
+    private Integer maxParallelism; // Items or branches in flight at once
+    private Boolean orderedResults = true; // false = aggregate in completion order
+
+    @Column(columnDefinition = "text")
+    private String branches; // PARALLEL: [{"name": "...", "agentId": "...", "inputMapping": {...}}]
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pipeline_id")
     @JsonBackReference
@@ -46,8 +46,10 @@ public class PipelineTemplate {
     @Column(columnDefinition = "jsonb")
     private String pipelineDefinition; // Complete pipeline structure
     
-    // Usage statistics
+    // Usage statistics, from template_stats plus counts not yet flushed (see UsageStats)
+    @Transient
     private Long usageCount = 0L;
+    @Transient
     private Double averageRating = 0.0;
     
     @Column(nullable = false)
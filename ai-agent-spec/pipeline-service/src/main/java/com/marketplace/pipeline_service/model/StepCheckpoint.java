@@ -0,0 +1,54 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Append-only record of one step's outcome within one attempt of an execution. Rows are
+ * inserted as steps finish and never updated; resuming an execution reuses the latest
+ * COMPLETED row per step.
+ */
+@Entity
+@Table(name = "step_checkpoints", indexes = {
+        @Index(name = "idx_step_checkpoints_execution", columnList = "executionId, stepId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepCheckpoint {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private String executionId;
+
+    @Column(nullable = false)
+    private String stepId;
+
+    @Column(nullable = false)
+    private Integer attempt; // 1 for the first run, incremented on each resume
+
+    @Column(nullable = false)
+    private String status; // COMPLETED, FAILED, SKIPPED
+
+    // JSON, kept as text so it reads back unchanged on H2 as well as PostgreSQL
+    @Column(columnDefinition = "text")
+    private String output;
+
+    @Column(columnDefinition = "text")
+    private String error;
+
+    private Instant startedAt;
+
+    @Column(nullable = false)
+    private Instant completedAt = Instant.now();
+
+    private Long durationMs;
+}
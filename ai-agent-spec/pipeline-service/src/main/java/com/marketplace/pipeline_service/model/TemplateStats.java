@@ -0,0 +1,23 @@
+package com.marketplace.pipeline_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Entity
+@Table(name = "template_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateStats {
+    
+    @Id
+    private String templateId;
+    
+    private Long usageCount = 0L;
+    
+    // Average rating = ratingSum / ratingCount
+    private Double ratingSum = 0.0;
+    private Long ratingCount = 0L;
+}
@@ -0,0 +1,45 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.ApprovalRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ApprovalRequestRepository extends JpaRepository<ApprovalRequest, UUID> {
+
+    List<ApprovalRequest> findByExecutionIdOrderByRequestedAtAsc(String executionId);
+
+    Optional<ApprovalRequest> findByExecutionIdAndStepId(String executionId, String stepId);
+
+    /**
+     * Records the decision of a pending request. Returns 0 when there is no such request or it
+     * was already decided.
+     */
+    @Modifying
+    @Query("update ApprovalRequest a set a.status = :status, a.decidedAt = :decidedAt, "
+            + "a.decidedBy = :decidedBy, a.comment = :comment "
+            + "where a.executionId = :executionId and a.stepId = :stepId "
+            + "and a.status = com.marketplace.pipeline_service.model.ApprovalRequest.Status.PENDING")
+    int decide(@Param("executionId") String executionId,
+               @Param("stepId") String stepId,
+               @Param("status") ApprovalRequest.Status status,
+               @Param("decidedAt") Instant decidedAt,
+               @Param("decidedBy") String decidedBy,
+               @Param("comment") String comment);
+
+    @Modifying
+    @Query("delete from ApprovalRequest a where a.executionId in :executionIds")
+    int deleteByExecutionIds(@Param("executionIds") Collection<String> executionIds);
+
+    @Modifying
+    @Query("delete from ApprovalRequest a where a.executionId = :executionId "
+            + "and a.status = com.marketplace.pipeline_service.model.ApprovalRequest.Status.REJECTED")
+    int deleteRejected(@Param("executionId") String executionId);
+}
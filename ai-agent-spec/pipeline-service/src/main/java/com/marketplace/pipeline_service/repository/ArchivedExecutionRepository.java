@@ -0,0 +1,23 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.ArchivedExecution;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ArchivedExecutionRepository extends JpaRepository<ArchivedExecution, UUID> {
+
+    Optional<ArchivedExecution> findByExecutionId(String executionId);
+
+    @Query("select a from ArchivedExecution a where a.expiresAt < :now order by a.expiresAt")
+    List<ArchivedExecution> findExpired(@Param("now") Instant now, Pageable pageable);
+
+    @Query("select distinct a.segment from ArchivedExecution a")
+    List<String> findLiveSegments();
+}
@@ -0,0 +1,36 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.BlobReference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BlobReferenceRepository extends JpaRepository<BlobReference, UUID> {
+
+    boolean existsByExecutionIdAndHash(String executionId, String hash);
+
+    Optional<BlobReference> findByExecutionIdAndHash(String executionId, String hash);
+
+    @Query("select distinct r.hash from BlobReference r where r.hash in :hashes")
+    List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+
+    /**
+     * Drops the references of executions that no longer exist, neither live nor archived (e.g.
+     * expired by retention). Only rows older than {@code before}, so a reference written just
+     * ahead of its execution row is kept.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from BlobReference r where r.createdAt < :before "
+            + "and not exists (select 1 from PipelineExecution e where e.executionId = r.executionId) "
+            + "and not exists (select 1 from ArchivedExecution a where a.executionId = r.executionId)")
+    int deleteOrphaned(@Param("before") Instant before);
+}
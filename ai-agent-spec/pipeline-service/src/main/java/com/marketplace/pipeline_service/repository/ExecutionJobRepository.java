@@ -0,0 +1,50 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.ExecutionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ExecutionJobRepository extends JpaRepository<ExecutionJob, UUID> {
+
+    Optional<ExecutionJob> findByExecutionId(String executionId);
+
+    /**
+     * Locks up to {@code limit} claimable jobs, skipping rows other workers hold. Must run
+     * inside the transaction that marks them leased.
+     */
+    @Query(value = "select * from execution_jobs "
+            + "where (status in ('QUEUED', 'CALLBACK_PENDING') and available_at <= :now) "
+            + "or (status in ('RUNNING', 'DELIVERING') and lease_expires_at < :now) "
+            + "order by available_at "
+            + "limit :limit "
+            + "for update skip locked", nativeQuery = true)
+    List<ExecutionJob> lockClaimable(@Param("now") Instant now, @Param("limit") int limit);
+
+    // Serializes parking and approval decisions of one execution
+    @Query(value = "select * from execution_jobs where execution_id = :executionId for update", nativeQuery = true)
+    Optional<ExecutionJob> lockByExecutionId(@Param("executionId") String executionId);
+
+    // Finished jobs only; a job still running or delivering its callback keeps its row
+    @Modifying
+    @Query("delete from ExecutionJob j where j.executionId in :executionIds "
+            + "and j.status in (com.marketplace.pipeline_service.model.ExecutionJob.JobStatus.DONE, "
+            + "com.marketplace.pipeline_service.model.ExecutionJob.JobStatus.CALLBACK_FAILED)")
+    int deleteFinishedByExecutionIds(@Param("executionIds") Collection<String> executionIds);
+
+    @Transactional
+    @Modifying
+    @Query("update ExecutionJob j set j.leaseExpiresAt = :expiresAt "
+            + "where j.id in :ids and j.leaseOwner = :owner")
+    int renewLeases(@Param("ids") Collection<UUID> ids,
+                    @Param("owner") String owner,
+                    @Param("expiresAt") Instant expiresAt);
+}
@@ -0,0 +1,59 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.dto.ExecutionSummary;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PipelineExecutionRepository extends JpaRepository<PipelineExecution, UUID> {
+
+    String SUMMARY = "select new com.marketplace.pipeline_service.dto.ExecutionSummary("
+            + "e.id, e.executionId, e.pipelineId, e.status, e.startedAt, e.completedAt, "
+            + "e.executionTimeMs, e.triggeredBy, e.errorStep, e.errorMessage) "
+            + "from PipelineExecution e ";
+
+    // Finished before :cutoff, and no job still delivering a callback for it
+    String ARCHIVABLE = "select * from pipeline_executions e "
+            + "where e.status in ('COMPLETED', 'FAILED', 'CANCELLED') and e.completed_at < :cutoff "
+            + "and not exists (select 1 from execution_jobs j where j.execution_id = e.execution_id "
+            + "and j.status not in ('DONE', 'CALLBACK_FAILED')) ";
+
+    Optional<PipelineExecution> findByExecutionId(String executionId);
+
+    /**
+     * Locks up to {@code limit} archivable executions of one pipeline, oldest first, skipping
+     * rows another instance is archiving. Must run inside the archiving transaction.
+     */
+    @Query(value = ARCHIVABLE + "and e.pipeline_id = :pipelineId "
+            + "order by e.completed_at limit :limit for update skip locked", nativeQuery = true)
+    List<PipelineExecution> lockArchivable(@Param("pipelineId") String pipelineId,
+                                           @Param("cutoff") Instant cutoff,
+                                           @Param("limit") int limit);
+
+    /** As {@link #lockArchivable}, over pipelines without their own retentionDays (or deleted ones). */
+    @Query(value = ARCHIVABLE + "and e.pipeline_id not in "
+            + "(select p.pipeline_id from pipelines p where p.retention_days is not null) "
+            + "order by e.completed_at limit :limit for update skip locked", nativeQuery = true)
+    List<PipelineExecution> lockArchivableByDefault(@Param("cutoff") Instant cutoff,
+                                                    @Param("limit") int limit);
+
+    // Newest first; both queries walk idx_pipeline_executions_history and never read the blob columns
+    @Query(SUMMARY + "where e.pipelineId = :pipelineId "
+            + "order by e.startedAt desc, e.id desc")
+    List<ExecutionSummary> findHistory(@Param("pipelineId") String pipelineId, Pageable pageable);
+
+    @Query(SUMMARY + "where e.pipelineId = :pipelineId "
+            + "and (e.startedAt < :startedAt or (e.startedAt = :startedAt and e.id < :id)) "
+            + "order by e.startedAt desc, e.id desc")
+    List<ExecutionSummary> findHistoryBefore(@Param("pipelineId") String pipelineId,
+                                             @Param("startedAt") Instant startedAt,
+                                             @Param("id") UUID id,
+                                             Pageable pageable);
+}
@@ -0,0 +1,37 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.Pipeline;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PipelineRepository extends JpaRepository<Pipeline, UUID> {
+
+    Optional<Pipeline> findByPipelineId(String pipelineId);
+
+    boolean existsByPipelineId(String pipelineId);
+
+    @Query("select p.pipelineId from Pipeline p where p.pipelineId in :pipelineIds")
+    List<String> findExistingPipelineIds(@Param("pipelineIds") Collection<String> pipelineIds);
+
+    // Two bags cannot be fetch-joined together (MultipleBagFetchException); run both in one
+    // transaction and the second query fills the other collection of the same instance
+    @Query("select distinct p from Pipeline p left join fetch p.steps where p.pipelineId = :pipelineId")
+    Optional<Pipeline> findWithStepsByPipelineId(@Param("pipelineId") String pipelineId);
+
+    @Query("select distinct p from Pipeline p left join fetch p.connections where p.pipelineId = :pipelineId")
+    Optional<Pipeline> findWithConnectionsByPipelineId(@Param("pipelineId") String pipelineId);
+
+    // Pipelines with their own retention settings (see ExecutionRetention)
+    @Query("select p from Pipeline p where p.retentionDays is not null or p.archiveRetentionDays is not null")
+    List<Pipeline> findRetentionOverrides();
+
+    // [id, planVersion]: what a cached plan must match to still be current (see PlanCache)
+    @Query("select p.id, p.planVersion from Pipeline p where p.pipelineId = :pipelineId")
+    List<Object[]> findPlanStamp(@Param("pipelineId") String pipelineId);
+}
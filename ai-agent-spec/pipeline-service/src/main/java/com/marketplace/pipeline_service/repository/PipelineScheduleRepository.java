@@ -0,0 +1,32 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.PipelineSchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface PipelineScheduleRepository extends JpaRepository<PipelineSchedule, UUID> {
+
+    List<PipelineSchedule> findByPipelineId(String pipelineId);
+
+    List<PipelineSchedule> findByNextFireAtBefore(Instant horizon);
+
+    /**
+     * Moves a schedule from the fire time this instance armed to the next one. Returns 0 when
+     * another instance fired it first or the schedule changed meanwhile.
+     */
+    @Transactional
+    @Modifying
+    @Query("update PipelineSchedule s set s.nextFireAt = :next, s.lastFiredAt = :firedAt "
+            + "where s.id = :id and s.nextFireAt = :expected")
+    int advance(@Param("id") UUID id,
+                @Param("expected") Instant expected,
+                @Param("next") Instant next,
+                @Param("firedAt") Instant firedAt);
+}
@@ -0,0 +1,7 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.PipelineStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PipelineStatsRepository extends JpaRepository<PipelineStats, String> {
+}
@@ -0,0 +1,24 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.PipelineTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PipelineTemplateRepository extends JpaRepository<PipelineTemplate, UUID> {
+
+    Optional<PipelineTemplate> findByTemplateId(String templateId);
+
+    boolean existsByTemplateId(String templateId);
+
+    List<PipelineTemplate> findByCategoryOrderByCreatedAtDesc(String category, Pageable pageable);
+
+    List<PipelineTemplate> findByStatusOrderByCreatedAtDesc(PipelineTemplate.TemplateStatus status);
+
+    @Query("select distinct t.category from PipelineTemplate t order by t.category")
+    List<String> findCategories();
+}
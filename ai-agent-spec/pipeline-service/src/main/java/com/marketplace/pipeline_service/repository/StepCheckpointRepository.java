@@ -0,0 +1,23 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.StepCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface StepCheckpointRepository extends JpaRepository<StepCheckpoint, UUID> {
+
+    List<StepCheckpoint> findByExecutionIdAndStatusOrderByAttemptAsc(String executionId, String status);
+
+    @Modifying
+    @Query("delete from StepCheckpoint c where c.executionId in :executionIds")
+    int deleteByExecutionIds(@Param("executionIds") Collection<String> executionIds);
+
+    @Query("select coalesce(max(c.attempt), 0) from StepCheckpoint c where c.executionId = :executionId")
+    int findLatestAttempt(@Param("executionId") String executionId);
+}
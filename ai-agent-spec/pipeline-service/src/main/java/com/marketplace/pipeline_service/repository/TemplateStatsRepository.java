@@ -0,0 +1,7 @@
+package com.marketplace.pipeline_service.repository;
+
+import com.marketplace.pipeline_service.model.TemplateStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TemplateStatsRepository extends JpaRepository<TemplateStats, String> {
+}
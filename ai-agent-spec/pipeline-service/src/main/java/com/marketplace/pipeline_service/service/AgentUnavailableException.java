@@ -0,0 +1,22 @@
+package com.marketplace.pipeline_service.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The runner refused to call the agent because its circuit is open. Retrying before
+ * {@link #getRetryAfter()} would fail the same way, so step retries are skipped.
+ */
+@Getter
+public class AgentUnavailableException extends RuntimeException {
+
+    private final String agentId;
+    private final Duration retryAfter;
+
+    public AgentUnavailableException(String agentId, Duration retryAfter, String message) {
+        super(message);
+        this.agentId = agentId;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,419 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.marketplace.pipeline_service.model.BlobReference;
+import com.marketplace.pipeline_service.repository.BlobReferenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for large step outputs on local disk ({@code pipeline.blobs.dir}),
+ * one file per SHA-256 under a two-character fan-out directory. Executions, step results and
+ * checkpoints keep a reference in place of the value:
+ * <pre>
+ * {"$blob": "9f86d08...", "size": 1048576, "mediaType": "application/pdf"}
+ * </pre>
+ * String values over {@code pipeline.blobs.threshold} are moved out as soon as a step returns
+ * them (a base64 data URI is stored decoded, with its media type; other text as text/plain), so
+ * the run itself only carries the reference. When a whole output is still over the threshold
+ * it is stored as application/json before it is persisted. References are resolved, from a
+ * memory-mapped file, only where the content is needed: the body of a downstream agent call
+ * and restored checkpoints. Clients fetch the bytes of an execution's blob with {@link #find}
+ * and {@link #transferTo}.
+ *
+ * <p>Agent output is untrusted and may itself contain {@code $blob} objects. An execution only
+ * resolves references to blobs it stored itself (it has a blob_references row for the hash), so
+ * a forged reference can neither read another execution's blob nor, with a crafted hash, a file
+ * outside {@code pipeline.blobs.dir}.
+ *
+ * <p>Each execution that stores a blob records a blob_references row. {@link #collect} drops the
+ * rows of executions that no longer exist, live or archived (see {@link ExecutionRetention}),
+ * then deletes files no row names that are older than {@code pipeline.blobs.gc-grace}.
+ */
+@Slf4j
+@Component
+public class BlobStore {
+
+    public static final String REF = "$blob";
+
+    private static final Pattern DATA_URI = Pattern.compile("^data:([\\w.+-]+/[\\w.+-]+);base64,");
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String JSON = "application/json";
+    private static final String TEXT = "text/plain;charset=UTF-8";
+    // Media types a browser may render in place; an agent can declare any type, e.g. text/html
+    private static final Set<String> INLINE = Set.of("application/json", "text/plain",
+            "image/png", "image/jpeg", "image/gif", "image/webp");
+    private static final int GC_BATCH = 500;
+
+    private final BlobReferenceRepository referenceRepository;
+    private final ObjectMapper objectMapper;
+    private final Path root;
+    private final long threshold;
+    private final Duration grace;
+
+    public BlobStore(BlobReferenceRepository referenceRepository,
+                     ObjectMapper objectMapper,
+                     @Value("${pipeline.blobs.dir:data/blobs}") Path root,
+                     @Value("${pipeline.blobs.threshold:64KB}") DataSize threshold,
+                     @Value("${pipeline.blobs.gc-grace:1h}") Duration grace) throws IOException {
+        this.referenceRepository = referenceRepository;
+        this.objectMapper = objectMapper;
+        this.root = Files.createDirectories(root);
+        this.threshold = threshold.toBytes();
+        this.grace = grace;
+    }
+
+    public record Blob(String hash, long size, String mediaType) {
+
+        /** Whether the content is safe to serve inline rather than as a download. */
+        public boolean inline() {
+            String type = mediaType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            return INLINE.contains(type);
+        }
+    }
+
+    /**
+     * Replaces string values over the threshold with references, leaving {@code node} untouched;
+     * returns {@code node} itself when nothing was moved.
+     */
+    public JsonNode externalize(String executionId, JsonNode node) {
+        if (node == null) {
+            return null;
+        }
+        if (node.isTextual() && node.textValue().length() > threshold) {
+            return reference(store(executionId, node.textValue()));
+        }
+        if (node.isObject() && !isReference(node)) {
+            ObjectNode copy = null;
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                JsonNode value = externalize(executionId, field.getValue());
+                if (value != field.getValue()) {
+                    copy = copy == null ? objectMapper.createObjectNode().setAll((ObjectNode) node) : copy;
+                    copy.set(field.getKey(), value);
+                }
+            }
+            return copy == null ? node : copy;
+        }
+        if (node.isArray()) {
+            ArrayNode copy = null;
+            for (int i = 0; i < node.size(); i++) {
+                JsonNode value = externalize(executionId, node.get(i));
+                if (value != node.get(i)) {
+                    copy = copy == null ? objectMapper.createArrayNode().addAll((ArrayNode) node) : copy;
+                    copy.set(i, value);
+                }
+            }
+            return copy == null ? node : copy;
+        }
+        return node;
+    }
+
+    /**
+     * As {@link #externalize}, then stores the whole value as JSON if it is still over the
+     * threshold. For values about to be persisted; the result may no longer be mapped into.
+     */
+    public JsonNode externalizeDocument(String executionId, JsonNode node) {
+        JsonNode externalized = externalize(executionId, node);
+        if (externalized == null || !externalized.isContainerNode() || isReference(externalized)) {
+            return externalized;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(externalized);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize step output", e);
+        }
+        return json.length > threshold ? reference(store(executionId, json, JSON)) : externalized;
+    }
+
+    /**
+     * Replaces every reference in {@code node} with its content; {@code node} itself if it has
+     * none. Fails on a reference to a blob the execution did not store.
+     */
+    public JsonNode resolve(String executionId, JsonNode node) {
+        if (node == null) {
+            return null;
+        }
+        if (isReference(node)) {
+            // A stored document may itself hold string references
+            JsonNode loaded = load(executionId, node);
+            return loaded.isContainerNode() ? resolve(executionId, loaded) : loaded;
+        }
+        if (node.isObject()) {
+            ObjectNode copy = null;
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                JsonNode value = resolve(executionId, field.getValue());
+                if (value != field.getValue()) {
+                    copy = copy == null ? objectMapper.createObjectNode().setAll((ObjectNode) node) : copy;
+                    copy.set(field.getKey(), value);
+                }
+            }
+            return copy == null ? node : copy;
+        }
+        if (node.isArray()) {
+            ArrayNode copy = null;
+            for (int i = 0; i < node.size(); i++) {
+                JsonNode value = resolve(executionId, node.get(i));
+                if (value != node.get(i)) {
+                    copy = copy == null ? objectMapper.createArrayNode().addAll((ArrayNode) node) : copy;
+                    copy.set(i, value);
+                }
+            }
+            return copy == null ? node : copy;
+        }
+        return node;
+    }
+
+    /**
+     * Undoes {@link #externalizeDocument}'s whole-value step only: string references inside stay
+     * references, as they were while the step's dependents first ran.
+     */
+    public JsonNode resolveDocument(String executionId, JsonNode node) {
+        return isReference(node) && JSON.equals(node.path("mediaType").asText()) ? load(executionId, node) : node;
+    }
+
+    public static boolean isReference(JsonNode node) {
+        return node != null && node.isObject() && node.path(REF).isTextual();
+    }
+
+    /**
+     * The blob as the execution stored it, with the media type of its own reference; empty if
+     * the execution holds no reference to it or it is no longer on disk.
+     */
+    public Optional<Blob> find(String executionId, String hash) {
+        Path file = path(hash);
+        return referenceRepository.findByExecutionIdAndHash(executionId, hash)
+                .filter(reference -> Files.isRegularFile(file))
+                .map(reference -> {
+                    try {
+                        return new Blob(hash, Files.size(file), reference.getMediaType());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /** Copies the blob to {@code out} with FileChannel.transferTo, without a heap buffer. */
+    public void transferTo(String hash, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(hash), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    /**
+     * Deletes blobs no live execution references. Runs on every instance; deleting a file another
+     * instance already removed is harmless.
+     */
+    @Scheduled(fixedDelayString = "${pipeline.blobs.gc-interval:1h}", initialDelayString = "${pipeline.blobs.gc-interval:1h}")
+    public void collect() {
+        Instant cutoff = Instant.now().minus(grace);
+        int released = referenceRepository.deleteOrphaned(cutoff);
+        int deleted = 0;
+        List<Path> batch = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Iterator<Path> it = files.filter(Files::isRegularFile).iterator(); it.hasNext(); ) {
+                Path file = it.next();
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                if (!HASH.matcher(file.getFileName().toString()).matches()) {
+                    Files.deleteIfExists(file); // temp file of an interrupted write
+                    continue;
+                }
+                batch.add(file);
+                if (batch.size() == GC_BATCH) {
+                    deleted += deleteUnreferenced(batch, cutoff);
+                    batch.clear();
+                }
+            }
+            deleted += deleteUnreferenced(batch, cutoff);
+        } catch (IOException e) {
+            log.error("Blob collection under {} failed", root, e);
+        }
+        if (released > 0 || deleted > 0) {
+            log.info("Released {} blob reference(s), deleted {} blob(s)", released, deleted);
+        }
+    }
+
+    private int deleteUnreferenced(List<Path> files, Instant cutoff) throws IOException {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>(referenceRepository.findReferencedHashes(
+                files.stream().map(file -> file.getFileName().toString()).toList()));
+        int deleted = 0;
+        for (Path file : files) {
+            if (referenced.contains(file.getFileName().toString()) || renewedSince(file, cutoff)) {
+                continue;
+            }
+            if (Files.deleteIfExists(file)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // store() renews a file before recording its reference, so a file renewed after it was listed
+    // may have a reference the query above could not see yet
+    private static boolean renewedSince(Path file, Instant cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isAfter(cutoff);
+        } catch (NoSuchFileException e) {
+            return true; // already deleted by another instance
+        }
+    }
+
+    private Blob store(String executionId, String text) {
+        Matcher dataUri = DATA_URI.matcher(text);
+        if (dataUri.find()) {
+            try {
+                byte[] bytes = Base64.getDecoder().decode(text.substring(dataUri.end()));
+                return store(executionId, bytes, dataUri.group(1));
+            } catch (IllegalArgumentException e) {
+                // not valid base64 after all: keep it as text
+            }
+        }
+        return store(executionId, text.getBytes(StandardCharsets.UTF_8), TEXT);
+    }
+
+    private Blob store(String executionId, byte[] bytes, String mediaType) {
+        String hash = sha256(bytes);
+        Path file = path(hash);
+        try {
+            if (Files.exists(file)) {
+                // Already stored: renew it so the collector's grace period covers the new reference
+                Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            } else {
+                Files.createDirectories(file.getParent());
+                Path temp = Files.createTempFile(file.getParent(), hash, ".tmp");
+                Files.write(temp, bytes);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store blob " + hash, e);
+        }
+        Blob blob = new Blob(hash, bytes.length, mediaType);
+        if (executionId != null && !referenceRepository.existsByExecutionIdAndHash(executionId, hash)) {
+            try {
+                BlobReference reference = new BlobReference();
+                reference.setExecutionId(executionId);
+                reference.setHash(hash);
+                reference.setSize(blob.size());
+                reference.setMediaType(mediaType);
+                referenceRepository.save(reference);
+            } catch (DataIntegrityViolationException e) {
+                // recorded concurrently by another step of the same execution
+            }
+        }
+        return blob;
+    }
+
+    private JsonNode load(String executionId, JsonNode reference) {
+        String hash = checkHash(reference.path(REF).asText());
+        if (executionId == null || !referenceRepository.existsByExecutionIdAndHash(executionId, hash)) {
+            throw new IllegalArgumentException("Blob " + hash + " was not stored by execution " + executionId);
+        }
+        String mediaType = reference.path("mediaType").asText();
+        ByteBuffer content = map(hash);
+        try {
+            if (JSON.equals(mediaType)) {
+                return objectMapper.readTree(new ByteBufferBackedInputStream(content));
+            }
+            if (TEXT.equals(mediaType)) {
+                return TextNode.valueOf(StandardCharsets.UTF_8.decode(content).toString());
+            }
+            ByteBuffer encoded = Base64.getEncoder().encode(content);
+            return TextNode.valueOf("data:" + mediaType + ";base64," + StandardCharsets.ISO_8859_1.decode(encoded));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt blob " + hash, e);
+        }
+    }
+
+    private ByteBuffer map(String hash) {
+        try (FileChannel channel = FileChannel.open(path(hash), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Blob " + hash + " is no longer stored", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectNode reference(Blob blob) {
+        return objectMapper.createObjectNode()
+                .put(REF, blob.hash())
+                .put("size", blob.size())
+                .put("mediaType", blob.mediaType());
+    }
+
+    // Only ever a hash: anything else could name a path outside root
+    private Path path(String hash) {
+        checkHash(hash);
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String checkHash(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a blob hash: " + hash);
+        }
+        return hash;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Posts the outcome of an async execution to the caller's callbackUrl.
+ */
+@Component
+public class CallbackNotifier {
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public CallbackNotifier(WebClient.Builder webClientBuilder,
+                            ObjectMapper objectMapper,
+                            @Value("${pipeline.callback.timeout:10s}") Duration timeout) {
+        this.webClient = webClientBuilder.build();
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends the callback, blocking the calling worker. Throws if the receiver does not answer 2xx.
+     */
+    public void send(String callbackUrl, String callbackHeaders, PipelineExecution execution) {
+        Map<String, String> headers = parseHeaders(callbackHeaders);
+        webClient.post()
+                .uri(callbackUrl)
+                .headers(h -> headers.forEach(h::set))
+                .bodyValue(payload(execution))
+                .retrieve()
+                .toBodilessEntity()
+                .block(timeout);
+    }
+
+    private Map<String, Object> payload(PipelineExecution execution) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("executionId", execution.getExecutionId());
+        payload.put("pipelineId", execution.getPipelineId());
+        payload.put("status", execution.getStatus());
+        payload.put("startedAt", execution.getStartedAt());
+        payload.put("completedAt", execution.getCompletedAt());
+        payload.put("executionTimeMs", execution.getExecutionTimeMs());
+        payload.put("finalOutput", parse(execution.getFinalOutput()));
+        payload.put("errorStep", execution.getErrorStep());
+        payload.put("errorMessage", execution.getErrorMessage());
+        return payload;
+    }
+
+    private Map<String, String> parseHeaders(String json) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid callback headers", e);
+        }
+    }
+
+    private JsonNode parse(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            return objectMapper.getNodeFactory().textNode(json);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.engine.StepListener;
+import com.marketplace.pipeline_service.engine.StepResult;
+import com.marketplace.pipeline_service.model.StepCheckpoint;
+import com.marketplace.pipeline_service.repository.StepCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes one step_checkpoints row per finished step and reads them back for resumption.
+ * Each step costs a single insert regardless of how large the execution has grown; outputs over
+ * the blob threshold are stored in the {@link BlobStore} and only referenced from the row.
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckpointStore {
+
+    private final StepCheckpointRepository checkpointRepository;
+    private final ObjectMapper objectMapper;
+    private final BlobStore blobStore;
+
+    public int nextAttempt(String executionId) {
+        return checkpointRepository.findLatestAttempt(executionId) + 1;
+    }
+
+    /**
+     * Outputs of every step that has completed in any earlier attempt, latest attempt winning.
+     */
+    public Map<String, JsonNode> completedOutputs(String executionId) {
+        Map<String, JsonNode> outputs = new HashMap<>();
+        for (StepCheckpoint checkpoint : checkpointRepository
+                .findByExecutionIdAndStatusOrderByAttemptAsc(executionId, StepResult.Status.COMPLETED.name())) {
+            outputs.put(checkpoint.getStepId(), blobStore.resolveDocument(executionId, parse(checkpoint.getOutput())));
+        }
+        return outputs;
+    }
+
+    /**
+     * Resume times of steps parked in earlier attempts (e.g. long DELAYs), latest attempt winning.
+     */
+    public Map<String, Instant> resumeTimes(String executionId) {
+        Map<String, Instant> times = new HashMap<>();
+        for (StepCheckpoint checkpoint : checkpointRepository
+                .findByExecutionIdAndStatusOrderByAttemptAsc(executionId, StepResult.Status.PARKED.name())) {
+            JsonNode resumeAt = parse(checkpoint.getOutput()).path("resumeAt");
+            if (resumeAt.isTextual()) {
+                times.put(checkpoint.getStepId(), Instant.parse(resumeAt.asText()));
+            }
+        }
+        return times;
+    }
+
+    /**
+     * A listener that persists each step result of the given attempt before dependents run.
+     */
+    public StepListener recorder(String executionId, int attempt) {
+        return result -> Mono.fromRunnable(() -> checkpointRepository.save(toCheckpoint(executionId, attempt, result)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private StepCheckpoint toCheckpoint(String executionId, int attempt, StepResult result) {
+        StepCheckpoint checkpoint = new StepCheckpoint();
+        checkpoint.setExecutionId(executionId);
+        checkpoint.setStepId(result.stepId());
+        checkpoint.setAttempt(attempt);
+        checkpoint.setStatus(result.status().name());
+        JsonNode output = blobStore.externalizeDocument(executionId, result.output());
+        checkpoint.setOutput(output == null ? null : output.toString());
+        checkpoint.setError(result.error());
+        checkpoint.setStartedAt(result.startedAt());
+        checkpoint.setCompletedAt(Instant.now());
+        checkpoint.setDurationMs(result.durationMs());
+        return checkpoint;
+    }
+
+    private JsonNode parse(String json) {
+        if (json == null) {
+            return objectMapper.nullNode();
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt checkpoint output", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.dto.ApprovalDecision;
+import com.marketplace.pipeline_service.model.ApprovalRequest;
+import com.marketplace.pipeline_service.model.ExecutionJob;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.ApprovalRequestRepository;
+import com.marketplace.pipeline_service.repository.ExecutionJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Approval requests of executions parked at HUMAN_APPROVAL steps. A parked execution holds no
+ * thread or memory: what it needs to continue is its step checkpoints plus these rows. A
+ * decision re-queues the execution's job, so whichever instance claims it next rehydrates the
+ * run and hands it the decision.
+ *
+ * <p>Parking and deciding both lock the job row first, so a decision that arrives while the
+ * execution is still running (e.g. woken by a DELAY) is seen when it parks again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExecutionApprovals {
+
+    private final ApprovalRequestRepository approvalRepository;
+    private final ExecutionJobRepository jobRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Opens a PENDING request per step not asked already. Call inside the transaction that parks
+     * the execution, after locking its job. Returns whether any of the steps is already decided,
+     * in which case the execution should be queued right away.
+     */
+    public boolean request(PipelineExecution execution, Collection<String> stepIds) {
+        boolean decided = false;
+        for (String stepId : stepIds) {
+            Optional<ApprovalRequest> existing = approvalRepository
+                    .findByExecutionIdAndStepId(execution.getExecutionId(), stepId);
+            if (existing.isEmpty()) {
+                ApprovalRequest request = new ApprovalRequest();
+                request.setExecutionId(execution.getExecutionId());
+                request.setPipelineId(execution.getPipelineId());
+                request.setStepId(stepId);
+                approvalRepository.save(request);
+            } else if (existing.get().getStatus() != ApprovalRequest.Status.PENDING) {
+                decided = true;
+            }
+        }
+        return decided;
+    }
+
+    public List<ApprovalRequest> list(String executionId) {
+        return approvalRepository.findByExecutionIdOrderByRequestedAtAsc(executionId);
+    }
+
+    // Decisions made so far, by stepId, as PlanRun takes them
+    public Map<String, JsonNode> decisions(String executionId) {
+        Map<String, JsonNode> decisions = new HashMap<>();
+        for (ApprovalRequest request : approvalRepository.findByExecutionIdOrderByRequestedAtAsc(executionId)) {
+            if (request.getStatus() == ApprovalRequest.Status.PENDING) {
+                continue;
+            }
+            ObjectNode decision = objectMapper.createObjectNode()
+                    .put("approved", request.getStatus() == ApprovalRequest.Status.APPROVED)
+                    .put("decidedAt", request.getDecidedAt().toString());
+            if (request.getDecidedBy() != null) {
+                decision.put("decidedBy", request.getDecidedBy());
+            }
+            if (request.getComment() != null) {
+                decision.put("comment", request.getComment());
+            }
+            decisions.put(request.getStepId(), decision);
+        }
+        return decisions;
+    }
+
+    /**
+     * Records the decision for a pending request and queues the execution to continue.
+     */
+    @Transactional
+    public ApprovalRequest decide(String executionId, String stepId, ApprovalDecision decision) {
+        if (decision.getApproved() == null) {
+            throw new IllegalArgumentException("approved is required");
+        }
+        Optional<ExecutionJob> job = jobRepository.lockByExecutionId(executionId);
+        Instant now = Instant.now();
+        ApprovalRequest.Status status = decision.getApproved()
+                ? ApprovalRequest.Status.APPROVED : ApprovalRequest.Status.REJECTED;
+        if (approvalRepository.decide(executionId, stepId, status, now,
+                decision.getDecidedBy(), decision.getComment()) == 0) {
+            ApprovalRequest existing = approvalRepository.findByExecutionIdAndStepId(executionId, stepId)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "No approval requested for step " + stepId + " of execution " + executionId));
+            throw new ExecutionConflictException("Step " + stepId + " of execution " + executionId
+                    + " is already " + existing.getStatus());
+        }
+        // A job still running picks the decision up when it parks again
+        job.filter(j -> j.getStatus() == ExecutionJob.JobStatus.AWAITING_APPROVAL
+                        || j.getStatus() == ExecutionJob.JobStatus.QUEUED)
+                .ifPresent(j -> {
+                    j.setStatus(ExecutionJob.JobStatus.QUEUED);
+                    j.setAvailableAt(now);
+                    jobRepository.save(j);
+                });
+        log.info("Step {} of execution {} {} by {}", stepId, executionId, status, decision.getDecidedBy());
+        return approvalRepository.findByExecutionIdAndStepId(executionId, stepId).orElseThrow();
+    }
+
+    /**
+     * Forgets rejections so a resumed execution asks for those approvals again.
+     */
+    @Transactional
+    public void reopenRejected(String executionId) {
+        approvalRepository.deleteRejected(executionId);
+    }
+}
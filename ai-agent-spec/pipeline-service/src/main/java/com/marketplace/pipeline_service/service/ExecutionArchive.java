@@ -0,0 +1,232 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.model.ArchivedExecution;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.ArchivedExecutionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold tier of execution history: append-only segment files under {@code pipeline.retention.dir}
+ * holding one deflate-compressed JSON record per execution, indexed by the archived_executions
+ * table (executionId, pipelineId, segment, position). Each instance appends to its own segment,
+ * rolled over at {@code pipeline.retention.segment-size}; records are never rewritten.
+ *
+ * <p>Space is reclaimed per segment: once every record of a segment has expired and its index
+ * rows are gone, the file is deleted.
+ */
+@Slf4j
+@Component
+public class ExecutionArchive {
+
+    private static final int MAGIC = 0x50455831; // "PEX1"
+    private static final int HEADER = 12;        // magic, compressed length, CRC-32 of the compressed bytes
+    private static final String SUFFIX = ".seg";
+
+    private final ArchivedExecutionRepository archivedRepository;
+    private final ObjectMapper objectMapper;
+    private final Path root;
+    private final long segmentSize;
+    private final Duration segmentGrace;
+    private final String instance = UUID.randomUUID().toString().substring(0, 8);
+
+    // guarded by this
+    private int sequence;
+    private String segment;
+    private FileChannel writer;
+
+    public ExecutionArchive(ArchivedExecutionRepository archivedRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${pipeline.retention.dir:data/archive}") Path root,
+                            @Value("${pipeline.retention.segment-size:64MB}") DataSize segmentSize,
+                            @Value("${pipeline.retention.segment-grace:1h}") Duration segmentGrace) throws IOException {
+        this.archivedRepository = archivedRepository;
+        this.objectMapper = objectMapper;
+        this.root = Files.createDirectories(root);
+        this.segmentSize = segmentSize.toBytes();
+        this.segmentGrace = segmentGrace;
+    }
+
+    /**
+     * Appends the executions to the current segment, forces it to disk and saves their index
+     * rows. Call inside the transaction that deletes the hot rows: if it rolls back, the records
+     * written are simply never indexed.
+     */
+    public void append(List<PipelineExecution> executions, Function<PipelineExecution, Instant> expiresAt) {
+        List<ArchivedExecution> entries = new ArrayList<>(executions.size());
+        synchronized (this) {
+            try {
+                for (PipelineExecution execution : executions) {
+                    byte[] record = compress(execution);
+                    FileChannel channel = writer(record.length);
+                    long position = channel.position();
+                    CRC32 crc = new CRC32();
+                    crc.update(record);
+                    ByteBuffer buffer = ByteBuffer.allocate(HEADER + record.length)
+                            .putInt(MAGIC).putInt(record.length).putInt((int) crc.getValue()).put(record)
+                            .flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    entries.add(entry(execution, segment, position, record.length, expiresAt.apply(execution)));
+                }
+                if (writer != null) {
+                    writer.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to archive segment " + segment, e);
+            }
+        }
+        archivedRepository.saveAll(entries);
+    }
+
+    /** The archived execution, as it was when it left pipeline_executions. */
+    public Optional<PipelineExecution> find(String executionId) {
+        return archivedRepository.findByExecutionId(executionId).map(this::read);
+    }
+
+    /**
+     * Drops up to {@code limit} expired index rows, then deletes segment files no index row
+     * points into. Returns the number of records expired.
+     */
+    @Transactional
+    public int expire(Instant now, int limit) {
+        List<ArchivedExecution> expired = archivedRepository.findExpired(now, PageRequest.of(0, limit));
+        archivedRepository.deleteAllInBatch(expired);
+        deleteDeadSegments(now);
+        return expired.size();
+    }
+
+    private void deleteDeadSegments(Instant now) {
+        Set<String> live = new HashSet<>(archivedRepository.findLiveSegments());
+        Instant cutoff = now.minus(segmentGrace);
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                name = name.substring(0, name.length() - SUFFIX.length());
+                // Recently written segments may hold records of a transaction still in flight
+                if (live.contains(name) || isCurrent(name)
+                        || Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                Files.deleteIfExists(file);
+                log.info("Deleted archive segment {}: no live records", name);
+            }
+        } catch (IOException e) {
+            log.error("Could not sweep archive segments under {}", root, e);
+        }
+    }
+
+    private synchronized boolean isCurrent(String name) {
+        return name.equals(segment);
+    }
+
+    private PipelineExecution read(ArchivedExecution entry) {
+        Path file = root.resolve(entry.getSegment() + SUFFIX);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER + entry.getLength());
+            long position = entry.getPosition();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IllegalStateException("Truncated archive record of " + entry.getExecutionId());
+                }
+            }
+            buffer.flip();
+            int magic = buffer.getInt();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            byte[] record = new byte[buffer.remaining()];
+            buffer.get(record);
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            if (magic != MAGIC || length != entry.getLength() || checksum != (int) crc.getValue()) {
+                throw new IllegalStateException("Corrupt archive record of " + entry.getExecutionId());
+            }
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(record))) {
+                return objectMapper.readValue(in, PipelineExecution.class);
+            }
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Archive segment " + entry.getSegment() + " is missing", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] compress(PipelineExecution execution) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            objectMapper.writeValue(out, execution);
+        }
+        return bytes.toByteArray();
+    }
+
+    // The segment to append to, rolled over when the record would take it past segmentSize
+    private FileChannel writer(int recordLength) throws IOException {
+        if (writer != null && writer.position() > 0 && writer.position() + HEADER + recordLength > segmentSize) {
+            writer.force(false);
+            writer.close();
+            writer = null;
+        }
+        if (writer == null) {
+            segment = String.format("segment-%s-%06d", instance, ++sequence);
+            writer = FileChannel.open(root.resolve(segment + SUFFIX),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+
+    private static ArchivedExecution entry(PipelineExecution execution, String segment, long position, int length,
+                                           Instant expiresAt) {
+        ArchivedExecution entry = new ArchivedExecution();
+        entry.setExecutionId(execution.getExecutionId());
+        entry.setPipelineId(execution.getPipelineId());
+        entry.setStatus(execution.getStatus());
+        entry.setStartedAt(execution.getStartedAt());
+        entry.setCompletedAt(execution.getCompletedAt());
+        entry.setSegment(segment);
+        entry.setPosition(position);
+        entry.setLength(length);
+        entry.setExpiresAt(expiresAt);
+        return entry;
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.marketplace.pipeline_service.service;
+
+/**
+ * The request is valid but not in the execution's current state, e.g. resuming an execution that
+ * has not failed or deciding an approval twice. Answered with 409; other IllegalStateExceptions
+ * are internal failures.
+ */
+public class ExecutionConflictException extends IllegalStateException {
+
+    public ExecutionConflictException(String message) {
+        super(message);
+    }
+}
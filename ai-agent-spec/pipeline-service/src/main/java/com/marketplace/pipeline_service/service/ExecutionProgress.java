@@ -0,0 +1,200 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.dto.ExecutionEvent;
+import com.marketplace.pipeline_service.engine.StepListener;
+import com.marketplace.pipeline_service.engine.StepResult;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process event bus for execution progress. Each execution running on this instance has a
+ * channel holding the latest state of its steps; a subscriber gets that as a snapshot, then the
+ * deltas. Subscribers are independent: each has a bounded buffer ({@code pipeline.progress.buffer})
+ * and a slow one loses its oldest undelivered events instead of holding up the run or the other
+ * subscribers.
+ *
+ * <p>Executions not running here (finished, queued, or running on another instance) are served a
+ * single snapshot built from the stored execution, and the stream completes.
+ */
+@Slf4j
+@Component
+public class ExecutionProgress {
+
+    private final PipelineExecutionRepository executionRepository;
+    private final ExecutionArchive executionArchive;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final Counter dropped;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    public ExecutionProgress(PipelineExecutionRepository executionRepository,
+                             ExecutionArchive executionArchive,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${pipeline.progress.buffer:256}") int bufferSize) {
+        this.executionRepository = executionRepository;
+        this.executionArchive = executionArchive;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.dropped = Counter.builder("pipeline.progress.dropped")
+                .description("Progress events dropped for slow subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens the channel of an execution starting on this instance. Steps restored from
+     * checkpoints are part of the snapshot as COMPLETED.
+     */
+    public void open(String executionId, Collection<String> restoredSteps) {
+        Channel channel = new Channel(executionId);
+        restoredSteps.forEach(stepId -> channel.steps.put(stepId,
+                ExecutionEvent.step(executionId, stepId, "COMPLETED", null, 0L, null)));
+        channels.put(executionId, channel);
+    }
+
+    /** Publishes step transitions of the execution; runs on the engine's threads and never blocks. */
+    public StepListener listener(String executionId) {
+        return new StepListener() {
+            @Override
+            public Mono<Void> onStepResult(StepResult result) {
+                publish(executionId, ExecutionEvent.step(executionId, result.stepId(), result.status().name(),
+                        result.startedAt(), result.durationMs(), result.error()));
+                return Mono.empty();
+            }
+
+            @Override
+            public void onStepStarted(String stepId, Instant startedAt) {
+                publish(executionId, ExecutionEvent.step(executionId, stepId, "RUNNING", startedAt, null, null));
+            }
+        };
+    }
+
+    /**
+     * Sends FINISHED and completes all subscribers. Call after the final state is stored, so a
+     * subscriber arriving afterwards reads it from the database.
+     */
+    public void close(PipelineExecution execution) {
+        Channel channel = channels.remove(execution.getExecutionId());
+        if (channel == null) {
+            return;
+        }
+        ExecutionEvent finished = new ExecutionEvent(ExecutionEvent.Type.FINISHED, execution.getExecutionId(), null,
+                execution.getStatus().name(), execution.getStartedAt(), execution.getExecutionTimeMs(),
+                execution.getErrorMessage(), null);
+        synchronized (channel) {
+            channel.closed = true;
+            channel.subscribers.forEach(sink -> {
+                sink.next(finished);
+                sink.complete();
+            });
+            channel.subscribers.clear();
+        }
+    }
+
+    public Flux<ExecutionEvent> subscribe(String executionId) {
+        Channel channel = channels.get(executionId);
+        if (channel == null) {
+            return stored(executionId);
+        }
+        return Flux.<ExecutionEvent>create(sink -> {
+                    synchronized (channel) {
+                        if (channel.closed) {
+                            sink.complete();
+                            return;
+                        }
+                        // Registered under the lock, so no delta falls between snapshot and stream
+                        sink.next(channel.snapshot());
+                        channel.subscribers.add(sink);
+                    }
+                    sink.onDispose(() -> {
+                        synchronized (channel) {
+                            channel.subscribers.remove(sink);
+                        }
+                    });
+                })
+                .onBackpressureBuffer(bufferSize, event -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST)
+                .switchIfEmpty(Flux.defer(() -> stored(executionId)));
+    }
+
+    private void publish(String executionId, ExecutionEvent event) {
+        Channel channel = channels.get(executionId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            channel.steps.put(event.getStepId(), event);
+            channel.subscribers.forEach(sink -> sink.next(event));
+        }
+    }
+
+    private Flux<ExecutionEvent> stored(String executionId) {
+        return Mono.fromCallable(() -> executionRepository.findByExecutionId(executionId)
+                        .or(() -> executionArchive.find(executionId)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(found -> found.map(execution -> Flux.just(snapshot(execution)))
+                        .orElseGet(() -> Flux.error(new IllegalArgumentException("Execution not found: " + executionId))));
+    }
+
+    private ExecutionEvent snapshot(PipelineExecution execution) {
+        Map<String, ExecutionEvent> steps = new LinkedHashMap<>();
+        if (execution.getStepResults() != null) {
+            try {
+                for (JsonNode result : objectMapper.readTree(execution.getStepResults())) {
+                    String stepId = result.path("stepId").asText();
+                    steps.put(stepId, ExecutionEvent.step(execution.getExecutionId(), stepId,
+                            result.path("status").asText(), parseInstant(result.path("startedAt")),
+                            result.path("durationMs").asLong(), result.path("error").asText(null)));
+                }
+            } catch (Exception e) {
+                log.debug("Unreadable step results of execution {}", execution.getExecutionId(), e);
+            }
+        }
+        return new ExecutionEvent(ExecutionEvent.Type.SNAPSHOT, execution.getExecutionId(), null,
+                execution.getStatus().name(), execution.getStartedAt(), execution.getExecutionTimeMs(),
+                execution.getErrorMessage(), steps);
+    }
+
+    private Instant parseInstant(JsonNode value) {
+        try {
+            return value.isNull() || value.isMissingNode() ? null : objectMapper.treeToValue(value, Instant.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static final class Channel {
+        final String executionId;
+        final Map<String, ExecutionEvent> steps = new LinkedHashMap<>();
+        final List<FluxSink<ExecutionEvent>> subscribers = new CopyOnWriteArrayList<>();
+        boolean closed;
+
+        Channel(String executionId) {
+            this.executionId = executionId;
+        }
+
+        ExecutionEvent snapshot() {
+            return new ExecutionEvent(ExecutionEvent.Type.SNAPSHOT, executionId, null, "RUNNING", null, null, null,
+                    new LinkedHashMap<>(steps));
+        }
+    }
+}
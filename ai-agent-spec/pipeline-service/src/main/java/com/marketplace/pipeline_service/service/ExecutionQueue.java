@@ -0,0 +1,188 @@
+package com.marketplace.pipeline_service.service;
+
+import com.marketplace.pipeline_service.model.ExecutionJob;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.ExecutionJobRepository;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workers for async executions. Jobs live in the execution_jobs table, so queued work survives
+ * a restart; each poll leases at most as many jobs as there are idle workers. Leases of jobs in
+ * progress are renewed periodically, and a job whose lease lapses (worker died) is claimed again.
+ * Renewal has a thread of its own, so a long run of some other scheduled task cannot let a live
+ * job's lease lapse and have another instance run it a second time.
+ *
+ * <p>After the pipeline finishes, the callback is sent with exponential backoff between attempts.
+ */
+@Slf4j
+@Component
+public class ExecutionQueue {
+
+    private final ExecutionJobRepository jobRepository;
+    private final PipelineExecutionRepository executionRepository;
+    private final WorkflowExecutor workflowExecutor;
+    private final CallbackNotifier callbackNotifier;
+    private final TransactionTemplate transaction;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService leaseRenewer;
+    private final int workerCount;
+    private final Duration lease;
+    private final int maxRunAttempts;
+    private final int maxCallbackAttempts;
+    private final Duration callbackBackoff;
+    private final Duration maxCallbackBackoff;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ExecutionQueue(ExecutionJobRepository jobRepository,
+                          PipelineExecutionRepository executionRepository,
+                          WorkflowExecutor workflowExecutor,
+                          CallbackNotifier callbackNotifier,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${pipeline.queue.workers:4}") int workerCount,
+                          @Value("${pipeline.queue.lease:60s}") Duration lease,
+                          @Value("${pipeline.queue.renew-interval:15s}") Duration renewInterval,
+                          @Value("${pipeline.queue.max-run-attempts:3}") int maxRunAttempts,
+                          @Value("${pipeline.callback.max-attempts:8}") int maxCallbackAttempts,
+                          @Value("${pipeline.callback.initial-backoff:5s}") Duration callbackBackoff,
+                          @Value("${pipeline.callback.max-backoff:10m}") Duration maxCallbackBackoff) {
+        this.jobRepository = jobRepository;
+        this.executionRepository = executionRepository;
+        this.workflowExecutor = workflowExecutor;
+        this.callbackNotifier = callbackNotifier;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.workerCount = workerCount;
+        this.workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("execution-worker-"));
+        this.lease = lease;
+        this.maxRunAttempts = maxRunAttempts;
+        this.maxCallbackAttempts = maxCallbackAttempts;
+        this.callbackBackoff = callbackBackoff;
+        this.maxCallbackBackoff = maxCallbackBackoff;
+        this.leaseRenewer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("lease-renewer-"));
+        this.leaseRenewer.scheduleWithFixedDelay(this::renewLeases,
+                renewInterval.toMillis(), renewInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${pipeline.queue.poll-interval:1000}")
+    public void poll() {
+        int idle = workerCount - inFlight.size();
+        if (idle <= 0) {
+            return;
+        }
+        for (ExecutionJob job : claim(idle)) {
+            inFlight.add(job.getId());
+            workers.execute(() -> process(job));
+        }
+    }
+
+    private void renewLeases() {
+        try {
+            if (!inFlight.isEmpty()) {
+                jobRepository.renewLeases(Set.copyOf(inFlight), owner, Instant.now().plus(lease));
+            }
+        } catch (RuntimeException e) {
+            // A failed renewal must not cancel the later ones
+            log.error("Renewing execution job leases failed", e);
+        }
+    }
+
+    private List<ExecutionJob> claim(int limit) {
+        return transaction.execute(status -> {
+            Instant now = Instant.now();
+            List<ExecutionJob> jobs = jobRepository.lockClaimable(now, limit);
+            for (ExecutionJob job : jobs) {
+                switch (job.getStatus()) {
+                    case QUEUED, RUNNING -> {
+                        job.setStatus(ExecutionJob.JobStatus.RUNNING);
+                        job.setRunAttempts(job.getRunAttempts() + 1);
+                    }
+                    default -> job.setStatus(ExecutionJob.JobStatus.DELIVERING);
+                }
+                job.setLeaseOwner(owner);
+                job.setLeaseExpiresAt(now.plus(lease));
+            }
+            return jobRepository.saveAll(jobs);
+        });
+    }
+
+    private void process(ExecutionJob job) {
+        try {
+            PipelineExecution execution;
+            if (job.getStatus() == ExecutionJob.JobStatus.RUNNING) {
+                execution = job.getRunAttempts() > maxRunAttempts
+                        ? workflowExecutor.failQueued(job.getExecutionId(),
+                                "Abandoned after " + maxRunAttempts + " interrupted attempts")
+                        : workflowExecutor.runQueued(job.getExecutionId());
+            } else {
+                execution = executionRepository.findByExecutionId(job.getExecutionId()).orElse(null);
+            }
+            if (execution != null && (execution.getStatus() == PipelineExecution.ExecutionStatus.WAITING
+                    || execution.getStatus() == PipelineExecution.ExecutionStatus.WAITING_APPROVAL)) {
+                return; // parked: the executor re-queued the job for its resume time or decision
+            }
+            if (job.getCallbackUrl() == null || execution == null) {
+                complete(job, ExecutionJob.JobStatus.DONE, null);
+            } else {
+                deliver(job, execution);
+            }
+        } catch (RuntimeException e) {
+            // Leave the lease to expire so another worker retries the job
+            log.error("Job for execution {} failed", job.getExecutionId(), e);
+        } finally {
+            inFlight.remove(job.getId());
+        }
+    }
+
+    private void deliver(ExecutionJob job, PipelineExecution execution) {
+        job.setCallbackAttempts(job.getCallbackAttempts() + 1);
+        try {
+            callbackNotifier.send(job.getCallbackUrl(), job.getCallbackHeaders(), execution);
+            complete(job, ExecutionJob.JobStatus.DONE, null);
+        } catch (RuntimeException e) {
+            int attempts = job.getCallbackAttempts();
+            if (attempts >= maxCallbackAttempts) {
+                log.warn("Giving up on callback for execution {} after {} attempts: {}",
+                        job.getExecutionId(), attempts, e.getMessage());
+                complete(job, ExecutionJob.JobStatus.CALLBACK_FAILED, e.getMessage());
+                return;
+            }
+            Duration backoff = callbackBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+            job.setAvailableAt(Instant.now().plus(backoff.compareTo(maxCallbackBackoff) > 0 ? maxCallbackBackoff : backoff));
+            complete(job, ExecutionJob.JobStatus.CALLBACK_PENDING, e.getMessage());
+        }
+    }
+
+    private void complete(ExecutionJob job, ExecutionJob.JobStatus status, String error) {
+        job.setStatus(status);
+        job.setLastError(error);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        jobRepository.save(job);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        leaseRenewer.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,155 @@
+package com.marketplace.pipeline_service.service;
+
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.ApprovalRequestRepository;
+import com.marketplace.pipeline_service.repository.ExecutionJobRepository;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import com.marketplace.pipeline_service.repository.StepCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tiered retention for execution history. A finished execution stays in pipeline_executions for
+ * the pipeline's {@code retentionDays} ({@code pipeline.retention.hot-days} by default), then is
+ * moved to the {@link ExecutionArchive} together with the removal of its checkpoints, approval
+ * requests and finished job; it is dropped from the archive after {@code archiveRetentionDays} more
+ * ({@code pipeline.retention.archive-days}). Blobs it referenced are then collected by the
+ * {@link BlobStore}.
+ *
+ * <p>Compaction is incremental: each run moves at most {@code batches-per-run} batches of
+ * {@code batch-size} rows, each in its own short transaction that locks its rows with SKIP
+ * LOCKED, so live inserts and lookups never wait on it and several instances can compact at once.
+ * Archived executions are still served by {@link PipelineService#getExecutionById}, but no longer
+ * appear in history pages and cannot be resumed.
+ */
+@Slf4j
+@Component
+public class ExecutionRetention {
+
+    private final PipelineExecutionRepository executionRepository;
+    private final PipelineRepository pipelineRepository;
+    private final StepCheckpointRepository checkpointRepository;
+    private final ExecutionJobRepository jobRepository;
+    private final ApprovalRequestRepository approvalRepository;
+    private final ExecutionArchive archive;
+    private final TransactionTemplate transaction;
+    private final int hotDays;
+    private final int archiveDays;
+    private final int batchSize;
+    private final int batchesPerRun;
+
+    public ExecutionRetention(PipelineExecutionRepository executionRepository,
+                              PipelineRepository pipelineRepository,
+                              StepCheckpointRepository checkpointRepository,
+                              ExecutionJobRepository jobRepository,
+                              ApprovalRequestRepository approvalRepository,
+                              ExecutionArchive archive,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${pipeline.retention.hot-days:30}") int hotDays,
+                              @Value("${pipeline.retention.archive-days:365}") int archiveDays,
+                              @Value("${pipeline.retention.batch-size:100}") int batchSize,
+                              @Value("${pipeline.retention.batches-per-run:10}") int batchesPerRun) {
+        this.executionRepository = executionRepository;
+        this.pipelineRepository = pipelineRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jobRepository = jobRepository;
+        this.approvalRepository = approvalRepository;
+        this.archive = archive;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.hotDays = hotDays;
+        this.archiveDays = archiveDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchesPerRun = Math.max(1, batchesPerRun);
+    }
+
+    @Scheduled(fixedDelayString = "${pipeline.retention.interval:1m}", initialDelayString = "${pipeline.retention.interval:1m}")
+    public void compact() {
+        try {
+            Instant now = Instant.now();
+            Map<String, Pipeline> overrides = pipelineRepository.findRetentionOverrides().stream()
+                    .collect(Collectors.toMap(Pipeline::getPipelineId, Function.identity()));
+            int budget = batchesPerRun;
+            int archived = 0;
+            Batch batch = drain(null, now.minus(Duration.ofDays(hotDays)), overrides, budget);
+            budget -= batch.batches();
+            archived += batch.rows();
+            for (Pipeline pipeline : overrides.values()) {
+                if (budget <= 0) {
+                    break;
+                }
+                if (pipeline.getRetentionDays() != null) {
+                    batch = drain(pipeline.getPipelineId(), now.minus(Duration.ofDays(pipeline.getRetentionDays())),
+                            overrides, budget);
+                    budget -= batch.batches();
+                    archived += batch.rows();
+                }
+            }
+            int expired = archive.expire(now, batchSize);
+            if (archived > 0 || expired > 0) {
+                log.info("Archived {} execution(s), expired {} from the archive", archived, expired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Execution retention run failed", e);
+        }
+    }
+
+    /**
+     * Archives batches of one pipeline's executions (null: every pipeline on the default policy)
+     * until a batch comes back short or the budget is spent.
+     */
+    private Batch drain(String pipelineId, Instant cutoff, Map<String, Pipeline> overrides, int budget) {
+        int batches = 0;
+        int rows = 0;
+        while (batches < budget) {
+            int moved = archiveBatch(pipelineId, cutoff, overrides);
+            batches++;
+            rows += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        return new Batch(batches, rows);
+    }
+
+    private int archiveBatch(String pipelineId, Instant cutoff, Map<String, Pipeline> overrides) {
+        Integer moved = transaction.execute(status -> {
+            List<PipelineExecution> executions = pipelineId == null
+                    ? executionRepository.lockArchivableByDefault(cutoff, batchSize)
+                    : executionRepository.lockArchivable(pipelineId, cutoff, batchSize);
+            if (executions.isEmpty()) {
+                return 0;
+            }
+            Instant now = Instant.now();
+            archive.append(executions, execution -> now.plus(Duration.ofDays(archiveDays(execution, overrides))));
+            List<String> executionIds = executions.stream().map(PipelineExecution::getExecutionId).toList();
+            checkpointRepository.deleteByExecutionIds(executionIds);
+            jobRepository.deleteFinishedByExecutionIds(executionIds);
+            approvalRepository.deleteByExecutionIds(executionIds);
+            executionRepository.deleteAllInBatch(executions);
+            return executions.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    private int archiveDays(PipelineExecution execution, Map<String, Pipeline> overrides) {
+        Pipeline pipeline = overrides.get(execution.getPipelineId());
+        return pipeline != null && pipeline.getArchiveRetentionDays() != null
+                ? pipeline.getArchiveRetentionDays() : archiveDays;
+    }
+
+    private record Batch(int batches, int rows) {
+    }
+}
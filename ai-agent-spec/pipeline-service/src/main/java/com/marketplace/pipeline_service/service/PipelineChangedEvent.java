@@ -0,0 +1,5 @@
+package com.marketplace.pipeline_service.service;
+
+// Published when a pipeline's definition is updated, published or deleted
+public record PipelineChangedEvent(String pipelineId) {
+}
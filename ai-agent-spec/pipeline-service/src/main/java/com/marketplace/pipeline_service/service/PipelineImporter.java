@@ -0,0 +1,259 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.dto.PipelineImportReport;
+import com.marketplace.pipeline_service.model.Connection;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk creation of pipelines from NDJSON, one {@link PipelineCreateRequest} per line. The input
+ * is read in chunks of {@code pipeline.import.batch-size} lines; each chunk is parsed and compiled
+ * on {@code pipeline.import.parallelism} threads, then written in a single transaction with one
+ * JDBC batch insert per table instead of an insert per entity.
+ *
+ * <p>Every line gets its own outcome in the report: a malformed or invalid definition, or a
+ * pipelineId that already exists, fails only that line. If a chunk's batch fails as a whole (e.g.
+ * a pipeline created concurrently under the same id), its pipelines are retried one by one.
+ * Imported pipelines are DRAFTs, as from {@link PipelineService#createPipeline}.
+ */
+@Slf4j
+@Component
+public class PipelineImporter {
+
+    // Row layouts of the batch inserts: entity properties, in the order insert() fills them
+    private static final String[] PIPELINE_COLUMNS = {"pipelineId", "displayName", "description", "createdBy",
+            "createdAt", "updatedAt", "status", "canvasLayout", "globalConfig", "retentionDays",
+            "archiveRetentionDays", "planVersion"};
+    private static final String[] STEP_COLUMNS = {"pipeline", "stepId", "agentId", "displayName", "description",
+            "positionX", "positionY", "inputMapping", "outputMapping", "staticConfig", "timeoutSeconds",
+            "maxRetries", "enabled", "condition", "stepType", "iterateOver", "maxParallelism", "orderedResults",
+            "branches"};
+    private static final String[] CONNECTION_COLUMNS = {"pipeline", "sourceStepId", "targetStepId", "sourcePort",
+            "targetPort", "dataMapping", "condition", "connectionType", "streaming", "streamPath"};
+
+    private final PipelineService pipelineService;
+    private final PipelineRepository pipelineRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final String insertPipeline;
+    private final String insertStep;
+    private final String insertConnection;
+    private final int batchSize;
+    private final int parallelism;
+
+    public PipelineImporter(PipelineService pipelineService,
+                            PipelineRepository pipelineRepository,
+                            ObjectMapper objectMapper,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            EntityManagerFactory entityManagerFactory,
+                            @Value("${pipeline.import.batch-size:100}") int batchSize,
+                            @Value("${pipeline.import.parallelism:4}") int parallelism) {
+        this.pipelineService = pipelineService;
+        this.pipelineRepository = pipelineRepository;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        MappingMetamodel metamodel = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel();
+        this.insertPipeline = insertSql(metamodel, Pipeline.class, PIPELINE_COLUMNS);
+        this.insertStep = insertSql(metamodel, PipelineStep.class, STEP_COLUMNS);
+        this.insertConnection = insertSql(metamodel, Connection.class, CONNECTION_COLUMNS);
+        this.batchSize = Math.max(1, batchSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public PipelineImportReport importNdjson(InputStream in) throws IOException {
+        long started = System.nanoTime();
+        PipelineImportReport report = new PipelineImportReport();
+        // pipelineIds taken by earlier lines of this import
+        Set<String> seen = new HashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Line> chunk = new ArrayList<>(batchSize);
+        int number = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            number++;
+            if (text.isBlank()) {
+                continue;
+            }
+            chunk.add(new Line(number, text));
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, seen, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seen, report);
+        }
+        report.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+        log.info("Imported {} pipelines ({} steps), {} failed, in {} ms",
+                report.getCreated(), report.getStepsCreated(), report.getFailed(), report.getElapsedMs());
+        return report;
+    }
+
+    private void importChunk(List<Line> lines, Set<String> seen, PipelineImportReport report) {
+        // Results keep input order
+        List<Parsed> parsed = Flux.fromIterable(lines)
+                .flatMapSequential(line -> Mono.fromCallable(() -> parse(line)).subscribeOn(Schedulers.parallel()),
+                        parallelism)
+                .collectList()
+                .block();
+        Set<String> existing = new HashSet<>(pipelineRepository.findExistingPipelineIds(parsed.stream()
+                .filter(p -> p.pipeline() != null)
+                .map(Parsed::pipelineId)
+                .toList()));
+        List<PipelineImportReport.Item> items = new ArrayList<>(parsed.size());
+        List<Pipeline> valid = new ArrayList<>(parsed.size());
+        Map<String, PipelineImportReport.Item> itemsById = new HashMap<>();
+        for (Parsed p : parsed) {
+            String error = p.error();
+            if (error == null && (existing.contains(p.pipelineId()) || !seen.add(p.pipelineId()))) {
+                error = "Pipeline already exists: " + p.pipelineId();
+            }
+            PipelineImportReport.Item item = new PipelineImportReport.Item(p.line(), p.pipelineId(), error == null, error);
+            items.add(item);
+            if (error == null) {
+                valid.add(p.pipeline());
+                itemsById.put(p.pipelineId(), item);
+            }
+        }
+        if (!valid.isEmpty()) {
+            try {
+                transaction.executeWithoutResult(status -> insert(valid));
+            } catch (DataAccessException e) {
+                log.warn("Import batch of {} pipelines failed, retrying one by one: {}", valid.size(), e.getMessage());
+                for (Pipeline pipeline : valid) {
+                    try {
+                        transaction.executeWithoutResult(status -> insert(List.of(pipeline)));
+                    } catch (DataAccessException single) {
+                        PipelineImportReport.Item item = itemsById.get(pipeline.getPipelineId());
+                        item.setCreated(false);
+                        item.setError("Could not be stored: " + single.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+        for (PipelineImportReport.Item item : items) {
+            if (item.isCreated()) {
+                report.setCreated(report.getCreated() + 1);
+            } else {
+                report.setFailed(report.getFailed() + 1);
+            }
+        }
+        report.setStepsCreated(report.getStepsCreated() + valid.stream()
+                .filter(pipeline -> itemsById.get(pipeline.getPipelineId()).isCreated())
+                .mapToLong(pipeline -> pipeline.getSteps().size())
+                .sum());
+        report.getItems().addAll(items);
+    }
+
+    private Parsed parse(Line line) {
+        PipelineCreateRequest request;
+        try {
+            request = objectMapper.readValue(line.text(), PipelineCreateRequest.class);
+        } catch (JsonProcessingException e) {
+            return new Parsed(line.number(), null, null, "Malformed pipeline definition: " + e.getOriginalMessage());
+        }
+        try {
+            return new Parsed(line.number(), request.getPipelineId(), pipelineService.newPipeline(request), null);
+        } catch (RuntimeException e) {
+            return new Parsed(line.number(), request.getPipelineId(), null, e.getMessage());
+        }
+    }
+
+    private void insert(List<Pipeline> pipelines) {
+        List<Object[]> pipelineRows = new ArrayList<>(pipelines.size());
+        List<Object[]> stepRows = new ArrayList<>();
+        List<Object[]> connectionRows = new ArrayList<>();
+        for (Pipeline pipeline : pipelines) {
+            UUID id = UUID.randomUUID();
+            pipelineRows.add(new Object[]{id, pipeline.getPipelineId(), pipeline.getDisplayName(),
+                    pipeline.getDescription(), pipeline.getCreatedBy(), timestamp(pipeline.getCreatedAt()),
+                    timestamp(pipeline.getUpdatedAt()), pipeline.getStatus().name(), pipeline.getCanvasLayout(),
+                    pipeline.getGlobalConfig(), pipeline.getRetentionDays(), pipeline.getArchiveRetentionDays(),
+                    pipeline.getPlanVersion()});
+            for (PipelineStep step : pipeline.getSteps()) {
+                stepRows.add(new Object[]{UUID.randomUUID(), id, step.getStepId(), step.getAgentId(),
+                        step.getDisplayName(), step.getDescription(), step.getPositionX(), step.getPositionY(),
+                        step.getInputMapping(), step.getOutputMapping(), step.getStaticConfig(),
+                        step.getTimeoutSeconds(), step.getMaxRetries(), step.getEnabled(), step.getCondition(),
+                        step.getStepType() == null ? null : step.getStepType().name(), step.getIterateOver(),
+                        step.getMaxParallelism(), step.getOrderedResults(), step.getBranches()});
+            }
+            for (Connection connection : pipeline.getConnections()) {
+                connectionRows.add(new Object[]{UUID.randomUUID(), id, connection.getSourceStepId(),
+                        connection.getTargetStepId(), connection.getSourcePort(), connection.getTargetPort(),
+                        connection.getDataMapping(), connection.getCondition(),
+                        connection.getConnectionType() == null ? null : connection.getConnectionType().name(),
+                        connection.getStreaming(), connection.getStreamPath()});
+            }
+        }
+        jdbcTemplate.batchUpdate(insertPipeline, pipelineRows);
+        if (!stepRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertStep, stepRows);
+        }
+        if (!connectionRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertConnection, connectionRows);
+        }
+    }
+
+    /**
+     * The insert for the id plus the given properties of an entity, with the table and column
+     * names Hibernate mapped them to, so the batch writes the same schema the entities do.
+     */
+    private static String insertSql(MappingMetamodel metamodel, Class<?> entity, String[] properties) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) metamodel.getEntityDescriptor(entity);
+        List<String> columns = new ArrayList<>(List.of(persister.getIdentifierColumnNames()));
+        for (String property : properties) {
+            columns.addAll(List.of(persister.getPropertyColumnNames(property)));
+        }
+        return "insert into " + persister.getRootTableName() + " (" + String.join(", ", columns) + ") values ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private record Line(int number, String text) {
+    }
+
+    private record Parsed(int line, String pipelineId, Pipeline pipeline, String error) {
+    }
+}
@@ -0,0 +1,310 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.dto.ExecutionPage;
+import com.marketplace.pipeline_service.dto.ExecutionSummary;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.engine.ExecutionPlan;
+import com.marketplace.pipeline_service.engine.PlanCompiler;
+import com.marketplace.pipeline_service.model.Connection;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Pipeline definitions. Every change to a pipeline's steps, connections or status bumps its
+ * {@code planVersion} and publishes a {@link PipelineChangedEvent}, which evicts the compiled
+ * plan from {@link PlanCache} once the transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class PipelineService {
+
+    private final PipelineRepository pipelineRepository;
+    private final PipelineExecutionRepository executionRepository;
+    private final PlanCompiler planCompiler;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final UsageStats usageStats;
+    private final ExecutionArchive executionArchive;
+
+    private static final int MAX_HISTORY_PAGE = 200;
+
+    @Transactional(readOnly = true)
+    public List<Pipeline> getAllPipelines(int page, int size) {
+        List<Pipeline> pipelines = pipelineRepository
+                .findAll(PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")))
+                .getContent();
+        // Serialized after the transaction ends (open-in-view is off)
+        pipelines.forEach(p -> {
+            Hibernate.initialize(p.getSteps());
+            Hibernate.initialize(p.getConnections());
+        });
+        usageStats.applyToPipelines(pipelines);
+        return pipelines;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Pipeline> getPipelineById(String pipelineId) {
+        Optional<Pipeline> pipeline = loadFull(pipelineId);
+        pipeline.ifPresent(p -> usageStats.applyToPipelines(List.of(p)));
+        return pipeline;
+    }
+
+    @Transactional
+    public Pipeline createPipeline(PipelineCreateRequest request) {
+        Pipeline pipeline = newPipeline(request);
+        if (pipelineRepository.existsByPipelineId(request.getPipelineId())) {
+            throw new IllegalArgumentException("Pipeline already exists: " + request.getPipelineId());
+        }
+        return pipelineRepository.save(pipeline);
+    }
+
+    /**
+     * The pipeline a create request describes, validated and compiled but not saved; does not
+     * check that the pipelineId is free. Touches no repository, so it is safe to call in parallel.
+     */
+    public Pipeline newPipeline(PipelineCreateRequest request) {
+        if (request.getPipelineId() == null || request.getPipelineId().isBlank()) {
+            throw new IllegalArgumentException("pipelineId is required");
+        }
+        Pipeline pipeline = new Pipeline();
+        pipeline.setPipelineId(request.getPipelineId());
+        pipeline.setCreatedBy(request.getCreatedBy() == null ? "user" : request.getCreatedBy());
+        pipeline.setSteps(new ArrayList<>());
+        pipeline.setConnections(new ArrayList<>());
+        apply(pipeline, request);
+        planCompiler.compile(pipeline);
+        return pipeline;
+    }
+
+    @Transactional
+    public Pipeline updatePipeline(String pipelineId, PipelineCreateRequest request) {
+        Pipeline pipeline = require(pipelineId);
+        apply(pipeline, request);
+        compile(pipeline);
+        pipeline.setPlanVersion(pipeline.getPlanVersion() + 1);
+        pipeline.setUpdatedAt(Instant.now());
+        events.publishEvent(new PipelineChangedEvent(pipelineId));
+        return pipelineRepository.save(pipeline);
+    }
+
+    @Transactional
+    public void deletePipeline(String pipelineId) {
+        Pipeline pipeline = pipelineRepository.findByPipelineId(pipelineId)
+                .orElseThrow(() -> new IllegalArgumentException("Pipeline not found: " + pipelineId));
+        pipelineRepository.delete(pipeline);
+        usageStats.forgetPipeline(pipelineId);
+        events.publishEvent(new PipelineChangedEvent(pipelineId));
+    }
+
+    /**
+     * One page of a pipeline's execution history, newest first. {@code cursor} is the
+     * {@link ExecutionPage#getNextCursor()} of the previous page, or null for the first page.
+     * Seeks on (startedAt, id) rather than skipping rows, so deep pages cost the same as the first.
+     */
+    @Transactional(readOnly = true)
+    public ExecutionPage getPipelineExecutions(String pipelineId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_HISTORY_PAGE));
+        // One extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<ExecutionSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = executionRepository.findHistory(pipelineId, page);
+        } else {
+            HistoryCursor after = HistoryCursor.decode(cursor);
+            rows = executionRepository.findHistoryBefore(pipelineId, after.startedAt(), after.id(), page);
+        }
+        if (rows.size() <= limit) {
+            return new ExecutionPage(rows, null);
+        }
+        List<ExecutionSummary> executions = rows.subList(0, limit);
+        ExecutionSummary last = executions.get(limit - 1);
+        return new ExecutionPage(new ArrayList<>(executions),
+                new HistoryCursor(last.getStartedAt(), last.getId()).encode());
+    }
+
+    // Executions moved out by retention are read back from the archive
+    @Transactional(readOnly = true)
+    public Optional<PipelineExecution> getExecutionById(String executionId) {
+        return executionRepository.findByExecutionId(executionId).or(() -> executionArchive.find(executionId));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> validatePipeline(String pipelineId) {
+        return validate(require(pipelineId));
+    }
+
+    /** Validates a definition without saving it (e.g. the pipeline a template would create). */
+    public Map<String, Object> validateDefinition(PipelineCreateRequest request) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setPipelineId(request.getPipelineId());
+        pipeline.setSteps(new ArrayList<>());
+        pipeline.setConnections(new ArrayList<>());
+        apply(pipeline, request);
+        return validate(pipeline);
+    }
+
+    @Transactional
+    public Pipeline publishPipeline(String pipelineId) {
+        Pipeline pipeline = require(pipelineId);
+        if (pipeline.getSteps().isEmpty()) {
+            throw new IllegalArgumentException("Pipeline has no steps");
+        }
+        compile(pipeline);
+        pipeline.setStatus(Pipeline.PipelineStatus.PUBLISHED);
+        pipeline.setPlanVersion(pipeline.getPlanVersion() + 1);
+        pipeline.setUpdatedAt(Instant.now());
+        events.publishEvent(new PipelineChangedEvent(pipelineId));
+        return pipelineRepository.save(pipeline);
+    }
+
+    private Map<String, Object> validate(Pipeline pipeline) {
+        List<String> errors = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        List<String> executionOrder = new ArrayList<>();
+        try {
+            ExecutionPlan plan = compile(pipeline);
+            plan.getSteps().forEach(step -> executionOrder.add(step.getStepId()));
+            plan.getSteps().stream()
+                    .filter(step -> !step.isEnabled())
+                    .forEach(step -> warnings.add("Step " + step.getStepId() + " is disabled"));
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+        if (pipeline.getSteps().isEmpty()) {
+            errors.add("Pipeline has no steps");
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("valid", errors.isEmpty());
+        result.put("errors", errors);
+        result.put("warnings", warnings);
+        result.put("stepCount", pipeline.getSteps().size());
+        result.put("connectionCount", pipeline.getConnections().size());
+        result.put("executionOrder", executionOrder);
+        return result;
+    }
+
+    // Steps that call an agent must name one; TRIGGER, DELAY, HUMAN_APPROVAL and the like have none
+    private ExecutionPlan compile(Pipeline pipeline) {
+        for (PipelineStep step : pipeline.getSteps()) {
+            PipelineStep.StepType type = step.getStepType() == null ? PipelineStep.StepType.AGENT : step.getStepType();
+            boolean callsAgent = type == PipelineStep.StepType.AGENT || type == PipelineStep.StepType.LOOP
+                    // PARALLEL branches name their own agents
+                    || (type == PipelineStep.StepType.PARALLEL && (step.getBranches() == null || step.getBranches().isBlank()));
+            if (callsAgent && (step.getAgentId() == null || step.getAgentId().isBlank())) {
+                throw new IllegalArgumentException(type + " step " + step.getStepId() + " has no agentId");
+            }
+        }
+        return planCompiler.compile(pipeline);
+    }
+
+    private Pipeline require(String pipelineId) {
+        return loadFull(pipelineId)
+                .orElseThrow(() -> new IllegalArgumentException("Pipeline not found: " + pipelineId));
+    }
+
+    // Both collections initialized; the second query attaches connections to the same instance
+    private Optional<Pipeline> loadFull(String pipelineId) {
+        return pipelineRepository.findWithStepsByPipelineId(pipelineId)
+                .flatMap(p -> pipelineRepository.findWithConnectionsByPipelineId(pipelineId));
+    }
+
+    private void apply(Pipeline pipeline, PipelineCreateRequest request) {
+        pipeline.setDisplayName(request.getDisplayName() == null ? pipeline.getPipelineId() : request.getDisplayName());
+        pipeline.setDescription(request.getDescription());
+        pipeline.setCanvasLayout(toJson(request.getCanvasLayout()));
+        pipeline.setGlobalConfig(toJson(request.getGlobalConfig()));
+        pipeline.setRetentionDays(positive("retentionDays", request.getRetentionDays()));
+        pipeline.setArchiveRetentionDays(positive("archiveRetentionDays", request.getArchiveRetentionDays()));
+
+        // Replace in place so orphanRemoval deletes the old rows
+        pipeline.getSteps().clear();
+        if (request.getSteps() != null) {
+            for (PipelineCreateRequest.StepDefinition def : request.getSteps()) {
+                pipeline.getSteps().add(toStep(def, pipeline));
+            }
+        }
+        pipeline.getConnections().clear();
+        if (request.getConnections() != null) {
+            for (PipelineCreateRequest.ConnectionDefinition def : request.getConnections()) {
+                pipeline.getConnections().add(toConnection(def, pipeline));
+            }
+        }
+    }
+
+    private static Integer positive(String field, Integer days) {
+        if (days != null && days < 1) {
+            throw new IllegalArgumentException(field + " must be at least 1");
+        }
+        return days;
+    }
+
+    private PipelineStep toStep(PipelineCreateRequest.StepDefinition def, Pipeline pipeline) {
+        PipelineStep step = new PipelineStep();
+        step.setStepId(def.getStepId());
+        step.setAgentId(def.getAgentId());
+        step.setDisplayName(def.getDisplayName() == null ? def.getStepId() : def.getDisplayName());
+        step.setDescription(def.getDescription());
+        step.setPositionX(def.getPositionX());
+        step.setPositionY(def.getPositionY());
+        step.setInputMapping(toJson(def.getInputMapping()));
+        step.setOutputMapping(toJson(def.getOutputMapping()));
+        step.setStaticConfig(toJson(def.getStaticConfig()));
+        if (def.getTimeoutSeconds() != null) step.setTimeoutSeconds(def.getTimeoutSeconds());
+        if (def.getMaxRetries() != null) step.setMaxRetries(def.getMaxRetries());
+        if (def.getEnabled() != null) step.setEnabled(def.getEnabled());
+        step.setCondition(def.getCondition());
+        if (def.getStepType() != null) step.setStepType(def.getStepType());
+        step.setIterateOver(def.getIterateOver());
+        step.setMaxParallelism(def.getMaxParallelism());
+        if (def.getOrderedResults() != null) step.setOrderedResults(def.getOrderedResults());
+        step.setBranches(toJson(def.getBranches()));
+        step.setPipeline(pipeline);
+        return step;
+    }
+
+    private Connection toConnection(PipelineCreateRequest.ConnectionDefinition def, Pipeline pipeline) {
+        Connection connection = new Connection();
+        connection.setSourceStepId(def.getSourceStepId());
+        connection.setTargetStepId(def.getTargetStepId());
+        if (def.getSourcePort() != null) connection.setSourcePort(def.getSourcePort());
+        if (def.getTargetPort() != null) connection.setTargetPort(def.getTargetPort());
+        connection.setDataMapping(toJson(def.getDataMapping()));
+        connection.setCondition(def.getCondition());
+        if (def.getConnectionType() != null) connection.setConnectionType(def.getConnectionType());
+        if (def.getStreaming() != null) connection.setStreaming(def.getStreaming());
+        connection.setStreamPath(def.getStreamPath());
+        connection.setPipeline(pipeline);
+        return connection;
+    }
+
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON value", e);
+        }
+    }
+}
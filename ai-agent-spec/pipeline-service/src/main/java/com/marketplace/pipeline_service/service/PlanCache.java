@@ -0,0 +1,94 @@
+package com.marketplace.pipeline_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marketplace.pipeline_service.engine.ExecutionPlan;
+import com.marketplace.pipeline_service.engine.PlanCompiler;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded cache of compiled, detached execution plans keyed by (pipelineId, row id, planVersion).
+ * Each lookup reads the pipeline's current stamp with one indexed single-row query, so an update
+ * committed on another instance is picked up by the next execution here; the row id keeps a
+ * pipeline deleted and re-created under the same pipelineId from matching the old plan. A miss
+ * loads the pipeline with fetch joins and compiles it. Local changes also evict eagerly once
+ * their transaction commits, and entries for versions nobody asks for any more expire after
+ * {@code pipeline.plan-cache.expire-after-access}. Hit rate is exported as the "pipeline-plan"
+ * cache metrics.
+ */
+@Component
+public class PlanCache {
+
+    private final PipelineRepository pipelineRepository;
+    private final PlanCompiler planCompiler;
+    private final TransactionTemplate readOnly;
+    private final Cache<PlanKey, ExecutionPlan> cache;
+
+    public PlanCache(PipelineRepository pipelineRepository,
+                     PlanCompiler planCompiler,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     @Value("${pipeline.plan-cache.max-size:1000}") long maxSize,
+                     @Value("${pipeline.plan-cache.expire-after-access:1h}") Duration expireAfterAccess) {
+        this.pipelineRepository = pipelineRepository;
+        this.planCompiler = planCompiler;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pipeline-plan");
+    }
+
+    /**
+     * Returns the plan for the pipeline's current definition; throws IllegalArgumentException
+     * if the pipeline does not exist or does not compile (neither outcome is cached).
+     */
+    public ExecutionPlan get(String pipelineId) {
+        List<Object[]> stamp = pipelineRepository.findPlanStamp(pipelineId);
+        if (stamp.isEmpty()) {
+            invalidate(pipelineId);
+            throw new IllegalArgumentException("Pipeline not found: " + pipelineId);
+        }
+        Long version = (Long) stamp.get(0)[1];
+        PlanKey key = new PlanKey(pipelineId, (UUID) stamp.get(0)[0], version == null ? 0 : version);
+        // A change committed between the stamp and the load caches the newer plan under the older
+        // key, which only readers that saw the older stamp can still ask for
+        return cache.get(key, k -> load(pipelineId));
+    }
+
+    public void invalidate(String pipelineId) {
+        cache.asMap().keySet().removeIf(key -> key.pipelineId().equals(pipelineId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPipelineChanged(PipelineChangedEvent event) {
+        invalidate(event.pipelineId());
+    }
+
+    private ExecutionPlan load(String pipelineId) {
+        return readOnly.execute(status -> {
+            pipelineRepository.findWithStepsByPipelineId(pipelineId)
+                    .orElseThrow(() -> new IllegalArgumentException("Pipeline not found: " + pipelineId));
+            return pipelineRepository.findWithConnectionsByPipelineId(pipelineId)
+                    .map(planCompiler::compile)
+                    .orElseThrow(() -> new IllegalArgumentException("Pipeline not found: " + pipelineId));
+        });
+    }
+
+    record PlanKey(String pipelineId, UUID id, long version) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.marketplace.pipeline_service.engine.ExecutionPlan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Calls runner-service to execute agent steps.
+ */
+@Component
+public class RunnerClient {
+
+    // Scheduling hints understood by runner-service
+    static final String PIPELINE_HEADER = "X-Pipeline-Id";
+    static final String PRIORITY_HEADER = "X-Run-Priority";
+
+    private final WebClient webClient;
+
+    public RunnerClient(WebClient.Builder webClientBuilder,
+                        @Value("${services.runner-service.url}") String runnerUrl) {
+        this.webClient = webClientBuilder.baseUrl(runnerUrl).build();
+    }
+
+    /**
+     * Runs one step (or one item or branch of it) on {@code agentId}, honouring the step's
+     * timeout and maxRetries. Retries are skipped when the runner reports the agent's circuit
+     * as open. {@code priority} is the execution's; the runner places higher priorities first.
+     */
+    public Mono<String> runStep(String pipelineId, int priority, ExecutionPlan.StepNode step, String agentId,
+                                Map<String, Object> input) {
+        return runAgent(pipelineId, priority, agentId, input)
+                .timeout(Duration.ofSeconds(step.getTimeoutSeconds()))
+                .retryWhen(Retry.backoff(step.getMaxRetries(), Duration.ofSeconds(1))
+                        .filter(e -> !(e instanceof AgentUnavailableException))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Runs one step through the runner's streaming endpoint, emitting each NDJSON line as it
+     * arrives. The step timeout bounds the gap between items; there are no retries because a
+     * partially consumed stream cannot be replayed.
+     */
+    public Flux<JsonNode> streamStep(String pipelineId, int priority, ExecutionPlan.StepNode step,
+                                     Map<String, Object> input) {
+        return webClient.post()
+                .uri("/runner/{agentId}/stream", step.getAgentId())
+                .header(PIPELINE_HEADER, pipelineId)
+                .header(PRIORITY_HEADER, String.valueOf(priority))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(input)
+                .exchangeToFlux(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToFlux(JsonNode.class);
+                    }
+                    return response.bodyToMono(JsonNode.class)
+                            .defaultIfEmpty(MissingNode.getInstance())
+                            .flatMapMany(body -> Flux.error(toException(step.getAgentId(), response.statusCode().value(), body)));
+                })
+                .timeout(Duration.ofSeconds(step.getTimeoutSeconds()));
+    }
+
+    public Mono<String> runAgent(String pipelineId, int priority, String agentId, Map<String, Object> input) {
+        return webClient.post()
+                .uri("/runner/{agentId}", agentId)
+                .header(PIPELINE_HEADER, pipelineId)
+                .header(PRIORITY_HEADER, String.valueOf(priority))
+                .bodyValue(input)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(JsonNode.class).map(body -> body.path("output").asText());
+                    }
+                    return response.bodyToMono(JsonNode.class)
+                            .defaultIfEmpty(MissingNode.getInstance())
+                            .flatMap(body -> Mono.error(toException(agentId, response.statusCode().value(), body)));
+                });
+    }
+
+    private static RuntimeException toException(String agentId, int status, JsonNode body) {
+        String message = body.path("error").asText("Runner returned " + status);
+        if ("CIRCUIT_OPEN".equals(body.path("code").asText())) {
+            return new AgentUnavailableException(agentId,
+                    Duration.ofSeconds(body.path("retryAfterSeconds").asLong(1)), message);
+        }
+        return new IllegalStateException("Agent " + agentId + " failed: " + message);
+    }
+}
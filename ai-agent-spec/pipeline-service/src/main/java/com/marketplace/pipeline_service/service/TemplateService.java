@@ -0,0 +1,253 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.dto.TemplateCreateRequest;
+import com.marketplace.pipeline_service.dto.TemplateInstantiateRequest;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineTemplate;
+import com.marketplace.pipeline_service.repository.PipelineTemplateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Template marketplace. Usage counts and ratings are recorded through {@link UsageStats}, so
+ * instantiating or rating a popular template never writes its row.
+ */
+@Service
+@RequiredArgsConstructor
+public class TemplateService {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([\\w.-]+)\\s*}}");
+
+    private final PipelineTemplateRepository templateRepository;
+    private final PipelineService pipelineService;
+    private final UsageStats usageStats;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public List<PipelineTemplate> getTemplates(String category, int page, int size) {
+        List<PipelineTemplate> templates = category == null || category.isBlank()
+                ? templateRepository.findAll(PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent()
+                : templateRepository.findByCategoryOrderByCreatedAtDesc(category, PageRequest.of(page, size));
+        usageStats.applyToTemplates(templates);
+        return templates;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PipelineTemplate> getFeaturedTemplates() {
+        List<PipelineTemplate> templates =
+                templateRepository.findByStatusOrderByCreatedAtDesc(PipelineTemplate.TemplateStatus.FEATURED);
+        usageStats.applyToTemplates(templates);
+        return templates;
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> getCategories() {
+        return templateRepository.findCategories();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PipelineTemplate> getTemplateById(String templateId) {
+        Optional<PipelineTemplate> template = templateRepository.findByTemplateId(templateId);
+        template.ifPresent(t -> usageStats.applyToTemplates(List.of(t)));
+        return template;
+    }
+
+    @Transactional
+    public PipelineTemplate createTemplate(TemplateCreateRequest request) {
+        if (request.getTemplateId() == null || request.getTemplateId().isBlank()) {
+            throw new IllegalArgumentException("templateId is required");
+        }
+        if (templateRepository.existsByTemplateId(request.getTemplateId())) {
+            throw new IllegalArgumentException("Template already exists: " + request.getTemplateId());
+        }
+        PipelineTemplate template = new PipelineTemplate();
+        template.setTemplateId(request.getTemplateId());
+        apply(template, request);
+        return templateRepository.save(template);
+    }
+
+    @Transactional
+    public PipelineTemplate updateTemplate(String templateId, TemplateCreateRequest request) {
+        PipelineTemplate template = require(templateId);
+        apply(template, request);
+        template.setUpdatedAt(Instant.now());
+        PipelineTemplate saved = templateRepository.save(template);
+        usageStats.applyToTemplates(List.of(saved));
+        return saved;
+    }
+
+    /**
+     * Creates a pipeline from the template with the given configuration substituted for its
+     * placeholders. A placeholder that is a whole string value is replaced by the configured
+     * value as is (number, object, ...); inside a longer string it is replaced by its text.
+     */
+    @Transactional
+    public Pipeline instantiateTemplate(String templateId, TemplateInstantiateRequest request) {
+        PipelineTemplate template = require(templateId);
+        Map<String, Object> configuration = request.getConfiguration() == null ? Map.of() : request.getConfiguration();
+        checkRequired(template, configuration);
+
+        JsonNode definition = substitute(readTree(template.getPipelineDefinition()), configuration);
+        PipelineCreateRequest pipeline;
+        try {
+            pipeline = objectMapper.treeToValue(definition, PipelineCreateRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Template " + templateId + " has an invalid pipeline definition", e);
+        }
+        pipeline.setPipelineId(request.getPipelineId());
+        if (request.getDisplayName() != null) pipeline.setDisplayName(request.getDisplayName());
+        if (request.getCreatedBy() != null) pipeline.setCreatedBy(request.getCreatedBy());
+
+        Pipeline created = pipelineService.createPipeline(pipeline);
+        usageStats.recordTemplateUsage(templateId);
+        return created;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> validateTemplate(String templateId) {
+        PipelineTemplate template = require(templateId);
+        List<String> errors = new ArrayList<>();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            PipelineCreateRequest definition = objectMapper.treeToValue(
+                    readTree(template.getPipelineDefinition()), PipelineCreateRequest.class);
+            definition.setPipelineId(templateId);
+            Map<String, Object> pipeline = pipelineService.validateDefinition(definition);
+            result.putAll(pipeline);
+            errors.addAll(castList(pipeline.get("errors")));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            errors.add("Invalid pipeline definition: " + e.getMessage());
+        }
+        result.put("valid", errors.isEmpty());
+        result.put("errors", errors);
+        return result;
+    }
+
+    public void incrementUsage(String templateId) {
+        if (!templateRepository.existsByTemplateId(templateId)) {
+            throw new IllegalArgumentException("Template not found: " + templateId);
+        }
+        usageStats.recordTemplateUsage(templateId);
+    }
+
+    public void addRating(String templateId, double rating) {
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+        if (!templateRepository.existsByTemplateId(templateId)) {
+            throw new IllegalArgumentException("Template not found: " + templateId);
+        }
+        usageStats.recordRating(templateId, rating);
+    }
+
+    private PipelineTemplate require(String templateId) {
+        return templateRepository.findByTemplateId(templateId)
+                .orElseThrow(() -> new IllegalArgumentException("Template not found: " + templateId));
+    }
+
+    private void apply(PipelineTemplate template, TemplateCreateRequest request) {
+        if (request.getPipelineDefinition() == null) {
+            throw new IllegalArgumentException("pipelineDefinition is required");
+        }
+        template.setDisplayName(request.getDisplayName() == null ? template.getTemplateId() : request.getDisplayName());
+        template.setDescription(request.getDescription());
+        template.setCategory(request.getCategory() == null ? "general" : request.getCategory());
+        template.setVersion(request.getVersion() == null ? "1.0.0" : request.getVersion());
+        template.setAuthor(request.getAuthor());
+        template.setTags(toJson(request.getTags()));
+        template.setConfigurationSchema(toJson(request.getConfigurationSchema()));
+        template.setPipelineDefinition(toJson(request.getPipelineDefinition()));
+        template.setRequiredCredentials(toJson(request.getRequiredCredentials()));
+        template.setEstimatedCost(toJson(request.getEstimatedCost()));
+        if (request.getStatus() != null) template.setStatus(request.getStatus());
+    }
+
+    // Fields listed as "required" in the configuration schema must be supplied
+    private void checkRequired(PipelineTemplate template, Map<String, Object> configuration) {
+        if (template.getConfigurationSchema() == null) {
+            return;
+        }
+        List<String> missing = new ArrayList<>();
+        for (JsonNode name : readTree(template.getConfigurationSchema()).path("required")) {
+            if (configuration.get(name.asText()) == null) {
+                missing.add(name.asText());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing configuration: " + String.join(", ", missing));
+        }
+    }
+
+    private JsonNode substitute(JsonNode node, Map<String, Object> configuration) {
+        if (node.isTextual()) {
+            String text = node.asText();
+            Matcher whole = PLACEHOLDER.matcher(text);
+            if (whole.matches() && configuration.containsKey(whole.group(1))) {
+                return objectMapper.valueToTree(configuration.get(whole.group(1)));
+            }
+            return TextNode.valueOf(PLACEHOLDER.matcher(text).replaceAll(m -> {
+                Object value = configuration.get(m.group(1));
+                return Matcher.quoteReplacement(value == null ? m.group() : String.valueOf(value));
+            }));
+        }
+        if (node.isObject()) {
+            ObjectNode copy = objectMapper.createObjectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                copy.set(field.getKey(), substitute(field.getValue(), configuration));
+            }
+            return copy;
+        }
+        if (node.isArray()) {
+            ArrayNode copy = objectMapper.createArrayNode();
+            node.forEach(element -> copy.add(substitute(element, configuration)));
+            return copy;
+        }
+        return node;
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return json == null ? objectMapper.createObjectNode() : objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON stored on template", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON value", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> castList(Object value) {
+        return value instanceof List<?> list ? (List<String>) list : List.of();
+    }
+}
@@ -0,0 +1,273 @@
+package com.marketplace.pipeline_service.service;
+
+import com.marketplace.pipeline_service.dto.PipelineExecuteRequest;
+import com.marketplace.pipeline_service.engine.ExecutionPlan;
+import com.marketplace.pipeline_service.engine.PlanCompiler;
+import com.marketplace.pipeline_service.engine.TimerWheel;
+import com.marketplace.pipeline_service.engine.TriggerSchedule;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineSchedule;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import com.marketplace.pipeline_service.repository.PipelineScheduleRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts published pipelines from their TRIGGER steps' schedules. Fire times are kept in
+ * pipeline_schedules, so they survive restarts; only those due within the next scan window are
+ * armed on the {@link TimerWheel}, so thousands of schedules cost one ticker thread and a timer
+ * entry each, not a thread or task each.
+ *
+ * <p>Firing is claimed with a conditional update of nextFireAt, so with several instances each
+ * fire time starts exactly one execution, which goes through the async queue. Every schedule is
+ * offset by a stable share of its jitter window (hash of pipeline and step), which spreads the
+ * "top of the hour" crowd without making a single schedule drift. Fire times missed while no
+ * instance was running are handled by the schedule's misfire policy, and the catch-up runs are
+ * spread over {@code pipeline.scheduler.misfire-spread}.
+ */
+@Slf4j
+@Component
+public class TriggerScheduler {
+
+    private final PipelineScheduleRepository scheduleRepository;
+    private final PipelineRepository pipelineRepository;
+    private final PlanCompiler planCompiler;
+    private final WorkflowExecutor workflowExecutor;
+    private final TimerWheel timers;
+    private final TransactionTemplate transaction;
+    private final Duration scanInterval;
+    private final Duration defaultJitter;
+    private final Duration misfireThreshold;
+    private final Duration misfireSpread;
+    private final ExecutorService firing;
+
+    // Schedule id -> timer for the fire time it was armed with
+    private final Map<UUID, Armed> armed = new ConcurrentHashMap<>();
+
+    public TriggerScheduler(PipelineScheduleRepository scheduleRepository,
+                            PipelineRepository pipelineRepository,
+                            PlanCompiler planCompiler,
+                            WorkflowExecutor workflowExecutor,
+                            TimerWheel timers,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${pipeline.scheduler.scan-interval:30s}") Duration scanInterval,
+                            @Value("${pipeline.scheduler.default-jitter:30s}") Duration defaultJitter,
+                            @Value("${pipeline.scheduler.misfire-threshold:60s}") Duration misfireThreshold,
+                            @Value("${pipeline.scheduler.misfire-spread:5m}") Duration misfireSpread,
+                            @Value("${pipeline.scheduler.workers:2}") int workers) {
+        this.scheduleRepository = scheduleRepository;
+        this.pipelineRepository = pipelineRepository;
+        this.planCompiler = planCompiler;
+        this.workflowExecutor = workflowExecutor;
+        this.timers = timers;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.scanInterval = scanInterval;
+        this.defaultJitter = defaultJitter;
+        this.misfireThreshold = misfireThreshold;
+        this.misfireSpread = misfireSpread;
+        this.firing = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("trigger-"));
+    }
+
+    /**
+     * Arms every schedule due before the next scan plus a margin; the first scan runs at startup.
+     * Already armed fire times are left alone; a schedule whose fire time moved (fired elsewhere,
+     * redefined) is re-armed.
+     */
+    @Scheduled(fixedDelayString = "${pipeline.scheduler.scan-interval:30s}")
+    public void scan() {
+        Instant now = Instant.now();
+        List<PipelineSchedule> due = scheduleRepository.findByNextFireAtBefore(now.plus(scanInterval.multipliedBy(2)));
+        for (PipelineSchedule schedule : due) {
+            Instant fireAt = schedule.getNextFireAt();
+            if (fireAt.isBefore(now.minus(misfireThreshold))) {
+                misfired(schedule, now);
+            } else {
+                arm(schedule, fireAt, fireAt);
+            }
+        }
+    }
+
+    /** Re-derives the pipeline's schedules from its TRIGGER steps once the change has committed. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPipelineChanged(PipelineChangedEvent event) {
+        try {
+            sync(event.pipelineId());
+        } catch (RuntimeException e) {
+            log.error("Could not update schedules of pipeline {}", event.pipelineId(), e);
+        }
+    }
+
+    void sync(String pipelineId) {
+        List<PipelineSchedule> current = transaction.execute(status -> {
+            Map<String, TriggerSchedule> wanted = wantedSchedules(pipelineId);
+            Map<String, PipelineSchedule> existing = new HashMap<>();
+            scheduleRepository.findByPipelineId(pipelineId).forEach(s -> existing.put(s.getStepId(), s));
+
+            existing.values().stream()
+                    .filter(s -> !wanted.containsKey(s.getStepId()))
+                    .forEach(scheduleRepository::delete);
+            Instant now = Instant.now();
+            wanted.forEach((stepId, spec) -> {
+                PipelineSchedule schedule = existing.get(stepId);
+                long jitter = effectiveJitter(spec).toSeconds();
+                if (schedule != null && spec.equals(toSpec(schedule, spec.getJitterSeconds()))
+                        && Objects.equals(schedule.getJitterSeconds(), jitter)) {
+                    return; // unchanged: keep its fire time
+                }
+                if (schedule == null) {
+                    schedule = new PipelineSchedule();
+                    schedule.setPipelineId(pipelineId);
+                    schedule.setStepId(stepId);
+                }
+                schedule.setCron(spec.getCron());
+                schedule.setIntervalSeconds(spec.getIntervalSeconds());
+                schedule.setTimezone(spec.getTimezone());
+                schedule.setJitterSeconds(jitter);
+                schedule.setMisfire(spec.getMisfire().name());
+                schedule.setNextFireAt(nextFireAt(schedule, spec, now));
+                scheduleRepository.save(schedule);
+            });
+            return scheduleRepository.findByPipelineId(pipelineId);
+        });
+
+        armed.entrySet().removeIf(entry -> {
+            boolean stale = entry.getValue().pipelineId().equals(pipelineId);
+            if (stale) {
+                entry.getValue().timeout().cancel();
+            }
+            return stale;
+        });
+        Instant horizon = Instant.now().plus(scanInterval.multipliedBy(2));
+        current.stream()
+                .filter(s -> s.getNextFireAt().isBefore(horizon))
+                .forEach(s -> arm(s, s.getNextFireAt(), s.getNextFireAt()));
+        log.info("Pipeline {} has {} schedule(s)", pipelineId, current.size());
+    }
+
+    // TRIGGER steps with a schedule, if the pipeline exists and is published
+    private Map<String, TriggerSchedule> wantedSchedules(String pipelineId) {
+        Map<String, TriggerSchedule> wanted = new HashMap<>();
+        Pipeline pipeline = pipelineRepository.findByPipelineId(pipelineId).orElse(null);
+        if (pipeline == null || pipeline.getStatus() != Pipeline.PipelineStatus.PUBLISHED) {
+            return wanted;
+        }
+        ExecutionPlan plan = planCompiler.compile(pipeline);
+        for (ExecutionPlan.StepNode step : plan.getSteps()) {
+            if (step.getSchedule() != null && step.isEnabled()) {
+                wanted.put(step.getStepId(), step.getSchedule());
+            }
+        }
+        return wanted;
+    }
+
+    private void misfired(PipelineSchedule schedule, Instant now) {
+        TriggerSchedule spec = toSpec(schedule, schedule.getJitterSeconds());
+        if (spec.getMisfire() == TriggerSchedule.Misfire.SKIP) {
+            Instant next = nextFireAt(schedule, spec, now);
+            if (scheduleRepository.advance(schedule.getId(), schedule.getNextFireAt(), next, schedule.getLastFiredAt()) == 1) {
+                log.info("Skipped missed fire time {} of {}/{}; next at {}", schedule.getNextFireAt(),
+                        schedule.getPipelineId(), schedule.getStepId(), next);
+            }
+            return;
+        }
+        // FIRE_ONCE: one catch-up run, spread out so a restart does not start them all at once
+        long spreadMs = Math.max(1, misfireSpread.toMillis());
+        arm(schedule, schedule.getNextFireAt(), now.plusMillis(ThreadLocalRandom.current().nextLong(spreadMs)));
+    }
+
+    /**
+     * @param expected the stored fire time the claim must still find
+     * @param fireAt   when to fire (later than expected for catch-up runs)
+     */
+    private void arm(PipelineSchedule schedule, Instant expected, Instant fireAt) {
+        Armed previous = armed.get(schedule.getId());
+        if (previous != null) {
+            if (previous.expected().equals(expected)) {
+                return;
+            }
+            previous.timeout().cancel();
+        }
+        TimerWheel.Timeout timeout = timers.schedule(fireAt, () -> firing.execute(() -> fire(schedule, expected)));
+        armed.put(schedule.getId(), new Armed(schedule.getPipelineId(), expected, timeout));
+    }
+
+    private void fire(PipelineSchedule schedule, Instant expected) {
+        armed.remove(schedule.getId());
+        TriggerSchedule spec = toSpec(schedule, schedule.getJitterSeconds());
+        Instant now = Instant.now();
+        // From the slot just served, so interval schedules do not drift; a catch-up run jumps ahead
+        Instant next = nextFireAt(schedule, spec, expected);
+        if (!next.isAfter(now)) {
+            next = nextFireAt(schedule, spec, now);
+        }
+        if (scheduleRepository.advance(schedule.getId(), expected, next, now) != 1) {
+            return; // fired by another instance, or redefined meanwhile
+        }
+        try {
+            PipelineExecuteRequest request = new PipelineExecuteRequest();
+            request.setExecutionMode("async");
+            request.setTriggeredBy("schedule:" + schedule.getStepId());
+            request.setInput(Map.of("trigger", Map.of(
+                    "stepId", schedule.getStepId(),
+                    "scheduledAt", expected.toString(),
+                    "firedAt", now.toString())));
+            workflowExecutor.executePipeline(schedule.getPipelineId(), request);
+        } catch (RuntimeException e) {
+            log.error("Scheduled run of pipeline {} failed to start", schedule.getPipelineId(), e);
+        }
+        if (next.isBefore(Instant.now().plus(scanInterval.multipliedBy(2)))) {
+            schedule.setNextFireAt(next);
+            arm(schedule, next, next);
+        }
+    }
+
+    /**
+     * Next fire time after {@code after}: the schedule's next nominal time plus the schedule's
+     * fixed share of its jitter window. Millisecond precision, so the stored value compares equal.
+     */
+    private Instant nextFireAt(PipelineSchedule schedule, TriggerSchedule spec, Instant after) {
+        long jitterMs = schedule.getJitterSeconds() == null ? 0 : schedule.getJitterSeconds() * 1000;
+        long offset = jitterMs == 0 ? 0
+                : Math.floorMod((schedule.getPipelineId() + "/" + schedule.getStepId()).hashCode(), jitterMs);
+        // Nominal times are computed without the offset, so a schedule keeps its period
+        Instant nominal = spec.next(after.minusMillis(offset));
+        return nominal.plusMillis(offset).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private Duration effectiveJitter(TriggerSchedule spec) {
+        return spec.getJitterSeconds() == null ? defaultJitter : Duration.ofSeconds(spec.getJitterSeconds());
+    }
+
+    private static TriggerSchedule toSpec(PipelineSchedule schedule, Long jitterSeconds) {
+        return TriggerSchedule.of(schedule.getCron(), schedule.getIntervalSeconds(), schedule.getTimezone(),
+                jitterSeconds, schedule.getMisfire());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        firing.shutdownNow();
+    }
+
+    private record Armed(String pipelineId, Instant expected, TimerWheel.Timeout timeout) {
+    }
+}
@@ -0,0 +1,321 @@
+package com.marketplace.pipeline_service.service;
+
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStats;
+import com.marketplace.pipeline_service.model.PipelineTemplate;
+import com.marketplace.pipeline_service.model.TemplateStats;
+import com.marketplace.pipeline_service.repository.PipelineStatsRepository;
+import com.marketplace.pipeline_service.repository.TemplateStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Execution and usage counters for pipelines and templates. Increments go to striped in-memory
+ * adders, so concurrent executions of the same pipeline never contend on a row lock; a scheduled
+ * flush upserts the accumulated deltas into pipeline_stats / template_stats in one JDBC batch.
+ * Reads add the pending deltas to the persisted values.
+ *
+ * <p>A flush takes exactly the amount it read out of each adder, so increments racing with it
+ * stay pending for the next flush; if the write fails the deltas are put back.
+ *
+ * <p>Counters kept on the pipelines / pipeline_templates rows by earlier versions are moved into
+ * the stats tables once at startup (see {@link #migrateLegacyCounters}).
+ */
+@Slf4j
+@Component
+public class UsageStats {
+
+    // MERGE is understood by both H2 2.x and Postgres 15+
+    private static final String UPSERT_PIPELINE = """
+            merge into pipeline_stats s
+            using (values (cast(? as varchar(255)), cast(? as bigint), cast(? as bigint), cast(? as bigint)))
+                as d(pipeline_id, total, succeeded, failed)
+            on s.pipeline_id = d.pipeline_id
+            when matched then update set
+                total_executions = s.total_executions + d.total,
+                successful_executions = s.successful_executions + d.succeeded,
+                failed_executions = s.failed_executions + d.failed
+            when not matched then insert (pipeline_id, total_executions, successful_executions, failed_executions)
+                values (d.pipeline_id, d.total, d.succeeded, d.failed)
+            """;
+
+    private static final String UPSERT_TEMPLATE = """
+            merge into template_stats s
+            using (values (cast(? as varchar(255)), cast(? as bigint), cast(? as double precision), cast(? as bigint)))
+                as d(template_id, uses, rating_sum, rating_count)
+            on s.template_id = d.template_id
+            when matched then update set
+                usage_count = s.usage_count + d.uses,
+                rating_sum = s.rating_sum + d.rating_sum,
+                rating_count = s.rating_count + d.rating_count
+            when not matched then insert (template_id, usage_count, rating_sum, rating_count)
+                values (d.template_id, d.uses, d.rating_sum, d.rating_count)
+            """;
+
+    private final PipelineStatsRepository pipelineStatsRepository;
+    private final TemplateStatsRepository templateStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+
+    private final Map<String, PipelineCounters> pipelines = new ConcurrentHashMap<>();
+    private final Map<String, TemplateCounters> templates = new ConcurrentHashMap<>();
+
+    public UsageStats(PipelineStatsRepository pipelineStatsRepository,
+                      TemplateStatsRepository templateStatsRepository,
+                      JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager) {
+        this.pipelineStatsRepository = pipelineStatsRepository;
+        this.templateStatsRepository = templateStatsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void recordExecution(String pipelineId, boolean succeeded) {
+        PipelineCounters counters = pipelines.computeIfAbsent(pipelineId, id -> new PipelineCounters());
+        counters.total.increment();
+        (succeeded ? counters.succeeded : counters.failed).increment();
+    }
+
+    /** Moves one execution already counted with the other outcome to {@code succeeded}, e.g. after a resume. */
+    public void correctOutcome(String pipelineId, boolean succeeded) {
+        PipelineCounters counters = pipelines.computeIfAbsent(pipelineId, id -> new PipelineCounters());
+        (succeeded ? counters.succeeded : counters.failed).increment();
+        (succeeded ? counters.failed : counters.succeeded).decrement();
+    }
+
+    public void recordTemplateUsage(String templateId) {
+        templates.computeIfAbsent(templateId, id -> new TemplateCounters()).usage.increment();
+    }
+
+    public void recordRating(String templateId, double rating) {
+        TemplateCounters counters = templates.computeIfAbsent(templateId, id -> new TemplateCounters());
+        counters.ratingSum.add(rating);
+        counters.ratingCount.increment();
+    }
+
+    /** Fills the statistics of the given pipelines; one query for all of them. */
+    public void applyToPipelines(Collection<Pipeline> targets) {
+        Map<String, PipelineStats> persisted = pipelineStatsRepository
+                .findAllById(targets.stream().map(Pipeline::getPipelineId).toList()).stream()
+                .collect(Collectors.toMap(PipelineStats::getPipelineId, Function.identity()));
+        for (Pipeline pipeline : targets) {
+            PipelineStats stats = persisted.getOrDefault(pipeline.getPipelineId(),
+                    new PipelineStats(pipeline.getPipelineId(), 0L, 0L, 0L));
+            PipelineCounters pending = pipelines.get(pipeline.getPipelineId());
+            long total = stats.getTotalExecutions(), succeeded = stats.getSuccessfulExecutions(), failed = stats.getFailedExecutions();
+            if (pending != null) {
+                total += pending.total.sum();
+                succeeded += pending.succeeded.sum();
+                failed += pending.failed.sum();
+            }
+            pipeline.setTotalExecutions(total);
+            pipeline.setSuccessfulExecutions(succeeded);
+            pipeline.setFailedExecutions(failed);
+        }
+    }
+
+    /** Fills usage count and average rating of the given templates; one query for all of them. */
+    public void applyToTemplates(Collection<PipelineTemplate> targets) {
+        Map<String, TemplateStats> persisted = templateStatsRepository
+                .findAllById(targets.stream().map(PipelineTemplate::getTemplateId).toList()).stream()
+                .collect(Collectors.toMap(TemplateStats::getTemplateId, Function.identity()));
+        for (PipelineTemplate template : targets) {
+            TemplateStats stats = persisted.getOrDefault(template.getTemplateId(),
+                    new TemplateStats(template.getTemplateId(), 0L, 0.0, 0L));
+            TemplateCounters pending = templates.get(template.getTemplateId());
+            long usage = stats.getUsageCount(), ratingCount = stats.getRatingCount();
+            double ratingSum = stats.getRatingSum();
+            if (pending != null) {
+                usage += pending.usage.sum();
+                ratingSum += pending.ratingSum.sum();
+                ratingCount += pending.ratingCount.sum();
+            }
+            template.setUsageCount(usage);
+            template.setAverageRating(ratingCount == 0 ? 0.0 : ratingSum / ratingCount);
+        }
+    }
+
+    /** Drops pending and persisted statistics of a deleted pipeline. */
+    public void forgetPipeline(String pipelineId) {
+        pipelines.remove(pipelineId);
+        if (pipelineStatsRepository.existsById(pipelineId)) {
+            pipelineStatsRepository.deleteById(pipelineId);
+        }
+    }
+
+    /**
+     * Adds the counters earlier versions kept on the pipelines and pipeline_templates rows (the
+     * columns are left in place by schema updates) to the stats tables, then clears them, so each
+     * is moved exactly once; rows are locked first, so instances starting together do not both
+     * move them. Only an average rating was kept, so it carries over as a single rating.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyCounters() {
+        boolean pipelineColumns = hasColumn("pipelines", "total_executions");
+        boolean templateColumns = hasColumn("pipeline_templates", "usage_count");
+        if (!pipelineColumns && !templateColumns) {
+            return;
+        }
+        int[] moved = new int[2];
+        transaction.executeWithoutResult(status -> {
+            if (pipelineColumns) {
+                List<Object[]> rows = jdbcTemplate.query("""
+                        select pipeline_id, total_executions, successful_executions, failed_executions
+                        from pipelines where total_executions is not null for update
+                        """, (rs, i) -> new Object[]{rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)});
+                List<Object[]> counted = rows.stream().filter(row -> (long) row[1] > 0).toList();
+                if (!counted.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_PIPELINE, counted);
+                }
+                jdbcTemplate.update("""
+                        update pipelines set total_executions = null, successful_executions = null,
+                            failed_executions = null
+                        where total_executions is not null
+                        """);
+                moved[0] = counted.size();
+            }
+            if (templateColumns) {
+                List<Object[]> rows = jdbcTemplate.query("""
+                        select template_id, usage_count, average_rating
+                        from pipeline_templates where usage_count is not null for update
+                        """, (rs, i) -> {
+                    double rating = rs.getDouble(3);
+                    return new Object[]{rs.getString(1), rs.getLong(2), rating, rating > 0 ? 1L : 0L};
+                });
+                List<Object[]> counted = rows.stream()
+                        .filter(row -> (long) row[1] > 0 || (long) row[3] > 0)
+                        .toList();
+                if (!counted.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_TEMPLATE, counted);
+                }
+                jdbcTemplate.update("""
+                        update pipeline_templates set usage_count = null, average_rating = null
+                        where usage_count is not null
+                        """);
+                moved[1] = counted.size();
+            }
+        });
+        if (moved[0] > 0 || moved[1] > 0) {
+            log.info("Moved legacy counters of {} pipelines and {} templates to the stats tables", moved[0], moved[1]);
+        }
+    }
+
+    private boolean hasColumn(String table, String column) {
+        // H2 reports upper-case names, Postgres lower-case
+        Integer count = jdbcTemplate.queryForObject("""
+                select count(*) from information_schema.columns
+                where lower(table_name) = ? and lower(column_name) = ?
+                """, Integer.class, table, column);
+        return count != null && count > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${pipeline.stats.flush-interval:5000}")
+    public void flush() {
+        List<PipelineDelta> pipelineDeltas = new ArrayList<>();
+        pipelines.forEach((id, counters) -> {
+            PipelineDelta delta = counters.take(id);
+            if (delta != null) pipelineDeltas.add(delta);
+        });
+        List<TemplateDelta> templateDeltas = new ArrayList<>();
+        templates.forEach((id, counters) -> {
+            TemplateDelta delta = counters.take(id);
+            if (delta != null) templateDeltas.add(delta);
+        });
+        if (pipelineDeltas.isEmpty() && templateDeltas.isEmpty()) {
+            return;
+        }
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (!pipelineDeltas.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_PIPELINE, pipelineDeltas.stream()
+                            .map(d -> new Object[]{d.pipelineId(), d.total(), d.succeeded(), d.failed()})
+                            .toList());
+                }
+                if (!templateDeltas.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_TEMPLATE, templateDeltas.stream()
+                            .map(d -> new Object[]{d.templateId(), d.usage(), d.ratingSum(), d.ratingCount()})
+                            .toList());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Flushing usage statistics failed, retrying next interval: {}", e.getMessage());
+            pipelineDeltas.forEach(d -> pipelines.computeIfAbsent(d.pipelineId(), id -> new PipelineCounters()).putBack(d));
+            templateDeltas.forEach(d -> templates.computeIfAbsent(d.templateId(), id -> new TemplateCounters()).putBack(d));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private static final class PipelineCounters {
+        final LongAdder total = new LongAdder();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        PipelineDelta take(String pipelineId) {
+            long t = total.sum(), s = succeeded.sum(), f = failed.sum();
+            if (t == 0 && s == 0 && f == 0) {
+                return null;
+            }
+            total.add(-t);
+            succeeded.add(-s);
+            failed.add(-f);
+            return new PipelineDelta(pipelineId, t, s, f);
+        }
+
+        void putBack(PipelineDelta delta) {
+            total.add(delta.total());
+            succeeded.add(delta.succeeded());
+            failed.add(delta.failed());
+        }
+    }
+
+    private static final class TemplateCounters {
+        final LongAdder usage = new LongAdder();
+        final DoubleAdder ratingSum = new DoubleAdder();
+        final LongAdder ratingCount = new LongAdder();
+
+        TemplateDelta take(String templateId) {
+            long u = usage.sum(), c = ratingCount.sum();
+            double r = ratingSum.sum();
+            if (u == 0 && c == 0) {
+                return null;
+            }
+            usage.add(-u);
+            ratingSum.add(-r);
+            ratingCount.add(-c);
+            return new TemplateDelta(templateId, u, r, c);
+        }
+
+        void putBack(TemplateDelta delta) {
+            usage.add(delta.usage());
+            ratingSum.add(delta.ratingSum());
+            ratingCount.add(delta.ratingCount());
+        }
+    }
+
+    private record PipelineDelta(String pipelineId, long total, long succeeded, long failed) {
+    }
+
+    private record TemplateDelta(String templateId, long usage, double ratingSum, long ratingCount) {
+    }
+}
@@ -0,0 +1,374 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.marketplace.pipeline_service.dto.PipelineExecuteRequest;
+import com.marketplace.pipeline_service.engine.ExecutionLimits;
+import com.marketplace.pipeline_service.engine.ExecutionPlan;
+import com.marketplace.pipeline_service.engine.PlanResult;
+import com.marketplace.pipeline_service.engine.PlanRun;
+import com.marketplace.pipeline_service.engine.StepInvoker;
+import com.marketplace.pipeline_service.engine.StepResult;
+import com.marketplace.pipeline_service.engine.StepSlots;
+import com.marketplace.pipeline_service.engine.TimerWheel;
+import com.marketplace.pipeline_service.model.ExecutionJob;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import com.marketplace.pipeline_service.repository.ExecutionJobRepository;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs pipelines. The pipeline is compiled into an {@link ExecutionPlan} and its steps are
+ * dispatched as their inputs become available, bounded per execution by
+ * {@code pipeline.executor.max-parallel-steps} and per instance by {@link StepSlots}.
+ *
+ * <p>With {@code executionMode=async} the execution is only recorded and queued; an
+ * {@link ExecutionQueue} worker picks it up and calls {@link #runQueued}.
+ *
+ * <p>Large values in agent outputs are moved to the {@link BlobStore} as they arrive and resolved
+ * again only in the body sent to the next agent, so neither the run nor the execution row
+ * carries them inline.
+ */
+@Slf4j
+@Service
+public class WorkflowExecutor {
+
+    private final PipelineExecutionRepository executionRepository;
+    private final ExecutionJobRepository jobRepository;
+    private final PlanCache planCache;
+    private final RunnerClient runnerClient;
+    private final StepSlots stepSlots;
+    private final CheckpointStore checkpointStore;
+    private final UsageStats usageStats;
+    private final ExecutionProgress progress;
+    private final BlobStore blobStore;
+    private final ExecutionApprovals approvals;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final ExecutionLimits limits;
+    private final TimerWheel timers;
+
+    public WorkflowExecutor(PipelineExecutionRepository executionRepository,
+                            ExecutionJobRepository jobRepository,
+                            PlanCache planCache,
+                            RunnerClient runnerClient,
+                            StepSlots stepSlots,
+                            CheckpointStore checkpointStore,
+                            UsageStats usageStats,
+                            ExecutionProgress progress,
+                            BlobStore blobStore,
+                            ExecutionApprovals approvals,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${pipeline.executor.max-parallel-steps:8}") int maxParallelSteps,
+                            @Value("${pipeline.executor.stream-buffer:32}") int streamBuffer,
+                            @Value("${pipeline.executor.item-concurrency:4}") int itemConcurrency,
+                            @Value("${pipeline.executor.park-after:10s}") Duration parkAfter,
+                            TimerWheel timers) {
+        this.executionRepository = executionRepository;
+        this.jobRepository = jobRepository;
+        this.planCache = planCache;
+        this.runnerClient = runnerClient;
+        this.stepSlots = stepSlots;
+        this.checkpointStore = checkpointStore;
+        this.usageStats = usageStats;
+        this.progress = progress;
+        this.blobStore = blobStore;
+        this.approvals = approvals;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.limits = new ExecutionLimits(maxParallelSteps, streamBuffer, itemConcurrency, parkAfter);
+        this.timers = timers;
+    }
+
+    public PipelineExecution executePipeline(String pipelineId, PipelineExecuteRequest request) {
+        ExecutionPlan plan = loadPlan(pipelineId);
+        JsonNode input = objectMapper.valueToTree(request.getInput() == null ? Map.of() : request.getInput());
+
+        PipelineExecution execution = new PipelineExecution();
+        execution.setPipelineId(pipelineId);
+        execution.setExecutionId(UUID.randomUUID().toString());
+        execution.setInitialInput(input.toString());
+        execution.setTriggeredBy(request.getTriggeredBy() == null ? "user" : request.getTriggeredBy());
+        execution.setPriority(request.getPriority());
+
+        if ("async".equalsIgnoreCase(request.getExecutionMode())) {
+            return enqueue(execution, request);
+        }
+        return run(plan, executionRepository.save(execution));
+    }
+
+    /**
+     * Runs an execution previously queued by {@link #executePipeline}, or woken after parking at
+     * a DELAY step or by an approval decision. An execution that already reached a terminal state (e.g. the worker died
+     * before acknowledging) is returned as is; one interrupted mid-run continues from its checkpoints.
+     */
+    public PipelineExecution runQueued(String executionId) {
+        PipelineExecution execution = executionRepository.findByExecutionId(executionId)
+                .orElseThrow(() -> new IllegalArgumentException("Execution not found: " + executionId));
+        if (execution.getStatus() != PipelineExecution.ExecutionStatus.QUEUED
+                && execution.getStatus() != PipelineExecution.ExecutionStatus.RUNNING
+                && !isParked(execution)) {
+            return execution;
+        }
+        if (!isParked(execution)) {
+            execution.setStartedAt(Instant.now());
+        }
+        execution.setStatus(PipelineExecution.ExecutionStatus.RUNNING);
+        execution.setResumeAt(null);
+        execution = executionRepository.save(execution);
+        try {
+            return run(loadPlan(execution.getPipelineId()), execution);
+        } catch (IllegalArgumentException e) {
+            // Pipeline deleted or no longer compiles since it was queued
+            execution.setStatus(PipelineExecution.ExecutionStatus.FAILED);
+            execution.setErrorMessage(e.getMessage());
+            return finish(execution);
+        }
+    }
+
+    /**
+     * Re-runs a failed or cancelled execution from where it stopped. Steps with a COMPLETED
+     * checkpoint are not invoked again; their recorded outputs feed the remaining steps.
+     */
+    public PipelineExecution resume(String executionId) {
+        PipelineExecution execution = executionRepository.findByExecutionId(executionId)
+                .orElseThrow(() -> new IllegalArgumentException("Execution not found: " + executionId));
+        if (execution.getStatus() != PipelineExecution.ExecutionStatus.FAILED
+                && execution.getStatus() != PipelineExecution.ExecutionStatus.CANCELLED) {
+            throw new ExecutionConflictException("Execution " + executionId + " is " + execution.getStatus()
+                    + "; only failed or cancelled executions can be resumed");
+        }
+        ExecutionPlan plan = loadPlan(execution.getPipelineId());
+        approvals.reopenRejected(executionId);
+        execution.setStatus(PipelineExecution.ExecutionStatus.RUNNING);
+        execution.setStartedAt(Instant.now());
+        execution.setCompletedAt(null);
+        execution.setErrorStep(null);
+        execution.setErrorMessage(null);
+        return run(plan, executionRepository.save(execution));
+    }
+
+    /**
+     * Marks a queued execution failed without running it, e.g. after too many lost leases.
+     */
+    public PipelineExecution failQueued(String executionId, String reason) {
+        PipelineExecution execution = executionRepository.findByExecutionId(executionId)
+                .orElseThrow(() -> new IllegalArgumentException("Execution not found: " + executionId));
+        execution.setStatus(PipelineExecution.ExecutionStatus.FAILED);
+        execution.setErrorMessage(reason);
+        return finish(execution);
+    }
+
+    private PipelineExecution enqueue(PipelineExecution execution, PipelineExecuteRequest request) {
+        execution.setStatus(PipelineExecution.ExecutionStatus.QUEUED);
+        ExecutionJob job = new ExecutionJob();
+        job.setExecutionId(execution.getExecutionId());
+        job.setPipelineId(execution.getPipelineId());
+        job.setCallbackUrl(request.getCallbackUrl());
+        if (request.getCallbackHeaders() != null) {
+            job.setCallbackHeaders(toJson(request.getCallbackHeaders()));
+        }
+        PipelineExecution queued = transaction.execute(status -> {
+            jobRepository.save(job);
+            return executionRepository.save(execution);
+        });
+        log.info("Queued execution {} of pipeline {}", queued.getExecutionId(), queued.getPipelineId());
+        return queued;
+    }
+
+    private PipelineExecution run(ExecutionPlan plan, PipelineExecution execution) {
+        String pipelineId = execution.getPipelineId();
+        String executionId = execution.getExecutionId();
+        JsonNode input = parseOutput(execution.getInitialInput());
+        PlanResult result;
+        try {
+            int attempt = checkpointStore.nextAttempt(executionId);
+            Map<String, JsonNode> restored = attempt > 1 ? checkpointStore.completedOutputs(executionId) : Map.of();
+            Map<String, Instant> resumeTimes = attempt > 1 ? checkpointStore.resumeTimes(executionId) : Map.of();
+            Map<String, JsonNode> decisions = attempt > 1 ? approvals.decisions(executionId) : Map.of();
+            log.info("Executing pipeline {} v{} as {} attempt {} ({} steps, {} restored)",
+                    pipelineId, plan.getVersion(), executionId, attempt, plan.getSteps().size(), restored.size());
+            progress.open(executionId, restored.keySet());
+            result = new PlanRun(plan, invoker(execution), objectMapper, limits, restored,
+                    checkpointStore.recorder(executionId, attempt).and(progress.listener(executionId)),
+                    resumeTimes, decisions, timers)
+                    .run(input).block();
+            // Blob writes can fail too; the execution must still finish and close its progress channel
+            execution.setStepResults(toJson(externalize(executionId, result.stepResults())));
+            execution.setExecutionLog(toJson(result.log()));
+            execution.setFinalOutput(toJson(blobStore.externalizeDocument(executionId, result.finalOutput())));
+        } catch (RuntimeException e) {
+            log.error("Execution {} of pipeline {} aborted", execution.getExecutionId(), pipelineId, e);
+            execution.setStatus(PipelineExecution.ExecutionStatus.FAILED);
+            execution.setErrorMessage(e.getMessage());
+            return finish(execution);
+        }
+
+        if (result.succeeded() && result.suspended()) {
+            return park(execution, result);
+        }
+        if (result.succeeded()) {
+            execution.setStatus(PipelineExecution.ExecutionStatus.COMPLETED);
+        } else {
+            execution.setStatus(PipelineExecution.ExecutionStatus.FAILED);
+            execution.setErrorStep(result.errorStep());
+            execution.setErrorMessage(result.errorMessage());
+        }
+        return finish(execution);
+    }
+
+    /**
+     * Stops the execution until its earliest parked DELAY ends or, at a HUMAN_APPROVAL step, until
+     * a decision: no thread, lease or connection is held while it waits. Its job is re-queued to
+     * become claimable then, and the next attempt restores the completed steps from their
+     * checkpoints.
+     */
+    private PipelineExecution park(PipelineExecution execution, PlanResult result) {
+        Instant resumeAt = result.resumeAt();
+        boolean awaiting = !result.awaitingApproval().isEmpty();
+        execution.setStatus(awaiting
+                ? PipelineExecution.ExecutionStatus.WAITING_APPROVAL : PipelineExecution.ExecutionStatus.WAITING);
+        execution.setResumeAt(resumeAt);
+        PipelineExecution saved = transaction.execute(status -> {
+            ExecutionJob job = jobRepository.lockByExecutionId(execution.getExecutionId()).orElseGet(() -> {
+                ExecutionJob created = new ExecutionJob();
+                created.setExecutionId(execution.getExecutionId());
+                created.setPipelineId(execution.getPipelineId());
+                return created;
+            });
+            boolean decided = awaiting && approvals.request(execution, result.awaitingApproval());
+            if (decided) {
+                // Decided while this attempt was running
+                job.setStatus(ExecutionJob.JobStatus.QUEUED);
+                job.setAvailableAt(Instant.now());
+            } else if (resumeAt != null) {
+                job.setStatus(ExecutionJob.JobStatus.QUEUED);
+                job.setAvailableAt(resumeAt);
+            } else {
+                job.setStatus(ExecutionJob.JobStatus.AWAITING_APPROVAL);
+            }
+            job.setLeaseOwner(null);
+            job.setLeaseExpiresAt(null);
+            job.setRunAttempts(0);
+            jobRepository.save(job);
+            return executionRepository.save(execution);
+        });
+        if (awaiting) {
+            log.info("Execution {} parked awaiting approval of {}", saved.getExecutionId(), result.awaitingApproval());
+        } else {
+            log.info("Execution {} parked until {}", saved.getExecutionId(), resumeAt);
+        }
+        progress.close(saved);
+        return saved;
+    }
+
+    private PipelineExecution finish(PipelineExecution execution) {
+        execution.setCompletedAt(Instant.now());
+        execution.setExecutionTimeMs(Duration.between(execution.getStartedAt(), execution.getCompletedAt()).toMillis());
+        boolean succeeded = execution.getStatus() == PipelineExecution.ExecutionStatus.COMPLETED;
+        Boolean counted = execution.getCountedSucceeded();
+        if (counted == null) {
+            usageStats.recordExecution(execution.getPipelineId(), succeeded);
+        } else if (counted != succeeded) {
+            // A resumed execution: it was counted when it first failed
+            usageStats.correctOutcome(execution.getPipelineId(), succeeded);
+        }
+        execution.setCountedSucceeded(succeeded);
+        PipelineExecution saved = executionRepository.save(execution);
+        progress.close(saved);
+        return saved;
+    }
+
+    private static boolean isParked(PipelineExecution execution) {
+        return execution.getStatus() == PipelineExecution.ExecutionStatus.WAITING
+                || execution.getStatus() == PipelineExecution.ExecutionStatus.WAITING_APPROVAL;
+    }
+
+    private ExecutionPlan loadPlan(String pipelineId) {
+        return planCache.get(pipelineId);
+    }
+
+    private Map<String, StepResult> externalize(String executionId, Map<String, StepResult> results) {
+        Map<String, StepResult> persisted = new LinkedHashMap<>();
+        results.forEach((stepId, result) -> persisted.put(stepId, new StepResult(result.stepId(), result.status(),
+                blobStore.externalizeDocument(executionId, result.output()), result.error(),
+                result.startedAt(), result.durationMs())));
+        return persisted;
+    }
+
+    private StepInvoker invoker(PipelineExecution execution) {
+        String pipelineId = execution.getPipelineId();
+        String executionId = execution.getExecutionId();
+        int priority = execution.getPriority() == null ? 0 : execution.getPriority();
+        return new StepInvoker() {
+            @Override
+            public Mono<JsonNode> invoke(ExecutionPlan.StepNode step, String agentId, JsonNode input) {
+                if (!callsAgent(step)) {
+                    // PlanRun runs TRIGGER, DELAY and HUMAN_APPROVAL itself; the compiler rejects the rest
+                    return Mono.error(new IllegalStateException(
+                            step.getStepType() + " step " + step.getStepId() + " does not call an agent"));
+                }
+                // Blob reads and writes are file I/O, kept off the step's scheduler
+                return Mono.fromCallable(() -> toBody(blobStore.resolve(executionId, input)))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(body -> stepSlots.withSlot(runnerClient.runStep(pipelineId, priority, step, agentId, body)))
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(output -> blobStore.externalize(executionId, parseOutput(output)));
+            }
+
+            @Override
+            public Flux<JsonNode> stream(ExecutionPlan.StepNode step, JsonNode input) {
+                if (!callsAgent(step)) {
+                    // a streaming source without an agent (e.g. a TRIGGER) emits its input as the one item
+                    return Flux.just(input);
+                }
+                return Mono.fromCallable(() -> toBody(blobStore.resolve(executionId, input)))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMapMany(body -> stepSlots.withSlot(runnerClient.streamStep(pipelineId, priority, step, body)));
+            }
+        };
+    }
+
+    private static boolean callsAgent(ExecutionPlan.StepNode step) {
+        return step.getStepType() == PipelineStep.StepType.AGENT || step.isIterating();
+    }
+
+    private Map<String, Object> toBody(JsonNode input) {
+        return objectMapper.convertValue(input, new TypeReference<>() {});
+    }
+
+    private JsonNode parseOutput(String output) {
+        try {
+            JsonNode parsed = objectMapper.readTree(output);
+            return parsed.isMissingNode() ? TextNode.valueOf(output) : parsed;
+        } catch (JsonProcessingException e) {
+            return TextNode.valueOf(output);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize execution state", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpressionCompilerTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final ExpressionCompiler compiler = new ExpressionCompiler(mapper, 64);
+
+	@Test
+	void blankExpressionsPassThrough() throws Exception {
+		JsonNode source = json("{\"a\":1}");
+
+		assertSame(Mapping.IDENTITY, compiler.mapping(null));
+		assertSame(source, compiler.mapping("  ").apply(source));
+		assertSame(Condition.ALWAYS, compiler.condition(""));
+		assertTrue(compiler.condition(null).test(source));
+	}
+
+	@Test
+	void mappingReadsPathsAndKeepsWhatDoesNotResolve() throws Exception {
+		Mapping mapping = compiler.mapping("""
+				{"first":"items[0].x","second":"$.items.1.x","label":"no.such.path","n":3,"list":["title"]}
+				""");
+
+		JsonNode out = mapping.apply(json("{\"title\":\"t\",\"items\":[{\"x\":\"a\"},{\"x\":\"b\"}]}"));
+
+		assertEquals(json("{\"first\":\"a\",\"second\":\"b\",\"label\":\"no.such.path\",\"n\":3,\"list\":[\"t\"]}"), out);
+	}
+
+	@Test
+	void pathsIndexArraysAndStopAtMissingNodes() throws Exception {
+		JsonNode root = json("{\"items\":[{\"x\":1},{\"x\":2}],\"obj\":{\"0\":\"zero\"}}");
+
+		assertEquals(2, JsonPath.compile("items[1].x").read(root).asInt());
+		assertEquals(1, JsonPath.compile("$.items.0.x").read(root).asInt());
+		// A numeric segment on an object is a field name
+		assertEquals("zero", JsonPath.compile("obj.0").read(root).asText());
+		assertTrue(JsonPath.compile("items[5].x").read(root).isMissingNode());
+		assertTrue(JsonPath.compile("items.x.y").read(root).isMissingNode());
+		assertTrue(JsonPath.compile("a").read(null).isMissingNode());
+		assertSame(root, JsonPath.compile("$").read(root));
+	}
+
+	@Test
+	void conditionsFollowJavaScriptTruthinessAndPrecedence() throws Exception {
+		JsonNode context = json("{\"score\":0.75,\"count\":1,\"name\":\"\",\"tags\":[\"a\"],\"items\":[{\"ok\":true}]}");
+
+		assertTrue(compiler.condition("score >= 0.5 && count == 1.0").test(context));
+		assertTrue(compiler.condition("items[0].ok").test(context));
+		assertFalse(compiler.condition("name").test(context));
+		assertTrue(compiler.condition("!name && tags").test(context));
+		// && binds tighter than ||
+		assertTrue(compiler.condition("count == 1 || score > 1 && missing").test(context));
+		assertFalse(compiler.condition("(count == 1 || score > 1) && missing").test(context));
+		// A missing path is undefined: equal to null, never ordered
+		assertTrue(compiler.condition("missing == null").test(context));
+		assertFalse(compiler.condition("missing < 1").test(context));
+		assertTrue(compiler.condition("'b' > \"a\" && count !== 2").test(context));
+	}
+
+	@Test
+	void identicalExpressionsShareOneCompiledInstance() {
+		assertSame(compiler.mapping("{\"a\":\"b\"}"), compiler.mapping("{\"a\":\"b\"}"));
+		// Surrounding whitespace does not change a condition
+		assertSame(compiler.condition("a == 1"), compiler.condition("  a == 1 "));
+
+		ExpressionCompiler small = new ExpressionCompiler(mapper, 1);
+		Condition first = small.condition("a");
+		small.condition("b");
+		assertNotSame(first, small.condition("a"));
+	}
+
+	@Test
+	void malformedExpressionsAreRejectedWhenCompiled() {
+		assertThrows(IllegalArgumentException.class, () -> compiler.mapping("{\"a\":"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.condition("a =="));
+		assertThrows(IllegalArgumentException.class, () -> compiler.condition("(a == 1"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.condition("name == 'open"));
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> compiler.condition("a b"));
+		assertTrue(e.getMessage().contains("position 2"), e.getMessage());
+	}
+
+	private JsonNode json(String text) throws Exception {
+		return mapper.readTree(text);
+	}
+}
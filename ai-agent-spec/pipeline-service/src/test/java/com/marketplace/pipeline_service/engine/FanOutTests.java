@@ -0,0 +1,128 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final PlanCompiler compiler = new PlanCompiler(new ExpressionCompiler(mapper, 64));
+	private final ExecutionLimits limits = new ExecutionLimits(4, 16, 4, Duration.ofSeconds(1));
+	private final List<String> itemLog = new CopyOnWriteArrayList<>();
+
+	// Later items finish first
+	private final StepInvoker reversed = (step, agentId, input) -> {
+		int item = input.path("item").asInt();
+		return Mono.delay(Duration.ofMillis((4 - item) * 50L))
+				.thenReturn(mapper.getNodeFactory().numberNode(item));
+	};
+
+	@Test
+	void orderedResultsFollowItemOrder() {
+		JsonNode results = fanOut(reversed).run(loop(true, 0, 0), items(1, 2, 3)).block(Duration.ofSeconds(5));
+		assertEquals("[1,2,3]", results.toString());
+	}
+
+	@Test
+	void unorderedResultsFollowCompletionOrder() {
+		JsonNode results = fanOut(reversed).run(loop(false, 0, 0), items(1, 2, 3)).block(Duration.ofSeconds(5));
+		assertEquals("[3,2,1]", results.toString());
+	}
+
+	@Test
+	void retriesOnlyTheFailedItem() {
+		Map<Integer, AtomicInteger> calls = new ConcurrentHashMap<>();
+		// Like RunnerClient: each call retries on its own up to the step's maxRetries
+		StepInvoker flaky = (step, agentId, input) -> Mono.defer(() -> {
+			int item = input.path("item").asInt();
+			if (calls.computeIfAbsent(item, k -> new AtomicInteger()).incrementAndGet() == 1 && item == 2) {
+				return Mono.error(new IllegalStateException("transient"));
+			}
+			return Mono.just((JsonNode) mapper.getNodeFactory().numberNode(item));
+		}).retry(step.getMaxRetries());
+
+		JsonNode results = fanOut(flaky).run(loop(true, 0, 1), items(1, 2, 3)).block(Duration.ofSeconds(5));
+
+		assertEquals("[1,2,3]", results.toString());
+		assertEquals(1, calls.get(1).get());
+		assertEquals(2, calls.get(2).get());
+		assertEquals(1, calls.get(3).get());
+		assertEquals(3, itemLog.size());
+		assertTrue(itemLog.stream().allMatch(entry -> entry.endsWith("ok")));
+	}
+
+	@Test
+	void exhaustedRetriesFailTheStep() {
+		StepInvoker failing = (step, agentId, input) -> input.path("item").asInt() == 2
+				? Mono.error(new IllegalStateException("still down"))
+				: Mono.just(input);
+
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> fanOut(failing).run(loop(true, 0, 0), items(1, 2, 3)).block(Duration.ofSeconds(5)));
+		assertEquals("still down", e.getMessage());
+		assertTrue(itemLog.contains("item 1 still down"));
+	}
+
+	@Test
+	void boundsItemsInFlight() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+		StepInvoker slow = (step, agentId, input) -> Mono.defer(() -> {
+			peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			return Mono.delay(Duration.ofMillis(20))
+					.doFinally(signal -> inFlight.decrementAndGet())
+					.thenReturn(input);
+		});
+
+		JsonNode results = fanOut(slow).run(loop(true, 2, 0), items(1, 2, 3, 4, 5, 6)).block(Duration.ofSeconds(5));
+
+		assertEquals(6, results.size());
+		assertTrue(peak.get() <= 2, "peak " + peak.get());
+	}
+
+	private FanOut fanOut(StepInvoker invoker) {
+		return new FanOut(invoker, mapper, limits,
+				(stepId, item, durationMs, error) -> itemLog.add(item + " " + (error == null ? "ok" : error)));
+	}
+
+	private JsonNode items(int... values) {
+		ObjectNode input = mapper.createObjectNode();
+		ArrayNode items = input.putArray("items");
+		for (int value : values) {
+			items.add(value);
+		}
+		return input;
+	}
+
+	private ExecutionPlan.StepNode loop(boolean ordered, int maxParallelism, int maxRetries) {
+		PipelineStep step = new PipelineStep();
+		step.setStepId("loop");
+		step.setAgentId("agent-loop");
+		step.setStepType(PipelineStep.StepType.LOOP);
+		step.setOrderedResults(ordered);
+		step.setMaxParallelism(maxParallelism == 0 ? null : maxParallelism);
+		step.setMaxRetries(maxRetries);
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId("fan-out-test");
+		pipeline.setSteps(List.of(step));
+		pipeline.setConnections(List.of());
+		return compiler.compile(pipeline).step("loop");
+	}
+}
@@ -0,0 +1,70 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Microbenchmark for per-step mapping overhead: compiled evaluators versus re-parsing the
+ * mapping on every step. Not a test; run with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.marketplace.pipeline_service.engine.MappingBenchmark -Dexec.classpathScope=test}.
+ */
+public class MappingBenchmark {
+
+	private static final String DATA_MAPPING = "{\"data\": \"insights.statistics\", \"top\": \"insights.topics[0]\","
+			+ " \"attachments\": [{\"filename\": \"research-report.pdf\", \"path\": \"reportPath\"}]}";
+	private static final String CONDITION = "insights.statistics.count > 10 && status == 'ok'";
+	private static final String OUTPUT = "{\"status\": \"ok\", \"reportPath\": \"/tmp/report.pdf\","
+			+ " \"insights\": {\"topics\": [\"llm\", \"agents\"], \"statistics\": {\"count\": 42, \"mean\": 0.73}}}";
+
+	private static final int WARMUP = 200_000;
+	private static final int ITERATIONS = 1_000_000;
+
+	public static void main(String[] args) throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode output = mapper.readTree(OUTPUT);
+
+		ExpressionCompiler compiler = new ExpressionCompiler(mapper, 1024);
+		Mapping mapping = compiler.mapping(DATA_MAPPING);
+		Condition condition = compiler.condition(CONDITION);
+
+		Runnable compiled = () -> {
+			if (condition.test(output)) {
+				consume(mapping.apply(output));
+			}
+		};
+		Runnable reparsed = () -> {
+			try {
+				// what evaluating the raw strings on every step costs
+				Condition c = ConditionParser.parse(CONDITION);
+				Mapping m = Mapping.compile(mapper.readTree(DATA_MAPPING));
+				if (c.test(output)) {
+					consume(m.apply(output));
+				}
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+
+		report("compiled", compiled);
+		report("re-parsed", reparsed);
+		System.out.println("sink=" + sink);
+	}
+
+	private static int sink;
+
+	private static void consume(JsonNode node) {
+		sink += node.size();
+	}
+
+	private static void report(String name, Runnable step) {
+		for (int i = 0; i < WARMUP; i++) {
+			step.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			step.run();
+		}
+		double micros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+		System.out.printf("%-10s %.3f us/step%n", name, micros);
+	}
+}
@@ -0,0 +1,223 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.model.Connection;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanRunTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final PlanCompiler compiler = new PlanCompiler(new ExpressionCompiler(mapper, 64));
+	private final ExecutionLimits limits = new ExecutionLimits(4, 16, 4, Duration.ofSeconds(1));
+
+	@Test
+	void runsIndependentBranchesSideBySide() {
+		// a -> (b, c) -> d
+		ExecutionPlan plan = plan(List.of("a", "b", "c", "d"),
+				connection("a", "b"), connection("a", "c"), connection("b", "d"), connection("c", "d"));
+		Sinks.Empty<Void> cStarted = Sinks.empty();
+		ConcurrentHashMap<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+		ConcurrentHashMap<String, JsonNode> inputs = new ConcurrentHashMap<>();
+		StepInvoker invoker = (step, agentId, input) -> {
+			calls.computeIfAbsent(step.getStepId(), k -> new AtomicInteger()).incrementAndGet();
+			inputs.put(step.getStepId(), input);
+			JsonNode output = mapper.createObjectNode().put(step.getStepId(), true);
+			return switch (step.getStepId()) {
+				// b only finishes once c has started, so both must have been ready together
+				case "b" -> cStarted.asMono().then(Mono.just(output));
+				case "c" -> {
+					cStarted.tryEmitEmpty();
+					yield Mono.just(output);
+				}
+				default -> Mono.just(output);
+			};
+		};
+
+		PlanResult result = new PlanRun(plan, invoker, mapper, limits).run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+
+		assertTrue(result.succeeded());
+		assertEquals(4, calls.size());
+		calls.values().forEach(count -> assertEquals(1, count.get()));
+		// d was invoked with the outputs of both of its inputs
+		JsonNode d = inputs.get("d");
+		assertTrue(d.path("b").asBoolean(), d.toString());
+		assertTrue(d.path("c").asBoolean(), d.toString());
+	}
+
+	@Test
+	void failureTakesErrorEdgeAndSkipsNormalPath() {
+		ExecutionPlan plan = plan(List.of("a", "b", "c", "handler"),
+				connection("a", "b"), connection("b", "c"), errorConnection("a", "handler"));
+		List<String> invoked = new ArrayList<>();
+		StepInvoker invoker = (step, agentId, input) -> {
+			synchronized (invoked) {
+				invoked.add(step.getStepId());
+			}
+			if (step.getStepId().equals("a")) {
+				return Mono.error(new IllegalStateException("agent down"));
+			}
+			return Mono.just(input);
+		};
+
+		PlanResult result = new PlanRun(plan, invoker, mapper, limits).run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+
+		// handled by the ERROR edge, so the execution still succeeds
+		assertTrue(result.succeeded());
+		assertNull(result.errorStep());
+		assertEquals(List.of("a", "handler"), invoked);
+		assertEquals(StepResult.Status.FAILED, result.stepResults().get("a").status());
+		assertEquals(StepResult.Status.SKIPPED, result.stepResults().get("b").status());
+		assertEquals(StepResult.Status.SKIPPED, result.stepResults().get("c").status());
+		assertEquals(StepResult.Status.COMPLETED, result.stepResults().get("handler").status());
+		assertEquals("agent down", result.stepResults().get("handler").output().path("error").asText());
+	}
+
+	@Test
+	void unhandledFailureFailsTheRun() {
+		ExecutionPlan plan = plan(List.of("a", "b"), connection("a", "b"));
+		AtomicInteger bCalls = new AtomicInteger();
+		StepInvoker invoker = (step, agentId, input) -> {
+			if (step.getStepId().equals("b")) {
+				bCalls.incrementAndGet();
+				return Mono.just(input);
+			}
+			return Mono.error(new IllegalStateException("bad output"));
+		};
+
+		PlanResult result = new PlanRun(plan, invoker, mapper, limits).run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+
+		assertFalse(result.succeeded());
+		assertEquals("a", result.errorStep());
+		assertEquals("bad output", result.errorMessage());
+		assertEquals(0, bCalls.get());
+	}
+
+	@Test
+	void longDelayParksAndResumesFromCheckpoints() {
+		Pipeline pipeline = pipeline(List.of("a", "wait", "b"), connection("a", "wait"), connection("wait", "b"));
+		PipelineStep wait = pipeline.getSteps().get(1);
+		wait.setStepType(PipelineStep.StepType.DELAY);
+		wait.setAgentId(null);
+		wait.setStaticConfig("{\"delaySeconds\": 3600}");
+		ExecutionPlan plan = compiler.compile(pipeline);
+		List<String> invoked = new ArrayList<>();
+		StepInvoker invoker = (step, agentId, input) -> {
+			synchronized (invoked) {
+				invoked.add(step.getStepId());
+			}
+			return Mono.just(mapper.createObjectNode().put(step.getStepId(), true));
+		};
+
+		PlanResult parked = new PlanRun(plan, invoker, mapper, limits).run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+
+		// the hour-long wait is far beyond parkAfter: b stays pending, nothing waits in the run
+		assertTrue(parked.succeeded());
+		assertEquals(List.of("a"), invoked);
+		assertEquals(StepResult.Status.PARKED, parked.stepResults().get("wait").status());
+		assertFalse(parked.stepResults().containsKey("b"));
+		Instant resumeAt = parked.resumeAt();
+		assertTrue(resumeAt.isAfter(Instant.now().plus(Duration.ofMinutes(59))));
+
+		// The next attempt restores a and finds the resume time already passed
+		PlanResult resumed = new PlanRun(plan, invoker, mapper, limits,
+				Map.of("a", parked.stepResults().get("a").output()), StepListener.NONE,
+				Map.of("wait", Instant.now().minusSeconds(1)), null)
+				.run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+
+		assertTrue(resumed.succeeded());
+		assertTrue(resumed.parked().isEmpty());
+		assertEquals(List.of("a", "b"), invoked);
+		assertEquals(StepResult.Status.COMPLETED, resumed.stepResults().get("wait").status());
+		assertTrue(resumed.finalOutput().path("b").asBoolean());
+	}
+
+	@Test
+	void triggerPassesTheExecutionInputOn() {
+		Pipeline pipeline = pipeline(List.of("start", "a"), connection("start", "a"));
+		PipelineStep start = pipeline.getSteps().get(0);
+		start.setStepType(PipelineStep.StepType.TRIGGER);
+		start.setAgentId(null);
+		List<String> invoked = new ArrayList<>();
+		StepInvoker invoker = (step, agentId, input) -> {
+			invoked.add(step.getStepId());
+			return Mono.just(input);
+		};
+
+		PlanResult result = new PlanRun(compiler.compile(pipeline), invoker, mapper, limits)
+				.run(mapper.createObjectNode().put("q", "x"))
+				.block(Duration.ofSeconds(5));
+
+		assertTrue(result.succeeded());
+		assertEquals(List.of("a"), invoked);
+		assertEquals("x", result.finalOutput().path("q").asText());
+	}
+
+	@Test
+	void stepsTheEngineDoesNotRunAreRejected() {
+		for (PipelineStep.StepType type : List.of(PipelineStep.StepType.CONDITION, PipelineStep.StepType.WEBHOOK)) {
+			Pipeline pipeline = pipeline(List.of("a", "b"), connection("a", "b"));
+			pipeline.getSteps().get(1).setStepType(type);
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> compiler.compile(pipeline));
+			assertTrue(e.getMessage().startsWith(type + " step b is not supported"), e.getMessage());
+		}
+		Pipeline pipeline = pipeline(List.of("a", "start"), connection("a", "start"));
+		pipeline.getSteps().get(1).setStepType(PipelineStep.StepType.TRIGGER);
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile(pipeline));
+	}
+
+	private ExecutionPlan plan(List<String> stepIds, Connection... connections) {
+		return compiler.compile(pipeline(stepIds, connections));
+	}
+
+	private Pipeline pipeline(List<String> stepIds, Connection... connections) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId("plan-run-test");
+		List<PipelineStep> steps = new ArrayList<>();
+		for (String stepId : stepIds) {
+			PipelineStep step = new PipelineStep();
+			step.setStepId(stepId);
+			step.setAgentId("agent-" + stepId);
+			steps.add(step);
+		}
+		pipeline.setSteps(steps);
+		pipeline.setConnections(List.of(connections));
+		return pipeline;
+	}
+
+	private static Connection connection(String source, String target) {
+		Connection connection = new Connection();
+		connection.setSourceStepId(source);
+		connection.setTargetStepId(target);
+		return connection;
+	}
+
+	private static Connection errorConnection(String source, String target) {
+		Connection connection = connection(source, target);
+		connection.setConnectionType(Connection.ConnectionType.ERROR);
+		return connection;
+	}
+}
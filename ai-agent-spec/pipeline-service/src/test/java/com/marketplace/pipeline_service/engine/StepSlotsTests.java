@@ -0,0 +1,32 @@
+package com.marketplace.pipeline_service.engine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StepSlotsTests {
+
+	private final StepSlots slots = new StepSlots(new SimpleMeterRegistry(), 1);
+
+	@Test
+	void slotHandedToCancelledWaiterIsReleased() throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			Disposable running = slots.withSlot(Mono.never()).subscribe();
+			Disposable waiting = slots.withSlot(Mono.never()).subscribe();
+			// the slot is handed over, then the waiter goes away, often before it is delivered
+			running.dispose();
+			waiting.dispose();
+		}
+		long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+		while (slots.inUse() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, slots.inUse());
+		assertEquals(0, slots.waiting());
+	}
+}
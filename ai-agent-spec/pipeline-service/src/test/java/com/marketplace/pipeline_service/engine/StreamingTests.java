@@ -0,0 +1,111 @@
+package com.marketplace.pipeline_service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.model.Connection;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final PlanCompiler compiler = new PlanCompiler(new ExpressionCompiler(mapper, 64));
+	private final ExecutionLimits limits = new ExecutionLimits(4, 16, 4, Duration.ofSeconds(1));
+
+	@Test
+	void consumerProcessesItemsWhileSourceIsStillProducing() {
+		ExecutionPlan plan = plan(false);
+		PlanResult result = new PlanRun(plan, new Invoker(), mapper, limits).run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+
+		assertTrue(result.succeeded());
+		assertEquals("[10,20,30]", result.stepResults().get("summarize").output().toString());
+		// nothing else needs the full array, so only the count is kept
+		assertEquals(3, result.stepResults().get("fetch").output().path("streamed").asInt());
+	}
+
+	@Test
+	void sourceKeepsItemsWhenAnotherConnectionNeedsThem() {
+		ExecutionPlan plan = plan(true);
+		PlanResult result = new PlanRun(plan, new Invoker(), mapper, limits).run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+
+		assertTrue(result.succeeded());
+		assertEquals("[1,2,3]", result.stepResults().get("fetch").output().toString());
+		assertEquals("[10,20,30]", result.stepResults().get("summarize").output().toString());
+	}
+
+	// fetch emits two chunks; the second only once the consumer has finished the first item
+	private class Invoker implements StepInvoker {
+
+		private final Sinks.Empty<Void> firstItemDone = Sinks.empty();
+
+		@Override
+		public Mono<JsonNode> invoke(ExecutionPlan.StepNode step, String agentId, JsonNode input) {
+			if (step.getStepId().equals("summarize")) {
+				int item = input.path("item").asInt();
+				if (item == 1) {
+					firstItemDone.tryEmitEmpty();
+				}
+				return Mono.just(mapper.getNodeFactory().numberNode(item * 10));
+			}
+			return Mono.just(input);
+		}
+
+		@Override
+		public Flux<JsonNode> stream(ExecutionPlan.StepNode step, JsonNode input) {
+			ObjectNode first = mapper.createObjectNode();
+			first.putArray("articles").add(1).add(2);
+			ObjectNode second = mapper.createObjectNode();
+			second.putArray("articles").add(3);
+			return Flux.concat(Mono.just(first), firstItemDone.asMono().then(Mono.just(second)));
+		}
+	}
+
+	private ExecutionPlan plan(boolean report) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId("streaming-test");
+		List<PipelineStep> steps = new ArrayList<>();
+		steps.add(step("fetch", PipelineStep.StepType.AGENT));
+		steps.add(step("summarize", PipelineStep.StepType.LOOP));
+		List<Connection> connections = new ArrayList<>();
+		Connection stream = connection("fetch", "summarize");
+		stream.setStreaming(true);
+		stream.setStreamPath("articles");
+		connections.add(stream);
+		if (report) {
+			steps.add(step("report", PipelineStep.StepType.AGENT));
+			connections.add(connection("fetch", "report"));
+		}
+		pipeline.setSteps(steps);
+		pipeline.setConnections(connections);
+		return compiler.compile(pipeline);
+	}
+
+	private static PipelineStep step(String stepId, PipelineStep.StepType type) {
+		PipelineStep step = new PipelineStep();
+		step.setStepId(stepId);
+		step.setAgentId("agent-" + stepId);
+		step.setStepType(type);
+		return step;
+	}
+
+	private static Connection connection(String source, String target) {
+		Connection connection = new Connection();
+		connection.setSourceStepId(source);
+		connection.setTargetStepId(target);
+		return connection;
+	}
+}
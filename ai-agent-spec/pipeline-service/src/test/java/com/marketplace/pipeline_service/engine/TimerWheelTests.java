@@ -0,0 +1,82 @@
+package com.marketplace.pipeline_service.engine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTests {
+
+	// 1ms ticks: the first wheel covers 64ms, the second ~4s, so short delays exercise cascading
+	private final TimerWheel timers = new TimerWheel(new SimpleMeterRegistry(), Duration.ofMillis(1));
+
+	@AfterEach
+	void stop() {
+		timers.shutdown();
+	}
+
+	@Test
+	void firesEachWheelLevelOnTimeAndNeverEarly() throws Exception {
+		// Level 0, level 1 (cascaded once) and level 2 (cascaded twice)
+		long[] delaysMs = {5, 40, 63, 64, 65, 200, 1000, 4100};
+		Map<Long, Long> lateness = new ConcurrentHashMap<>();
+		CountDownLatch fired = new CountDownLatch(delaysMs.length);
+		for (long delayMs : delaysMs) {
+			long start = System.nanoTime();
+			timers.schedule(Instant.now().plusMillis(delayMs), () -> {
+				lateness.put(delayMs, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - delayMs);
+				fired.countDown();
+			});
+		}
+
+		assertTrue(fired.await(10, TimeUnit.SECONDS));
+		lateness.forEach((delayMs, lateMs) -> {
+			// Wall and monotonic clocks are read separately, hence the 1ms allowance
+			assertTrue(lateMs >= -1, delayMs + "ms timer fired " + -lateMs + "ms early");
+			assertTrue(lateMs < 250, delayMs + "ms timer fired " + lateMs + "ms late");
+		});
+		assertEquals(0, timers.pending());
+	}
+
+	@Test
+	void pastDeadlineFiresOnTheNextTick() throws Exception {
+		CountDownLatch fired = new CountDownLatch(1);
+		timers.schedule(Instant.now().minusSeconds(5), fired::countDown);
+		assertTrue(fired.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void cancelledTimeoutNeverRuns() throws Exception {
+		AtomicBoolean ran = new AtomicBoolean();
+		TimerWheel.Timeout cancelled = timers.schedule(Instant.now().plusMillis(100), () -> ran.set(true));
+		// Beyond the top wheel's span (~4.6h at 1ms): parked until cascaded
+		timers.schedule(Instant.now().plus(Duration.ofDays(1)), () -> ran.set(true));
+		assertEquals(2, timers.pending());
+
+		assertTrue(cancelled.cancel());
+		assertFalse(cancelled.cancel());
+		assertEquals(1, timers.pending());
+
+		Thread.sleep(300);
+		assertFalse(ran.get());
+		assertEquals(1, timers.pending());
+	}
+
+	@Test
+	void delayCompletesAfterItsDuration() {
+		long start = System.nanoTime();
+		timers.delay(Duration.ofMillis(150)).block(Duration.ofSeconds(2));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(149));
+	}
+}
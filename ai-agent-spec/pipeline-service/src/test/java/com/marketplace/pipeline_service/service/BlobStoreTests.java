@@ -0,0 +1,205 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.BlobReferenceRepository;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class BlobStoreTests {
+
+	@Autowired
+	private BlobReferenceRepository referenceRepository;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void largeValuesBecomeReferencesAndResolveBack() throws Exception {
+		BlobStore store = store("blobs-roundtrip", Duration.ofHours(1));
+		String executionId = UUID.randomUUID().toString();
+		byte[] pdf = new byte[4096];
+		pdf[0] = '%';
+		String dataUri = "data:application/pdf;base64," + Base64.getEncoder().encodeToString(pdf);
+		ObjectNode output = mapper.createObjectNode().put("title", "Report").put("report", dataUri);
+
+		JsonNode externalized = store.externalize(executionId, output);
+
+		JsonNode ref = externalized.path("report");
+		assertTrue(BlobStore.isReference(ref), externalized.toString());
+		assertEquals("application/pdf", ref.path("mediaType").asText());
+		assertEquals(pdf.length, ref.path("size").asLong());
+		assertEquals("Report", externalized.path("title").asText());
+		// the step's own output is left alone
+		assertEquals(dataUri, output.path("report").asText());
+		assertEquals(output, store.resolve(executionId, externalized));
+
+		// served as the decoded bytes, to the execution that stored them
+		BlobStore.Blob blob = store.find(executionId, ref.path(BlobStore.REF).asText()).orElseThrow();
+		assertEquals("application/pdf", blob.mediaType());
+		assertFalse(blob.inline());
+		assertTrue(store.find(UUID.randomUUID().toString(), blob.hash()).isEmpty());
+		ByteArrayOutputStream served = new ByteArrayOutputStream();
+		store.transferTo(ref.path(BlobStore.REF).asText(), served);
+		assertArrayEquals(pdf, served.toByteArray());
+
+		// same content, same blob, one reference per execution
+		assertEquals(ref, store.externalize(executionId, output).path("report"));
+		assertEquals(1, referenceRepository.findAll().stream()
+				.filter(r -> r.getExecutionId().equals(executionId)).count());
+
+		// small values stay inline
+		JsonNode small = mapper.createObjectNode().put("title", "Report");
+		assertSame(small, store.externalize(executionId, small));
+	}
+
+	@Test
+	void oversizedDocumentIsStoredWhole() {
+		BlobStore store = store("blobs-document", Duration.ofHours(1));
+		ObjectNode articles = mapper.createObjectNode();
+		for (int i = 0; i < 200; i++) {
+			articles.put("article-" + i, "text of article " + i);
+		}
+
+		String executionId = UUID.randomUUID().toString();
+		JsonNode persisted = store.externalizeDocument(executionId, articles);
+
+		assertTrue(BlobStore.isReference(persisted), persisted.toString());
+		assertEquals("application/json", persisted.path("mediaType").asText());
+		assertEquals(articles, store.resolveDocument(executionId, persisted));
+	}
+
+	@Test
+	void forgedReferencesAreRejected() {
+		BlobStore store = store("blobs-forged", Duration.ofHours(1));
+		String owner = UUID.randomUUID().toString();
+		String stolen = hash(store.externalize(owner, text('s')));
+		String executionId = UUID.randomUUID().toString();
+
+		// an agent answering with a reference of its own making
+		ObjectNode traversal = mapper.createObjectNode();
+		traversal.putObject("leak").put(BlobStore.REF, "../../../../etc/passwd")
+				.put("mediaType", "text/plain;charset=UTF-8");
+		ObjectNode otherExecution = mapper.createObjectNode();
+		otherExecution.putObject("leak").put(BlobStore.REF, stolen).put("mediaType", "text/plain;charset=UTF-8");
+
+		IllegalArgumentException notHash = assertThrows(IllegalArgumentException.class,
+				() -> store.resolve(executionId, store.externalize(executionId, traversal)));
+		assertEquals("Not a blob hash: ../../../../etc/passwd", notHash.getMessage());
+		assertThrows(IllegalArgumentException.class,
+				() -> store.resolve(executionId, store.externalize(executionId, otherExecution)));
+		assertThrows(IllegalArgumentException.class,
+				() -> store.resolveDocument(executionId,
+						mapper.createObjectNode().put(BlobStore.REF, stolen).put("mediaType", "application/json")));
+		// the execution that stored it still can
+		assertTrue(store.resolve(owner, otherExecution).path("leak").isTextual());
+	}
+
+	@Test
+	void onlyKnownSafeTypesAreServedInline() {
+		assertTrue(new BlobStore.Blob("h", 1, "image/png").inline());
+		assertTrue(new BlobStore.Blob("h", 1, "text/plain;charset=UTF-8").inline());
+		assertFalse(new BlobStore.Blob("h", 1, "text/html").inline());
+		assertFalse(new BlobStore.Blob("h", 1, "image/svg+xml").inline());
+	}
+
+	@Test
+	void collectorKeepsOnlyBlobsOfLiveExecutions() throws Exception {
+		BlobStore store = store("blobs-gc", Duration.ZERO);
+		PipelineExecution live = new PipelineExecution();
+		live.setPipelineId("blob-test");
+		live.setExecutionId(UUID.randomUUID().toString());
+		executionRepository.save(live);
+		String gone = UUID.randomUUID().toString(); // no execution row, as after retention
+
+		String kept = hash(store.externalize(live.getExecutionId(), text('k')));
+		String dropped = hash(store.externalize(gone, text('d')));
+		Thread.sleep(20);
+
+		store.collect();
+
+		assertTrue(store.find(live.getExecutionId(), kept).isPresent());
+		assertFalse(Files.exists(Path.of("target/test-data/blobs-gc", dropped.substring(0, 2), dropped)));
+		assertTrue(referenceRepository.findReferencedHashes(List.of(dropped)).isEmpty());
+	}
+
+	@Test
+	void collectorSparesBlobsRenewedWhileItRuns() throws Exception {
+		String gone = UUID.randomUUID().toString();
+		String hash = hash(store("blobs-gc-race", Duration.ZERO).externalize(gone, text('r')));
+		Path file = Path.of("target/test-data/blobs-gc-race", hash.substring(0, 2), hash);
+		// Another execution stores the same content while the collector looks up references:
+		// the file is renewed, but its new reference is not committed yet
+		BlobReferenceRepository racing = (BlobReferenceRepository) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[]{BlobReferenceRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("findReferencedHashes")) {
+						Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+					}
+					try {
+						return method.invoke(referenceRepository, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+		Thread.sleep(20);
+
+		store(racing, "blobs-gc-race", Duration.ZERO).collect();
+
+		assertTrue(Files.exists(file));
+	}
+
+	private BlobStore store(String dir, Duration grace) {
+		return store(referenceRepository, dir, grace);
+	}
+
+	private BlobStore store(BlobReferenceRepository references, String dir, Duration grace) {
+		try {
+			return new BlobStore(references, mapper, Path.of("target/test-data", dir),
+					DataSize.ofBytes(1024), grace);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private JsonNode text(char c) {
+		return mapper.getNodeFactory().textNode(String.valueOf(c).repeat(2048) + UUID.randomUUID());
+	}
+
+	private static String hash(JsonNode ref) {
+		return ref.path(BlobStore.REF).asText();
+	}
+}
@@ -0,0 +1,121 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.engine.ExecutionLimits;
+import com.marketplace.pipeline_service.engine.ExecutionPlan;
+import com.marketplace.pipeline_service.engine.PlanCompiler;
+import com.marketplace.pipeline_service.engine.PlanResult;
+import com.marketplace.pipeline_service.engine.PlanRun;
+import com.marketplace.pipeline_service.engine.StepInvoker;
+import com.marketplace.pipeline_service.engine.StepListener;
+import com.marketplace.pipeline_service.engine.StepResult;
+import com.marketplace.pipeline_service.model.Connection;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.callback.initial-backoff=50ms"
+})
+class CheckpointStoreTests {
+
+	@Autowired
+	private CheckpointStore checkpointStore;
+
+	@Autowired
+	private PlanCompiler planCompiler;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void latestCompletedOutputsWinAcrossAttempts() {
+		String executionId = UUID.randomUUID().toString();
+		record(executionId, 1, result("a", StepResult.Status.COMPLETED, mapper.createObjectNode().put("v", 1)));
+		record(executionId, 1, result("b", StepResult.Status.FAILED, mapper.createObjectNode().put("error", "boom")));
+		record(executionId, 2, result("a", StepResult.Status.COMPLETED, mapper.createObjectNode().put("v", 2)));
+
+		assertEquals(3, checkpointStore.nextAttempt(executionId));
+		Map<String, JsonNode> completed = checkpointStore.completedOutputs(executionId);
+		assertEquals(Set.of("a"), completed.keySet());
+		assertEquals(2, completed.get("a").path("v").asInt());
+	}
+
+	@Test
+	void resumedRunReusesCompletedSteps() {
+		String executionId = UUID.randomUUID().toString();
+		ExecutionPlan plan = chain("a", "b", "c");
+		List<String> invoked = new ArrayList<>();
+		StepInvoker failingAtB = (step, agentId, input) -> {
+			invoked.add(step.getStepId());
+			return step.getStepId().equals("b")
+					? Mono.error(new IllegalStateException("transient"))
+					: Mono.just(mapper.createObjectNode().put(step.getStepId(), true));
+		};
+		run(plan, failingAtB, executionId, Map.of());
+		assertEquals(List.of("a", "b"), invoked);
+
+		invoked.clear();
+		StepInvoker healthy = (step, agentId, input) -> {
+			invoked.add(step.getStepId());
+			return Mono.just(mapper.createObjectNode().put(step.getStepId(), true));
+		};
+		PlanResult resumed = run(plan, healthy, executionId, checkpointStore.completedOutputs(executionId));
+
+		assertTrue(resumed.succeeded());
+		assertEquals(List.of("b", "c"), invoked);
+		assertTrue(resumed.stepResults().get("c").output().path("c").asBoolean());
+	}
+
+	private PlanResult run(ExecutionPlan plan, StepInvoker invoker, String executionId, Map<String, JsonNode> restored) {
+		int attempt = checkpointStore.nextAttempt(executionId);
+		StepListener recorder = checkpointStore.recorder(executionId, attempt);
+		return new PlanRun(plan, invoker, mapper, new ExecutionLimits(1, 16, 1, Duration.ofSeconds(1)), restored, recorder)
+				.run(mapper.createObjectNode())
+				.block(Duration.ofSeconds(5));
+	}
+
+	private ExecutionPlan chain(String... stepIds) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId("checkpoint-test");
+		pipeline.setSteps(new ArrayList<>());
+		pipeline.setConnections(new ArrayList<>());
+		for (int i = 0; i < stepIds.length; i++) {
+			PipelineStep step = new PipelineStep();
+			step.setStepId(stepIds[i]);
+			step.setAgentId("agent-" + stepIds[i]);
+			pipeline.getSteps().add(step);
+			if (i > 0) {
+				Connection connection = new Connection();
+				connection.setSourceStepId(stepIds[i - 1]);
+				connection.setTargetStepId(stepIds[i]);
+				pipeline.getConnections().add(connection);
+			}
+		}
+		return planCompiler.compile(pipeline);
+	}
+
+	private void record(String executionId, int attempt, StepResult result) {
+		checkpointStore.recorder(executionId, attempt).onStepResult(result).block();
+	}
+
+	private static StepResult result(String stepId, StepResult.Status status, JsonNode output) {
+		return new StepResult(stepId, status, output, null, Instant.now(), 0);
+	}
+}
@@ -0,0 +1,140 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.dto.ApprovalDecision;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.dto.PipelineExecuteRequest;
+import com.marketplace.pipeline_service.model.ApprovalRequest;
+import com.marketplace.pipeline_service.model.ExecutionJob;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.ExecutionJobRepository;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class ExecutionApprovalsTests {
+
+	@Autowired
+	private ExecutionApprovals approvals;
+
+	@Autowired
+	private ExecutionQueue queue;
+
+	@Autowired
+	private WorkflowExecutor workflowExecutor;
+
+	@Autowired
+	private PipelineService pipelineService;
+
+	@Autowired
+	private ExecutionJobRepository jobRepository;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void parksAtApprovalAndContinuesOnceApproved() throws Exception {
+		PipelineExecution parked = execute(approvalPipeline());
+
+		// Nothing runs while the approval is pending: the job is not claimable
+		assertEquals(PipelineExecution.ExecutionStatus.WAITING_APPROVAL, parked.getStatus());
+		assertEquals(ExecutionJob.JobStatus.AWAITING_APPROVAL, job(parked.getExecutionId()).getStatus());
+		List<ApprovalRequest> requests = approvals.list(parked.getExecutionId());
+		assertEquals(1, requests.size());
+		assertEquals("approve", requests.get(0).getStepId());
+		assertEquals(ApprovalRequest.Status.PENDING, requests.get(0).getStatus());
+		queue.poll();
+		assertEquals(PipelineExecution.ExecutionStatus.WAITING_APPROVAL, execution(parked.getExecutionId()).getStatus());
+
+		approvals.decide(parked.getExecutionId(), "approve", new ApprovalDecision(true, "alice", "looks good"));
+		awaitPolling(() -> execution(parked.getExecutionId()).getStatus() == PipelineExecution.ExecutionStatus.COMPLETED);
+
+		JsonNode output = mapper.readTree(execution(parked.getExecutionId()).getFinalOutput());
+		assertEquals("draft", output.path("document").asText());
+		assertTrue(output.path("approval").path("approved").asBoolean());
+		assertEquals("alice", output.path("approval").path("decidedBy").asText());
+		assertThrows(ExecutionConflictException.class, () -> approvals.decide(parked.getExecutionId(), "approve",
+				new ApprovalDecision(false, "bob", null)));
+	}
+
+	@Test
+	void rejectionFailsTheApprovalStep() throws Exception {
+		PipelineExecution parked = execute(approvalPipeline());
+
+		approvals.decide(parked.getExecutionId(), "approve", new ApprovalDecision(false, "bob", "not yet"));
+		awaitPolling(() -> execution(parked.getExecutionId()).getStatus() == PipelineExecution.ExecutionStatus.FAILED);
+
+		PipelineExecution failed = execution(parked.getExecutionId());
+		assertEquals("approve", failed.getErrorStep());
+		assertEquals("Rejected by bob: not yet", failed.getErrorMessage());
+		assertThrows(IllegalArgumentException.class, () -> approvals.decide(parked.getExecutionId(), "publish",
+				new ApprovalDecision(true, "bob", null)));
+	}
+
+	private PipelineExecution execute(String pipelineId) {
+		PipelineExecuteRequest request = new PipelineExecuteRequest();
+		request.setInput(Map.of("document", "draft"));
+		return workflowExecutor.executePipeline(pipelineId, request);
+	}
+
+	// approve (HUMAN_APPROVAL) -> publish (zero-length DELAY): completes without the runner
+	private String approvalPipeline() throws Exception {
+		String pipelineId = "approval-" + UUID.randomUUID();
+		ObjectNode pipeline = mapper.createObjectNode()
+				.put("pipelineId", pipelineId)
+				.put("displayName", "Approval test");
+		ArrayNode steps = pipeline.putArray("steps");
+		steps.addObject()
+				.put("stepId", "approve")
+				.put("stepType", "HUMAN_APPROVAL");
+		steps.addObject()
+				.put("stepId", "publish")
+				.put("stepType", "DELAY")
+				.putObject("staticConfig").put("delaySeconds", 0);
+		pipeline.putArray("connections").addObject()
+				.put("sourceStepId", "approve")
+				.put("targetStepId", "publish");
+		pipelineService.createPipeline(mapper.treeToValue(pipeline, PipelineCreateRequest.class));
+		return pipelineId;
+	}
+
+	private PipelineExecution execution(String executionId) {
+		return executionRepository.findByExecutionId(executionId).orElseThrow();
+	}
+
+	private ExecutionJob job(String executionId) {
+		return jobRepository.findByExecutionId(executionId).orElseThrow();
+	}
+
+	private void awaitPolling(BooleanSupplier done) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!done.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "timed out waiting for the queue");
+			queue.poll();
+			Thread.sleep(50);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.marketplace.pipeline_service.service;
+
+import com.marketplace.pipeline_service.dto.ExecutionPage;
+import com.marketplace.pipeline_service.dto.ExecutionSummary;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class ExecutionHistoryTests {
+
+	@Autowired
+	private PipelineService pipelineService;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Test
+	void pagesWalkEveryExecutionOnceNewestFirst() {
+		String pipelineId = "history-" + UUID.randomUUID();
+		Instant base = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+		Set<String> expected = new HashSet<>();
+		// Pairs share a startedAt, so page boundaries fall between rows tied on it
+		for (int i = 0; i < 7; i++) {
+			expected.add(save(pipelineId, base.plusSeconds(i / 2)));
+		}
+
+		List<ExecutionSummary> seen = new ArrayList<>();
+		ExecutionPage page = pipelineService.getPipelineExecutions(pipelineId, null, 2);
+		seen.addAll(page.getExecutions());
+		// Newer rows arriving between pages must not shift the pages still to come
+		save(pipelineId, Instant.now());
+		while (page.getNextCursor() != null) {
+			assertEquals(2, page.getExecutions().size());
+			page = pipelineService.getPipelineExecutions(pipelineId, page.getNextCursor(), 2);
+			seen.addAll(page.getExecutions());
+		}
+
+		assertEquals(1, page.getExecutions().size());
+		assertEquals(7, seen.size());
+		assertEquals(expected, Set.copyOf(seen.stream().map(ExecutionSummary::getExecutionId).toList()));
+		for (int i = 1; i < seen.size(); i++) {
+			assertFalse(seen.get(i).getStartedAt().isAfter(seen.get(i - 1).getStartedAt()));
+		}
+	}
+
+	@Test
+	void lastFullPageHasNoCursor() {
+		String pipelineId = "history-" + UUID.randomUUID();
+		save(pipelineId, Instant.now().minusSeconds(2));
+		save(pipelineId, Instant.now().minusSeconds(1));
+
+		ExecutionPage page = pipelineService.getPipelineExecutions(pipelineId, null, 2);
+
+		assertEquals(2, page.getExecutions().size());
+		assertNull(page.getNextCursor());
+		assertTrue(pipelineService.getPipelineExecutions("history-" + UUID.randomUUID(), null, 2)
+				.getExecutions().isEmpty());
+	}
+
+	@Test
+	void rejectsMalformedCursor() {
+		assertThrows(IllegalArgumentException.class,
+				() -> pipelineService.getPipelineExecutions("history-any", "not-a-cursor", 2));
+	}
+
+	private String save(String pipelineId, Instant startedAt) {
+		PipelineExecution execution = new PipelineExecution();
+		execution.setPipelineId(pipelineId);
+		execution.setExecutionId(UUID.randomUUID().toString());
+		execution.setStartedAt(startedAt);
+		execution.setStatus(PipelineExecution.ExecutionStatus.COMPLETED);
+		return executionRepository.save(execution).getExecutionId();
+	}
+}
@@ -0,0 +1,165 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.dto.ExecutionEvent;
+import com.marketplace.pipeline_service.engine.StepListener;
+import com.marketplace.pipeline_service.engine.StepResult;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class ExecutionProgressTests {
+
+	@Autowired
+	private ExecutionProgress progress;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Autowired
+	private ExecutionArchive executionArchive;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void lateSubscriberGetsSnapshotThenDeltas() throws Exception {
+		String executionId = UUID.randomUUID().toString();
+		progress.open(executionId, List.of("restored"));
+		StepListener listener = progress.listener(executionId);
+		listener.onStepStarted("a", Instant.now());
+
+		Collector subscriber = new Collector(Long.MAX_VALUE);
+		progress.subscribe(executionId).subscribe(subscriber);
+		listener.onStepResult(result("a", StepResult.Status.COMPLETED)).block();
+		listener.onStepStarted("b", Instant.now());
+		progress.close(execution(executionId, PipelineExecution.ExecutionStatus.COMPLETED));
+
+		assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+		List<ExecutionEvent> events = subscriber.events;
+		assertEquals(4, events.size());
+		ExecutionEvent snapshot = events.get(0);
+		assertEquals(ExecutionEvent.Type.SNAPSHOT, snapshot.getType());
+		assertEquals(Set.of("restored", "a"), snapshot.getSteps().keySet());
+		assertEquals("COMPLETED", snapshot.getSteps().get("restored").getStatus());
+		assertEquals("RUNNING", snapshot.getSteps().get("a").getStatus());
+		assertEquals("a COMPLETED", describe(events.get(1)));
+		assertEquals("b RUNNING", describe(events.get(2)));
+		assertEquals(ExecutionEvent.Type.FINISHED, events.get(3).getType());
+		assertEquals("COMPLETED", events.get(3).getStatus());
+	}
+
+	@Test
+	void slowSubscriberLosesOldestEventsWithoutHoldingUpOthers() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ExecutionProgress small = new ExecutionProgress(executionRepository, executionArchive, mapper, registry, 2);
+		String executionId = UUID.randomUUID().toString();
+		small.open(executionId, List.of());
+		StepListener listener = small.listener(executionId);
+
+		Collector fast = new Collector(Long.MAX_VALUE);
+		Collector slow = new Collector(1); // takes the snapshot, then stalls
+		small.subscribe(executionId).subscribe(fast);
+		small.subscribe(executionId).subscribe(slow);
+		for (int i = 1; i <= 5; i++) {
+			listener.onStepResult(result("s" + i, StepResult.Status.COMPLETED)).block();
+		}
+		small.close(execution(executionId, PipelineExecution.ExecutionStatus.COMPLETED));
+
+		assertTrue(fast.done.await(5, TimeUnit.SECONDS));
+		assertEquals(7, fast.events.size());
+		slow.request(Long.MAX_VALUE);
+		assertTrue(slow.done.await(5, TimeUnit.SECONDS));
+		assertEquals(3, slow.events.size());
+		assertEquals("s5 COMPLETED", describe(slow.events.get(1)));
+		assertEquals(ExecutionEvent.Type.FINISHED, slow.events.get(2).getType());
+		assertEquals(4.0, registry.get("pipeline.progress.dropped").counter().count());
+	}
+
+	@Test
+	void executionNotRunningHereIsServedFromTheDatabase() throws Exception {
+		PipelineExecution execution = execution(UUID.randomUUID().toString(), PipelineExecution.ExecutionStatus.FAILED);
+		execution.setPipelineId("progress-test");
+		execution.setStepResults(mapper.writeValueAsString(List.of(
+				mapper.createObjectNode().put("stepId", "a").put("status", "COMPLETED").put("durationMs", 12),
+				mapper.createObjectNode().put("stepId", "b").put("status", "FAILED").put("error", "boom"))));
+		executionRepository.save(execution);
+
+		List<ExecutionEvent> events = progress.subscribe(execution.getExecutionId())
+				.collectList().block(Duration.ofSeconds(5));
+
+		assertEquals(1, events.size());
+		assertEquals("FAILED", events.get(0).getStatus());
+		assertEquals(12L, events.get(0).getSteps().get("a").getDurationMs());
+		assertEquals("boom", events.get(0).getSteps().get("b").getError());
+		assertThrows(IllegalArgumentException.class,
+				() -> progress.subscribe(UUID.randomUUID().toString()).blockLast(Duration.ofSeconds(5)));
+	}
+
+	private static String describe(ExecutionEvent event) {
+		return event.getStepId() + " " + event.getStatus();
+	}
+
+	private static StepResult result(String stepId, StepResult.Status status) {
+		return new StepResult(stepId, status, null, null, Instant.now(), 5);
+	}
+
+	private static PipelineExecution execution(String executionId, PipelineExecution.ExecutionStatus status) {
+		PipelineExecution execution = new PipelineExecution();
+		execution.setExecutionId(executionId);
+		execution.setStatus(status);
+		execution.setExecutionTimeMs(10L);
+		return execution;
+	}
+
+	private static class Collector extends BaseSubscriber<ExecutionEvent> {
+
+		final List<ExecutionEvent> events = new CopyOnWriteArrayList<>();
+		final CountDownLatch done = new CountDownLatch(1);
+		private final long initialRequest;
+
+		Collector(long initialRequest) {
+			this.initialRequest = initialRequest;
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			request(initialRequest);
+		}
+
+		@Override
+		protected void hookOnNext(ExecutionEvent event) {
+			events.add(event);
+		}
+
+		@Override
+		protected void hookFinally(SignalType type) {
+			done.countDown();
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.pipeline_service.dto.PipelineExecuteRequest;
+import com.marketplace.pipeline_service.model.ExecutionJob;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import com.marketplace.pipeline_service.repository.ExecutionJobRepository;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2; the callback receiver and the runner are local HTTP servers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.callback.initial-backoff=50ms",
+		"pipeline.queue.renew-interval=100ms"
+})
+class ExecutionQueueTests {
+
+	// Holds agent calls until a test lets them answer
+	private static final HttpServer runner;
+	private static volatile CountDownLatch agentCalls = new CountDownLatch(0);
+
+	static {
+		try {
+			runner = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		} catch (IOException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+		runner.createContext("/runner/", exchange -> {
+			try {
+				agentCalls.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "{\"output\":\"done\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		runner.setExecutor(Executors.newCachedThreadPool());
+		runner.start();
+	}
+
+	@DynamicPropertySource
+	static void runnerUrl(DynamicPropertyRegistry registry) {
+		registry.add("services.runner-service.url", () -> "http://127.0.0.1:" + runner.getAddress().getPort());
+	}
+
+	@Autowired
+	private TaskScheduler taskScheduler;
+
+	@Autowired
+	private ExecutionQueue queue;
+
+	@Autowired
+	private WorkflowExecutor workflowExecutor;
+
+	@Autowired
+	private PipelineRepository pipelineRepository;
+
+	@Autowired
+	private ExecutionJobRepository jobRepository;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private HttpServer receiver;
+	private final List<String> callbacks = new CopyOnWriteArrayList<>();
+	private final AtomicInteger failuresLeft = new AtomicInteger();
+
+	@BeforeEach
+	void startReceiver() throws IOException {
+		receiver = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		receiver.createContext("/callback", exchange -> {
+			callbacks.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			exchange.sendResponseHeaders(failuresLeft.getAndDecrement() > 0 ? 500 : 204, -1);
+			exchange.close();
+		});
+		receiver.start();
+	}
+
+	@AfterEach
+	void stopReceiver() {
+		receiver.stop(0);
+	}
+
+	@Test
+	void runsQueuedExecutionAndRetriesItsCallback() throws Exception {
+		String pipelineId = delayPipeline();
+		failuresLeft.set(1);
+		PipelineExecuteRequest request = new PipelineExecuteRequest();
+		request.setExecutionMode("async");
+		request.setCallbackUrl("http://127.0.0.1:" + receiver.getAddress().getPort() + "/callback");
+		PipelineExecution queued = workflowExecutor.executePipeline(pipelineId, request);
+		assertEquals(PipelineExecution.ExecutionStatus.QUEUED, queued.getStatus());
+
+		awaitPolling(() -> job(queued.getExecutionId()).getStatus() == ExecutionJob.JobStatus.DONE);
+
+		ExecutionJob job = job(queued.getExecutionId());
+		assertEquals(2, job.getCallbackAttempts());
+		assertNull(job.getLeaseOwner());
+		assertNull(job.getLastError());
+		assertEquals(2, callbacks.size());
+		Map<?, ?> delivered = mapper.readValue(callbacks.get(1), Map.class);
+		assertEquals(queued.getExecutionId(), delivered.get("executionId"));
+		assertEquals("COMPLETED", delivered.get("status"));
+	}
+
+	@Test
+	void reclaimsOnlyExpiredLeasesAndAbandonsAfterMaxAttempts() throws Exception {
+		String pipelineId = delayPipeline();
+		// Held by a live worker elsewhere: never claimed here
+		ExecutionJob held = runningJob(pipelineId, "live-worker", Instant.now().plus(Duration.ofHours(1)), 1);
+		// Lease lapsed after the last allowed attempt (pipeline.queue.max-run-attempts, 3)
+		ExecutionJob lapsed = runningJob(pipelineId, "dead-worker", Instant.now().minusSeconds(1), 3);
+
+		awaitPolling(() -> job(lapsed.getExecutionId()).getStatus() == ExecutionJob.JobStatus.DONE);
+
+		PipelineExecution abandoned = executionRepository.findByExecutionId(lapsed.getExecutionId()).orElseThrow();
+		assertEquals(PipelineExecution.ExecutionStatus.FAILED, abandoned.getStatus());
+		assertEquals("Abandoned after 3 interrupted attempts", abandoned.getErrorMessage());
+		assertEquals(4, job(lapsed.getExecutionId()).getRunAttempts());
+
+		ExecutionJob stillHeld = job(held.getExecutionId());
+		assertEquals(ExecutionJob.JobStatus.RUNNING, stillHeld.getStatus());
+		assertEquals("live-worker", stillHeld.getLeaseOwner());
+		assertEquals(1, stillHeld.getRunAttempts());
+	}
+
+	@Test
+	void leasesAreRenewedWhileTheSchedulerIsBusy() throws Exception {
+		CountDownLatch schedulerBusy = new CountDownLatch(1);
+		agentCalls = new CountDownLatch(1);
+		try {
+			// e.g. a long blob collection or archive compaction holding the scheduling thread
+			taskScheduler.schedule(() -> {
+				try {
+					schedulerBusy.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, Instant.now());
+			PipelineExecuteRequest request = new PipelineExecuteRequest();
+			request.setExecutionMode("async");
+			PipelineExecution queued = workflowExecutor.executePipeline(agentPipeline(), request);
+			awaitPolling(() -> job(queued.getExecutionId()).getLeaseExpiresAt() != null);
+			Instant leased = job(queued.getExecutionId()).getLeaseExpiresAt();
+
+			Thread.sleep(500);
+
+			ExecutionJob running = job(queued.getExecutionId());
+			assertEquals(ExecutionJob.JobStatus.RUNNING, running.getStatus());
+			assertTrue(running.getLeaseExpiresAt().isAfter(leased), running.getLeaseExpiresAt() + " vs " + leased);
+		} finally {
+			agentCalls.countDown();
+			schedulerBusy.countDown();
+		}
+	}
+
+	private ExecutionJob runningJob(String pipelineId, String owner, Instant leaseExpiresAt, int attempts) {
+		PipelineExecution execution = new PipelineExecution();
+		execution.setPipelineId(pipelineId);
+		execution.setExecutionId(UUID.randomUUID().toString());
+		execution.setStatus(PipelineExecution.ExecutionStatus.RUNNING);
+		execution.setInitialInput("{}");
+		executionRepository.save(execution);
+		ExecutionJob job = new ExecutionJob();
+		job.setExecutionId(execution.getExecutionId());
+		job.setPipelineId(pipelineId);
+		job.setStatus(ExecutionJob.JobStatus.RUNNING);
+		job.setLeaseOwner(owner);
+		job.setLeaseExpiresAt(leaseExpiresAt);
+		job.setRunAttempts(attempts);
+		return jobRepository.save(job);
+	}
+
+	private ExecutionJob job(String executionId) {
+		return jobRepository.findByExecutionId(executionId).orElseThrow();
+	}
+
+	// A single DELAY step: control steps pass their input through, so it completes without the runner
+	private String delayPipeline() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId("queue-" + UUID.randomUUID());
+		pipeline.setDisplayName("Queue test");
+		pipeline.setCreatedBy("test");
+		PipelineStep step = new PipelineStep();
+		step.setStepId("wait");
+		step.setAgentId("none");
+		step.setDisplayName("Wait");
+		step.setStepType(PipelineStep.StepType.DELAY);
+		step.setPipeline(pipeline);
+		pipeline.setSteps(List.of(step));
+		pipeline.setConnections(List.of());
+		return pipelineRepository.save(pipeline).getPipelineId();
+	}
+
+	private String agentPipeline() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId("queue-" + UUID.randomUUID());
+		pipeline.setDisplayName("Queue test");
+		pipeline.setCreatedBy("test");
+		PipelineStep step = new PipelineStep();
+		step.setStepId("agent");
+		step.setAgentId("slow-agent");
+		step.setDisplayName("Slow agent");
+		step.setStepType(PipelineStep.StepType.AGENT);
+		step.setPipeline(pipeline);
+		pipeline.setSteps(List.of(step));
+		pipeline.setConnections(List.of());
+		return pipelineRepository.save(pipeline).getPipelineId();
+	}
+
+	private void awaitPolling(BooleanSupplier done) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!done.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "timed out waiting for the queue");
+			queue.poll();
+			Thread.sleep(50);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.marketplace.pipeline_service.service;
+
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import com.marketplace.pipeline_service.model.StepCheckpoint;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import com.marketplace.pipeline_service.repository.StepCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.retention.batch-size=2",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class ExecutionRetentionTests {
+
+	@Autowired
+	private ExecutionRetention retention;
+
+	@Autowired
+	private ExecutionArchive archive;
+
+	@Autowired
+	private PipelineService pipelineService;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Autowired
+	private StepCheckpointRepository checkpointRepository;
+
+	@Test
+	void oldFinishedExecutionsMoveToTheArchiveAndStayReadable() {
+		String pipelineId = pipeline(1);
+		Instant old = Instant.now().minus(Duration.ofDays(2)).truncatedTo(ChronoUnit.MILLIS);
+		// More than one batch of old executions
+		List<String> archived = List.of(
+				save(pipelineId, PipelineExecution.ExecutionStatus.COMPLETED, old),
+				save(pipelineId, PipelineExecution.ExecutionStatus.FAILED, old),
+				save(pipelineId, PipelineExecution.ExecutionStatus.COMPLETED, old.plusSeconds(1)));
+		String recent = save(pipelineId, PipelineExecution.ExecutionStatus.COMPLETED, Instant.now());
+		String running = save(pipelineId, PipelineExecution.ExecutionStatus.RUNNING, null);
+		checkpoint(archived.get(0));
+
+		retention.compact();
+
+		for (String executionId : archived) {
+			assertTrue(executionRepository.findByExecutionId(executionId).isEmpty(), executionId);
+			PipelineExecution read = pipelineService.getExecutionById(executionId).orElseThrow();
+			assertEquals(pipelineId, read.getPipelineId());
+			assertEquals("{\"result\":\"" + executionId + "\"}", read.getFinalOutput());
+		}
+		assertEquals(PipelineExecution.ExecutionStatus.FAILED,
+				pipelineService.getExecutionById(archived.get(1)).orElseThrow().getStatus());
+		assertTrue(checkpointRepository.findByExecutionIdAndStatusOrderByAttemptAsc(archived.get(0), "COMPLETED").isEmpty());
+		assertTrue(executionRepository.findByExecutionId(recent).isPresent());
+		assertTrue(executionRepository.findByExecutionId(running).isPresent());
+
+		// Past the archive tier as well
+		archive.expire(Instant.now().plus(Duration.ofDays(400)), 100);
+		assertTrue(pipelineService.getExecutionById(archived.get(0)).isEmpty());
+	}
+
+	private String pipeline(int retentionDays) {
+		PipelineCreateRequest.StepDefinition step = new PipelineCreateRequest.StepDefinition();
+		step.setStepId("wait");
+		step.setStepType(PipelineStep.StepType.DELAY);
+		PipelineCreateRequest request = new PipelineCreateRequest();
+		request.setPipelineId("retention-" + UUID.randomUUID());
+		request.setRetentionDays(retentionDays);
+		request.setSteps(List.of(step));
+		return pipelineService.createPipeline(request).getPipelineId();
+	}
+
+	private String save(String pipelineId, PipelineExecution.ExecutionStatus status, Instant completedAt) {
+		PipelineExecution execution = new PipelineExecution();
+		execution.setPipelineId(pipelineId);
+		execution.setExecutionId(UUID.randomUUID().toString());
+		execution.setStatus(status);
+		execution.setStartedAt(completedAt == null ? Instant.now() : completedAt.minusSeconds(5));
+		execution.setCompletedAt(completedAt);
+		execution.setFinalOutput("{\"result\":\"" + execution.getExecutionId() + "\"}");
+		return executionRepository.save(execution).getExecutionId();
+	}
+
+	private void checkpoint(String executionId) {
+		StepCheckpoint checkpoint = new StepCheckpoint();
+		checkpoint.setExecutionId(executionId);
+		checkpoint.setStepId("wait");
+		checkpoint.setAttempt(1);
+		checkpoint.setStatus("COMPLETED");
+		checkpointRepository.save(checkpoint);
+	}
+}
@@ -0,0 +1,96 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.PipelineServiceApplication;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.dto.PipelineImportReport;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Throughput of the bulk import versus creating the same pipelines one request at a time. Not a
+ * test; runs against the dev profile's in-memory H2 unless other arguments are given, e.g.
+ * {@code --spring.profiles.active=local-postgres}. Run with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.marketplace.pipeline_service.service.PipelineImportBenchmark -Dexec.classpathScope=test}.
+ */
+public class PipelineImportBenchmark {
+
+	private static final int PIPELINES = 500;
+	private static final int STEPS = 30;
+	private static final int SINGLE_PIPELINES = 100;
+
+	public static void main(String[] args) throws Exception {
+		SpringApplication application = new SpringApplication(PipelineServiceApplication.class);
+		application.setDefaultProperties(Map.of(
+				"spring.main.web-application-type", "none",
+				"logging.level.root", "warn"));
+		try (ConfigurableApplicationContext context = application.run(args)) {
+			ObjectMapper mapper = context.getBean(ObjectMapper.class);
+			PipelineImporter importer = context.getBean(PipelineImporter.class);
+			PipelineService pipelineService = context.getBean(PipelineService.class);
+			String run = UUID.randomUUID().toString().substring(0, 8);
+
+			// warm-up
+			importer.importNdjson(ndjson(mapper, "warmup-" + run, 50));
+
+			PipelineImportReport report = importer.importNdjson(ndjson(mapper, "bulk-" + run, PIPELINES));
+			if (report.getFailed() > 0) {
+				throw new IllegalStateException(report.getFailed() + " pipelines failed to import");
+			}
+			print("bulk import", report.getCreated(), report.getStepsCreated(), report.getElapsedMs() * 1_000_000);
+
+			long start = System.nanoTime();
+			for (int i = 0; i < SINGLE_PIPELINES; i++) {
+				pipelineService.createPipeline(mapper.treeToValue(definition(mapper, "single-" + run + "-" + i),
+						PipelineCreateRequest.class));
+			}
+			print("one by one", SINGLE_PIPELINES, (long) SINGLE_PIPELINES * STEPS, System.nanoTime() - start);
+		}
+	}
+
+	private static ByteArrayInputStream ndjson(ObjectMapper mapper, String prefix, int pipelines) {
+		StringBuilder lines = new StringBuilder();
+		for (int i = 0; i < pipelines; i++) {
+			lines.append(definition(mapper, prefix + "-" + i)).append('\n');
+		}
+		return new ByteArrayInputStream(lines.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	// A chain of agent steps with mappings, like a migrated workflow
+	private static ObjectNode definition(ObjectMapper mapper, String pipelineId) {
+		ObjectNode pipeline = mapper.createObjectNode()
+				.put("pipelineId", pipelineId)
+				.put("displayName", "Benchmark " + pipelineId);
+		ArrayNode steps = pipeline.putArray("steps");
+		ArrayNode connections = pipeline.putArray("connections");
+		for (int i = 1; i <= STEPS; i++) {
+			ObjectNode step = steps.addObject()
+					.put("stepId", "step-" + i)
+					.put("agentId", "agent-" + (i % 7))
+					.put("positionX", i * 120.0)
+					.put("positionY", 80.0);
+			step.putObject("inputMapping").put("text", "previous.output");
+			step.putObject("staticConfig").put("temperature", 0.2).put("maxTokens", 512);
+			if (i > 1) {
+				connections.addObject()
+						.put("sourceStepId", "step-" + (i - 1))
+						.put("targetStepId", "step-" + i)
+						.putObject("dataMapping").put("previous", "result");
+			}
+		}
+		return pipeline;
+	}
+
+	private static void print(String name, long pipelines, long steps, long nanos) {
+		double seconds = nanos / 1e9;
+		System.out.printf("%-12s %5d pipelines %6d steps in %6.2f s: %8.0f steps/s%n",
+				name, pipelines, steps, seconds, steps / seconds);
+	}
+}
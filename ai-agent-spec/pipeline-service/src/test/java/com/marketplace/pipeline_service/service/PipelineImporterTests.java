@@ -0,0 +1,113 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.dto.PipelineImportReport;
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2; small batches so the input spans several transactions
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.import.batch-size=2",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class PipelineImporterTests {
+
+	@Autowired
+	private PipelineImporter importer;
+
+	@Autowired
+	private PipelineService pipelineService;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void importsValidLinesAndReportsEachFailure() throws Exception {
+		String prefix = "import-" + UUID.randomUUID() + "-";
+		PipelineCreateRequest existing = new PipelineCreateRequest();
+		existing.setPipelineId(prefix + "existing");
+		pipelineService.createPipeline(existing);
+
+		ObjectNode unknownTarget = definition(prefix + "broken", 2);
+		((ArrayNode) unknownTarget.get("connections")).addObject()
+				.put("sourceStepId", "step-1")
+				.put("targetStepId", "missing");
+		String ndjson = String.join("\n",
+				definition(prefix + "a", 3).toString(),
+				"",
+				definition(prefix + "b", 5).toString(),
+				"{not json",
+				definition(prefix + "a", 1).toString(),
+				definition(prefix + "existing", 1).toString(),
+				unknownTarget.toString(),
+				definition(prefix + "c", 1).toString());
+
+		PipelineImportReport report = importer.importNdjson(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(3, report.getCreated());
+		assertEquals(4, report.getFailed());
+		assertEquals(9, report.getStepsCreated());
+		List<PipelineImportReport.Item> items = report.getItems();
+		assertEquals(List.of(1, 3, 4, 5, 6, 7, 8), items.stream().map(PipelineImportReport.Item::getLine).toList());
+		assertEquals(List.of(true, true, false, false, false, false, true),
+				items.stream().map(PipelineImportReport.Item::isCreated).toList());
+		assertNull(items.get(2).getPipelineId());
+		assertTrue(items.get(2).getError().startsWith("Malformed pipeline definition"));
+		assertEquals("Pipeline already exists: " + prefix + "a", items.get(3).getError());
+		assertEquals("Pipeline already exists: " + prefix + "existing", items.get(4).getError());
+		assertFalse(pipelineService.getPipelineById(prefix + "broken").isPresent());
+
+		// Written rows read back through JPA like any created pipeline
+		Pipeline b = pipelineService.getPipelineById(prefix + "b").orElseThrow();
+		assertEquals(Pipeline.PipelineStatus.DRAFT, b.getStatus());
+		assertEquals(5, b.getSteps().size());
+		assertEquals(4, b.getConnections().size());
+		PipelineStep first = b.getSteps().stream().filter(s -> s.getStepId().equals("step-1")).findFirst().orElseThrow();
+		assertEquals(PipelineStep.StepType.DELAY, first.getStepType());
+		assertEquals(100.0, first.getPositionX());
+		assertEquals(50.0, first.getPositionY());
+		assertEquals(0, mapper.readTree(first.getStaticConfig()).path("delaySeconds").asInt(-1));
+	}
+
+	// A chain of zero-length DELAY steps, step-1 -> ... -> step-n
+	private ObjectNode definition(String pipelineId, int steps) {
+		ObjectNode pipeline = mapper.createObjectNode()
+				.put("pipelineId", pipelineId)
+				.put("displayName", "Import test");
+		ArrayNode stepArray = pipeline.putArray("steps");
+		ArrayNode connections = pipeline.putArray("connections");
+		for (int i = 1; i <= steps; i++) {
+			stepArray.addObject()
+					.put("stepId", "step-" + i)
+					.put("stepType", "DELAY")
+					.put("positionX", i * 100.0)
+					.put("positionY", 50.0)
+					.putObject("staticConfig").put("delaySeconds", 0);
+			if (i > 1) {
+				connections.addObject()
+						.put("sourceStepId", "step-" + (i - 1))
+						.put("targetStepId", "step-" + i);
+			}
+		}
+		return pipeline;
+	}
+}
@@ -0,0 +1,98 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.engine.ExecutionPlan;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class PlanCacheTests {
+
+	@Autowired
+	private PlanCache planCache;
+
+	@Autowired
+	private PipelineService pipelineService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void reusesPlanUntilPipelineIsUpdated() throws Exception {
+		String pipelineId = "plan-cache-" + UUID.randomUUID();
+		pipelineService.createPipeline(request(pipelineId, 2));
+
+		ExecutionPlan first = planCache.get(pipelineId);
+		assertSame(first, planCache.get(pipelineId));
+
+		pipelineService.updatePipeline(pipelineId, request(pipelineId, 3));
+		ExecutionPlan updated = planCache.get(pipelineId);
+		assertNotSame(first, updated);
+		assertEquals(first.getVersion() + 1, updated.getVersion());
+		assertEquals(3, updated.getSteps().size());
+	}
+
+	@Test
+	void picksUpVersionCommittedElsewhere() throws Exception {
+		String pipelineId = "plan-cache-" + UUID.randomUUID();
+		pipelineService.createPipeline(request(pipelineId, 2));
+		ExecutionPlan first = planCache.get(pipelineId);
+
+		// As another instance would: no local event, only the row changes
+		jdbcTemplate.update("update pipelines set plan_version = plan_version + 1 where pipeline_id = ?", pipelineId);
+
+		ExecutionPlan reloaded = planCache.get(pipelineId);
+		assertNotSame(first, reloaded);
+		assertEquals(first.getVersion() + 1, reloaded.getVersion());
+	}
+
+	@Test
+	void recreatedPipelineDoesNotMatchOldPlan() throws Exception {
+		String pipelineId = "plan-cache-" + UUID.randomUUID();
+		pipelineService.createPipeline(request(pipelineId, 2));
+		ExecutionPlan first = planCache.get(pipelineId);
+
+		pipelineService.deletePipeline(pipelineId);
+		assertThrows(IllegalArgumentException.class, () -> planCache.get(pipelineId));
+
+		// Same pipelineId and version, different row
+		pipelineService.createPipeline(request(pipelineId, 4));
+		ExecutionPlan recreated = planCache.get(pipelineId);
+		assertNotSame(first, recreated);
+		assertEquals(first.getVersion(), recreated.getVersion());
+		assertEquals(4, recreated.getSteps().size());
+	}
+
+	private PipelineCreateRequest request(String pipelineId, int steps) throws Exception {
+		ObjectNode pipeline = mapper.createObjectNode()
+				.put("pipelineId", pipelineId)
+				.put("displayName", "Plan cache test");
+		ArrayNode stepNodes = pipeline.putArray("steps");
+		for (int s = 0; s < steps; s++) {
+			stepNodes.addObject()
+					.put("stepId", "step-" + s)
+					.put("agentId", "content-generator-agent");
+		}
+		return mapper.treeToValue(pipeline, PipelineCreateRequest.class);
+	}
+}
@@ -0,0 +1,150 @@
+package com.marketplace.pipeline_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.pipeline_service.dto.ExecutionSummary;
+import com.marketplace.pipeline_service.dto.PipelineCreateRequest;
+import com.marketplace.pipeline_service.engine.PlanCompiler;
+import com.marketplace.pipeline_service.engine.TimerWheel;
+import com.marketplace.pipeline_service.model.PipelineSchedule;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import com.marketplace.pipeline_service.repository.PipelineScheduleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class TriggerSchedulerTests {
+
+	@Autowired
+	private PipelineScheduleRepository scheduleRepository;
+
+	@Autowired
+	private PipelineRepository pipelineRepository;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Autowired
+	private PipelineService pipelineService;
+
+	@Autowired
+	private WorkflowExecutor workflowExecutor;
+
+	@Autowired
+	private PlanCompiler planCompiler;
+
+	@Autowired
+	private TimerWheel timers;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private TriggerScheduler scheduler;
+
+	@BeforeEach
+	void createScheduler() {
+		// Own instance with a near-zero misfire spread, so a catch-up run starts right away
+		scheduler = new TriggerScheduler(scheduleRepository, pipelineRepository, planCompiler, workflowExecutor,
+				timers, transactionManager, Duration.ofSeconds(30), Duration.ZERO, Duration.ofSeconds(60),
+				Duration.ofMillis(1), 1);
+	}
+
+	@AfterEach
+	void stopScheduler() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void skipPolicyMovesPastMissedFireTimesWithoutRunning() throws Exception {
+		String pipelineId = delayPipeline();
+		Instant now = Instant.now();
+		PipelineSchedule schedule = missedSchedule(pipelineId, "SKIP", now.minus(Duration.ofHours(2)));
+
+		scheduler.scan();
+
+		PipelineSchedule advanced = scheduleRepository.findById(schedule.getId()).orElseThrow();
+		assertTrue(advanced.getNextFireAt().isAfter(now));
+		assertTrue(advanced.getNextFireAt().isBefore(now.plus(Duration.ofHours(1)).plusSeconds(1)));
+		assertNull(advanced.getLastFiredAt());
+		Thread.sleep(300);
+		assertTrue(history(pipelineId).isEmpty());
+	}
+
+	@Test
+	void fireOncePolicyStartsOneCatchUpRun() throws Exception {
+		String pipelineId = delayPipeline();
+		Instant now = Instant.now();
+		// Two hourly fire times missed
+		PipelineSchedule schedule = missedSchedule(pipelineId, "FIRE_ONCE", now.minus(Duration.ofMinutes(150)));
+
+		scheduler.scan();
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (scheduleRepository.findById(schedule.getId()).orElseThrow().getLastFiredAt() == null) {
+			assertTrue(System.nanoTime() < deadline, "timed out waiting for the catch-up run");
+			Thread.sleep(50);
+		}
+		// Scanning again must not start another run for the slots already served
+		scheduler.scan();
+		Thread.sleep(300);
+
+		PipelineSchedule fired = scheduleRepository.findById(schedule.getId()).orElseThrow();
+		assertTrue(fired.getNextFireAt().isAfter(now), "next fire time jumps past the missed slots");
+		List<ExecutionSummary> runs = history(pipelineId);
+		assertEquals(1, runs.size());
+		assertEquals("schedule:trigger", runs.get(0).getTriggeredBy());
+	}
+
+	private PipelineSchedule missedSchedule(String pipelineId, String misfire, Instant nextFireAt) {
+		PipelineSchedule schedule = new PipelineSchedule();
+		schedule.setPipelineId(pipelineId);
+		schedule.setStepId("trigger");
+		schedule.setIntervalSeconds(3600L);
+		schedule.setTimezone("UTC");
+		schedule.setJitterSeconds(0L);
+		schedule.setMisfire(misfire);
+		schedule.setNextFireAt(nextFireAt.truncatedTo(ChronoUnit.MILLIS));
+		return scheduleRepository.save(schedule);
+	}
+
+	private List<ExecutionSummary> history(String pipelineId) {
+		return executionRepository.findHistory(pipelineId, PageRequest.of(0, 10));
+	}
+
+	// A single zero-length DELAY step: runs to completion without the runner
+	private String delayPipeline() throws Exception {
+		String pipelineId = "trigger-" + UUID.randomUUID();
+		ObjectNode pipeline = mapper.createObjectNode()
+				.put("pipelineId", pipelineId)
+				.put("displayName", "Trigger test");
+		ObjectNode step = pipeline.putArray("steps").addObject()
+				.put("stepId", "wait")
+				.put("stepType", "DELAY");
+		step.putObject("staticConfig").put("delaySeconds", 0);
+		pipelineService.createPipeline(mapper.treeToValue(pipeline, PipelineCreateRequest.class));
+		return pipelineId;
+	}
+}
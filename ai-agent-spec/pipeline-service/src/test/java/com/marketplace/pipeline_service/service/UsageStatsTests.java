@@ -0,0 +1,209 @@
+package com.marketplace.pipeline_service.service;
+
+import com.marketplace.pipeline_service.model.Pipeline;
+import com.marketplace.pipeline_service.model.PipelineExecution;
+import com.marketplace.pipeline_service.model.PipelineStats;
+import com.marketplace.pipeline_service.model.PipelineStep;
+import com.marketplace.pipeline_service.model.PipelineTemplate;
+import com.marketplace.pipeline_service.repository.PipelineExecutionRepository;
+import com.marketplace.pipeline_service.repository.PipelineRepository;
+import com.marketplace.pipeline_service.repository.PipelineStatsRepository;
+import com.marketplace.pipeline_service.repository.TemplateStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Against the dev profile's in-memory H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"pipeline.blobs.dir=target/test-data/blobs",
+		"pipeline.retention.dir=target/test-data/archive",
+		"pipeline.callback.initial-backoff=50ms"
+})
+class UsageStatsTests {
+
+	@Autowired
+	private PipelineStatsRepository pipelineStatsRepository;
+
+	@Autowired
+	private TemplateStatsRepository templateStatsRepository;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UsageStats usageStats;
+
+	@Autowired
+	private WorkflowExecutor workflowExecutor;
+
+	@Autowired
+	private PipelineRepository pipelineRepository;
+
+	@Autowired
+	private PipelineExecutionRepository executionRepository;
+
+	@Test
+	void readsAddPendingCountsToFlushedOnes() {
+		// Own instance, so the application's scheduled flush cannot interleave
+		UsageStats stats = stats(new JdbcTemplate(dataSource));
+		String pipelineId = "stats-" + UUID.randomUUID();
+		String templateId = "stats-" + UUID.randomUUID();
+		stats.recordExecution(pipelineId, true);
+		stats.recordExecution(pipelineId, false);
+		stats.recordTemplateUsage(templateId);
+		stats.recordRating(templateId, 4.0);
+
+		assertEquals(2, pipeline(stats, pipelineId).getTotalExecutions());
+		assertFalse(pipelineStatsRepository.existsById(pipelineId));
+
+		stats.flush();
+		stats.recordExecution(pipelineId, true);
+		stats.recordRating(templateId, 2.0);
+
+		PipelineStats persisted = pipelineStatsRepository.findById(pipelineId).orElseThrow();
+		assertEquals(2, persisted.getTotalExecutions());
+		assertEquals(1, persisted.getSuccessfulExecutions());
+		assertEquals(1, persisted.getFailedExecutions());
+		Pipeline pipeline = pipeline(stats, pipelineId);
+		assertEquals(3, pipeline.getTotalExecutions());
+		assertEquals(2, pipeline.getSuccessfulExecutions());
+		PipelineTemplate template = template(stats, templateId);
+		assertEquals(1, template.getUsageCount());
+		assertEquals(3.0, template.getAverageRating());
+
+		stats.flush();
+		assertEquals(3, pipelineStatsRepository.findById(pipelineId).orElseThrow().getTotalExecutions());
+		assertEquals(3, pipeline(stats, pipelineId).getTotalExecutions());
+		assertEquals(2, templateStatsRepository.findById(templateId).orElseThrow().getRatingCount());
+	}
+
+	@Test
+	void failedFlushPutsDeltasBack() {
+		AtomicBoolean failNext = new AtomicBoolean(true);
+		JdbcTemplate flaky = new JdbcTemplate(dataSource) {
+			@Override
+			public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+				if (failNext.getAndSet(false)) {
+					throw new DataAccessResourceFailureException("database unavailable");
+				}
+				return super.batchUpdate(sql, batchArgs);
+			}
+		};
+		UsageStats stats = stats(flaky);
+		String pipelineId = "stats-" + UUID.randomUUID();
+		stats.recordExecution(pipelineId, true);
+		stats.recordExecution(pipelineId, true);
+
+		stats.flush();
+		assertFalse(pipelineStatsRepository.existsById(pipelineId));
+		assertEquals(2, pipeline(stats, pipelineId).getTotalExecutions());
+
+		stats.recordExecution(pipelineId, false);
+		stats.flush();
+		PipelineStats persisted = pipelineStatsRepository.findById(pipelineId).orElseThrow();
+		assertEquals(3, persisted.getTotalExecutions());
+		assertEquals(2, persisted.getSuccessfulExecutions());
+		assertEquals(1, persisted.getFailedExecutions());
+		assertEquals(3, pipeline(stats, pipelineId).getTotalExecutions());
+	}
+
+	@Test
+	void incrementsRacingAFlushAreNotLost() throws Exception {
+		UsageStats stats = stats(new JdbcTemplate(dataSource));
+		String pipelineId = "stats-" + UUID.randomUUID();
+		int perThread = 2000;
+		AtomicInteger running = new AtomicInteger(4);
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			writers[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					stats.recordExecution(pipelineId, i % 2 == 0);
+				}
+				running.decrementAndGet();
+			});
+			writers[t].start();
+		}
+		while (running.get() > 0) {
+			stats.flush();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		stats.flush();
+
+		PipelineStats persisted = pipelineStatsRepository.findById(pipelineId).orElseThrow();
+		assertEquals(4 * perThread, persisted.getTotalExecutions());
+		assertEquals(2 * perThread, persisted.getSuccessfulExecutions());
+		assertEquals(2 * perThread, persisted.getFailedExecutions());
+	}
+
+	@Test
+	void resumedExecutionIsCountedOnce() {
+		String pipelineId = delayPipeline();
+		PipelineExecution execution = new PipelineExecution();
+		execution.setPipelineId(pipelineId);
+		execution.setExecutionId(UUID.randomUUID().toString());
+		execution.setStatus(PipelineExecution.ExecutionStatus.QUEUED);
+		execution.setInitialInput("{}");
+		executionRepository.save(execution);
+		workflowExecutor.failQueued(execution.getExecutionId(), "worker lost");
+		assertEquals(1, pipeline(usageStats, pipelineId).getFailedExecutions());
+
+		PipelineExecution resumed = workflowExecutor.resume(execution.getExecutionId());
+
+		assertEquals(PipelineExecution.ExecutionStatus.COMPLETED, resumed.getStatus());
+		Pipeline pipeline = pipeline(usageStats, pipelineId);
+		assertEquals(1, pipeline.getTotalExecutions());
+		assertEquals(1, pipeline.getSuccessfulExecutions());
+		assertEquals(0, pipeline.getFailedExecutions());
+	}
+
+	private String delayPipeline() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId("stats-" + UUID.randomUUID());
+		pipeline.setDisplayName("Stats test");
+		pipeline.setCreatedBy("test");
+		PipelineStep step = new PipelineStep();
+		step.setStepId("wait");
+		step.setAgentId("none");
+		step.setDisplayName("Wait");
+		step.setStepType(PipelineStep.StepType.DELAY);
+		step.setPipeline(pipeline);
+		pipeline.setSteps(List.of(step));
+		pipeline.setConnections(List.of());
+		return pipelineRepository.save(pipeline).getPipelineId();
+	}
+
+	private UsageStats stats(JdbcTemplate jdbcTemplate) {
+		return new UsageStats(pipelineStatsRepository, templateStatsRepository, jdbcTemplate, transactionManager);
+	}
+
+	private static Pipeline pipeline(UsageStats stats, String pipelineId) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setPipelineId(pipelineId);
+		stats.applyToPipelines(List.of(pipeline));
+		return pipeline;
+	}
+
+	private static PipelineTemplate template(UsageStats stats, String templateId) {
+		PipelineTemplate template = new PipelineTemplate();
+		template.setTemplateId(templateId);
+		stats.applyToTemplates(List.of(template));
+		return template;
+	}
+}
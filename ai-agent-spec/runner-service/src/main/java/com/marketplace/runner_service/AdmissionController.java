@@ -0,0 +1,160 @@
+// runner-service/src/main/java/com/marketplace/runner_service/AdmissionController.java
+package com.marketplace.runner_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps in-flight runs globally and per agent. Excess runs wait in a bounded FIFO queue
+ * for at most {@code runner.admission.max-wait}; beyond that they are rejected straight away
+ * (429 when the queue is full, 503 when the wait expires) instead of piling up.
+ */
+@Component
+public class AdmissionController {
+
+    private final int maxInFlight;
+    private final int maxInFlightPerAgent;
+    private final int maxQueued;
+    private final Duration maxWait;
+
+    private int inFlight;
+    private final Map<String, Integer> inFlightByAgent = new HashMap<>();
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public AdmissionController(
+            MeterRegistry meterRegistry,
+            @Value("${runner.admission.max-in-flight:64}") int maxInFlight,
+            @Value("${runner.admission.max-in-flight-per-agent:16}") int maxInFlightPerAgent,
+            @Value("${runner.admission.max-queued:256}") int maxQueued,
+            @Value("${runner.admission.max-wait:5s}") Duration maxWait) {
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerAgent = maxInFlightPerAgent;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.rejectedQueueFull = meterRegistry.counter("runner.admission.rejected", "reason", "queue-full");
+        this.rejectedTimeout = meterRegistry.counter("runner.admission.rejected", "reason", "timeout");
+        meterRegistry.gauge("runner.admission.in-flight", this, AdmissionController::inFlight);
+        meterRegistry.gauge("runner.admission.queued", this, AdmissionController::queued);
+    }
+
+    /**
+     * Emits a permit once the run may start. The permit must be released when the run ends.
+     */
+    public Mono<Permit> admit(String agentId) {
+        return Mono.defer(() -> {
+            Waiter waiter;
+            synchronized (this) {
+                // freed capacity goes to fitting waiters first, so spare capacity here is fair game
+                if (hasCapacity(agentId)) {
+                    return Mono.just(grant(agentId));
+                }
+                if (waiting.size() >= maxQueued) {
+                    rejectedQueueFull.increment();
+                    return Mono.error(new AdmissionRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                            "Runner queue is full"));
+                }
+                waiter = new Waiter(agentId);
+                waiting.addLast(waiter);
+            }
+            return waiter.sink.asMono()
+                    // permits are granted while holding the lock; continue the run elsewhere
+                    .publishOn(Schedulers.parallel())
+                    .timeout(maxWait)
+                    .onErrorMap(TimeoutException.class, e -> {
+                        rejectedTimeout.increment();
+                        return new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "Timed out waiting for a run slot for " + agentId);
+                    })
+                    .doOnError(e -> abandon(waiter))
+                    .doOnCancel(() -> abandon(waiter))
+                    // only once the subscriber has it is the permit the caller's to release; a grant
+                    // dropped on the way (timeout or cancel while queued in publishOn) is released here
+                    .doOnNext(permit -> waiter.delivered = true)
+                    .doOnDiscard(Permit.class, Permit::release);
+        });
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return waiting.size();
+    }
+
+    private boolean hasCapacity(String agentId) {
+        return inFlight < maxInFlight && inFlightByAgent.getOrDefault(agentId, 0) < maxInFlightPerAgent;
+    }
+
+    private Permit grant(String agentId) {
+        inFlight++;
+        inFlightByAgent.merge(agentId, 1, Integer::sum);
+        return new Permit(agentId);
+    }
+
+    private synchronized void abandon(Waiter waiter) {
+        if (!waiting.remove(waiter) && waiter.granted != null && !waiter.delivered) {
+            // granted concurrently with the timeout or cancel; nobody will use it
+            waiter.granted.release();
+        }
+    }
+
+    private synchronized void release(String agentId) {
+        inFlight--;
+        inFlightByAgent.computeIfPresent(agentId, (id, count) -> count > 1 ? count - 1 : null);
+        // hand the freed capacity to the oldest waiters that fit
+        Iterator<Waiter> it = waiting.iterator();
+        while (it.hasNext() && inFlight < maxInFlight) {
+            Waiter waiter = it.next();
+            if (hasCapacity(waiter.agentId)) {
+                it.remove();
+                waiter.granted = grant(waiter.agentId);
+                waiter.sink.tryEmitValue(waiter.granted);
+            }
+        }
+    }
+
+    public final class Permit {
+        private final String agentId;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String agentId) {
+            this.agentId = agentId;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                AdmissionController.this.release(agentId);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final String agentId;
+        private final Sinks.One<Permit> sink = Sinks.one();
+        private Permit granted;
+        private volatile boolean delivered;
+
+        private Waiter(String agentId) {
+            this.agentId = agentId;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+// runner-service/src/main/java/com/marketplace/runner_service/AdmissionRejectedException.java
+package com.marketplace.runner_service;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Raised when the runner is saturated and a run cannot be admitted.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public AdmissionRejectedException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -0,0 +1,241 @@
+// runner-service/src/main/java/com/marketplace/runner_service/AgentCircuitBreakers.java
+package com.marketplace.runner_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One circuit breaker per agent, fed by run outcomes and background health probes.
+ * A circuit opens when the failure rate over the last {@code window} runs crosses the
+ * threshold, or after consecutive failed probes. Runs that failed through the caller's own
+ * fault (invalid input, a 4xx from the agent) are not counted. After {@code open-duration}
+ * (or as soon as a probe succeeds) a single trial run is let through to decide whether to
+ * close it.
+ */
+@Component
+public class AgentCircuitBreakers {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int window;
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final int probeFailuresToOpen;
+    private final long openNanos;
+
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+    private final Counter rejected;
+
+    public AgentCircuitBreakers(
+            MeterRegistry meterRegistry,
+            @Value("${runner.circuit.window:20}") int window,
+            @Value("${runner.circuit.min-calls:5}") int minCalls,
+            @Value("${runner.circuit.failure-rate-percent:50}") int failureRatePercent,
+            @Value("${runner.circuit.probe-failures-to-open:2}") int probeFailuresToOpen,
+            @Value("${runner.circuit.open-duration:30s}") Duration openDuration) {
+        this.window = window;
+        this.minCalls = minCalls;
+        this.failureRatePercent = failureRatePercent;
+        this.probeFailuresToOpen = probeFailuresToOpen;
+        this.openNanos = openDuration.toNanos();
+        this.rejected = meterRegistry.counter("runner.circuit.rejected");
+        meterRegistry.gauge("runner.circuit.open", breakers,
+                all -> all.values().stream().filter(b -> b.state() != State.CLOSED).count());
+    }
+
+    /**
+     * Admits a call or throws {@link CircuitOpenException}. Exactly one outcome should be
+     * recorded on the returned call; later ones are ignored.
+     */
+    public Call acquire(String agentId) {
+        Breaker breaker = breakers.computeIfAbsent(agentId, id -> new Breaker());
+        Duration wait = breaker.tryAcquire(System.nanoTime());
+        if (wait != null) {
+            rejected.increment();
+            throw new CircuitOpenException(agentId, wait);
+        }
+        return new Call(breaker);
+    }
+
+    public void recordProbe(String agentId, boolean healthy) {
+        breakers.computeIfAbsent(agentId, id -> new Breaker()).probe(healthy, System.nanoTime());
+    }
+
+    /**
+     * Whether the agent's circuit is not closed or its recent runs or probes include failures.
+     */
+    public boolean isSuspect(String agentId) {
+        Breaker breaker = breakers.get(agentId);
+        return breaker != null && breaker.isSuspect();
+    }
+
+    State state(String agentId) {
+        Breaker breaker = breakers.get(agentId);
+        return breaker == null ? State.CLOSED : breaker.state();
+    }
+
+    // A timeout or throttling answer is the agent's trouble, not the caller's
+    static boolean isCallerError(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            HttpStatusCode status = response.getStatusCode();
+            return status.is4xxClientError()
+                    && status.value() != HttpStatus.REQUEST_TIMEOUT.value()
+                    && status.value() != HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return error instanceof IllegalArgumentException;
+    }
+
+    public static final class Call {
+        private final Breaker breaker;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Call(Breaker breaker) {
+            this.breaker = breaker;
+        }
+
+        public void success() {
+            if (done.compareAndSet(false, true)) {
+                breaker.onSuccess();
+            }
+        }
+
+        public void failure() {
+            if (done.compareAndSet(false, true)) {
+                breaker.onFailure(System.nanoTime());
+            }
+        }
+
+        /**
+         * Records the call as failed by {@code error}, unless the caller caused it (invalid input,
+         * or the agent refusing the request with a 4xx), which is {@linkplain #abandon() abandoned}.
+         */
+        public void failure(Throwable error) {
+            if (isCallerError(error)) {
+                abandon();
+            } else {
+                failure();
+            }
+        }
+
+        /**
+         * The call ended for reasons that say nothing about the agent (rejected, cancelled).
+         */
+        public void abandon() {
+            if (done.compareAndSet(false, true)) {
+                breaker.onAbandon();
+            }
+        }
+    }
+
+    private final class Breaker {
+        private State state = State.CLOSED;
+        private final boolean[] outcomes = new boolean[window];
+        private int recorded;
+        private int failures;
+        private int next;
+        private long openedAt;
+        private boolean trialInFlight;
+        private int failedProbes;
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized boolean isSuspect() {
+            return state != State.CLOSED || failures > 0 || failedProbes > 0;
+        }
+
+        // null when the call may proceed, otherwise how long the caller should wait
+        synchronized Duration tryAcquire(long now) {
+            if (state == State.OPEN && now - openedAt >= openNanos) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+            switch (state) {
+                case CLOSED:
+                    return null;
+                case HALF_OPEN:
+                    if (!trialInFlight) {
+                        trialInFlight = true;
+                        return null;
+                    }
+                    return Duration.ofSeconds(1);
+                default:
+                    return Duration.ofNanos(Math.max(openNanos - (now - openedAt), 1_000_000_000L));
+            }
+        }
+
+        synchronized void onSuccess() {
+            if (state == State.HALF_OPEN) {
+                close();
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        }
+
+        synchronized void onFailure(long now) {
+            if (state == State.HALF_OPEN) {
+                open(now);
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (recorded >= minCalls && failures * 100 >= failureRatePercent * recorded) {
+                    open(now);
+                }
+            }
+        }
+
+        synchronized void onAbandon() {
+            if (state == State.HALF_OPEN) {
+                trialInFlight = false;
+            }
+        }
+
+        synchronized void probe(boolean healthy, long now) {
+            if (healthy) {
+                failedProbes = 0;
+                if (state == State.OPEN) {
+                    // recovered before the open period ran out; let a trial through now
+                    state = State.HALF_OPEN;
+                    trialInFlight = false;
+                }
+            } else if (++failedProbes >= probeFailuresToOpen && state != State.OPEN) {
+                open(now);
+            }
+        }
+
+        private void record(boolean failed) {
+            if (recorded == window) {
+                failures -= outcomes[next] ? 1 : 0;
+            } else {
+                recorded++;
+            }
+            outcomes[next] = failed;
+            failures += failed ? 1 : 0;
+            next = (next + 1) % window;
+        }
+
+        private void open(long now) {
+            state = State.OPEN;
+            openedAt = now;
+            trialInFlight = false;
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            recorded = 0;
+            failures = 0;
+            next = 0;
+            failedProbes = 0;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+// runner-service/src/main/java/com/marketplace/runner_service/AgentExecutor.java
+package com.marketplace.runner_service;
+
+import java.io.IOException;
+
+/**
+ * Starts agent instances. Selected with the {@code runner.executor} property.
+ */
+public interface AgentExecutor {
+
+    /**
+     * Starts a new instance and returns once it reports healthy.
+     */
+    AgentInstance start(PoolKey key) throws IOException;
+}
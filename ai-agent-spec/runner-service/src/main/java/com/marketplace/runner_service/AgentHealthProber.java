@@ -0,0 +1,69 @@
+// runner-service/src/main/java/com/marketplace/runner_service/AgentHealthProber.java
+package com.marketplace.runner_service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Periodically calls the registered healthEndpoint of warm instances of every agent that
+ * has run here, and feeds the result into the agent's circuit breaker. A suspect agent (recent
+ * failures or an open circuit) with no idle instance, e.g. one whose image never starts, gets a
+ * fresh instance started as its probe; a healthy one then stays in the pool. Probes block on
+ * the agent, so they run on the bounded elastic scheduler, at most one at a time per agent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentHealthProber {
+
+    private final WarmInstancePool instancePool;
+    private final AgentCircuitBreakers circuitBreakers;
+
+    private final Map<String, PoolKey> knownAgents = new ConcurrentHashMap<>();
+    private final Set<String> probing = ConcurrentHashMap.newKeySet();
+
+    public void track(String agentId, PoolKey key) {
+        knownAgents.put(agentId, key);
+    }
+
+    @Scheduled(fixedDelayString = "${runner.health.probe-interval:15s}")
+    void probe() {
+        knownAgents.forEach((agentId, key) -> {
+            // a hung agent keeps its own probe waiting, not the scheduler thread or other agents
+            if (probing.add(agentId)) {
+                Mono.fromCallable(() -> instancePool.probeIdle(key))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(idle -> {
+                            if (idle.isPresent()) {
+                                circuitBreakers.recordProbe(agentId, idle.get());
+                                return Mono.empty();
+                            }
+                            return circuitBreakers.isSuspect(agentId) ? probeCold(agentId, key) : Mono.empty();
+                        })
+                        .doFinally(signal -> probing.remove(agentId))
+                        .subscribe(null, error -> log.warn("Health probe of {} failed", agentId, error));
+            }
+        });
+    }
+
+    // Starting an instance can take up to the startup timeout
+    private Mono<Void> probeCold(String agentId, PoolKey key) {
+        return instancePool.acquire(key)
+                .doOnNext(lease -> {
+                    boolean healthy = lease.instance().isHealthy();
+                    circuitBreakers.recordProbe(agentId, healthy);
+                    instancePool.release(lease, healthy);
+                })
+                .doOnError(error -> circuitBreakers.recordProbe(agentId, false))
+                .onErrorComplete()
+                .then();
+    }
+}
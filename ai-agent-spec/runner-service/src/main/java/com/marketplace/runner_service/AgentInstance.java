@@ -0,0 +1,24 @@
+// runner-service/src/main/java/com/marketplace/runner_service/AgentInstance.java
+package com.marketplace.runner_service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+/**
+ * A started agent that can serve several runs one after another.
+ */
+public interface AgentInstance extends AutoCloseable {
+
+    String id();
+
+    boolean isHealthy();
+
+    /**
+     * Runs the agent and emits its output as it is produced, honouring downstream demand.
+     * The output must complete (or be cancelled) before the instance serves another run.
+     */
+    Flux<DataBuffer> invoke(String inputJson);
+
+    @Override
+    void close();
+}
@@ -2,9 +2,12 @@
 package com.marketplace.runner_service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.Map;
 
@@ -13,18 +16,58 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AgentRunnerController {
 
+    // Scheduling hints set by pipeline-service; both are optional
+    public static final String PIPELINE_HEADER = "X-Pipeline-Id";
+    public static final String PRIORITY_HEADER = "X-Run-Priority";
+
     private final AgentRunnerService runnerService;
 
     @PostMapping("/{agentId}")
-    public ResponseEntity<?> runAgent(
+    public Mono<ResponseEntity<Map<String, Object>>> runAgent(
             @PathVariable String agentId,
+            @RequestParam(required = false) String version,
+            @RequestHeader(value = PIPELINE_HEADER, required = false) String pipelineId,
+            @RequestHeader(value = PRIORITY_HEADER, defaultValue = "0") int priority,
             @RequestBody Map<String, Object> input) {
-        try {
-            String output = runnerService.executeAgent(agentId, input);
-            return ResponseEntity.ok(Map.of("output", output));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", e.getMessage()));
-        }
+        return runnerService.executeAgent(agentId, version, input, new RunContext(pipelineId, priority))
+                .map(output -> ResponseEntity.ok(Map.<String, Object>of("output", output)));
+    }
+
+    /**
+     * Runs several inputs in one call; body is {"inputs": [...]}, response is {"outputs": [...]} in input order.
+     */
+    @PostMapping("/{agentId}/batch")
+    public Mono<ResponseEntity<Map<String, Object>>> runBatch(
+            @PathVariable String agentId,
+            @RequestParam(required = false) String version,
+            @RequestHeader(value = PIPELINE_HEADER, required = false) String pipelineId,
+            @RequestHeader(value = PRIORITY_HEADER, defaultValue = "0") int priority,
+            @RequestBody BatchRunRequest request) {
+        return runnerService.executeBatch(agentId, version, request.getInputs(),
+                        new RunContext(pipelineId, priority))
+                .map(outputs -> ResponseEntity.ok(Map.<String, Object>of("outputs", outputs)));
+    }
+
+    /**
+     * Relays agent output as it is produced (chunked, typically NDJSON) instead of buffering it.
+     * Failures before the first byte still map to an error status.
+     */
+    @PostMapping(value = "/{agentId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<DataBuffer>>> streamAgent(
+            @PathVariable String agentId,
+            @RequestParam(required = false) String version,
+            @RequestHeader(value = PIPELINE_HEADER, required = false) String pipelineId,
+            @RequestHeader(value = PRIORITY_HEADER, defaultValue = "0") int priority,
+            @RequestBody Map<String, Object> input) {
+        return runnerService.startAgent(agentId, version, input, new RunContext(pipelineId, priority))
+                .map(output -> ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(output));
+    }
+
+    @PostMapping("/agents/{agentId}/registered")
+    public ResponseEntity<Void> agentRegistered(
+            @PathVariable String agentId,
+            @RequestBody Map<String, String> registration) {
+        runnerService.onAgentRegistered(agentId, registration.get("dockerImage"));
+        return ResponseEntity.accepted().build();
     }
-}
\ No newline at end of file
+}
@@ -1,45 +1,207 @@
 // runner-service/src/main/java/com/marketplace/runner_service/AgentRunnerService.java
 package com.marketplace.runner_service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class AgentRunnerService {
 
-    private final WebClient webClient = WebClient.create("http://localhost:8081");
+    private static final int UNBATCHED_CONCURRENCY = 4;
 
-    public String executeAgent(String agentId, Map<String, Object> input) {
-        // Step 1: Get agent metadata from catalog
-        AgentSpec agent = fetchAgent(agentId);
+    private final AgentSpecCache agentSpecCache;
+    private final WarmInstancePool instancePool;
+    private final ImagePuller imagePuller;
+    private final AdmissionController admissionController;
+    private final ResourceScheduler resourceScheduler;
+    private final AgentCircuitBreakers circuitBreakers;
+    private final AgentHealthProber healthProber;
+    private final BatchCoalescer batchCoalescer;
+    private final ResultCache resultCache;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
 
-        // Step 2: Pull Docker image (optional: use ProcessBuilder or Docker SDK)
-        String image = agent.getDockerImage();
-        pullDockerImage(image);
+    /**
+     * Runs the agent and buffers its output. Results of deterministic agents are served from
+     * the result cache; concurrent calls to a batching-capable agent are coalesced into micro-batches.
+     */
+    public Mono<String> executeAgent(String agentId, String version, Map<String, Object> input, RunContext context) {
+        return fetchAgent(agentId, version).flatMap(agent -> {
+            ResultCachePolicy caching = agent.getResultCaching();
+            Mono<String> run = Mono.defer(() -> run(agent, input, context));
+            return caching.enabled() ? resultCache.getOrRun(agent, caching, input, run) : run;
+        });
+    }
+
+    private Mono<String> run(AgentSpec agent, Map<String, Object> input, RunContext context) {
+        BatchingPolicy batching = agent.getBatching();
+        if (batching.enabled()) {
+            // a coalesced batch is scheduled with the context of the caller that opened it
+            return batchCoalescer.submit(agent, batching, input, inputs -> runBatch(agent, inputs, context));
+        }
+        return joinOutput(start(agent, input, context));
+    }
+
+    /**
+     * Runs many inputs against one agent. Batching-capable agents get them in chunks of
+     * their max batch size; others run one input at a time under normal admission control.
+     */
+    public Mono<List<String>> executeBatch(String agentId, String version, List<Map<String, Object>> inputs,
+                                           RunContext context) {
+        return fetchAgent(agentId, version).flatMap(agent -> {
+            BatchingPolicy batching = agent.getBatching();
+            if (batching.enabled()) {
+                return Flux.fromIterable(inputs)
+                        .buffer(batching.maxBatchSize())
+                        .concatMap(chunk -> runBatch(agent, chunk, context))
+                        .flatMapIterable(outputs -> outputs)
+                        .collectList();
+            }
+            return Flux.fromIterable(inputs)
+                    // stay well inside the per-agent admission limit so one batch cannot fill the queue
+                    .flatMapSequential(input -> joinOutput(start(agent, input, context)), UNBATCHED_CONCURRENCY)
+                    .collectList();
+        });
+    }
+
+    /**
+     * Completes once the agent is known. The returned output acquires admission, node capacity and
+     * an instance when it is subscribed and releases them when it ends or is cancelled, so output
+     * that is never subscribed holds nothing. The response is committed with the first chunk, so
+     * a rejection or failure before it is still an error response.
+     */
+    public Mono<Flux<DataBuffer>> startAgent(String agentId, String version, Map<String, Object> input,
+                                             RunContext context) {
+        return fetchAgent(agentId, version).map(agent -> start(agent, input, context));
+    }
+
+    private Flux<DataBuffer> start(AgentSpec agent, Object payload, RunContext context) {
+        ResourceLimits limits = agent.getResourceLimits();
+        // fails fast while the agent's circuit is open; anything not recorded as a failure below
+        // (rejections, cancellation, caller errors) says nothing about the agent
+        return Flux.usingWhen(Mono.fromCallable(() -> circuitBreakers.acquire(agent.getAgentId())),
+                call -> holding(admissionController.admit(agent.getAgentId()), AdmissionController.Permit::release,
+                        permit -> pullDockerImage(agent.getDockerImage())
+                                .doOnError(call::failure)
+                                // wait until the node has room for the declared resources
+                                .thenMany(holding(resourceScheduler.reserve(limits, context),
+                                        ResourceScheduler.Reservation::release,
+                                        // then run on a warm instance of the image
+                                        reservation -> runContainer(agent, limits, payload, call)))),
+                call -> Mono.fromRunnable(call::success),
+                (call, e) -> Mono.fromRunnable(call::abandon),
+                call -> Mono.fromRunnable(call::abandon));
+    }
+
+    // Output that holds the resource from subscription until it terminates or is cancelled
+    private static <R> Flux<DataBuffer> holding(Mono<R> resource, Consumer<R> release,
+                                                Function<R, Flux<DataBuffer>> output) {
+        return Flux.usingWhen(resource, output,
+                r -> Mono.fromRunnable(() -> release.accept(r)),
+                (r, e) -> Mono.fromRunnable(() -> release.accept(r)),
+                r -> Mono.fromRunnable(() -> release.accept(r)));
+    }
+
+    // Batch contract: the agent receives {"batch": [...]} and answers with an array in input order
+    private Mono<List<String>> runBatch(AgentSpec agent, List<Map<String, Object>> inputs, RunContext context) {
+        return joinOutput(start(agent, Map.of("batch", inputs), context))
+                .map(json -> {
+                    try {
+                        JsonNode outputs = mapper.readTree(json);
+                        if (!outputs.isArray()) {
+                            throw new IllegalStateException("Agent " + agent.getAgentId() + " did not return a batch array");
+                        }
+                        List<String> results = new ArrayList<>(outputs.size());
+                        outputs.forEach(output -> results.add(output.isTextual() ? output.asText() : output.toString()));
+                        return results;
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Agent " + agent.getAgentId() + " returned invalid batch output", e);
+                    }
+                });
+    }
+
+    private Mono<String> joinOutput(Flux<DataBuffer> output) {
+        return DataBufferUtils.join(output).map(buffer -> {
+            try {
+                return buffer.toString(StandardCharsets.UTF_8);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        });
+    }
 
-        // Step 3: Run container with input mounted or piped
-        return runContainer(image, input);
+    private Mono<AgentSpec> fetchAgent(String agentId, String version) {
+        return agentSpecCache.get(agentId, version)
+                .switchIfEmpty(Mono.error(() -> new UnknownAgentException(agentId)));
     }
 
-    private AgentSpec fetchAgent(String agentId) {
-        return webClient.get()
-                .uri("/agents")
-                .retrieve()
-                .bodyToFlux(AgentSpec.class)
-                .blockFirst(agent -> agent.getAgentId().equals(agentId));
+    private Mono<Void> pullDockerImage(String image) {
+        // the pull is shared with other callers, so do not cancel it when this run goes away
+        return Mono.fromFuture(imagePuller.ensurePresent(image), true);
     }
 
-    private void pullDockerImage(String image) {
-        // Use Docker SDK or: ProcessBuilder pb = new ProcessBuilder("docker", "pull", image);
-        // This method needs to be implemented.
+    /**
+     * Called by catalog-service after a registration so the first run finds a fresh spec and a freshly
+     * pulled image, and no result computed by an earlier registration is served. Warm instances started
+     * from the previous pull of the image are stopped once the new pull is done.
+     */
+    public void onAgentRegistered(String agentId, String dockerImage) {
+        agentSpecCache.invalidate(agentId);
+        resultCache.invalidate(agentId);
+        if (dockerImage != null) {
+            imagePuller.prefetch(dockerImage).whenComplete((ignored, error) -> instancePool.evictIdle(dockerImage));
+        }
     }
 
-    private String runContainer(String image, Map<String, Object> input) {
-        // This method needs to be implemented to execute the Docker container.
-        return "some output";
+    private Flux<DataBuffer> runContainer(AgentSpec agent, ResourceLimits limits, Object payload,
+                                          AgentCircuitBreakers.Call call) {
+        PoolKey key = new PoolKey(agent.getDockerImage(), limits, agent.getHealthEndpoint());
+        healthProber.track(agent.getAgentId(), key);
+        String inputJson;
+        try {
+            inputJson = mapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            return Flux.error(new IllegalArgumentException("Invalid input", e));
+        }
+        long start = System.nanoTime();
+        Timer ttfb = meterRegistry.timer("runner.run.ttfb", "agent", agent.getAgentId());
+        return Flux.usingWhen(
+                instancePool.acquire(key)
+                        .doOnError(call::failure)
+                        // started after the run went away
+                        .doOnDiscard(WarmInstancePool.Lease.class, lease -> instancePool.release(lease, false)),
+                lease -> {
+                    AtomicBoolean first = new AtomicBoolean(true);
+                    return lease.instance().invoke(inputJson)
+                            .doOnNext(chunk -> {
+                                if (first.compareAndSet(true, false)) {
+                                    // time-to-first-byte as seen by the caller, including any cold start
+                                    ttfb.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                                }
+                            })
+                            .doOnError(call::failure);
+                },
+                lease -> Mono.fromRunnable(() -> instancePool.release(lease, true)),
+                (lease, e) -> Mono.fromRunnable(() -> instancePool.release(lease, false)),
+                lease -> Mono.fromRunnable(() -> instancePool.release(lease, false)));
     }
-}
\ No newline at end of file
+}
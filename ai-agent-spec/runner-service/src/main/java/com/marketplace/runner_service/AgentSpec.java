@@ -1,6 +1,7 @@
 // runner-service/src/main/java/com/marketplace/runner_service/AgentSpec.java
 package com.marketplace.runner_service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,8 +11,19 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class AgentSpec {
     private String agentId;
+    private String version;
     private String dockerImage;
     private String inputSchemaJson;
     private String outputSchemaJson;
     private String healthEndpoint;
+    private String resourceLimitsJson;
+    private String metadataJson;
+
+    // Parsed from metadataJson and resourceLimitsJson when the spec is loaded, not on every run
+    @JsonIgnore
+    private BatchingPolicy batching = BatchingPolicy.DISABLED;
+    @JsonIgnore
+    private ResultCachePolicy resultCaching = ResultCachePolicy.DISABLED;
+    @JsonIgnore
+    private ResourceLimits resourceLimits = ResourceLimits.UNSPECIFIED;
 }
\ No newline at end of file
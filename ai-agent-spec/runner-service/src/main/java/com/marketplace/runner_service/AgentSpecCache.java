@@ -0,0 +1,85 @@
+// runner-service/src/main/java/com/marketplace/runner_service/AgentSpecCache.java
+package com.marketplace.runner_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Local, bounded cache of agent specs fetched from catalog-service.
+ * Concurrent misses for the same key share a single catalog request, and the
+ * capabilities declared in a spec's metadata are parsed once as it is loaded.
+ */
+@Component
+public class AgentSpecCache {
+
+    private final WebClient webClient;
+    private final ObjectMapper mapper;
+    private final AsyncLoadingCache<AgentKey, AgentSpec> cache;
+
+    public AgentSpecCache(
+            WebClient.Builder webClientBuilder,
+            ObjectMapper mapper,
+            MeterRegistry meterRegistry,
+            @Value("${catalog.service.url}") String catalogUrl,
+            @Value("${runner.agent-cache.max-size:500}") long maxSize,
+            @Value("${runner.agent-cache.ttl:5m}") Duration ttl) {
+        this.webClient = webClientBuilder.baseUrl(catalogUrl).build();
+        this.mapper = mapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync((key, executor) -> load(key).toFuture());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "agent-spec");
+    }
+
+    public Mono<AgentSpec> get(String agentId, String version) {
+        AgentKey key = new AgentKey(agentId, version);
+        CompletableFuture<AgentSpec> spec = cache.get(key);
+        // the load is shared between callers, so one caller cancelling must not cancel it
+        return Mono.fromFuture(spec, true)
+                // Caffeine drops a failed load only after its callbacks run; an immediate retry must not see it
+                .doOnError(e -> cache.asMap().remove(key, spec))
+                .onErrorMap(CompletionException.class, Throwable::getCause);
+    }
+
+    public void invalidate(String agentId) {
+        cache.synchronous().asMap().keySet().removeIf(key -> key.agentId().equals(agentId));
+    }
+
+    private Mono<AgentSpec> load(AgentKey key) {
+        return webClient.get()
+                .uri(builder -> builder.path("/agents/by-agent-id/{agentId}")
+                        .queryParamIfPresent("version", Optional.ofNullable(key.version()))
+                        .build(key.agentId()))
+                .retrieve()
+                .bodyToMono(AgentSpec.class)
+                .map(this::withPolicies)
+                .onErrorMap(WebClientResponseException.NotFound.class,
+                        e -> new UnknownAgentException(key.agentId()));
+    }
+
+    // Invalid metadata or limits fail the load, so they are reported to the caller and not cached
+    private AgentSpec withPolicies(AgentSpec spec) {
+        spec.setBatching(BatchingPolicy.fromMetadata(mapper, spec.getMetadataJson()));
+        spec.setResultCaching(ResultCachePolicy.fromMetadata(mapper, spec.getMetadataJson()));
+        spec.setResourceLimits(ResourceLimits.fromJson(mapper, spec.getResourceLimitsJson()));
+        return spec;
+    }
+
+    record AgentKey(String agentId, String version) {
+    }
+}
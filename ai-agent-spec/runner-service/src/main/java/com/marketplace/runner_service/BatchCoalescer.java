@@ -0,0 +1,103 @@
+// runner-service/src/main/java/com/marketplace/runner_service/BatchCoalescer.java
+package com.marketplace.runner_service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single runs of a batching-capable agent into micro-batches.
+ * A batch is dispatched when it reaches the agent's max batch size or when its linger
+ * time has passed since the first input arrived, whichever comes first.
+ */
+@Component
+public class BatchCoalescer {
+
+    private final Map<String, PendingBatch> open = new HashMap<>();
+    private final DistributionSummary batchSizes;
+
+    public BatchCoalescer(MeterRegistry meterRegistry) {
+        this.batchSizes = meterRegistry.summary("runner.batch.size");
+    }
+
+    /**
+     * @param runBatch runs the given inputs as one batch and emits their outputs in the same order
+     */
+    public Mono<String> submit(AgentSpec agent, BatchingPolicy policy, Map<String, Object> input,
+                               Function<List<Map<String, Object>>, Mono<List<String>>> runBatch) {
+        return Mono.defer(() -> {
+            String key = agent.getAgentId() + ":" + agent.getVersion();
+            Sinks.One<String> result = Sinks.one();
+            PendingBatch full = null;
+            synchronized (this) {
+                PendingBatch batch = open.get(key);
+                if (batch == null) {
+                    PendingBatch created = new PendingBatch(runBatch);
+                    open.put(key, created);
+                    Schedulers.parallel().schedule(() -> flushIfOpen(key, created),
+                            policy.maxLinger().toMillis(), TimeUnit.MILLISECONDS);
+                    batch = created;
+                }
+                batch.inputs.add(input);
+                batch.results.add(result);
+                if (batch.inputs.size() >= policy.maxBatchSize()) {
+                    open.remove(key);
+                    full = batch;
+                }
+            }
+            if (full != null) {
+                dispatch(full);
+            }
+            return result.asMono();
+        });
+    }
+
+    private void flushIfOpen(String key, PendingBatch batch) {
+        synchronized (this) {
+            if (!open.remove(key, batch)) {
+                return; // already dispatched because it filled up
+            }
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(PendingBatch batch) {
+        batchSizes.record(batch.inputs.size());
+        batch.runBatch.apply(batch.inputs).subscribe(outputs -> {
+            if (outputs.size() != batch.results.size()) {
+                fail(batch, new IllegalStateException(
+                        "Agent returned " + outputs.size() + " outputs for " + batch.results.size() + " inputs"));
+                return;
+            }
+            for (int i = 0; i < outputs.size(); i++) {
+                batch.results.get(i).tryEmitValue(outputs.get(i));
+            }
+        }, error -> fail(batch, error),
+                // no-op for results already emitted; covers an empty response
+                () -> fail(batch, new IllegalStateException("Agent returned no batch output")));
+    }
+
+    private static void fail(PendingBatch batch, Throwable error) {
+        batch.results.forEach(result -> result.tryEmitError(error));
+    }
+
+    private static final class PendingBatch {
+        private final Function<List<Map<String, Object>>, Mono<List<String>>> runBatch;
+        private final List<Map<String, Object>> inputs = new ArrayList<>();
+        private final List<Sinks.One<String>> results = new ArrayList<>();
+
+        private PendingBatch(Function<List<Map<String, Object>>, Mono<List<String>>> runBatch) {
+            this.runBatch = runBatch;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+// runner-service/src/main/java/com/marketplace/runner_service/BatchRunRequest.java
+package com.marketplace.runner_service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRunRequest {
+    private List<Map<String, Object>> inputs = List.of();
+}
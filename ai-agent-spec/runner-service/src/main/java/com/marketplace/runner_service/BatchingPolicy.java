@@ -0,0 +1,35 @@
+// runner-service/src/main/java/com/marketplace/runner_service/BatchingPolicy.java
+package com.marketplace.runner_service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+
+/**
+ * The opt-in {@code metadata.batching} capability of an agent spec.
+ */
+public record BatchingPolicy(boolean enabled, int maxBatchSize, Duration maxLinger) {
+
+    public static final BatchingPolicy DISABLED = new BatchingPolicy(false, 1, Duration.ZERO);
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 16;
+    private static final long DEFAULT_MAX_LINGER_MS = 10;
+
+    public static BatchingPolicy fromMetadata(ObjectMapper mapper, String metadataJson) {
+        if (metadataJson == null || metadataJson.isBlank()) {
+            return DISABLED;
+        }
+        try {
+            JsonNode batching = mapper.readTree(metadataJson).path("batching");
+            if (!batching.isObject() || !batching.path("enabled").asBoolean(true)) {
+                return DISABLED;
+            }
+            return new BatchingPolicy(true,
+                    Math.max(1, batching.path("maxBatchSize").asInt(DEFAULT_MAX_BATCH_SIZE)),
+                    Duration.ofMillis(Math.max(0, batching.path("maxLingerMs").asLong(DEFAULT_MAX_LINGER_MS))));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid agent metadata: " + metadataJson, e);
+        }
+    }
+}
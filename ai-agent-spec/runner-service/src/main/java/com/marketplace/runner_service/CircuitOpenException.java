@@ -0,0 +1,22 @@
+// runner-service/src/main/java/com/marketplace/runner_service/CircuitOpenException.java
+package com.marketplace.runner_service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Raised without touching the agent while its circuit is open.
+ */
+@Getter
+public class CircuitOpenException extends RuntimeException {
+
+    private final String agentId;
+    private final Duration retryAfter;
+
+    public CircuitOpenException(String agentId, Duration retryAfter) {
+        super("Agent " + agentId + " is unavailable; retry after " + retryAfter.toSeconds() + "s");
+        this.agentId = agentId;
+        this.retryAfter = retryAfter;
+    }
+}
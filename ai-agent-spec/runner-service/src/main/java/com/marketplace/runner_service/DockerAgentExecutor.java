@@ -0,0 +1,169 @@
+// runner-service/src/main/java/com/marketplace/runner_service/DockerAgentExecutor.java
+package com.marketplace.runner_service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs each agent instance as a detached container that serves HTTP on {@code runner.docker.container-port}.
+ * With {@code runner.docker.network} set (the runner itself runs in a container on that network)
+ * agents join the network and are addressed by container IP; otherwise the port is published on
+ * the host's loopback. Container lifecycle and health checks block; runs are streamed without blocking.
+ */
+@Component
+@ConditionalOnProperty(name = "runner.executor", havingValue = "docker", matchIfMissing = true)
+public class DockerAgentExecutor implements AgentExecutor {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private final WebClient webClient;
+    private final int containerPort;
+    private final String executePath;
+    private final Duration startupTimeout;
+    private final String network;
+
+    public DockerAgentExecutor(
+            WebClient.Builder webClientBuilder,
+            @Value("${runner.docker.container-port:8080}") int containerPort,
+            @Value("${runner.docker.execute-path:/execute}") String executePath,
+            @Value("${runner.docker.startup-timeout:120s}") Duration startupTimeout,
+            @Value("${runner.docker.network:}") String network) {
+        this.webClient = webClientBuilder.build();
+        this.containerPort = containerPort;
+        this.executePath = executePath;
+        this.startupTimeout = startupTimeout;
+        this.network = network;
+    }
+
+    @Override
+    public AgentInstance start(PoolKey key) throws IOException {
+        List<String> command = new ArrayList<>(List.of("docker", "run", "-d", "--rm"));
+        if (network.isEmpty()) {
+            command.addAll(List.of("-p", "127.0.0.1::" + containerPort));
+        } else {
+            command.addAll(List.of("--network", network));
+        }
+        ResourceLimits limits = key.limits();
+        if (limits.memoryBytes() > 0) {
+            command.addAll(List.of("--memory", String.valueOf(limits.memoryBytes())));
+        }
+        if (limits.milliCpu() > 0) {
+            command.addAll(List.of("--cpus", String.format(Locale.ROOT, "%.3f", limits.milliCpu() / 1000.0)));
+        }
+        command.add(key.dockerImage());
+
+        String containerId = DockerCli.exec(command).trim();
+        ContainerInstance instance;
+        try {
+            instance = new ContainerInstance(containerId, "http://" + address(containerId), key.healthEndpoint());
+            awaitHealthy(instance);
+        } catch (IOException | RuntimeException e) {
+            stopQuietly(containerId);
+            throw e;
+        }
+        return instance;
+    }
+
+    private String address(String containerId) throws IOException {
+        if (network.isEmpty()) {
+            String hostPort = DockerCli.exec(List.of("docker", "port", containerId, containerPort + "/tcp")).trim();
+            // "127.0.0.1:49153" (first line when several bindings are listed)
+            return hostPort.lines().findFirst().orElseThrow(() -> new IOException("No port mapping"));
+        }
+        String ip = DockerCli.exec(List.of("docker", "inspect", "-f",
+                "{{(index .NetworkSettings.Networks \"" + network + "\").IPAddress}}", containerId)).trim();
+        if (ip.isEmpty()) {
+            throw new IOException("Container " + containerId + " has no address on network " + network);
+        }
+        return ip + ":" + containerPort;
+    }
+
+    private void awaitHealthy(ContainerInstance instance) throws IOException {
+        long deadline = System.nanoTime() + startupTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (instance.isHealthy()) {
+                return;
+            }
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + instance.id(), e);
+            }
+        }
+        throw new IOException("Container " + instance.id() + " did not become healthy within " + startupTimeout);
+    }
+
+    private static void stopQuietly(String containerId) {
+        try {
+            DockerCli.exec(List.of("docker", "rm", "-f", containerId));
+        } catch (IOException ignored) {
+            // container is already gone
+        }
+    }
+
+    private class ContainerInstance implements AgentInstance {
+        private final String containerId;
+        private final String baseUrl;
+        private final String healthEndpoint;
+
+        ContainerInstance(String containerId, String baseUrl, String healthEndpoint) {
+            this.containerId = containerId;
+            this.baseUrl = baseUrl;
+            this.healthEndpoint = healthEndpoint;
+        }
+
+        @Override
+        public String id() {
+            return containerId;
+        }
+
+        @Override
+        public boolean isHealthy() {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + healthEndpoint))
+                        .timeout(Duration.ofSeconds(2))
+                        .GET()
+                        .build();
+                return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public Flux<DataBuffer> invoke(String inputJson) {
+            return webClient.post()
+                    .uri(baseUrl + executePath)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(inputJson)
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class);
+        }
+
+        @Override
+        public void close() {
+            stopQuietly(containerId);
+        }
+    }
+}
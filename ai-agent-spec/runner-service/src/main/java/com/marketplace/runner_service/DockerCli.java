@@ -0,0 +1,38 @@
+// runner-service/src/main/java/com/marketplace/runner_service/DockerCli.java
+package com.marketplace.runner_service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Thin wrapper around the docker command line.
+ */
+final class DockerCli {
+
+    private DockerCli() {
+    }
+
+    static String exec(List<String> command) throws IOException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException(String.join(" ", command) + " failed: " + output.trim());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted: " + String.join(" ", command), e);
+        }
+        return output;
+    }
+
+    static boolean succeeds(List<String> command) {
+        try {
+            exec(command);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
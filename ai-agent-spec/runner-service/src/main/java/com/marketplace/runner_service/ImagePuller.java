@@ -0,0 +1,199 @@
+// runner-service/src/main/java/com/marketplace/runner_service/ImagePuller.java
+package com.marketplace.runner_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Makes sure agent images are present locally. Concurrent requests for the same image
+ * share one pull, images known to be present are not pulled again until {@link #refresh}
+ * (a re-registration may have re-pushed a mutable tag), and pulls run on fixed-size pools
+ * so prefetching cannot saturate disk or network. A run never waits behind prefetches: its
+ * pulls have a pool of their own, and a run needing an image whose prefetch is still queued
+ * starts that pull on its own pool.
+ */
+@Slf4j
+@Component
+public class ImagePuller {
+
+    private final boolean enabled;
+    private final String docker;
+    private final ExecutorService prefetchExecutor;
+    private final ExecutorService runExecutor;
+    private final Set<String> present = ConcurrentHashMap.newKeySet();
+    private final Map<String, Pull> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter skipped;
+    private final Counter joined;
+    private final Counter pulled;
+    private final Counter failed;
+
+    public ImagePuller(
+            MeterRegistry meterRegistry,
+            @Value("${runner.image-pull.enabled:true}") boolean enabled,
+            @Value("${runner.image-pull.max-concurrency:2}") int maxConcurrency,
+            @Value("${runner.image-pull.max-run-concurrency:2}") int maxRunConcurrency,
+            @Value("${runner.image-pull.docker-command:docker}") String docker) {
+        this.enabled = enabled;
+        this.docker = docker;
+        this.prefetchExecutor = Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory("image-prefetch-"));
+        this.runExecutor = Executors.newFixedThreadPool(maxRunConcurrency, new CustomizableThreadFactory("image-pull-"));
+        this.skipped = meterRegistry.counter("runner.image.pull", "result", "skipped");
+        this.joined = meterRegistry.counter("runner.image.pull", "result", "joined");
+        this.pulled = meterRegistry.counter("runner.image.pull", "result", "pulled");
+        this.failed = meterRegistry.counter("runner.image.pull", "result", "failed");
+    }
+
+    /** For the run path: pulls the image unless it is known to be present. */
+    public CompletableFuture<Void> ensurePresent(String image) {
+        return pull(image, false, runExecutor);
+    }
+
+    /**
+     * Forgets that {@code image} is present and pulls it again in the background, so a tag
+     * re-pushed since the last pull is updated. Digest-pinned references name immutable content
+     * and stay cached.
+     */
+    public CompletableFuture<Void> refresh(String image) {
+        if (isDigestPinned(image)) {
+            return pull(image, false, prefetchExecutor);
+        }
+        present.remove(pullKey(image));
+        return pull(image, true, prefetchExecutor);
+    }
+
+    private CompletableFuture<Void> pull(String image, boolean force, ExecutorService executor) {
+        String key = pullKey(image);
+        if (!enabled || (!force && present.contains(key))) {
+            skipped.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        Pull pull = new Pull(image, key, force);
+        Pull existing = inFlight.putIfAbsent(key, pull);
+        if (existing != null) {
+            if (force) {
+                // the pull in flight may have only inspected the stale local image
+                return existing.done.handle((ignored, error) -> null)
+                        .thenCompose(ignored -> pull(image, true, executor));
+            }
+            joined.increment();
+            // a run joining a prefetch still queued behind others takes it over
+            existing.startOn(executor);
+            return existing.done;
+        }
+        pull.startOn(executor);
+        return pull.done;
+    }
+
+    /**
+     * Refreshes in the background after a registration; failures are only logged since the run path retries.
+     */
+    public CompletableFuture<Void> prefetch(String image) {
+        return refresh(image).whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.warn("Prefetch of {} failed: {}", image, error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * The reference as Docker resolves it, so {@code analyzer} and
+     * {@code docker.io/library/analyzer:latest} share a pull. Repository names are kept for
+     * digest-pinned references too: the same digest pulled under another repository name is
+     * not present under this one.
+     */
+    static String pullKey(String image) {
+        String name = image;
+        String suffix = "";
+        int at = name.indexOf('@');
+        if (at >= 0) {
+            suffix = name.substring(at);
+            name = name.substring(0, at);
+        }
+        int slash = name.lastIndexOf('/');
+        int colon = name.lastIndexOf(':');
+        if (colon > slash) {
+            suffix = name.substring(colon) + suffix;
+            name = name.substring(0, colon);
+        } else if (at < 0) {
+            suffix = ":latest";
+        }
+        int firstSlash = name.indexOf('/');
+        String domain = firstSlash < 0 ? "" : name.substring(0, firstSlash);
+        if (firstSlash < 0 || !(domain.contains(".") || domain.contains(":") || domain.equals("localhost"))) {
+            name = "docker.io/" + (firstSlash < 0 ? "library/" : "") + name;
+        }
+        return name + suffix;
+    }
+
+    static boolean isDigestPinned(String image) {
+        return image.indexOf('@') >= 0;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        prefetchExecutor.shutdownNow();
+        runExecutor.shutdownNow();
+    }
+
+    // One pull in flight; it runs on whichever pool picks it up first
+    private final class Pull {
+        private final String image;
+        private final String key;
+        private final boolean force;
+        private final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pull(String image, String key, boolean force) {
+            this.image = image;
+            this.key = key;
+            this.force = force;
+        }
+
+        void startOn(ExecutorService executor) {
+            if (!started.get()) {
+                executor.execute(() -> {
+                    if (started.compareAndSet(false, true)) {
+                        run();
+                    }
+                });
+            }
+        }
+
+        private void run() {
+            Exception failure = null;
+            try {
+                // a local inspect is much cheaper than asking the registry
+                if (force || !DockerCli.succeeds(List.of(docker, "image", "inspect", image))) {
+                    DockerCli.exec(List.of(docker, "pull", image));
+                    pulled.increment();
+                }
+                present.add(key);
+            } catch (Exception e) {
+                failed.increment();
+                failure = e;
+            }
+            // leave inFlight before completing so callbacks that pull again start a new pull
+            inFlight.remove(key, this);
+            if (failure == null) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+// runner-service/src/main/java/com/marketplace/runner_service/PoolKey.java
+package com.marketplace.runner_service;
+
+/**
+ * Identifies interchangeable agent instances: same image started with the same limits.
+ */
+public record PoolKey(String dockerImage, ResourceLimits limits, String healthEndpoint) {
+}
@@ -0,0 +1,90 @@
+// runner-service/src/main/java/com/marketplace/runner_service/ProcessAgentExecutor.java
+package com.marketplace.runner_service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local stand-in for Docker: each instance is a long-lived process that reads one
+ * JSON input per line on stdin and answers with one line on stdout.
+ * The {@code {image}} placeholder in the command is replaced with the agent's image.
+ */
+@Component
+@ConditionalOnProperty(name = "runner.executor", havingValue = "process")
+public class ProcessAgentExecutor implements AgentExecutor {
+
+    private final String commandTemplate;
+
+    public ProcessAgentExecutor(@Value("${runner.process.command:cat}") String commandTemplate) {
+        this.commandTemplate = commandTemplate;
+    }
+
+    @Override
+    public AgentInstance start(PoolKey key) throws IOException {
+        List<String> command = Arrays.stream(commandTemplate.split("\\s+"))
+                .map(part -> part.replace("{image}", key.dockerImage()))
+                .toList();
+        return new ProcessInstance(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start());
+    }
+
+    private static class ProcessInstance implements AgentInstance {
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final BufferedReader stdout;
+
+        ProcessInstance(Process process) {
+            this.process = process;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String id() {
+            return "pid-" + process.pid();
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return process.isAlive();
+        }
+
+        @Override
+        public Flux<DataBuffer> invoke(String inputJson) {
+            return Mono.fromCallable(() -> exchange(inputJson))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .<DataBuffer>map(line -> DefaultDataBufferFactory.sharedInstance.wrap(line.getBytes(StandardCharsets.UTF_8)))
+                    .flux();
+        }
+
+        private synchronized String exchange(String inputJson) throws IOException {
+            stdin.write(inputJson.replace('\n', ' '));
+            stdin.newLine();
+            stdin.flush();
+            String line = stdout.readLine();
+            if (line == null) {
+                throw new IOException("Process " + id() + " exited without output");
+            }
+            return line;
+        }
+
+        @Override
+        public void close() {
+            process.destroy();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+// runner-service/src/main/java/com/marketplace/runner_service/ResourceLimits.java
+package com.marketplace.runner_service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Resource limits declared by an agent spec, normalised to bytes and millicores.
+ * A value of zero means "not declared".
+ */
+public record ResourceLimits(long memoryBytes, long milliCpu) {
+
+    public static final ResourceLimits UNSPECIFIED = new ResourceLimits(0, 0);
+
+    public static ResourceLimits fromJson(ObjectMapper mapper, String json) {
+        if (json == null || json.isBlank()) {
+            return UNSPECIFIED;
+        }
+        try {
+            JsonNode node = mapper.readTree(json);
+            return new ResourceLimits(
+                    parseMemory(node.path("memory").asText("")),
+                    parseCpu(node.path("cpu").asText("")));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid resource limits: " + json, e);
+        }
+    }
+
+    // Accepts Kubernetes-style quantities ("512Mi", "2Gi") as well as plain bytes
+    static long parseMemory(String value) {
+        String v = value.trim();
+        if (v.isEmpty()) {
+            return 0;
+        }
+        long multiplier = 1;
+        String[][] suffixes = {
+                {"Ki", "1024"}, {"Mi", "1048576"}, {"Gi", "1073741824"},
+                {"K", "1000"}, {"M", "1000000"}, {"G", "1000000000"}
+        };
+        for (String[] suffix : suffixes) {
+            if (v.endsWith(suffix[0])) {
+                multiplier = Long.parseLong(suffix[1]);
+                v = v.substring(0, v.length() - suffix[0].length());
+                break;
+            }
+        }
+        return (long) (Double.parseDouble(v) * multiplier);
+    }
+
+    // Accepts millicores ("500m") or fractional cores ("1.0")
+    static long parseCpu(String value) {
+        String v = value.trim();
+        if (v.isEmpty()) {
+            return 0;
+        }
+        if (v.endsWith("m")) {
+            return Long.parseLong(v.substring(0, v.length() - 1));
+        }
+        return Math.round(Double.parseDouble(v) * 1000);
+    }
+}
@@ -0,0 +1,235 @@
+// runner-service/src/main/java/com/marketplace/runner_service/ResourceScheduler.java
+package com.marketplace.runner_service;
+
+import com.sun.management.OperatingSystemMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Places runs on this node only while their declared memory and CPU fit in the remaining
+ * capacity. Runs that do not fit wait by priority; within a priority, pipelines take turns.
+ * Smaller runs may backfill around a large one, until that one has waited longer than
+ * {@code runner.scheduler.starvation-threshold}, after which capacity is held for it.
+ * A run waits at most {@code runner.scheduler.max-wait} (the admission max-wait by default)
+ * and is then rejected with 503, like a run that timed out waiting for admission.
+ */
+@Component
+public class ResourceScheduler {
+
+    private final long capacityMemory;
+    private final long capacityCpu;
+    private final ResourceLimits defaultRequest;
+    private final long starvationNanos;
+    private final Duration maxWait;
+
+    private long usedMemory;
+    private long usedCpu;
+    private int queued;
+    private final TreeMap<Integer, LinkedHashMap<String, Deque<Pending>>> queues =
+            new TreeMap<>(Comparator.reverseOrder());
+
+    private final Timer waitTimer;
+    private final Counter rejectedTimeout;
+
+    public ResourceScheduler(
+            MeterRegistry meterRegistry,
+            @Value("${runner.scheduler.memory:0}") String capacityMemory,
+            @Value("${runner.scheduler.cpu:0}") String capacityCpu,
+            @Value("${runner.scheduler.default-memory:256Mi}") String defaultMemory,
+            @Value("${runner.scheduler.default-cpu:250m}") String defaultCpu,
+            @Value("${runner.scheduler.starvation-threshold:2s}") Duration starvationThreshold,
+            @Value("${runner.scheduler.max-wait:${runner.admission.max-wait:5s}}") Duration maxWait) {
+        if (starvationThreshold.compareTo(maxWait) >= 0) {
+            // every waiter would time out before it could be seen as starving
+            throw new IllegalArgumentException("runner.scheduler.starvation-threshold (" + starvationThreshold
+                    + ") must be shorter than runner.scheduler.max-wait (" + maxWait + ")");
+        }
+        long memory = ResourceLimits.parseMemory(capacityMemory);
+        long cpu = ResourceLimits.parseCpu(capacityCpu);
+        // 0 means use what the host reports
+        this.capacityMemory = memory > 0 ? memory
+                : ((OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getTotalMemorySize();
+        this.capacityCpu = cpu > 0 ? cpu : Runtime.getRuntime().availableProcessors() * 1000L;
+        this.defaultRequest = new ResourceLimits(ResourceLimits.parseMemory(defaultMemory), ResourceLimits.parseCpu(defaultCpu));
+        this.starvationNanos = starvationThreshold.toNanos();
+        this.maxWait = maxWait;
+        this.waitTimer = meterRegistry.timer("runner.scheduler.wait");
+        this.rejectedTimeout = meterRegistry.counter("runner.scheduler.rejected", "reason", "timeout");
+        meterRegistry.gauge("runner.scheduler.queue-depth", this, ResourceScheduler::queueDepth);
+        meterRegistry.gauge("runner.scheduler.memory.used", this, ResourceScheduler::usedMemory);
+        meterRegistry.gauge("runner.scheduler.cpu.used", this, ResourceScheduler::usedCpu);
+    }
+
+    /**
+     * Emits a reservation once the run fits on the node, or fails with {@link AdmissionRejectedException}
+     * after {@code max-wait}. The reservation must be released when the run ends.
+     */
+    public Mono<Reservation> reserve(ResourceLimits declared, RunContext context) {
+        return Mono.defer(() -> {
+            ResourceLimits need = new ResourceLimits(
+                    declared.memoryBytes() > 0 ? declared.memoryBytes() : defaultRequest.memoryBytes(),
+                    declared.milliCpu() > 0 ? declared.milliCpu() : defaultRequest.milliCpu());
+            if (need.memoryBytes() > capacityMemory || need.milliCpu() > capacityCpu) {
+                return Mono.error(new IllegalStateException("Run needs " + need + " but the node only has "
+                        + capacityMemory + " bytes / " + capacityCpu + "m CPU"));
+            }
+            Pending pending = new Pending(need, context);
+            synchronized (this) {
+                if (queued == 0 && fits(need)) {
+                    waitTimer.record(0, TimeUnit.NANOSECONDS);
+                    return Mono.just(allocate(need));
+                }
+                queues.computeIfAbsent(context.priority(), p -> new LinkedHashMap<>())
+                        .computeIfAbsent(context.fairnessKey(), k -> new ArrayDeque<>())
+                        .addLast(pending);
+                queued++;
+                dispatch();
+            }
+            return pending.sink.asMono()
+                    // reservations are granted while holding the lock; continue the run elsewhere
+                    .publishOn(Schedulers.parallel())
+                    // the timeout cancels upstream, which takes the run out of the queue
+                    .doOnCancel(() -> abandon(pending))
+                    .timeout(maxWait)
+                    .onErrorMap(TimeoutException.class, e -> {
+                        rejectedTimeout.increment();
+                        return new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "Timed out waiting for node capacity for " + need);
+                    })
+                    // delivered only once the subscriber has it, as with admission permits
+                    .doOnNext(reservation -> pending.delivered = true)
+                    .doOnDiscard(Reservation.class, Reservation::release);
+        });
+    }
+
+    synchronized int queueDepth() {
+        return queued;
+    }
+
+    synchronized long usedMemory() {
+        return usedMemory;
+    }
+
+    synchronized long usedCpu() {
+        return usedCpu;
+    }
+
+    private boolean fits(ResourceLimits need) {
+        return usedMemory + need.memoryBytes() <= capacityMemory && usedCpu + need.milliCpu() <= capacityCpu;
+    }
+
+    private Reservation allocate(ResourceLimits need) {
+        usedMemory += need.memoryBytes();
+        usedCpu += need.milliCpu();
+        return new Reservation(need);
+    }
+
+    // Called with the lock held whenever capacity frees up or a run is queued
+    private void dispatch() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Integer, LinkedHashMap<String, Deque<Pending>>>> levels = queues.entrySet().iterator();
+        while (levels.hasNext()) {
+            LinkedHashMap<String, Deque<Pending>> level = levels.next().getValue();
+            boolean progress = true;
+            while (progress && !level.isEmpty()) {
+                progress = false;
+                for (String pipeline : new ArrayList<>(level.keySet())) {
+                    Deque<Pending> queue = level.get(pipeline);
+                    Pending head = queue.peekFirst();
+                    if (fits(head.need)) {
+                        queue.pollFirst();
+                        queued--;
+                        // served pipelines go to the back of the rotation
+                        level.remove(pipeline);
+                        if (!queue.isEmpty()) {
+                            level.put(pipeline, queue);
+                        }
+                        head.granted = allocate(head.need);
+                        waitTimer.record(now - head.enqueuedAt, TimeUnit.NANOSECONDS);
+                        head.sink.tryEmitValue(head.granted);
+                        progress = true;
+                    } else if (now - head.enqueuedAt > starvationNanos) {
+                        return;
+                    }
+                }
+            }
+            if (level.isEmpty()) {
+                levels.remove();
+            }
+        }
+    }
+
+    private synchronized void abandon(Pending pending) {
+        LinkedHashMap<String, Deque<Pending>> level = queues.get(pending.context.priority());
+        Deque<Pending> queue = level == null ? null : level.get(pending.context.fairnessKey());
+        if (queue != null && queue.remove(pending)) {
+            queued--;
+            if (queue.isEmpty()) {
+                level.remove(pending.context.fairnessKey());
+                if (level.isEmpty()) {
+                    queues.remove(pending.context.priority());
+                }
+            }
+            // it may have been the head of line that held capacity back from smaller runs
+            dispatch();
+        } else if (pending.granted != null && !pending.delivered) {
+            pending.granted.release();
+        }
+    }
+
+    private synchronized void release(ResourceLimits need) {
+        usedMemory -= need.memoryBytes();
+        usedCpu -= need.milliCpu();
+        dispatch();
+    }
+
+    public final class Reservation {
+        private final ResourceLimits need;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(ResourceLimits need) {
+            this.need = need;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ResourceScheduler.this.release(need);
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final ResourceLimits need;
+        private final RunContext context;
+        private final long enqueuedAt = System.nanoTime();
+        private final Sinks.One<Reservation> sink = Sinks.one();
+        private Reservation granted;
+        private volatile boolean delivered;
+
+        private Pending(ResourceLimits need, RunContext context) {
+            this.need = need;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+// runner-service/src/main/java/com/marketplace/runner_service/RestExceptionAdvice.java
+package com.marketplace.runner_service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestControllerAdvice
+class RestExceptionAdvice {
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    ResponseEntity<?> rejected(AdmissionRejectedException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // Distinct from a failed run so callers can skip their retries until Retry-After
+    @ExceptionHandler(CircuitOpenException.class)
+    ResponseEntity<?> circuitOpen(CircuitOpenException ex) {
+        long retryAfter = Math.max(1, ex.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(Map.of(
+                        "error", ex.getMessage(),
+                        "code", "CIRCUIT_OPEN",
+                        "agentId", ex.getAgentId(),
+                        "retryAfterSeconds", retryAfter));
+    }
+
+    @ExceptionHandler(UnknownAgentException.class)
+    ResponseEntity<?> unknownAgent(UnknownAgentException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", ex.getMessage(), "agentId", ex.getAgentId()));
+    }
+
+    // Caller errors: retrying them cannot help
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<?> badRequest(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", String.valueOf(ex.getMessage())));
+    }
+
+    // Malformed bodies, missing parameters and the like keep the status the framework chose
+    @ExceptionHandler(ResponseStatusException.class)
+    ResponseEntity<?> status(ResponseStatusException ex) {
+        return ResponseEntity.status(ex.getStatusCode())
+                .body(Map.of("error", String.valueOf(ex.getReason())));
+    }
+
+    @ExceptionHandler(Exception.class)
+    ResponseEntity<?> failed(Exception ex) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", String.valueOf(ex.getMessage())));
+    }
+}
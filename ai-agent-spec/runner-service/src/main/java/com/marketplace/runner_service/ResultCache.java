@@ -0,0 +1,260 @@
+// runner-service/src/main/java/com/marketplace/runner_service/ResultCache.java
+package com.marketplace.runner_service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Results of deterministic agents, keyed by agent, version and a hash of the canonicalised
+ * input. A bounded in-memory tier sits in front of a local on-disk tier that survives restarts.
+ * Disk layout: {@code <dir>/<agentId>/<version>/<sha256>.json}.
+ * Concurrent misses on the same key share one run. Each agent has a generation that
+ * {@link #invalidate} bumps; results computed under an older generation are never stored.
+ */
+@Slf4j
+@Component
+public class ResultCache {
+
+    private final ObjectMapper canonicalMapper;
+    private final Path directory;
+    private final Cache<ResultKey, CachedResult> memory;
+    private final Map<ResultKey, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    // disk writes and invalidations of one agent synchronize on its generation
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    public ResultCache(
+            ObjectMapper mapper,
+            MeterRegistry meterRegistry,
+            @Value("${runner.result-cache.dir:data/result-cache}") Path directory,
+            @Value("${runner.result-cache.max-entries:10000}") long maxEntries) {
+        // sorted keys so {"a":1,"b":2} and {"b":2,"a":1} hash the same
+        this.canonicalMapper = mapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.directory = directory;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<ResultKey, CachedResult>() {
+                    @Override
+                    public long expireAfterCreate(ResultKey key, CachedResult value, long currentTime) {
+                        return value.remainingNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ResultKey key, CachedResult value, long currentTime, long currentDuration) {
+                        return value.remainingNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(ResultKey key, CachedResult value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.memoryHits = meterRegistry.counter("runner.result-cache", "result", "hit", "tier", "memory");
+        this.diskHits = meterRegistry.counter("runner.result-cache", "result", "hit", "tier", "disk");
+        this.misses = meterRegistry.counter("runner.result-cache", "result", "miss", "tier", "none");
+    }
+
+    /**
+     * Returns the cached output for this input, or subscribes to {@code run} and caches what it produces.
+     */
+    public Mono<String> getOrRun(AgentSpec agent, ResultCachePolicy policy, Map<String, Object> input, Mono<String> run) {
+        ResultKey key;
+        try {
+            key = new ResultKey(agent.getAgentId(), String.valueOf(agent.getVersion()), hash(input));
+        } catch (IOException e) {
+            return run;
+        }
+        CachedResult cached = memory.getIfPresent(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return Mono.just(cached.output());
+        }
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> lookup(k, policy, run)));
+    }
+
+    // Disk tier, then the run; shared by every caller that misses on the key while it is in flight
+    private Mono<String> lookup(ResultKey key, ResultCachePolicy policy, Mono<String> run) {
+        AtomicLong generation = generation(key.agentId());
+        long seen = generation.get();
+        return Mono.fromCallable(() -> readDisk(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(result -> {
+                    diskHits.increment();
+                    if (generation.get() == seen) {
+                        memory.put(key, result);
+                    }
+                })
+                .map(CachedResult::output)
+                .switchIfEmpty(Mono.defer(() -> {
+                    misses.increment();
+                    return run.doOnNext(output -> put(key, generation, seen, new CachedResult(output,
+                            System.currentTimeMillis() + policy.ttl().toMillis())));
+                }))
+                .doFinally(signal -> inFlight.remove(key))
+                .cache();
+    }
+
+    /**
+     * Drops every cached result of the agent, all versions, in both tiers. Runs and disk
+     * writes still in flight for the agent keep their result out of the cache.
+     */
+    public void invalidate(String agentId) {
+        AtomicLong generation = generation(agentId);
+        generation.incrementAndGet();
+        memory.asMap().keySet().removeIf(key -> key.agentId().equals(agentId));
+        Schedulers.boundedElastic().schedule(() -> {
+            synchronized (generation) {
+                deleteTree(directory.resolve(safe(agentId)));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${runner.result-cache.sweep-interval:10m}")
+    void sweepExpired() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    CachedResult result = canonicalMapper.readValue(file.toFile(), CachedResult.class);
+                    if (result.isExpired()) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    deleteQuietly(file);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Result cache sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void put(ResultKey key, AtomicLong generation, long seen, CachedResult result) {
+        if (generation.get() != seen) {
+            return; // invalidated while the run was in flight
+        }
+        memory.put(key, result);
+        Schedulers.boundedElastic().schedule(() -> {
+            Path file = file(key);
+            // held across the write so an invalidation cannot delete the tree in between
+            synchronized (generation) {
+                if (generation.get() != seen) {
+                    return;
+                }
+                try {
+                    Files.createDirectories(file.getParent());
+                    Path tmp = Files.createTempFile(file.getParent(), key.inputHash(), ".tmp");
+                    canonicalMapper.writeValue(tmp.toFile(), result);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    log.warn("Could not persist cached result for {}: {}", key.agentId(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    private AtomicLong generation(String agentId) {
+        return generations.computeIfAbsent(agentId, id -> new AtomicLong());
+    }
+
+    private CachedResult readDisk(ResultKey key) {
+        Path file = file(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            CachedResult result = canonicalMapper.readValue(file.toFile(), CachedResult.class);
+            if (result.isExpired()) {
+                deleteQuietly(file);
+                return null;
+            }
+            return result;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private String hash(Map<String, Object> input) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonicalMapper.writeValueAsBytes(input)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path file(ResultKey key) {
+        return directory.resolve(safe(key.agentId())).resolve(safe(key.version())).resolve(key.inputHash() + ".json");
+    }
+
+    // agent ids and versions are validated by the catalog schema, but never trust a path segment
+    private static String safe(String segment) {
+        return segment.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    private static void deleteTree(Path root) {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(ResultCache::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not clear cached results under {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // swept again later
+        }
+    }
+
+    record ResultKey(String agentId, String version, String inputHash) {
+    }
+
+    record CachedResult(String output, long expiresAt) {
+
+        @JsonIgnore
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        long remainingNanos() {
+            return Math.max(0, expiresAt - System.currentTimeMillis()) * 1_000_000L;
+        }
+    }
+}
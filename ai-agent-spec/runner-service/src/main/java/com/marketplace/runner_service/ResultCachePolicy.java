@@ -0,0 +1,33 @@
+// runner-service/src/main/java/com/marketplace/runner_service/ResultCachePolicy.java
+package com.marketplace.runner_service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+
+/**
+ * The opt-in {@code metadata.deterministic} / {@code metadata.cacheTtl} capability of an agent spec.
+ */
+public record ResultCachePolicy(boolean enabled, Duration ttl) {
+
+    public static final ResultCachePolicy DISABLED = new ResultCachePolicy(false, Duration.ZERO);
+
+    private static final long DEFAULT_TTL_SECONDS = 3600;
+
+    public static ResultCachePolicy fromMetadata(ObjectMapper mapper, String metadataJson) {
+        if (metadataJson == null || metadataJson.isBlank()) {
+            return DISABLED;
+        }
+        try {
+            JsonNode metadata = mapper.readTree(metadataJson);
+            long ttlSeconds = metadata.path("cacheTtl").asLong(DEFAULT_TTL_SECONDS);
+            if (!metadata.path("deterministic").asBoolean(false) || ttlSeconds <= 0) {
+                return DISABLED;
+            }
+            return new ResultCachePolicy(true, Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid agent metadata: " + metadataJson, e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+// runner-service/src/main/java/com/marketplace/runner_service/RunContext.java
+package com.marketplace.runner_service;
+
+/**
+ * Who a run is for, as far as scheduling is concerned. Higher priorities are placed first;
+ * runs of equal priority are interleaved across pipelines.
+ */
+public record RunContext(String pipelineId, int priority) {
+
+    public static final RunContext DEFAULT = new RunContext(null, 0);
+
+    String fairnessKey() {
+        return pipelineId == null ? "" : pipelineId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.marketplace.runner_service;
+
+import lombok.Getter;
+
+/**
+ * Raised when catalog-service has no agent (or version) by the requested id.
+ */
+@Getter
+public class UnknownAgentException extends IllegalArgumentException {
+
+    private final String agentId;
+
+    public UnknownAgentException(String agentId) {
+        super("Unknown agent: " + agentId);
+        this.agentId = agentId;
+    }
+}
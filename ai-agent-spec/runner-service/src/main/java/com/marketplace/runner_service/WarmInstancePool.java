@@ -0,0 +1,216 @@
+// runner-service/src/main/java/com/marketplace/runner_service/WarmInstancePool.java
+package com.marketplace.runner_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps started agent instances around between runs, keyed by image and resource limits.
+ * Idle instances are handed out most-recently-used first so the oldest ones age out.
+ * Each image has a pull generation; instances started before the latest re-pull of their
+ * image are stopped instead of being reused. Background starts and stops run on the bounded
+ * elastic scheduler; they can take as long as a container startup.
+ */
+@Slf4j
+@Component
+public class WarmInstancePool {
+
+    private final AgentExecutor executor;
+    private final int minIdle;
+    private final int maxIdle;
+    private final Duration idleTimeout;
+
+    private final Map<PoolKey, Deque<IdleInstance>> idle = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> imageGenerations = new ConcurrentHashMap<>();
+    // pre-starts scheduled by maintain() that have not finished yet
+    private final Map<PoolKey, AtomicInteger> starting = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer startupTimer;
+
+    public WarmInstancePool(
+            AgentExecutor executor,
+            MeterRegistry meterRegistry,
+            @Value("${runner.pool.min-idle:0}") int minIdle,
+            @Value("${runner.pool.max-idle:4}") int maxIdle,
+            @Value("${runner.pool.idle-timeout:10m}") Duration idleTimeout) {
+        this.executor = executor;
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        this.idleTimeout = idleTimeout;
+        this.hits = meterRegistry.counter("runner.pool.acquire", "result", "hit");
+        this.misses = meterRegistry.counter("runner.pool.acquire", "result", "miss");
+        this.startupTimer = meterRegistry.timer("runner.pool.startup");
+        meterRegistry.gauge("runner.pool.idle", idle, pools -> pools.values().stream().mapToInt(Deque::size).sum());
+    }
+
+    /**
+     * Hands out a healthy idle instance or starts a new one. Health checks and cold starts
+     * block, so they run on the bounded elastic scheduler rather than the caller's thread.
+     */
+    public Mono<Lease> acquire(PoolKey key) {
+        return Mono.fromCallable(() -> acquireNow(key)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Lease acquireNow(PoolKey key) throws IOException {
+        Deque<IdleInstance> queue = idle.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+        IdleInstance candidate;
+        while ((candidate = queue.pollFirst()) != null) {
+            if (isCurrent(key, candidate.generation()) && candidate.instance().isHealthy()) {
+                hits.increment();
+                return new Lease(key, candidate.instance(), candidate.generation());
+            }
+            candidate.instance().close();
+        }
+        misses.increment();
+        // read before starting, so an instance started while its image is re-pulled counts as stale
+        long generation = generation(key).get();
+        return new Lease(key, startInstance(key), generation);
+    }
+
+    /**
+     * Returns an instance after a run. Instances whose run failed, or whose image was re-pulled
+     * during the run, are discarded rather than reused; health is re-checked on the next acquire,
+     * so this never blocks.
+     */
+    public void release(Lease lease, boolean reusable) {
+        Deque<IdleInstance> queue = idle.computeIfAbsent(lease.key(), k -> new ConcurrentLinkedDeque<>());
+        if (reusable && isCurrent(lease.key(), lease.generation()) && queue.size() < maxIdle) {
+            queue.offerFirst(new IdleInstance(lease.instance(), Instant.now(), lease.generation()));
+        } else {
+            lease.instance().close();
+        }
+    }
+
+    /**
+     * Health-checks the most recently used idle instance of {@code key}, discarding it if unhealthy.
+     * Empty when there is no idle instance to ask. Blocks; call from a background thread.
+     */
+    public Optional<Boolean> probeIdle(PoolKey key) {
+        Deque<IdleInstance> queue = idle.get(key);
+        IdleInstance candidate = queue == null ? null : queue.peekFirst();
+        if (candidate == null) {
+            return Optional.empty();
+        }
+        boolean healthy = candidate.instance().isHealthy();
+        if (!healthy && queue.remove(candidate)) {
+            candidate.instance().close();
+        }
+        return Optional.of(healthy);
+    }
+
+    /**
+     * Starts a new pull generation of {@code dockerImage}, e.g. after its tag was re-pulled, and stops
+     * its idle instances. Instances busy with a run finish it and are then stopped on release.
+     * Blocks; call from a background thread.
+     */
+    public void evictIdle(String dockerImage) {
+        imageGenerations.computeIfAbsent(dockerImage, image -> new AtomicLong()).incrementAndGet();
+        idle.forEach((key, queue) -> {
+            if (key.dockerImage().equals(dockerImage)) {
+                IdleInstance candidate;
+                while ((candidate = queue.pollFirst()) != null) {
+                    candidate.instance().close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops instances idle for longer than the idle timeout and tops each pool up to min-idle.
+     * Only schedules the starts and stops, so the scheduler thread is never held by Docker.
+     */
+    @Scheduled(fixedDelayString = "${runner.pool.maintenance-interval:30s}")
+    void maintain() {
+        Instant cutoff = Instant.now().minus(idleTimeout);
+        idle.forEach((key, queue) -> {
+            // oldest instances sit at the tail
+            Iterator<IdleInstance> it = queue.descendingIterator();
+            while (it.hasNext() && queue.size() > minIdle) {
+                IdleInstance candidate = it.next();
+                if (candidate.idleSince().isBefore(cutoff) && queue.remove(candidate)) {
+                    stopLater(candidate.instance());
+                }
+            }
+            AtomicInteger pending = starting.computeIfAbsent(key, k -> new AtomicInteger());
+            while (queue.size() + pending.get() < minIdle) {
+                pending.incrementAndGet();
+                startLater(key, queue, pending);
+            }
+        });
+    }
+
+    private void startLater(PoolKey key, Deque<IdleInstance> queue, AtomicInteger pending) {
+        long generation = generation(key).get();
+        Mono.fromCallable(() -> startInstance(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> pending.decrementAndGet())
+                .subscribe(instance -> {
+                    if (isCurrent(key, generation)) {
+                        queue.offerLast(new IdleInstance(instance, Instant.now(), generation));
+                    } else {
+                        instance.close();
+                    }
+                }, error -> log.warn("Could not pre-start instance of {}: {}", key.dockerImage(), error.getMessage()));
+    }
+
+    private static void stopLater(AgentInstance instance) {
+        Schedulers.boundedElastic().schedule(instance::close);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        idle.values().forEach(queue -> {
+            IdleInstance candidate;
+            while ((candidate = queue.pollFirst()) != null) {
+                candidate.instance().close();
+            }
+        });
+    }
+
+    private AgentInstance startInstance(PoolKey key) throws IOException {
+        long start = System.nanoTime();
+        AgentInstance instance = executor.start(key);
+        startupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return instance;
+    }
+
+    private AtomicLong generation(PoolKey key) {
+        return imageGenerations.computeIfAbsent(key.dockerImage(), image -> new AtomicLong());
+    }
+
+    private boolean isCurrent(PoolKey key, long generation) {
+        return generation(key).get() == generation;
+    }
+
+    /**
+     * @param generation the pull generation of the image the instance was started from
+     */
+    public record Lease(PoolKey key, AgentInstance instance, long generation) {
+    }
+
+    private record IdleInstance(AgentInstance instance, Instant idleSince, long generation) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.marketplace.runner_service.AdmissionController;
+import com.marketplace.runner_service.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControllerTests {
+
+	private final AdmissionController admission = new AdmissionController(
+			new SimpleMeterRegistry(), 2, 1, 1, Duration.ofMillis(200));
+
+	@Test
+	void queuesThenRejectsWhenSaturated() {
+		AdmissionController.Permit running = admission.admit("analyzer").block();
+		assertNotNull(running);
+
+		// a different agent still fits under the global cap
+		assertNotNull(admission.admit("scraper").block());
+
+		Mono<AdmissionController.Permit> queued = admission.admit("analyzer").cache();
+		queued.subscribe(permit -> { }, error -> { });
+
+		AdmissionRejectedException full = assertThrows(AdmissionRejectedException.class,
+				() -> admission.admit("analyzer").block());
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, full.getStatus());
+
+		AdmissionRejectedException timedOut = assertThrows(AdmissionRejectedException.class, queued::block);
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatus());
+	}
+
+	@Test
+	void releaseHandsSlotToWaiter() {
+		AdmissionController.Permit running = admission.admit("analyzer").block();
+		Mono<AdmissionController.Permit> queued = admission.admit("analyzer").cache();
+		queued.subscribe(permit -> { }, error -> { });
+
+		running.release();
+		assertNotNull(queued.block(Duration.ofSeconds(1)));
+	}
+
+	@Test
+	void grantToCancelledWaiterIsNotLost() {
+		for (int i = 0; i < 100; i++) {
+			AdmissionController.Permit running = admission.admit("analyzer").block(Duration.ofSeconds(1));
+			// a run holding its permit until it ends, as the runner does
+			Disposable waiter = Mono.usingWhen(admission.admit("analyzer"), permit -> Mono.never(),
+					permit -> Mono.fromRunnable(permit::release)).subscribe();
+			// the grant is handed over, then the run goes away, often before it is delivered
+			running.release();
+			waiter.dispose();
+		}
+		assertNotNull(admission.admit("analyzer").block(Duration.ofSeconds(1)));
+	}
+}
@@ -0,0 +1,140 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.marketplace.runner_service.AgentCircuitBreakers;
+import com.marketplace.runner_service.CircuitOpenException;
+import com.marketplace.runner_service.UnknownAgentException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgentCircuitBreakersTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void opensOnceTheFailureRateCrossesTheThresholdOverMinCalls() {
+		AgentCircuitBreakers breakers = breakers(Duration.ofMinutes(1));
+		breakers.acquire("a").failure();
+		breakers.acquire("a").success();
+		breakers.acquire("a").failure();
+		// Two failures in three calls, but fewer than min-calls so far
+		assertTrue(breakers.isSuspect("a"));
+		breakers.acquire("a").success();
+		breakers.acquire("a").failure();
+
+		CircuitOpenException e = assertThrows(CircuitOpenException.class, () -> breakers.acquire("a"));
+		assertEquals("a", e.getAgentId());
+		assertTrue(e.getRetryAfter().compareTo(Duration.ofSeconds(50)) > 0, e.getRetryAfter().toString());
+		assertEquals(1.0, registry.counter("runner.circuit.rejected").count());
+		// Other agents are unaffected
+		breakers.acquire("b").success();
+	}
+
+	@Test
+	void halfOpenLetsOneTrialThroughAndClosesOnSuccess() throws InterruptedException {
+		AgentCircuitBreakers breakers = breakers(Duration.ofMillis(100));
+		trip(breakers, "a");
+		assertThrows(CircuitOpenException.class, () -> breakers.acquire("a"));
+		Thread.sleep(150);
+
+		AgentCircuitBreakers.Call trial = breakers.acquire("a");
+		assertThrows(CircuitOpenException.class, () -> breakers.acquire("a"));
+		trial.success();
+
+		// Closed with a fresh window: one failure is not enough to open it again
+		breakers.acquire("a").failure();
+		breakers.acquire("a").success();
+		assertTrue(breakers.isSuspect("a"));
+	}
+
+	@Test
+	void failedTrialOpensTheCircuitAgain() throws InterruptedException {
+		AgentCircuitBreakers breakers = breakers(Duration.ofMillis(100));
+		trip(breakers, "a");
+		Thread.sleep(150);
+
+		breakers.acquire("a").failure();
+
+		assertThrows(CircuitOpenException.class, () -> breakers.acquire("a"));
+		Thread.sleep(150);
+		breakers.acquire("a").success();
+		breakers.acquire("a").success();
+		assertFalse(breakers.isSuspect("a"));
+	}
+
+	@Test
+	void abandonedTrialFreesTheSlotForAnother() throws InterruptedException {
+		AgentCircuitBreakers breakers = breakers(Duration.ofMillis(100));
+		trip(breakers, "a");
+		Thread.sleep(150);
+
+		breakers.acquire("a").abandon();
+
+		AgentCircuitBreakers.Call trial = breakers.acquire("a");
+		assertThrows(CircuitOpenException.class, () -> breakers.acquire("a"));
+		trial.success();
+	}
+
+	@Test
+	void callerErrorsDoNotCountAsFailures() {
+		AgentCircuitBreakers breakers = breakers(Duration.ofMinutes(1));
+		for (int i = 0; i < 4; i++) {
+			breakers.acquire("a").failure(new UnknownAgentException("a"));
+			breakers.acquire("a").failure(new IllegalArgumentException("Invalid input"));
+			breakers.acquire("a").failure(WebClientResponseException.create(422, "Unprocessable Entity", null, null, null));
+		}
+		assertFalse(breakers.isSuspect("a"));
+
+		// the agent failing, timing out or throttling still does
+		breakers.acquire("a").success();
+		breakers.acquire("a").failure(WebClientResponseException.create(500, "Internal Server Error", null, null, null));
+		breakers.acquire("a").failure(WebClientResponseException.create(429, "Too Many Requests", null, null, null));
+		breakers.acquire("a").failure(new IOException("Connection reset"));
+		assertThrows(CircuitOpenException.class, () -> breakers.acquire("a"));
+	}
+
+	@Test
+	void consecutiveFailedProbesOpenAndAHealthyProbeAllowsATrialEarly() {
+		AgentCircuitBreakers breakers = breakers(Duration.ofHours(1));
+		breakers.recordProbe("a", false);
+		breakers.acquire("a").success();
+		breakers.recordProbe("a", false);
+		assertThrows(CircuitOpenException.class, () -> breakers.acquire("a"));
+
+		// Long before the open duration is up
+		breakers.recordProbe("a", true);
+		breakers.acquire("a").success();
+		assertFalse(breakers.isSuspect("a"));
+	}
+
+	@Test
+	void onlyTheFirstOutcomeOfACallCounts() {
+		AgentCircuitBreakers breakers = breakers(Duration.ofMinutes(1));
+		for (int i = 0; i < 4; i++) {
+			AgentCircuitBreakers.Call call = breakers.acquire("a");
+			call.success();
+			call.failure();
+		}
+		breakers.acquire("a").success();
+		assertFalse(breakers.isSuspect("a"));
+	}
+
+	// Window of 4, opening at 50% failures once 4 calls are recorded, or after 2 failed probes
+	private AgentCircuitBreakers breakers(Duration openDuration) {
+		return new AgentCircuitBreakers(registry, 4, 4, 50, 2, openDuration);
+	}
+
+	private static void trip(AgentCircuitBreakers breakers, String agentId) {
+		for (int i = 0; i < 4; i++) {
+			breakers.acquire(agentId).failure();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.runner_service.AgentSpec;
+import com.marketplace.runner_service.BatchingPolicy;
+import com.marketplace.runner_service.ResourceLimits;
+import com.marketplace.runner_service.ResultCachePolicy;
+import com.marketplace.runner_service.AgentSpecCache;
+import com.marketplace.runner_service.UnknownAgentException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AgentSpecCacheTests {
+
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+	private HttpServer catalog;
+	private AgentSpecCache cache;
+
+	@BeforeEach
+	void startCatalog() throws IOException {
+		catalog = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		catalog.createContext("/agents/by-agent-id/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			String query = exchange.getRequestURI().getQuery();
+			requests.add(path + (query == null ? "" : "?" + query));
+			String agentId = path.substring(path.lastIndexOf('/') + 1);
+			try {
+				Thread.sleep(200); // long enough for concurrent callers to overlap
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			// a fresh connection per request, so no client reuses one the stub is about to drop
+			exchange.getResponseHeaders().add("Connection", "close");
+			if (agentId.equals("missing")) {
+				exchange.sendResponseHeaders(404, -1);
+			} else {
+				String version = query == null ? "1.0.0" : query.substring("version=".length());
+				String metadata = agentId.equals("summarizer")
+						? ",\"metadataJson\":\"{\\\"batching\\\":{\\\"maxBatchSize\\\":8},\\\"deterministic\\\":true}\""
+						+ ",\"resourceLimitsJson\":\"{\\\"memory\\\":\\\"512Mi\\\",\\\"cpu\\\":\\\"500m\\\"}\"" : "";
+				byte[] body = ("{\"agentId\":\"" + agentId + "\",\"version\":\"" + version
+						+ "\",\"dockerImage\":\"local/" + agentId + ":" + version + "\"" + metadata + "}")
+						.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			}
+			exchange.close();
+		});
+		catalog.setExecutor(Executors.newCachedThreadPool());
+		catalog.start();
+		cache = new AgentSpecCache(WebClient.builder(), new ObjectMapper(), new SimpleMeterRegistry(),
+				"http://127.0.0.1:" + catalog.getAddress().getPort(), 100, Duration.ofMinutes(5));
+	}
+
+	@AfterEach
+	void stopCatalog() {
+		catalog.stop(0);
+	}
+
+	@Test
+	void concurrentMissesShareOneCatalogRequest() {
+		List<AgentSpec> specs = Flux.range(0, 8)
+				.flatMap(i -> cache.get("analyzer", null))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(8, specs.size());
+		specs.forEach(spec -> assertEquals("local/analyzer:1.0.0", spec.getDockerImage()));
+		assertEquals(List.of("/agents/by-agent-id/analyzer"), requests);
+
+		cache.get("analyzer", null).block(Duration.ofSeconds(5));
+		assertEquals(1, requests.size());
+	}
+
+	@Test
+	void versionsAreCachedSeparatelyAndInvalidatedTogether() {
+		assertEquals("2.0.0", cache.get("analyzer", "2.0.0").block(Duration.ofSeconds(5)).getVersion());
+		assertEquals("1.0.0", cache.get("analyzer", null).block(Duration.ofSeconds(5)).getVersion());
+		cache.get("scraper", null).block(Duration.ofSeconds(5));
+		assertEquals(3, requests.size());
+
+		cache.invalidate("analyzer");
+		cache.get("analyzer", "2.0.0").block(Duration.ofSeconds(5));
+		cache.get("analyzer", null).block(Duration.ofSeconds(5));
+		cache.get("scraper", null).block(Duration.ofSeconds(5));
+
+		assertEquals(List.of(
+				"/agents/by-agent-id/analyzer?version=2.0.0",
+				"/agents/by-agent-id/analyzer",
+				"/agents/by-agent-id/scraper",
+				"/agents/by-agent-id/analyzer?version=2.0.0",
+				"/agents/by-agent-id/analyzer"), requests);
+	}
+
+	@Test
+	void capabilitiesAreParsedWhenTheSpecIsLoaded() {
+		AgentSpec spec = cache.get("summarizer", null).block(Duration.ofSeconds(5));
+		assertEquals(new BatchingPolicy(true, 8, Duration.ofMillis(10)), spec.getBatching());
+		assertEquals(new ResultCachePolicy(true, Duration.ofHours(1)), spec.getResultCaching());
+		assertEquals(new ResourceLimits(512L * 1024 * 1024, 500), spec.getResourceLimits());
+		assertSame(spec, cache.get("summarizer", null).block(Duration.ofSeconds(5)));
+
+		AgentSpec plain = cache.get("analyzer", null).block(Duration.ofSeconds(5));
+		assertEquals(BatchingPolicy.DISABLED, plain.getBatching());
+		assertEquals(ResultCachePolicy.DISABLED, plain.getResultCaching());
+		assertEquals(ResourceLimits.UNSPECIFIED, plain.getResourceLimits());
+	}
+
+	@Test
+	void unknownAgentIsReportedAndNotCached() {
+		UnknownAgentException e = assertThrows(UnknownAgentException.class,
+				() -> cache.get("missing", null).block(Duration.ofSeconds(5)));
+		assertEquals("missing", e.getAgentId());
+
+		assertThrows(UnknownAgentException.class, () -> cache.get("missing", null).block(Duration.ofSeconds(5)));
+		assertEquals(2, requests.size());
+	}
+}
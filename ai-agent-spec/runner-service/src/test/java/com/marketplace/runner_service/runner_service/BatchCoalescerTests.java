@@ -0,0 +1,108 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.runner_service.AgentSpec;
+import com.marketplace.runner_service.BatchCoalescer;
+import com.marketplace.runner_service.BatchingPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchCoalescerTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final BatchCoalescer coalescer = new BatchCoalescer(registry);
+	private final List<List<Map<String, Object>>> batches = new CopyOnWriteArrayList<>();
+
+	// Echoes each input's n, so outputs can be matched to their callers
+	private final Function<List<Map<String, Object>>, Mono<List<String>>> agent = inputs -> {
+		batches.add(List.copyOf(inputs));
+		return Mono.just(inputs.stream().map(input -> "out-" + input.get("n")).toList());
+	};
+
+	@Test
+	void fullBatchIsDispatchedWithoutWaitingForTheLinger() {
+		BatchingPolicy policy = new BatchingPolicy(true, 3, Duration.ofHours(1));
+
+		List<String> outputs = Flux.range(0, 3)
+				.flatMapSequential(n -> coalescer.submit(spec("1.0.0"), policy, Map.of("n", n), agent))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(List.of("out-0", "out-1", "out-2"), outputs);
+		assertEquals(1, batches.size());
+		assertEquals(3.0, registry.summary("runner.batch.size").totalAmount());
+	}
+
+	@Test
+	void partialBatchIsDispatchedAfterTheLinger() {
+		BatchingPolicy policy = new BatchingPolicy(true, 10, Duration.ofMillis(100));
+		long start = System.nanoTime();
+
+		List<String> outputs = Flux.range(0, 2)
+				.flatMapSequential(n -> coalescer.submit(spec("1.0.0"), policy, Map.of("n", n), agent))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(List.of("out-0", "out-1"), outputs);
+		assertEquals(1, batches.size());
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 100, "dispatched before the linger");
+	}
+
+	@Test
+	void versionsAreBatchedSeparately() {
+		BatchingPolicy policy = new BatchingPolicy(true, 10, Duration.ofMillis(50));
+
+		Flux.merge(
+						coalescer.submit(spec("1.0.0"), policy, Map.of("n", 1), agent),
+						coalescer.submit(spec("2.0.0"), policy, Map.of("n", 2), agent))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(2, batches.size());
+	}
+
+	@Test
+	void mismatchedOutputCountFailsEveryCaller() {
+		BatchingPolicy policy = new BatchingPolicy(true, 2, Duration.ofHours(1));
+		Function<List<Map<String, Object>>, Mono<List<String>>> shortAgent = inputs -> Mono.just(List.of("only"));
+
+		Mono<String> first = coalescer.submit(spec("1.0.0"), policy, Map.of("n", 0), shortAgent).cache();
+		first.subscribe(output -> { }, error -> { });
+		Mono<String> second = coalescer.submit(spec("1.0.0"), policy, Map.of("n", 1), shortAgent);
+
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> second.block(Duration.ofSeconds(5)));
+		assertTrue(e.getMessage().contains("1 outputs for 2 inputs"), e.getMessage());
+		assertThrows(IllegalStateException.class, () -> first.block(Duration.ofSeconds(5)));
+	}
+
+	@Test
+	void policyIsReadFromAgentMetadata() {
+		ObjectMapper mapper = new ObjectMapper();
+
+		BatchingPolicy policy = BatchingPolicy.fromMetadata(mapper,
+				"{\"batching\":{\"maxBatchSize\":8,\"maxLingerMs\":25}}");
+		assertEquals(new BatchingPolicy(true, 8, Duration.ofMillis(25)), policy);
+		assertEquals(BatchingPolicy.DISABLED, BatchingPolicy.fromMetadata(mapper, "{\"batching\":{\"enabled\":false}}"));
+		assertEquals(BatchingPolicy.DISABLED, BatchingPolicy.fromMetadata(mapper, null));
+		assertThrows(IllegalArgumentException.class, () -> BatchingPolicy.fromMetadata(mapper, "{"));
+	}
+
+	private static AgentSpec spec(String version) {
+		AgentSpec spec = new AgentSpec();
+		spec.setAgentId("classifier");
+		spec.setVersion(version);
+		return spec;
+	}
+}
@@ -0,0 +1,131 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.marketplace.runner_service.ImagePuller;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImagePullerTests {
+
+	@TempDir
+	Path dir;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private Path log;
+	private ImagePuller puller;
+
+	// Stands in for the docker CLI: nothing is present locally, pulls are slow ("huge" ones very), "broken" images fail
+	@BeforeEach
+	void fakeDocker() throws IOException {
+		log = dir.resolve("docker.log");
+		Path docker = dir.resolve("docker");
+		Files.writeString(docker, """
+				#!/bin/sh
+				echo "$*" >> "%s"
+				[ "$1" = image ] && exit 1
+				sleep 0.3
+				case "$2" in *huge*) sleep 2 ;; esac
+				case "$2" in *broken*) exit 1 ;; esac
+				exit 0
+				""".formatted(log));
+		assertTrue(docker.toFile().setExecutable(true));
+		puller = new ImagePuller(registry, true, 2, 2, docker.toString());
+	}
+
+	@Test
+	void concurrentRequestsShareOnePull() throws IOException {
+		List<CompletableFuture<Void>> pulls = IntStream.range(0, 5)
+				.mapToObj(i -> puller.ensurePresent("repo/analyzer:1"))
+				.toList();
+		CompletableFuture.allOf(pulls.toArray(CompletableFuture[]::new)).join();
+
+		assertEquals(List.of("image inspect repo/analyzer:1", "pull repo/analyzer:1"), calls());
+		assertEquals(4.0, registry.counter("runner.image.pull", "result", "joined").count());
+
+		// Known to be present now
+		assertTrue(puller.ensurePresent("repo/analyzer:1").isDone());
+		assertEquals(2, calls().size());
+	}
+
+	@Test
+	void referencesAreKeyedAsDockerResolvesThem() throws IOException {
+		CompletableFuture<Void> first = puller.ensurePresent("analyzer");
+		CompletableFuture<Void> second = puller.ensurePresent("docker.io/library/analyzer:latest");
+		CompletableFuture.allOf(first, second).join();
+
+		assertEquals(List.of("image inspect analyzer", "pull analyzer"), calls());
+	}
+
+	@Test
+	void digestPinnedReferencesArePulledPerRepository() throws IOException {
+		CompletableFuture<Void> first = puller.ensurePresent("mirror-a/analyzer@sha256:abc");
+		CompletableFuture<Void> second = puller.ensurePresent("mirror-b/analyzer@sha256:abc");
+		CompletableFuture.allOf(first, second).join();
+
+		// The same digest under another name is not present under this one
+		assertEquals(List.of("pull mirror-a/analyzer@sha256:abc", "pull mirror-b/analyzer@sha256:abc"),
+				calls().stream().filter(call -> call.startsWith("pull")).sorted().toList());
+		// Immutable content: a refresh does not pull it again
+		puller.refresh("mirror-a/analyzer@sha256:abc").join();
+		assertEquals(2, calls().stream().filter(call -> call.startsWith("pull")).count());
+	}
+
+	@Test
+	void runsDoNotWaitBehindPrefetches() throws IOException {
+		CompletableFuture<Void> huge1 = puller.prefetch("repo/huge:1");
+		CompletableFuture<Void> huge2 = puller.prefetch("repo/huge:2");
+		// queued behind both
+		CompletableFuture<Void> queued = puller.prefetch("repo/analyzer:1");
+
+		puller.ensurePresent("repo/other:1").orTimeout(1, TimeUnit.SECONDS).join();
+		// The run takes over the queued prefetch of the image it needs
+		puller.ensurePresent("repo/analyzer:1").orTimeout(1, TimeUnit.SECONDS).join();
+		assertTrue(queued.isDone());
+		assertFalse(huge1.isDone() || huge2.isDone());
+
+		CompletableFuture.allOf(huge1, huge2).join();
+		assertEquals(1, calls().stream().filter(call -> call.equals("pull repo/analyzer:1")).count());
+	}
+
+	@Test
+	void failedPullReachesEveryWaiterAndIsRetriedNextTime() throws IOException {
+		CompletableFuture<Void> first = puller.ensurePresent("repo/broken:1");
+		CompletableFuture<Void> joined = puller.ensurePresent("repo/broken:1");
+
+		assertThrows(CompletionException.class, first::join);
+		assertThrows(CompletionException.class, joined::join);
+		assertThrows(CompletionException.class, () -> puller.ensurePresent("repo/broken:1").join());
+
+		assertEquals(2, calls().stream().filter(call -> call.startsWith("pull")).count());
+		assertEquals(2.0, registry.counter("runner.image.pull", "result", "failed").count());
+	}
+
+	@Test
+	void refreshPullsAMutableTagAgain() throws IOException {
+		puller.ensurePresent("repo/analyzer:latest").join();
+		puller.refresh("repo/analyzer:latest").join();
+
+		// The refresh skips the local inspect: the image is there, but the tag may have moved
+		assertEquals(List.of("image inspect repo/analyzer:latest", "pull repo/analyzer:latest",
+				"pull repo/analyzer:latest"), calls());
+	}
+
+	private List<String> calls() throws IOException {
+		return Files.exists(log) ? Files.readAllLines(log) : List.of();
+	}
+}
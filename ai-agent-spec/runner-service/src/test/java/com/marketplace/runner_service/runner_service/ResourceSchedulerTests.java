@@ -0,0 +1,168 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.marketplace.runner_service.AdmissionRejectedException;
+import com.marketplace.runner_service.ResourceLimits;
+import com.marketplace.runner_service.ResourceScheduler;
+import com.marketplace.runner_service.RunContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceSchedulerTests {
+
+	private final ResourceScheduler scheduler = new ResourceScheduler(
+			new SimpleMeterRegistry(), "1Gi", "1000m", "256Mi", "250m", Duration.ofMillis(100), Duration.ofMillis(200));
+	private final ResourceLimits large = new ResourceLimits(768L * 1024 * 1024, 500);
+	private final ResourceLimits full = new ResourceLimits(1024L * 1024 * 1024, 1000);
+
+	@Test
+	void rejectsWhenCapacityDoesNotFreeUpInTime() {
+		ResourceScheduler.Reservation running = scheduler.reserve(large, RunContext.DEFAULT).block();
+		assertNotNull(running);
+
+		AdmissionRejectedException timedOut = assertThrows(AdmissionRejectedException.class,
+				() -> scheduler.reserve(large, RunContext.DEFAULT).block());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatus());
+
+		// the timed-out run left the queue, so freed capacity is not held for it
+		running.release();
+		assertNotNull(scheduler.reserve(large, RunContext.DEFAULT).block(Duration.ofSeconds(1)));
+	}
+
+	@Test
+	void releaseGrantsWaitingRun() {
+		ResourceScheduler.Reservation running = scheduler.reserve(large, RunContext.DEFAULT).block();
+		Mono<ResourceScheduler.Reservation> waiting = scheduler.reserve(large, new RunContext("pipeline-a", 0)).cache();
+		waiting.subscribe(reservation -> { }, error -> { });
+
+		running.release();
+		assertNotNull(waiting.block(Duration.ofSeconds(1)));
+	}
+
+	@Test
+	void grantToCancelledRunIsNotLost() {
+		for (int i = 0; i < 100; i++) {
+			ResourceScheduler.Reservation running = scheduler.reserve(large, RunContext.DEFAULT).block(Duration.ofSeconds(1));
+			Disposable waiting = Mono.usingWhen(scheduler.reserve(large, RunContext.DEFAULT), reservation -> Mono.never(),
+					reservation -> Mono.fromRunnable(reservation::release)).subscribe();
+			running.release();
+			waiting.dispose();
+		}
+		assertNotNull(scheduler.reserve(large, RunContext.DEFAULT).block(Duration.ofSeconds(1)));
+	}
+
+	@Test
+	void higherPriorityIsPlacedFirst() throws InterruptedException {
+		ResourceScheduler scheduler = patient();
+		ResourceScheduler.Reservation running = scheduler.reserve(full, RunContext.DEFAULT).block();
+		List<String> order = new CopyOnWriteArrayList<>();
+		queue(scheduler, "low", new RunContext("pipeline-a", 0), order);
+		queue(scheduler, "high-1", new RunContext("pipeline-b", 5), order);
+		queue(scheduler, "high-2", new RunContext("pipeline-c", 5), order);
+
+		running.release();
+
+		await(order, 3);
+		assertEquals(List.of("high-1", "high-2", "low"), order);
+	}
+
+	@Test
+	void pipelinesOfEqualPriorityTakeTurns() throws InterruptedException {
+		ResourceScheduler scheduler = patient();
+		ResourceScheduler.Reservation running = scheduler.reserve(full, RunContext.DEFAULT).block();
+		List<String> order = new CopyOnWriteArrayList<>();
+		queue(scheduler, "a-1", new RunContext("pipeline-a", 0), order);
+		queue(scheduler, "a-2", new RunContext("pipeline-a", 0), order);
+		queue(scheduler, "a-3", new RunContext("pipeline-a", 0), order);
+		queue(scheduler, "b-1", new RunContext("pipeline-b", 0), order);
+
+		running.release();
+
+		await(order, 4);
+		assertEquals(List.of("a-1", "b-1", "a-2", "a-3"), order);
+	}
+
+	@Test
+	void abandonedHeadOfLineLetsSmallerRunsThrough() {
+		// No backfill: a waiting run holds capacity for itself straight away
+		ResourceScheduler strict = new ResourceScheduler(
+				new SimpleMeterRegistry(), "1Gi", "1000m", "256Mi", "250m", Duration.ZERO, Duration.ofSeconds(5));
+		ResourceScheduler.Reservation running = strict.reserve(large, RunContext.DEFAULT).block();
+		Disposable blocked = strict.reserve(full, new RunContext("pipeline-a", 0)).subscribe();
+		Mono<ResourceScheduler.Reservation> small = strict.reserve(ResourceLimits.UNSPECIFIED, new RunContext("pipeline-b", 0))
+				.cache();
+		small.subscribe(reservation -> { }, error -> { });
+
+		// The caller of the large run goes away; nothing is released
+		blocked.dispose();
+
+		assertNotNull(small.block(Duration.ofSeconds(1)));
+		running.release();
+	}
+
+	@Test
+	void starvingHeadOfLineStopsBackfill() throws InterruptedException {
+		ResourceScheduler scheduler = new ResourceScheduler(
+				new SimpleMeterRegistry(), "1Gi", "1000m", "256Mi", "250m", Duration.ofMillis(100), Duration.ofSeconds(5));
+		ResourceScheduler.Reservation running = scheduler.reserve(large, RunContext.DEFAULT).block();
+		List<String> order = new CopyOnWriteArrayList<>();
+		Mono<ResourceScheduler.Reservation> starving = scheduler.reserve(full, new RunContext("pipeline-a", 0))
+				.doOnNext(reservation -> order.add("full")).cache();
+		starving.subscribe(reservation -> { }, error -> { });
+
+		// Not starving yet: a small run fits beside the running one and goes first
+		ResourceScheduler.Reservation early = scheduler.reserve(ResourceLimits.UNSPECIFIED, new RunContext("pipeline-b", 0))
+				.block(Duration.ofSeconds(1));
+		assertNotNull(early);
+		Thread.sleep(150);
+		Mono<ResourceScheduler.Reservation> late = scheduler.reserve(ResourceLimits.UNSPECIFIED, new RunContext("pipeline-b", 0))
+				.doOnNext(reservation -> order.add("small")).cache();
+		late.subscribe(reservation -> { }, error -> { });
+		Thread.sleep(50);
+		assertEquals(List.of(), order);
+
+		early.release();
+		running.release();
+		starving.block(Duration.ofSeconds(1)).release();
+		assertNotNull(late.block(Duration.ofSeconds(1)));
+		assertEquals(List.of("full", "small"), order);
+	}
+
+	@Test
+	void starvationThresholdMustBeShorterThanMaxWait() {
+		assertThrows(IllegalArgumentException.class, () -> new ResourceScheduler(
+				new SimpleMeterRegistry(), "1Gi", "1000m", "256Mi", "250m", Duration.ofSeconds(30), Duration.ofSeconds(5)));
+	}
+
+	private static ResourceScheduler patient() {
+		return new ResourceScheduler(
+				new SimpleMeterRegistry(), "1Gi", "1000m", "256Mi", "250m", Duration.ofSeconds(2), Duration.ofSeconds(5));
+	}
+
+	// Each run releases its reservation as soon as it is placed, so the next one can go
+	private static void queue(ResourceScheduler scheduler, String name, RunContext context, List<String> order) {
+		scheduler.reserve(new ResourceLimits(768L * 1024 * 1024, 500), context).subscribe(reservation -> {
+			order.add(name);
+			reservation.release();
+		});
+	}
+
+	private static void await(List<String> order, int size) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (order.size() < size) {
+			assertTrue(System.nanoTime() < deadline, "only placed " + order);
+			Thread.sleep(10);
+		}
+	}
+}
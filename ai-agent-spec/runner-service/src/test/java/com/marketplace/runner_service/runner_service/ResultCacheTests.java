@@ -0,0 +1,176 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.runner_service.AgentSpec;
+import com.marketplace.runner_service.ResultCache;
+import com.marketplace.runner_service.ResultCachePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultCacheTests {
+
+	@TempDir
+	Path dir;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AtomicInteger runs = new AtomicInteger();
+	private final ResultCachePolicy hour = new ResultCachePolicy(true, Duration.ofHours(1));
+
+	@Test
+	void sameInputInAnyKeyOrderRunsOnce() {
+		ResultCache cache = cache();
+		Map<String, Object> ab = new LinkedHashMap<>();
+		ab.put("a", 1);
+		ab.put("b", 2);
+		Map<String, Object> ba = new LinkedHashMap<>();
+		ba.put("b", 2);
+		ba.put("a", 1);
+
+		assertEquals("out-1", get(cache, spec("1.0.0"), hour, ab));
+		assertEquals("out-1", get(cache, spec("1.0.0"), hour, ba));
+
+		assertEquals(1, runs.get());
+		assertEquals(1.0, registry.counter("runner.result-cache", "result", "hit", "tier", "memory").count());
+	}
+
+	@Test
+	void diskTierSurvivesARestart() throws Exception {
+		get(cache(), spec("1.0.0"), hour, Map.of("q", "x"));
+		await(() -> files() == 1);
+
+		assertEquals("out-1", get(cache(), spec("1.0.0"), hour, Map.of("q", "x")));
+		assertEquals(1, runs.get());
+		assertEquals(1.0, registry.counter("runner.result-cache", "result", "hit", "tier", "disk").count());
+	}
+
+	@Test
+	void expiredResultsAreRunAgainInBothTiers() throws Exception {
+		ResultCachePolicy brief = new ResultCachePolicy(true, Duration.ofMillis(200));
+		ResultCache cache = cache();
+		get(cache, spec("1.0.0"), brief, Map.of("q", "x"));
+		await(() -> files() == 1);
+		Thread.sleep(300);
+
+		assertEquals("out-2", get(cache, spec("1.0.0"), brief, Map.of("q", "x")));
+		// A fresh instance only has the disk tier, whose entry has expired as well
+		Thread.sleep(300);
+		assertEquals("out-3", get(cache(), spec("1.0.0"), brief, Map.of("q", "x")));
+		// the expired file was dropped on read; let the new result land before the directory goes
+		await(() -> files() == 1);
+	}
+
+	@Test
+	void invalidationDropsEveryVersionOfTheAgentOnly() throws Exception {
+		ResultCache cache = cache();
+		get(cache, spec("1.0.0"), hour, Map.of("q", "x"));
+		get(cache, spec("2.0.0"), hour, Map.of("q", "x"));
+		AgentSpec other = spec("1.0.0");
+		other.setAgentId("translator");
+		get(cache, other, hour, Map.of("q", "x"));
+		await(() -> files() == 3);
+
+		cache.invalidate("summarizer");
+		await(() -> !Files.exists(dir.resolve("summarizer")));
+
+		assertEquals("out-4", get(cache, spec("1.0.0"), hour, Map.of("q", "x")));
+		assertEquals("out-5", get(cache, spec("2.0.0"), hour, Map.of("q", "x")));
+		assertEquals("out-3", get(cache, other, hour, Map.of("q", "x")));
+	}
+
+	@Test
+	void concurrentMissesShareOneRun() {
+		ResultCache cache = cache();
+		Mono<String> slow = Mono.delay(Duration.ofMillis(100)).map(tick -> "out-" + runs.incrementAndGet());
+
+		List<String> outputs = Flux.range(0, 5)
+				.flatMap(i -> cache.getOrRun(spec("1.0.0"), hour, Map.of("q", "x"), slow))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(List.of("out-1", "out-1", "out-1", "out-1", "out-1"), outputs);
+		assertEquals(1.0, registry.counter("runner.result-cache", "result", "miss", "tier", "none").count());
+	}
+
+	@Test
+	void runInFlightDuringInvalidationIsNotCached() throws Exception {
+		ResultCache cache = cache();
+		Sinks.One<String> output = Sinks.one();
+		CompletableFuture<String> stale = cache.getOrRun(spec("1.0.0"), hour, Map.of("q", "x"), output.asMono())
+				.toFuture();
+
+		// The agent is re-registered while the run started under the old registration is still going
+		cache.invalidate("summarizer");
+		output.tryEmitValue("stale");
+		assertEquals("stale", stale.get(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+
+		assertEquals(0, files());
+		assertEquals("out-1", get(cache, spec("1.0.0"), hour, Map.of("q", "x")));
+	}
+
+	@Test
+	void policyIsReadFromAgentMetadata() {
+		assertEquals(new ResultCachePolicy(true, Duration.ofSeconds(60)),
+				ResultCachePolicy.fromMetadata(mapper, "{\"deterministic\":true,\"cacheTtl\":60}"));
+		assertEquals(new ResultCachePolicy(true, Duration.ofHours(1)),
+				ResultCachePolicy.fromMetadata(mapper, "{\"deterministic\":true}"));
+		assertEquals(ResultCachePolicy.DISABLED, ResultCachePolicy.fromMetadata(mapper, "{\"cacheTtl\":60}"));
+		assertEquals(ResultCachePolicy.DISABLED,
+				ResultCachePolicy.fromMetadata(mapper, "{\"deterministic\":true,\"cacheTtl\":0}"));
+	}
+
+	private ResultCache cache() {
+		return new ResultCache(mapper, registry, dir, 100);
+	}
+
+	// Each run produces a distinct output, so a cached result can be told from a fresh one
+	private String get(ResultCache cache, AgentSpec agent, ResultCachePolicy policy, Map<String, Object> input) {
+		Mono<String> run = Mono.fromCallable(() -> "out-" + runs.incrementAndGet());
+		return cache.getOrRun(agent, policy, input, run).block(Duration.ofSeconds(5));
+	}
+
+	private long files() {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			return paths.filter(path -> path.toString().endsWith(".json")).count();
+		} catch (IOException | UncheckedIOException e) {
+			return -1; // a file moved under the walk; look again
+		}
+	}
+
+	private static void await(BooleanSupplier done) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!done.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "timed out waiting for the disk tier");
+			Thread.sleep(20);
+		}
+	}
+
+	private static AgentSpec spec(String version) {
+		AgentSpec spec = new AgentSpec();
+		spec.setAgentId("summarizer");
+		spec.setVersion(version);
+		return spec;
+	}
+}
@@ -0,0 +1,197 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.marketplace.runner_service.AgentExecutor;
+import com.marketplace.runner_service.AgentInstance;
+import com.marketplace.runner_service.AgentRunnerService;
+import com.marketplace.runner_service.RunContext;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Neither real executor is active: the agent is the test's, so it decides when each chunk is produced
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"runner.executor=test",
+		"runner.image-pull.enabled=false",
+		"runner.health.probe-interval=1h",
+		"runner.admission.max-in-flight-per-agent=1",
+		"runner.admission.max-queued=0"
+})
+class StreamingRunTests {
+
+	private static final BlockingQueue<Sinks.Many<DataBuffer>> runs = new LinkedBlockingQueue<>();
+	private static final AtomicInteger started = new AtomicInteger();
+	private static HttpServer catalog;
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private AgentRunnerService runnerService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void catalog(DynamicPropertyRegistry registry) throws IOException {
+		catalog = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		catalog.createContext("/agents/by-agent-id/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			if (path.endsWith("/streamer")) {
+				byte[] body = "{\"agentId\":\"streamer\",\"version\":\"1.0.0\",\"dockerImage\":\"local/streamer:1\"}"
+						.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			} else {
+				exchange.sendResponseHeaders(404, -1);
+			}
+			exchange.close();
+		});
+		catalog.start();
+		registry.add("catalog.service.url", () -> "http://127.0.0.1:" + catalog.getAddress().getPort());
+	}
+
+	@AfterAll
+	static void stopCatalog() {
+		catalog.stop(0);
+	}
+
+	@Test
+	void relaysEachChunkBeforeTheAgentFinishes() throws InterruptedException {
+		for (int i = 0; i < 2; i++) {
+			Iterator<String> lines = stream("streamer").returnResult(String.class)
+					.getResponseBody()
+					.toIterable()
+					.iterator();
+			// The agent is still running: the first line has to reach the caller on its own
+			assertEquals("{\"n\":1}", lines.next());
+			Sinks.Many<DataBuffer> run = runs.poll(5, TimeUnit.SECONDS);
+			assertNotNull(run, "the agent was never invoked");
+			run.tryEmitNext(chunk("{\"n\":2}\n"));
+			run.tryEmitComplete();
+			assertEquals("{\"n\":2}", lines.next());
+			assertFalse(lines.hasNext());
+		}
+		// The instance went back to the pool once the first stream completed
+		assertEquals(1, started.get());
+	}
+
+	@Test
+	void failureBeforeTheFirstByteIsAnErrorResponse() {
+		stream("missing")
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.agentId").isEqualTo("missing");
+	}
+
+	@Test
+	void rejectionBeforeTheFirstByteIsAnErrorResponse() throws InterruptedException {
+		Iterator<String> running = stream("streamer").returnResult(String.class)
+				.getResponseBody()
+				.toIterable()
+				.iterator();
+		assertEquals("{\"n\":1}", running.next());
+		Sinks.Many<DataBuffer> run = runs.poll(5, TimeUnit.SECONDS);
+		assertNotNull(run, "the agent was never invoked");
+
+		// the agent's one slot is taken and nothing may queue
+		stream("streamer")
+				.expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+				.expectHeader().exists(HttpHeaders.RETRY_AFTER)
+				.expectBody()
+				.jsonPath("$.error").isEqualTo("Runner queue is full");
+
+		run.tryEmitComplete();
+		assertFalse(running.hasNext());
+	}
+
+	@Test
+	void outputNeverSubscribedHoldsNothing() {
+		int instances = started.get();
+		Flux<DataBuffer> output = runnerService.startAgent("streamer", null, Map.of("q", "x"), RunContext.DEFAULT)
+				.block(Duration.ofSeconds(5));
+		assertNotNull(output);
+
+		// as when the client goes away before the body is written
+		assertEquals(0, meterRegistry.get("runner.admission.in-flight").gauge().value());
+		assertEquals(instances, started.get());
+	}
+
+	private WebTestClient.ResponseSpec stream(String agentId) {
+		return client.post()
+				.uri("/runner/{agentId}/stream", agentId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_NDJSON)
+				.bodyValue(Map.of("q", "x"))
+				.exchange();
+	}
+
+	private static DataBuffer chunk(String text) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@TestConfiguration
+	static class Agents {
+
+		// Every run writes its first line straight away, then hands its output to the test
+		@Bean
+		AgentExecutor testExecutor() {
+			return key -> {
+				int n = started.incrementAndGet();
+				return new AgentInstance() {
+					@Override
+					public String id() {
+						return "test-" + n;
+					}
+
+					@Override
+					public boolean isHealthy() {
+						return true;
+					}
+
+					@Override
+					public Flux<DataBuffer> invoke(String inputJson) {
+						Sinks.Many<DataBuffer> output = Sinks.many().unicast().onBackpressureBuffer();
+						output.tryEmitNext(chunk("{\"n\":1}\n"));
+						runs.add(output);
+						return output.asFlux();
+					}
+
+					@Override
+					public void close() {
+					}
+				};
+			};
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.marketplace.runner_service.runner_service;
+
+import com.marketplace.runner_service.PoolKey;
+import com.marketplace.runner_service.ProcessAgentExecutor;
+import com.marketplace.runner_service.ResourceLimits;
+import com.marketplace.runner_service.WarmInstancePool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class WarmInstancePoolTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final WarmInstancePool pool = new WarmInstancePool(
+			new ProcessAgentExecutor("cat"), registry, 0, 2, Duration.ofMinutes(1));
+	private final PoolKey key = new PoolKey("local/echo:1", ResourceLimits.UNSPECIFIED, "/health");
+
+	@Test
+	void reusesInstanceAcrossRuns() {
+		WarmInstancePool.Lease first = pool.acquire(key).block();
+		String output = DataBufferUtils.join(first.instance().invoke("{\"n\":1}"))
+				.map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+				.block();
+		assertEquals("{\"n\":1}", output);
+		pool.release(first, true);
+
+		WarmInstancePool.Lease second = pool.acquire(key).block();
+		assertSame(first.instance(), second.instance());
+		pool.release(second, false);
+
+		assertEquals(1.0, registry.counter("runner.pool.acquire", "result", "hit").count());
+		assertEquals(1.0, registry.counter("runner.pool.acquire", "result", "miss").count());
+	}
+
+	@Test
+	void instanceBusyDuringARePullIsNotReused() {
+		WarmInstancePool.Lease busy = pool.acquire(key).block();
+		WarmInstancePool.Lease idle = pool.acquire(key).block();
+		pool.release(idle, true);
+
+		// The tag was re-pulled while one instance was running and the other sat idle
+		pool.evictIdle("local/echo:1");
+		pool.release(busy, true);
+
+		WarmInstancePool.Lease next = pool.acquire(key).block();
+		assertNotSame(busy.instance(), next.instance());
+		assertNotSame(idle.instance(), next.instance());
+		assertEquals(3.0, registry.counter("runner.pool.acquire", "result", "miss").count());
+
+		// Started after the re-pull, so it is reused
+		pool.release(next, true);
+		assertSame(next.instance(), pool.acquire(key).block().instance());
+	}
+}
@@ -39,7 +39,7 @@ const AgentNode = ({ data, isConnectable }) => {
             color: '#9ca3af',
             fontFamily: 'monospace'
           }}>
-            {data.agentId}
+            {data.agentId}{data.version && `@${data.version}`}
           </div>
         )}
       </div>
@@ -1,6 +1,49 @@
-import React from 'react';
+import React, { useEffect, useState } from 'react';
+import axios from 'axios';
+
+const ACTIVE = ['QUEUED', 'RUNNING'];
+
+const ExecutionPanel = ({ results: initialResults, onClose }) => {
+  const [results, setResults] = useState(initialResults);
+  const [steps, setSteps] = useState({});
+
+  useEffect(() => setResults(initialResults), [initialResults]);
+
+  // While the execution is active, follow its progress stream instead of polling;
+  // the full execution (output, step results) is fetched once when it finishes.
+  const executionId = initialResults.executionId;
+  const active = ACTIVE.includes(initialResults.status);
+  useEffect(() => {
+    if (!executionId || !active) {
+      return undefined;
+    }
+    const source = new EventSource(
+      `${axios.defaults.baseURL}/api/pipelines/executions/${executionId}/events`
+    );
+    const onSnapshot = (e) => {
+      const snapshot = JSON.parse(e.data);
+      setSteps(snapshot.steps || {});
+      setResults((current) => ({ ...current, status: snapshot.status }));
+      if (!ACTIVE.includes(snapshot.status)) {
+        source.close();
+        axios.get(`/api/pipelines/executions/${executionId}`).then((res) => setResults(res.data));
+      }
+    };
+    const onStep = (e) => {
+      const step = JSON.parse(e.data);
+      setSteps((current) => ({ ...current, [step.stepId]: step }));
+      setResults((current) => ({ ...current, status: 'RUNNING' }));
+    };
+    const onFinished = () => {
+      source.close();
+      axios.get(`/api/pipelines/executions/${executionId}`).then((res) => setResults(res.data));
+    };
+    source.addEventListener('SNAPSHOT', onSnapshot);
+    source.addEventListener('STEP', onStep);
+    source.addEventListener('FINISHED', onFinished);
+    return () => source.close();
+  }, [executionId, active]);
 
-const ExecutionPanel = ({ results, onClose }) => {
   return (
     <div className="execution-panel" style={{
       position: 'fixed',
@@ -71,6 +114,17 @@ const ExecutionPanel = ({ results, onClose }) => {
             </div>
           )}
           
+          {Object.keys(steps).length > 0 && (
+            <div style={{ marginBottom: '8px', fontSize: '12px' }}>
+              {Object.values(steps).map((step) => (
+                <div key={step.stepId} style={{ color: '#374151' }}>
+                  {step.stepId}: {step.status}
+                  {step.durationMs != null && ` (${step.durationMs}ms)`}
+                </div>
+              ))}
+            </div>
+          )}
+          
           {results.executionTimeMs && (
             <div style={{ marginBottom: '8px', fontSize: '12px', color: '#6b7280' }}>
               <strong>Duration:</strong> {results.executionTimeMs}ms
@@ -88,6 +88,7 @@ const PipelineCanvas = ({ pipelineId, onSave, onExecute }) => {
         data: {
           label: agentData.displayName || agentData.agentId,
           agentId: agentData.agentId,
+          version: agentData.version,
           config: agentData.config || {},
           inputSchema: agentData.inputSchema,
           outputSchema: agentData.outputSchema,
@@ -150,7 +151,8 @@ const PipelineCanvas = ({ pipelineId, onSave, onExecute }) => {
       const result = await onExecute(pipelineId, {
         input: { message: 'Test execution' },
         triggeredBy: 'manual',
-        executionMode: 'sync',
+        // Queued; ExecutionPanel follows progress over the events stream
+        executionMode: 'async',
       });
       setExecutionResults(result);
     } catch (error) {
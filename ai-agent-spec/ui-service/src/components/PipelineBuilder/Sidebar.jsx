@@ -13,9 +13,15 @@ const Sidebar = ({ onNodeDrag }) => {
 
   const fetchAgents = async () => {
     try {
-      // Fetch from catalog service
-      const response = await axios.get('/api/agents');
-      setAgents(response.data);
+      // Fetch from catalog service, following the listing's cursor page by page
+      const all = [];
+      let cursor = null;
+      do {
+        const response = await axios.get('/api/agents', { params: { cursor, limit: 200 } });
+        all.push(...response.data.items);
+        cursor = response.data.nextCursor;
+      } while (cursor);
+      setAgents(all);
     } catch (error) {
       console.error('Failed to fetch agents:', error);
       // Mock data for development
@@ -76,7 +82,7 @@ const Sidebar = ({ onNodeDrag }) => {
 
   const filteredAgents = agents.filter(agent => {
     const matchesSearch = agent.displayName.toLowerCase().includes(searchTerm.toLowerCase()) ||
-                         agent.description.toLowerCase().includes(searchTerm.toLowerCase()) ||
+                         agent.description?.toLowerCase().includes(searchTerm.toLowerCase()) ||
                          agent.tags?.some(tag => tag.toLowerCase().includes(searchTerm.toLowerCase()));
     
     const matchesCategory = selectedCategory === 'all' || agent.category === selectedCategory;
@@ -232,7 +238,7 @@ const Sidebar = ({ onNodeDrag }) => {
         ) : (
           filteredAgents.map(agent => (
             <div
-              key={agent.agentId}
+              key={agent.id || `${agent.agentId}@${agent.version}`}
               draggable
               onDragStart={(event) => onDragStart(event, agent)}
               style={{
@@ -255,6 +261,11 @@ const Sidebar = ({ onNodeDrag }) => {
             >
               <div style={{ fontWeight: '600', fontSize: '14px', marginBottom: '4px' }}>
                 🤖 {agent.displayName}
+                {agent.version && (
+                  <span style={{ fontWeight: '400', fontSize: '11px', color: '#6b7280', marginLeft: '6px' }}>
+                    v{agent.version}
+                  </span>
+                )}
               </div>
               <div style={{ fontSize: '12px', color: '#6b7280', marginBottom: '6px' }}>
                 {agent.description}